@@ -9,6 +9,7 @@ DROP TABLE IF EXISTS `acc_product_mapping`;
 
 -- drop portfolio subsystem
 DROP TABLE IF EXISTS `c_configuration`;
+DROP TABLE IF EXISTS `m_account_number_sequence`;
 DROP TABLE IF EXISTS `m_appuser`;
 DROP TABLE IF EXISTS `m_appuser_role`;
 DROP TABLE IF EXISTS `m_charge`;
@@ -270,6 +271,15 @@ CREATE TABLE `m_appuser_role` (
 -- ================ end of user admin tables ===============
 
 -- DDL for organisation wide related concepts
+CREATE TABLE `m_account_number_sequence` (
+  `entity_type` varchar(20) NOT NULL,
+  `prefix` varchar(10) NOT NULL DEFAULT '',
+  `number_length` int(3) NOT NULL DEFAULT '9',
+  `block_size` int(11) NOT NULL DEFAULT '100',
+  `next_value` bigint(20) DEFAULT NULL,
+  PRIMARY KEY (`entity_type`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
 CREATE TABLE `m_portfolio_command_source` (
   `id` bigint(20) NOT NULL AUTO_INCREMENT,
   `action_name` varchar(50) NOT NULL,
@@ -761,6 +771,7 @@ CREATE TABLE `m_loan_transaction` (
   `interest_portion_derived` decimal(19,6) DEFAULT NULL,
   `fee_charges_portion_derived` decimal(19,6) DEFAULT NULL,
   `penalty_charges_portion_derived` decimal(19,6) DEFAULT NULL,
+  `replay_checkpoint` text DEFAULT NULL,
   PRIMARY KEY (`id`),
   KEY `FKCFCEA42640BE0710` (`loan_id`),
   CONSTRAINT `FKCFCEA42640BE0710` FOREIGN KEY (`loan_id`) REFERENCES `m_loan` (`id`)
@@ -11,7 +11,14 @@ VALUES
 INSERT INTO `c_configuration`
 (`name`, `enabled`)
 VALUES 
-('maker-checker', 0);
+('maker-checker', 0),
+('arrears-aging-recalculation', 1);
+
+INSERT INTO `m_account_number_sequence`
+(`entity_type`, `prefix`, `number_length`, `block_size`, `next_value`)
+VALUES
+('client', '', 9, 100, NULL),
+('loan', '', 9, 100, NULL);
 
 INSERT INTO `r_enum_value` 
 VALUES 
@@ -256,6 +263,8 @@ INSERT INTO `m_permission`
 ('special','ALL_FUNCTIONS_READ',NULL,NULL,0),
 ('special', 'CHECKER_SUPER_USER', NULL, NULL, '0'),
 ('special','REPORTING_SUPER_USER',NULL,NULL,0),
+('special','READ_METRICS','METRICS','READ',0),
+('special','REFRESH_TENANTS','TENANTS','REFRESH',0),
 ('authorisation','READ_PERMISSION','PERMISSION','READ',0),
 ('authorisation','PERMISSIONS_ROLE','ROLE','PERMISSIONS',1),
 ('authorisation','CREATE_ROLE','ROLE','CREATE',1),
@@ -499,6 +508,9 @@ INSERT INTO `m_permission`
 ('transaction_loan', 'REMOVELOANOFFICER_LOAN_CHECKER', 'LOAN', 'REMOVELOANOFFICER', 0),
 ('transaction_loan', 'BULKREASSIGN_LOAN', 'LOAN', 'BULKREASSIGN', '1'),
 ('transaction_loan', 'BULKREASSIGN_LOAN_CHECKER', 'LOAN', 'BULKREASSIGN', '0'),
+('transaction_loan', 'BULKREPAYMENT_LOAN', 'LOAN', 'BULKREPAYMENT', '1'),
+('transaction_loan', 'BULKREPAYMENT_LOAN_CHECKER', 'LOAN', 'BULKREPAYMENT', '0'),
+('transaction_loan', 'RECALCULATEARREARSAGING_LOAN', 'LOAN', 'RECALCULATEARREARSAGING', '0'),
 ('transaction_loan', 'APPROVE_LOAN_CHECKER', 'LOAN', 'APPROVE', '0'),
 ('transaction_loan', 'APPROVEINPAST_LOAN_CHECKER', 'LOAN', 'APPROVEINPAST', '0'),
 ('transaction_loan', 'REJECT_LOAN_CHECKER', 'LOAN', 'REJECT', '0'),
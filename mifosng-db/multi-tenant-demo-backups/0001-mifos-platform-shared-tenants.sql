@@ -36,6 +36,14 @@ CREATE TABLE `tenants` (
   `schema_server_port` varchar(10) NOT NULL DEFAULT '3306',
   `schema_username` varchar(100) NOT NULL DEFAULT 'root',
   `schema_password` varchar(100) NOT NULL DEFAULT 'mysql',
+  `pool_initial_size` int(5) DEFAULT NULL,
+  `pool_max_active` int(5) DEFAULT NULL,
+  `pool_min_idle` int(5) DEFAULT NULL,
+  `pool_max_idle` int(5) DEFAULT NULL,
+  `replica_server` varchar(100) DEFAULT NULL,
+  `replica_server_port` varchar(10) DEFAULT NULL,
+  `replica_username` varchar(100) DEFAULT NULL,
+  `replica_password` varchar(100) DEFAULT NULL,
   PRIMARY KEY (`id`)
 ) ENGINE=InnoDB AUTO_INCREMENT=7 DEFAULT CHARSET=utf8;
 /*!40101 SET character_set_client = @saved_cs_client */;
@@ -47,7 +55,7 @@ CREATE TABLE `tenants` (
 LOCK TABLES `tenants` WRITE;
 /*!40000 ALTER TABLE `tenants` DISABLE KEYS */;
 INSERT INTO `tenants` VALUES 
-(1,'default','Default Demo Tenant','mifostenant-default','Asia/Kolkata',NULL,NULL,NULL,NULL,'localhost','3306','root','mysql');
+(1,'default','Default Demo Tenant','mifostenant-default','Asia/Kolkata',NULL,NULL,NULL,NULL,'localhost','3306','root','mysql',NULL,NULL,NULL,NULL,NULL,NULL,NULL,NULL);
 /*!40000 ALTER TABLE `tenants` ENABLE KEYS */;
 UNLOCK TABLES;
 
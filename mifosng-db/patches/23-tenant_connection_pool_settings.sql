@@ -0,0 +1,7 @@
+-- optional per tenant connection pool sizing, platform defaults are used where left null
+USE `mifosplatform-tenants`;
+ALTER TABLE `mifosplatform-tenants`.`tenants`
+ADD COLUMN `pool_initial_size` INT(5) NULL DEFAULT NULL AFTER `schema_password`,
+ADD COLUMN `pool_max_active` INT(5) NULL DEFAULT NULL AFTER `pool_initial_size`,
+ADD COLUMN `pool_min_idle` INT(5) NULL DEFAULT NULL AFTER `pool_max_active`,
+ADD COLUMN `pool_max_idle` INT(5) NULL DEFAULT NULL AFTER `pool_min_idle`;
@@ -0,0 +1,3 @@
+-- derived state of the repayment schedule stored on every n-th transaction so backdated transactions are not reprocessed from disbursement
+ALTER TABLE `m_loan_transaction`
+ADD COLUMN `replay_checkpoint` TEXT NULL DEFAULT NULL AFTER `penalty_charges_portion_derived`;
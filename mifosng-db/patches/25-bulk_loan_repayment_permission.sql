@@ -0,0 +1 @@
+INSERT INTO `m_permission` (`grouping`, `code`, `entity_name`, `action_name`, `can_maker_checker`) VALUES ('transaction_loan', 'BULKREPAYMENT_LOAN', 'LOAN', 'BULKREPAYMENT', '1'), ('transaction_loan', 'BULKREPAYMENT_LOAN_CHECKER', 'LOAN', 'BULKREPAYMENT', '0');
@@ -0,0 +1,12 @@
+-- blocks of account numbers are reserved from here so new clients and loans are given their account number before they are inserted
+CREATE TABLE `m_account_number_sequence` (
+  `entity_type` varchar(20) NOT NULL,
+  `prefix` varchar(10) NOT NULL DEFAULT '',
+  `number_length` int(3) NOT NULL DEFAULT '9',
+  `block_size` int(11) NOT NULL DEFAULT '100',
+  `next_value` bigint(20) DEFAULT NULL,
+  PRIMARY KEY (`entity_type`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+-- next_value is left null so numbering carries on after the account numbers previously derived from ids
+INSERT INTO `m_account_number_sequence` (`entity_type`) VALUES ('client'), ('loan');
@@ -0,0 +1,7 @@
+-- optional read replica of the tenant schema, read only work is sent there when set
+USE `mifosplatform-tenants`;
+ALTER TABLE `mifosplatform-tenants`.`tenants`
+ADD COLUMN `replica_server` VARCHAR(100) NULL DEFAULT NULL AFTER `pool_max_idle`,
+ADD COLUMN `replica_server_port` VARCHAR(10) NULL DEFAULT NULL AFTER `replica_server`,
+ADD COLUMN `replica_username` VARCHAR(100) NULL DEFAULT NULL AFTER `replica_server_port`,
+ADD COLUMN `replica_password` VARCHAR(100) NULL DEFAULT NULL AFTER `replica_username`;
@@ -0,0 +1,2 @@
+-- the nightly recalculation of arrears aging can be switched off per tenant
+INSERT INTO `c_configuration` (`name`, `enabled`) VALUES ('arrears-aging-recalculation', 1);
@@ -0,0 +1,88 @@
+package org.mifosplatform.infrastructure.core.serialization;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.joda.time.DateTime;
+import org.joda.time.LocalDate;
+import org.mifosplatform.infrastructure.core.api.JodaDateTimeAdapter;
+import org.mifosplatform.infrastructure.core.api.JodaLocalDateAdapter;
+import org.mifosplatform.infrastructure.core.api.ParameterListExclusionStrategy;
+import org.mifosplatform.portfolio.client.data.ClientData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+/**
+ * Partial response (<code>?fields=</code>) serialization of a client listing
+ * as done by <code>ClientsApiResource.retrieveAllIndividualClients</code>.
+ *
+ * The <code>gsonPerRequest</code> benchmarks reproduce the previous behaviour
+ * of building a new {@link Gson} for each response as a baseline. Run with
+ * <code>-PjmhProfiler=gc</code> to compare allocation per response.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PartialResponseSerializationBenchmark {
+
+    private static final Set<String> CLIENT_DATA_PARAMETERS = new HashSet<String>(Arrays.asList("id", "accountNo", "officeId",
+            "officeName", "externalId", "firstname", "middlename", "lastname", "fullname", "joinedDate", "displayName",
+            "clientOrBusinessName", "allowedOffices", "imagePresent"));
+
+    @Param({ "10", "10000" })
+    private int numberOfClients;
+
+    private final GoogleGsonSerializerHelper helper = new GoogleGsonSerializerHelper();
+    private final Set<String> requestedFields = new HashSet<String>(Arrays.asList("id", "displayName", "officeName", "joinedDate"));
+    private Object[] clients;
+
+    @Setup
+    public void setUpClients() {
+        final List<ClientData> clientData = new ArrayList<ClientData>(this.numberOfClients);
+        final LocalDate joinedDate = new LocalDate(2012, 1, 1);
+        for (int index = 0; index < this.numberOfClients; index++) {
+            clientData.add(new ClientData("00000000" + index, Long.valueOf(index % 20), "Office " + (index % 20), Long.valueOf(index),
+                    "First" + index, null, "Last" + index, null, "First" + index + " Last" + index, "ext" + index, joinedDate
+                            .plusDays(index % 365), null, null, null, null));
+        }
+        this.clients = clientData.toArray();
+    }
+
+    @Benchmark
+    public String cachedGson() {
+        final Gson gson = this.helper.createGsonBuilderWithParameterExclusionSerializationStrategy(CLIENT_DATA_PARAMETERS, false,
+                this.requestedFields);
+        return this.helper.serializedJsonFrom(gson, this.clients);
+    }
+
+    @Benchmark
+    public String gsonPerRequest() {
+        final Set<String> parameterNamesToSkip = new HashSet<String>(CLIENT_DATA_PARAMETERS);
+        parameterNamesToSkip.removeAll(this.requestedFields);
+
+        final GsonBuilder builder = new GsonBuilder().addSerializationExclusionStrategy(new ParameterListExclusionStrategy(
+                parameterNamesToSkip));
+        builder.registerTypeAdapter(LocalDate.class, new JodaLocalDateAdapter());
+        builder.registerTypeAdapter(DateTime.class, new JodaDateTimeAdapter());
+        return builder.create().toJson(this.clients);
+    }
+}
@@ -0,0 +1,157 @@
+package org.mifosplatform.portfolio.loanaccount.domain;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.joda.time.LocalDate;
+import org.mifosplatform.organisation.monetary.domain.MonetaryCurrency;
+import org.mifosplatform.organisation.monetary.domain.Money;
+import org.mifosplatform.portfolio.loanaccount.LoanRepaymentScheduleInstallmentBuilder;
+import org.mifosplatform.portfolio.loanaccount.LoanTransactionBuilder;
+import org.mifosplatform.portfolio.loanaccount.MonetaryCurrencyBuilder;
+import org.mifosplatform.portfolio.loanaccount.MoneyBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Processing of the repayment history of a weekly loan of 12 to 1000
+ * installments by each {@link LoanRepaymentScheduleTransactionProcessor}:
+ * 
+ * <ul>
+ * <li><code>ON_TIME</code>: each installment repaid in full on its due date.</li>
+ * <li><code>LATE</code>: repayments a week and two days late, every third one
+ * short by half an installment which is made up with the next.</li>
+ * <li><code>BACKDATED</code>: the on-time history, already processed once,
+ * reprocessed after a repayment backdated to a quarter of the term is added.</li>
+ * </ul>
+ * 
+ * Processing changes the schedule and transactions so both are rebuilt before
+ * each invocation, outside of the measurement.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoanRepaymentScheduleTransactionProcessorBenchmark {
+
+    public static enum History {
+        ON_TIME, LATE, BACKDATED
+    }
+
+    @Param({ "HeavensFamily", "Creocore", "RBI", "MifosStyle" })
+    private String strategy;
+
+    @Param({ "12", "52", "260", "1000" })
+    private int numberOfInstallments;
+
+    @Param({ "ON_TIME", "LATE", "BACKDATED" })
+    private History history;
+
+    private final MonetaryCurrency currency = new MonetaryCurrencyBuilder().withCode("KES").withDigitsAfterDecimal(2).build();
+    private final LocalDate disbursementDate = new LocalDate(2012, 1, 2);
+    private final Set<LoanCharge> noCharges = new HashSet<LoanCharge>();
+
+    private LoanRepaymentScheduleTransactionProcessor processor;
+    private List<LoanRepaymentScheduleInstallment> installments;
+    private List<LoanTransaction> transactions;
+
+    @Setup
+    public void setUpProcessor() {
+        if ("HeavensFamily".equals(this.strategy)) {
+            this.processor = new HeavensFamilyLoanRepaymentScheduleTransactionProcessor();
+        } else if ("Creocore".equals(this.strategy)) {
+            this.processor = new CreocoreLoanRepaymentScheduleTransactionProcessor();
+        } else if ("RBI".equals(this.strategy)) {
+            this.processor = new RBILoanRepaymentScheduleTransactionProcessor();
+        } else {
+            this.processor = new MifosStyleLoanRepaymentScheduleTransactionProcessor();
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void setUpHistory() {
+        this.installments = weeklySchedule();
+
+        if (this.history == History.LATE) {
+            this.transactions = lateRepayments();
+        } else {
+            this.transactions = onTimeRepayments();
+        }
+
+        if (this.history == History.BACKDATED) {
+            this.processor.handleTransaction(this.disbursementDate, this.transactions, this.currency, this.installments, this.noCharges);
+
+            final LocalDate backdated = this.disbursementDate.plusWeeks(this.numberOfInstallments / 4).plusDays(3);
+            this.transactions.add(repayment("500.00", backdated));
+            Collections.sort(this.transactions, new LoanTransactionComparator());
+        }
+    }
+
+    @Benchmark
+    public List<LoanRepaymentScheduleInstallment> processHistory() {
+        this.processor.handleTransaction(this.disbursementDate, this.transactions, this.currency, this.installments, this.noCharges);
+        return this.installments;
+    }
+
+    private List<LoanRepaymentScheduleInstallment> weeklySchedule() {
+        final List<LoanRepaymentScheduleInstallment> schedule = new ArrayList<LoanRepaymentScheduleInstallment>(this.numberOfInstallments);
+        for (int i = 1; i <= this.numberOfInstallments; i++) {
+            schedule.add(new LoanRepaymentScheduleInstallmentBuilder(this.currency).withInstallmentNumber(i)
+                    .withDueDate(this.disbursementDate.plusWeeks(i)).withPrincipal("192.31").withInterest(interestOf(i)).build());
+        }
+        return schedule;
+    }
+
+    private List<LoanTransaction> onTimeRepayments() {
+        final List<LoanTransaction> repayments = new ArrayList<LoanTransaction>(this.numberOfInstallments + 1);
+        for (int i = 1; i <= this.numberOfInstallments; i++) {
+            repayments.add(repayment(installmentAmountOf(i), this.disbursementDate.plusWeeks(i)));
+        }
+        return repayments;
+    }
+
+    private List<LoanTransaction> lateRepayments() {
+        final List<LoanTransaction> repayments = new ArrayList<LoanTransaction>(this.numberOfInstallments);
+        final Money halfInstallment = new MoneyBuilder().with(this.currency).with("116.24").build();
+        for (int i = 1; i <= this.numberOfInstallments; i++) {
+            Money amount = new MoneyBuilder().with(this.currency).with(installmentAmountOf(i)).build();
+            if (i % 3 == 0) {
+                amount = amount.minus(halfInstallment);
+            } else if (i % 3 == 1 && i > 1) {
+                amount = amount.plus(halfInstallment);
+            }
+            repayments.add(new LoanTransactionBuilder().repayment().with(amount).with(this.disbursementDate.plusWeeks(i).plusDays(9))
+                    .build());
+        }
+        return repayments;
+    }
+
+    private LoanTransaction repayment(final String amount, final LocalDate transactionDate) {
+        final Money money = new MoneyBuilder().with(this.currency).with(amount).build();
+        return new LoanTransactionBuilder().repayment().with(money).with(transactionDate).build();
+    }
+
+    private String interestOf(final int installmentNumber) {
+        return String.valueOf(40 + installmentNumber % 7) + ".17";
+    }
+
+    private String installmentAmountOf(final int installmentNumber) {
+        return String.valueOf(232 + installmentNumber % 7) + ".48";
+    }
+}
@@ -0,0 +1,136 @@
+package org.mifosplatform.portfolio.loanaccount.domain;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.joda.time.LocalDate;
+import org.mifosplatform.organisation.monetary.domain.MonetaryCurrency;
+import org.mifosplatform.organisation.monetary.domain.Money;
+import org.mifosplatform.portfolio.loanaccount.LoanRepaymentScheduleInstallmentBuilder;
+import org.mifosplatform.portfolio.loanaccount.MonetaryCurrencyBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * The totals {@link LoanSummary} and {@link LoanSummaryArrearsAging} derive
+ * from the schedule of a ten year weekly loan (520 installments) halfway
+ * through its term.
+ *
+ * The <code>moneyChain</code> benchmark reproduces the previous summing with
+ * immutable {@link Money} as a baseline. Run with <code>-PjmhProfiler=gc</code>
+ * to compare allocation per summary.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoanSummaryCalculationBenchmark {
+
+    private static final int NUMBER_OF_INSTALLMENTS = 520;
+
+    private final MonetaryCurrency currency = new MonetaryCurrencyBuilder().withCode("KES").withDigitsAfterDecimal(2).build();
+    private final LoanSummaryWrapper loanSummaryWrapper = new LoanSummaryWrapper();
+    private final LocalDate disbursementDate = new LocalDate(2010, 1, 4);
+    private final LocalDate asOfDate = this.disbursementDate.plusWeeks(NUMBER_OF_INSTALLMENTS / 2);
+    private List<LoanRepaymentScheduleInstallment> installments;
+
+    @Setup
+    public void setUpSchedule() {
+        this.installments = new ArrayList<LoanRepaymentScheduleInstallment>(NUMBER_OF_INSTALLMENTS);
+        for (int i = 1; i <= NUMBER_OF_INSTALLMENTS; i++) {
+            final LoanRepaymentScheduleInstallmentBuilder installment = new LoanRepaymentScheduleInstallmentBuilder(this.currency)
+                    .withInstallmentNumber(i).withDueDate(this.disbursementDate.plusWeeks(i)).withPrincipal("192.31")
+                    .withInterest(String.valueOf(40 + (i % 7)) + ".17");
+            // the first third is repaid, the rest of the first half in arrears
+            if (i <= NUMBER_OF_INSTALLMENTS / 3) {
+                installment.completed();
+            }
+            this.installments.add(installment.build());
+        }
+    }
+
+    @Benchmark
+    public void moneyAccumulator(final Blackhole blackhole) {
+        blackhole.consume(this.loanSummaryWrapper.calculateTotalPrincipalRepaid(this.installments, this.currency));
+        blackhole.consume(this.loanSummaryWrapper.calculateTotalInterestCharged(this.installments, this.currency));
+        blackhole.consume(this.loanSummaryWrapper.calculateTotalInterestRepaid(this.installments, this.currency));
+        blackhole.consume(this.loanSummaryWrapper.calculateTotalFeeChargesCharged(this.installments, this.currency));
+        blackhole.consume(this.loanSummaryWrapper.calculateTotalPenaltyChargesCharged(this.installments, this.currency));
+        blackhole.consume(this.loanSummaryWrapper.determineOverdueSinceDateFrom(this.installments, this.currency, this.asOfDate));
+    }
+
+    @Benchmark
+    public void moneyChain(final Blackhole blackhole) {
+        Money principalRepaid = Money.zero(this.currency);
+        Money interestCharged = Money.zero(this.currency);
+        Money interestRepaid = Money.zero(this.currency);
+        Money feeChargesCharged = Money.zero(this.currency);
+        Money penaltyChargesCharged = Money.zero(this.currency);
+        for (final LoanRepaymentScheduleInstallment installment : this.installments) {
+            principalRepaid = principalRepaid.plus(installment.getPrincipalCompleted(this.currency));
+            interestCharged = interestCharged.plus(installment.getInterestCharged(this.currency));
+            interestRepaid = interestRepaid.plus(installment.getInterestPaid(this.currency));
+            feeChargesCharged = feeChargesCharged.plus(installment.getFeeChargesCharged(this.currency));
+            penaltyChargesCharged = penaltyChargesCharged.plus(installment.getPenaltyChargesCharged(this.currency));
+        }
+        blackhole.consume(principalRepaid);
+        blackhole.consume(interestCharged);
+        blackhole.consume(interestRepaid);
+        blackhole.consume(feeChargesCharged);
+        blackhole.consume(penaltyChargesCharged);
+        blackhole.consume(overdueSinceDateWithMoneyChain());
+    }
+
+    /*
+     * as determineOverdueSinceDateFrom, which sums each overdue component in
+     * its own pass before finding the earliest overdue installment
+     */
+    private LocalDate overdueSinceDateWithMoneyChain() {
+        Money principalOverdue = Money.zero(this.currency);
+        for (final LoanRepaymentScheduleInstallment installment : this.installments) {
+            if (installment.isOverdueOn(this.asOfDate)) {
+                principalOverdue = principalOverdue.plus(installment.getPrincipalOutstanding(this.currency));
+            }
+        }
+        Money interestOverdue = Money.zero(this.currency);
+        for (final LoanRepaymentScheduleInstallment installment : this.installments) {
+            if (installment.isOverdueOn(this.asOfDate)) {
+                interestOverdue = interestOverdue.plus(installment.getInterestOutstanding(this.currency));
+            }
+        }
+        Money feeChargesOverdue = Money.zero(this.currency);
+        for (final LoanRepaymentScheduleInstallment installment : this.installments) {
+            if (installment.isOverdueOn(this.asOfDate)) {
+                feeChargesOverdue = feeChargesOverdue.plus(installment.getFeeChargesOutstanding(this.currency));
+            }
+        }
+        Money penaltyChargesOverdue = Money.zero(this.currency);
+        for (final LoanRepaymentScheduleInstallment installment : this.installments) {
+            if (installment.isOverdueOn(this.asOfDate)) {
+                penaltyChargesOverdue = penaltyChargesOverdue.plus(installment.getPenaltyChargesOutstanding(this.currency));
+            }
+        }
+
+        LocalDate overdueSince = null;
+        if (principalOverdue.plus(interestOverdue).plus(feeChargesOverdue).plus(penaltyChargesOverdue).isGreaterThanZero()) {
+            for (final LoanRepaymentScheduleInstallment installment : this.installments) {
+                if (installment.isOverdueOn(this.asOfDate) && (overdueSince == null || overdueSince.isAfter(installment.getDueDate()))) {
+                    overdueSince = installment.getDueDate();
+                }
+            }
+        }
+        return overdueSince;
+    }
+}
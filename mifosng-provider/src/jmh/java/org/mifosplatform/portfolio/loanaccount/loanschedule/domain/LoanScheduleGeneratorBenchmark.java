@@ -0,0 +1,90 @@
+package org.mifosplatform.portfolio.loanaccount.loanschedule.domain;
+
+import java.math.BigDecimal;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.joda.time.LocalDate;
+import org.mifosplatform.organisation.monetary.domain.ApplicationCurrency;
+import org.mifosplatform.organisation.monetary.domain.MonetaryCurrency;
+import org.mifosplatform.portfolio.loanaccount.MonetaryCurrencyBuilder;
+import org.mifosplatform.portfolio.loanaccount.domain.LoanCharge;
+import org.mifosplatform.portfolio.loanaccount.loanschedule.data.LoanScheduleData;
+import org.mifosplatform.portfolio.loanproduct.domain.AmortizationMethod;
+import org.mifosplatform.portfolio.loanproduct.domain.InterestCalculationPeriodMethod;
+import org.mifosplatform.portfolio.loanproduct.domain.InterestMethod;
+import org.mifosplatform.portfolio.loanproduct.domain.LoanProductRelatedDetail;
+import org.mifosplatform.portfolio.loanproduct.domain.PeriodFrequencyType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Generation of weekly schedules of 12 to 1000 installments by the
+ * {@link FlatMethodLoanScheduleGenerator} and the
+ * {@link DecliningBalanceMethodLoanScheduleGenerator}, amortized with equal
+ * installments and with equal principal, without charges.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoanScheduleGeneratorBenchmark {
+
+    @Param({ "12", "52", "260", "1000" })
+    private int numberOfRepayments;
+
+    @Param({ "EQUAL_INSTALLMENTS", "EQUAL_PRINCIPAL" })
+    private AmortizationMethod amortizationMethod;
+
+    private final ApplicationCurrency applicationCurrency = new ApplicationCurrency("KES", "Kenyan Shilling", 2, "currency.KES", "KSh");
+    private final MonetaryCurrency currency = new MonetaryCurrencyBuilder().withCode("KES").withDigitsAfterDecimal(2).build();
+    private final LocalDate disbursementDate = new LocalDate(2012, 1, 2);
+    private final Set<LoanCharge> noCharges = new HashSet<LoanCharge>();
+
+    private final LoanScheduleGenerator flatGenerator = new FlatMethodLoanScheduleGenerator();
+    private final LoanScheduleGenerator decliningBalanceGenerator = new DecliningBalanceMethodLoanScheduleGenerator();
+
+    private LoanProductRelatedDetail flatTerms;
+    private LoanProductRelatedDetail decliningBalanceTerms;
+
+    @Setup
+    public void setUpTerms() {
+        this.flatTerms = weeklyTerms(InterestMethod.FLAT);
+        this.decliningBalanceTerms = weeklyTerms(InterestMethod.DECLINING_BALANCE);
+    }
+
+    @Benchmark
+    public LoanScheduleData flat() {
+        return this.flatGenerator.generate(this.applicationCurrency, this.flatTerms, this.numberOfRepayments, PeriodFrequencyType.WEEKS,
+                this.disbursementDate, null, null, this.noCharges);
+    }
+
+    @Benchmark
+    public LoanScheduleData decliningBalance() {
+        return this.decliningBalanceGenerator.generate(this.applicationCurrency, this.decliningBalanceTerms, this.numberOfRepayments,
+                PeriodFrequencyType.WEEKS, this.disbursementDate, null, null, this.noCharges);
+    }
+
+    /*
+     * 2% a month repaid weekly, with the principal growing with the term so
+     * each installment stays around the same size
+     */
+    private LoanProductRelatedDetail weeklyTerms(final InterestMethod interestMethod) {
+        final BigDecimal principal = BigDecimal.valueOf(250L * this.numberOfRepayments);
+        return LoanProductRelatedDetail.createFrom(this.currency, principal, BigDecimal.valueOf(2), PeriodFrequencyType.MONTHS,
+                BigDecimal.valueOf(24), interestMethod, InterestCalculationPeriodMethod.SAME_AS_REPAYMENT_PERIOD, 1,
+                PeriodFrequencyType.WEEKS, this.numberOfRepayments, this.amortizationMethod, BigDecimal.ZERO);
+    }
+}
@@ -0,0 +1,103 @@
+package org.mifosplatform.useradministration.domain;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+/**
+ * Permission checks for a user whose roles grant hundreds of permissions.
+ *
+ * The <code>linearScanOfRoles</code> benchmarks reproduce the previous
+ * role-by-role, permission-by-permission lookup as a baseline.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AppUserPermissionCheckBenchmark {
+
+    private static final String[] ENTITIES = { "CLIENT", "LOAN", "GROUP", "OFFICE", "STAFF", "ROLE", "USER", "CHARGE", "FUND",
+            "LOANPRODUCT", "SAVINGSPRODUCT", "DEPOSITPRODUCT", "CODE", "CODEVALUE", "DATATABLE", "REPORT", "CALENDAR", "NOTE",
+            "DOCUMENT", "CURRENCY", "GLACCOUNT", "JOURNALENTRY", "GLCLOSURE", "CONFIGURATION", "CLIENTIDENTIFIER" };
+
+    private static final String[] ACTIONS = { "READ", "CREATE", "UPDATE", "DELETE", "CREATE_CHECKER", "UPDATE_CHECKER",
+            "DELETE_CHECKER", "APPROVE", "DISBURSE", "REPAYMENT" };
+
+    @Param({ "5" })
+    private int numberOfRoles;
+
+    private AppUser user;
+    private String grantedPermission;
+
+    @Setup
+    public void setUpUserWithHundredsOfPermissions() {
+        final Set<Role> roles = new HashSet<Role>();
+        for (int roleIndex = 0; roleIndex < this.numberOfRoles; roleIndex++) {
+            final Role role = new Role("role" + roleIndex, "benchmark role " + roleIndex);
+            for (final String entity : ENTITIES) {
+                for (final String action : ACTIONS) {
+                    role.updatePermission(new Permission("portfolio", entity + roleIndex, action), true);
+                }
+            }
+            roles.add(role);
+        }
+
+        final Collection<GrantedAuthority> authorities = new ArrayList<GrantedAuthority>();
+        authorities.add(new SimpleGrantedAuthority("DUMMY_ROLE_NOT_USED_OR_PERSISTED_TO_AVOID_EXCEPTION"));
+        final User springUser = new User("benchmark", "password", true, true, true, true, authorities);
+
+        this.user = new AppUser(null, springUser, roles, "benchmark@mifos.org", "bench", "mark");
+        this.grantedPermission = "REPAYMENT_CLIENTIDENTIFIER" + (this.numberOfRoles - 1);
+
+        // build effective permissions outside of measurement
+        this.user.hasNotPermissionForAnyOf(this.grantedPermission);
+    }
+
+    @Benchmark
+    public boolean permissionPresent() {
+        return this.user.hasNotPermissionForAnyOf("ALL_FUNCTIONS", "ALL_FUNCTIONS_READ", this.grantedPermission);
+    }
+
+    @Benchmark
+    public boolean permissionMissing() {
+        return this.user.hasNotPermissionForAnyOf("ALL_FUNCTIONS", "ALL_FUNCTIONS_READ", "READ_UNKNOWN");
+    }
+
+    @Benchmark
+    public boolean linearScanOfRolesPermissionPresent() {
+        return !linearScanOfRoles(this.grantedPermission);
+    }
+
+    @Benchmark
+    public boolean linearScanOfRolesPermissionMissing() {
+        return !linearScanOfRoles("READ_UNKNOWN");
+    }
+
+    private boolean linearScanOfRoles(final String permissionCode) {
+        for (final String code : new String[] { "ALL_FUNCTIONS", "ALL_FUNCTIONS_READ", permissionCode }) {
+            for (final Role role : this.user.getRoles()) {
+                if (role.hasPermissionTo(code)) { return true; }
+            }
+        }
+        return false;
+    }
+}
@@ -6,7 +6,9 @@
 package org.mifosplatform.accounting.journalentry.service;
 
 import java.math.BigDecimal;
+import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
@@ -27,10 +29,13 @@ import org.mifosplatform.accounting.journalentry.exception.JournalEntryInvalidEx
 import org.mifosplatform.accounting.producttoaccountmapping.domain.PortfolioProductType;
 import org.mifosplatform.accounting.producttoaccountmapping.domain.ProductToGLAccountMapping;
 import org.mifosplatform.accounting.producttoaccountmapping.domain.ProductToGLAccountMappingRepository;
+import org.mifosplatform.infrastructure.core.service.TenantAwareRoutingDataSource;
 import org.mifosplatform.organisation.office.domain.Office;
 import org.mifosplatform.organisation.office.domain.OfficeRepository;
 import org.mifosplatform.portfolio.loanaccount.data.LoanTransactionEnumData;
+import org.mifosplatform.useradministration.domain.AppUser;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -40,15 +45,23 @@ public class AccountingProcessorHelper {
     private final ProductToGLAccountMappingRepository accountMappingRepository;
     private final GLClosureRepository closureRepository;
     private final OfficeRepository officeRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    /*
+     * rows of the journal entries created on this thread while a batch is
+     * open, see startJournalEntryBatch()
+     */
+    private final ThreadLocal<List<Object[]>> batchedJournalEntries = new ThreadLocal<List<Object[]>>();
 
     @Autowired
     public AccountingProcessorHelper(final JournalEntryRepository glJournalEntryRepository,
             final ProductToGLAccountMappingRepository accountMappingRepository, final GLClosureRepository closureRepository,
-            final OfficeRepository officeRepository) {
+            final OfficeRepository officeRepository, final TenantAwareRoutingDataSource dataSource) {
         this.glJournalEntryRepository = glJournalEntryRepository;
         this.accountMappingRepository = accountMappingRepository;
         this.closureRepository = closureRepository;
         this.officeRepository = officeRepository;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
     }
 
     public LoanDTO populateLoanDtoFromMap(final Map<String, Object> accountingBridgeData, final boolean cashBasedAccountingEnabled,
@@ -101,18 +114,60 @@ public class AccountingProcessorHelper {
 
     public void createCreditJournalEntryForLoanProduct(final Office office, final GLAccount account, final Long loanId,
             final String transactionId, final Date transactionDate, final BigDecimal amount) {
-        final boolean manualEntry = false;
-        final JournalEntry journalEntry = JournalEntry.createNew(office, account, transactionId, manualEntry, transactionDate,
-                JournalEntryType.CREDIT, amount, null, PortfolioProductType.LOAN.getValue(), loanId);
-        this.glJournalEntryRepository.saveAndFlush(journalEntry);
+        createJournalEntryForLoanProduct(office, account, loanId, transactionId, transactionDate, JournalEntryType.CREDIT, amount);
     }
 
     public void createDebitJournalEntryForLoanProduct(final Office office, final GLAccount account, final Long loanId,
             final String transactionId, final Date transactionDate, final BigDecimal amount) {
-        final boolean manualEntry = false;
-        final JournalEntry journalEntry = JournalEntry.createNew(office, account, transactionId, manualEntry, transactionDate,
-                JournalEntryType.DEBIT, amount, null, PortfolioProductType.LOAN.getValue(), loanId);
-        this.glJournalEntryRepository.saveAndFlush(journalEntry);
+        createJournalEntryForLoanProduct(office, account, loanId, transactionId, transactionDate, JournalEntryType.DEBIT, amount);
+    }
+
+    private void createJournalEntryForLoanProduct(final Office office, final GLAccount account, final Long loanId,
+            final String transactionId, final Date transactionDate, final JournalEntryType type, final BigDecimal amount) {
+        final List<Object[]> batch = this.batchedJournalEntries.get();
+        if (batch != null) {
+            batch.add(new Object[] { account.getId(), office.getId(), transactionId, new java.sql.Date(transactionDate.getTime()),
+                    type.getValue(), amount, PortfolioProductType.LOAN.getValue(), loanId });
+        } else {
+            final boolean manualEntry = false;
+            final JournalEntry journalEntry = JournalEntry.createNew(office, account, transactionId, manualEntry, transactionDate, type,
+                    amount, null, PortfolioProductType.LOAN.getValue(), loanId);
+            this.glJournalEntryRepository.saveAndFlush(journalEntry);
+        }
+    }
+
+    /**
+     * Journal entries created on this thread are held back until
+     * {@link #insertBatchedJournalEntries(AppUser)} inserts them as one JDBC
+     * batch, the batch must be closed with {@link #closeJournalEntryBatch()}.
+     */
+    public void startJournalEntryBatch() {
+        this.batchedJournalEntries.set(new ArrayList<Object[]>());
+    }
+
+    public void insertBatchedJournalEntries(final AppUser currentUser) {
+        final List<Object[]> batch = this.batchedJournalEntries.get();
+        if (batch == null || batch.isEmpty()) { return; }
+
+        final Timestamp now = new Timestamp(System.currentTimeMillis());
+        final List<Object[]> rows = new ArrayList<Object[]>(batch.size());
+        for (final Object[] entry : batch) {
+            final Object[] row = Arrays.copyOf(entry, entry.length + 4);
+            row[entry.length] = currentUser.getId();
+            row[entry.length + 1] = currentUser.getId();
+            row[entry.length + 2] = now;
+            row[entry.length + 3] = now;
+            rows.add(row);
+        }
+
+        this.jdbcTemplate.batchUpdate("insert into acc_gl_journal_entry (account_id, office_id, transaction_id, entry_date, type_enum, "
+                + "amount, entity_type_enum, entity_id, createdby_id, lastmodifiedby_id, created_date, lastmodified_date) "
+                + "values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", rows);
+        batch.clear();
+    }
+
+    public void closeJournalEntryBatch() {
+        this.batchedJournalEntries.remove();
     }
 
     /**
@@ -5,10 +5,12 @@
  */
 package org.mifosplatform.accounting.journalentry.service;
 
+import java.util.List;
 import java.util.Map;
 
 import org.mifosplatform.infrastructure.core.api.JsonCommand;
 import org.mifosplatform.infrastructure.core.data.CommandProcessingResult;
+import org.mifosplatform.useradministration.domain.AppUser;
 
 public interface JournalEntryWritePlatformService {
 
@@ -17,4 +19,10 @@ public interface JournalEntryWritePlatformService {
     CommandProcessingResult revertJournalEntry(JsonCommand command);
 
     void createJournalEntriesForLoan(Map<String, Object> accountingBridgeData);
+
+    /**
+     * Creates the journal entries of several loans, inserted as one JDBC batch
+     * rather than one entry at a time.
+     */
+    void createJournalEntriesForLoans(List<Map<String, Object>> accountingBridgeDataOfLoans, AppUser currentUser);
 }
@@ -36,6 +36,7 @@ import org.mifosplatform.infrastructure.core.exception.PlatformDataIntegrityExce
 import org.mifosplatform.organisation.office.domain.Office;
 import org.mifosplatform.organisation.office.domain.OfficeRepository;
 import org.mifosplatform.organisation.office.exception.OfficeNotFoundException;
+import org.mifosplatform.useradministration.domain.AppUser;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -154,6 +155,20 @@ public class JournalEntryWritePlatformServiceJpaRepositoryImpl implements Journa
         }
     }
 
+    @Transactional
+    @Override
+    public void createJournalEntriesForLoans(final List<Map<String, Object>> accountingBridgeDataOfLoans, final AppUser currentUser) {
+        this.helper.startJournalEntryBatch();
+        try {
+            for (final Map<String, Object> accountingBridgeData : accountingBridgeDataOfLoans) {
+                createJournalEntriesForLoan(accountingBridgeData);
+            }
+            this.helper.insertBatchedJournalEntries(currentUser);
+        } finally {
+            this.helper.closeJournalEntryBatch();
+        }
+    }
+
     private void validateBusinessRulesForJournalEntries(final JournalEntryCommand command) {
         /** check if date of Journal entry is valid ***/
         final LocalDate entryLocalDate = command.getTransactionDate();
@@ -0,0 +1,32 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.commands.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares the entity and action a
+ * {@link org.mifosplatform.commands.handler.NewCommandSourceHandler} processes.
+ *
+ * A handler can serve the same action on several entities, e.g. notes. Entries
+ * to datatables are registered against the entity <code>DATATABLE</code> as
+ * their entity name is the name of the datatable, with the actions
+ * <code>UPDATEMULTIPLE</code> and <code>DELETEMULTIPLE</code> used for one to
+ * many datatables.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface CommandType {
+
+    String[] entity();
+
+    String action();
+}
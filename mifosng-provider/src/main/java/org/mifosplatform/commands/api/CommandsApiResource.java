@@ -20,6 +20,7 @@ import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.StreamingOutput;
 import javax.ws.rs.core.UriInfo;
 
 import org.apache.commons.lang.StringUtils;
@@ -64,14 +65,14 @@ public class CommandsApiResource {
     @GET
     @Consumes({ MediaType.APPLICATION_JSON })
     @Produces({ MediaType.APPLICATION_JSON })
-    public String retrieveCommands(@Context final UriInfo uriInfo) {
+    public StreamingOutput retrieveCommands(@Context final UriInfo uriInfo) {
 
         context.authenticatedUser().validateHasReadPermission(resourceNameForPermissions);
 
         final Collection<CommandSourceData> entries = this.readPlatformService.retrieveAllEntriesToBeChecked();
 
         final ApiRequestJsonSerializationSettings settings = apiRequestParameterHelper.process(uriInfo.getQueryParameters());
-        return this.toApiJsonSerializer.serialize(settings, entries, RESPONSE_DATA_PARAMETERS);
+        return this.toApiJsonSerializer.serializeStreaming(settings, entries, RESPONSE_DATA_PARAMETERS);
     }
 
     @POST
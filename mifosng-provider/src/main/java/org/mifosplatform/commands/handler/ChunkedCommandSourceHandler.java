@@ -0,0 +1,23 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.commands.handler;
+
+/**
+ * A {@link ValidatingCommandSourceHandler} whose command commits its work in
+ * chunks, each in its own transaction.
+ *
+ * The command is processed outside of a transaction so no connection is held
+ * while the chunks run, and is logged in a transaction of its own once it has
+ * been processed. As chunks cannot be rolled back with the command, a command
+ * awaiting approval by a checker is always only validated.
+ *
+ * The result should record what was committed, a failure part way through is
+ * to be reported in the result rather than thrown so it is logged with the
+ * command.
+ */
+public interface ChunkedCommandSourceHandler extends ValidatingCommandSourceHandler {
+    // marker only
+}
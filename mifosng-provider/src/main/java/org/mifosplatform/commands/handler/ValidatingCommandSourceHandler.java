@@ -0,0 +1,29 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.commands.handler;
+
+import org.mifosplatform.infrastructure.core.api.JsonCommand;
+import org.mifosplatform.infrastructure.core.data.CommandProcessingResult;
+
+/**
+ * A {@link NewCommandSourceHandler} that can also process a command as a dry
+ * run.
+ *
+ * Used when a maker submits a command that needs approval by a checker so the
+ * command is not executed only for its changes to be rolled back. Handlers
+ * that do not implement this are executed and rolled back instead.
+ */
+public interface ValidatingCommandSourceHandler extends NewCommandSourceHandler {
+
+    /**
+     * Validates the command and determines the changes it would make without
+     * writing to the database or posting journal entries.
+     *
+     * @return the result the command would have, the changes are stored as
+     *         the command awaiting approval when present.
+     */
+    CommandProcessingResult validateCommand(JsonCommand command);
+}
@@ -0,0 +1,101 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.commands.service;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.mifosplatform.commands.annotation.CommandType;
+import org.mifosplatform.commands.domain.CommandWrapper;
+import org.mifosplatform.commands.exception.UnsupportedCommandException;
+import org.mifosplatform.commands.handler.NewCommandSourceHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.stereotype.Service;
+
+/**
+ * Maps each command (action and entity) to the
+ * {@link NewCommandSourceHandler} declaring it through {@link CommandType}.
+ *
+ * The mapping is built once when the application context has been refreshed.
+ * A handler without {@link CommandType} or two handlers declaring the same
+ * command fail the startup of the application.
+ */
+@Service
+public class CommandHandlerRegistry implements ApplicationListener<ContextRefreshedEvent> {
+
+    private final static Logger logger = LoggerFactory.getLogger(CommandHandlerRegistry.class);
+
+    private static final String DATATABLE_ENTITY = "DATATABLE";
+    private static final String ONE_TO_MANY_SUFFIX = "MULTIPLE";
+
+    private final ApplicationContext applicationContext;
+
+    private volatile Map<String, NewCommandSourceHandler> handlersByCommand = Collections.emptyMap();
+
+    @Autowired
+    public CommandHandlerRegistry(final ApplicationContext applicationContext) {
+        this.applicationContext = applicationContext;
+    }
+
+    @Override
+    public void onApplicationEvent(final ContextRefreshedEvent event) {
+        if (event.getApplicationContext() != this.applicationContext) { return; }
+
+        final Map<String, NewCommandSourceHandler> handlerBeans = this.applicationContext.getBeansOfType(NewCommandSourceHandler.class);
+
+        final Map<String, NewCommandSourceHandler> handlers = new HashMap<String, NewCommandSourceHandler>(handlerBeans.size() * 2);
+        final Map<String, String> beanNamesByCommand = new HashMap<String, String>(handlerBeans.size() * 2);
+        for (final Map.Entry<String, NewCommandSourceHandler> handlerBean : handlerBeans.entrySet()) {
+            final String beanName = handlerBean.getKey();
+
+            // looks through transactional proxies to the handler class
+            final CommandType commandType = this.applicationContext.findAnnotationOnBean(beanName, CommandType.class);
+            if (commandType == null) { throw new IllegalStateException("Command handler " + beanName + " is not annotated with @"
+                    + CommandType.class.getSimpleName()); }
+
+            for (final String entityName : commandType.entity()) {
+                final String command = commandName(commandType.action(), entityName);
+
+                final String existingBeanName = beanNamesByCommand.put(command, beanName);
+                if (existingBeanName != null) { throw new IllegalStateException("Command " + command + " is handled by both "
+                        + existingBeanName + " and " + beanName); }
+
+                handlers.put(command, handlerBean.getValue());
+            }
+        }
+
+        this.handlersByCommand = handlers;
+
+        logger.info("Registered " + handlers.size() + " commands for " + handlerBeans.size() + " command handlers");
+    }
+
+    public NewCommandSourceHandler findCommandHandler(final CommandWrapper wrapper) {
+        final NewCommandSourceHandler handler = this.handlersByCommand.get(commandNameFor(wrapper));
+        if (handler == null) { throw new UnsupportedCommandException(wrapper.commandName()); }
+        return handler;
+    }
+
+    private static String commandNameFor(final CommandWrapper wrapper) {
+        if (wrapper.isDatatableResource()) {
+            String actionName = wrapper.actionName();
+            if (!wrapper.isCreate() && wrapper.getDatatableId() != null) {
+                actionName = actionName + ONE_TO_MANY_SUFFIX;
+            }
+            return commandName(actionName, DATATABLE_ENTITY);
+        }
+        return commandName(wrapper.actionName(), wrapper.entityName());
+    }
+
+    private static String commandName(final String actionName, final String entityName) {
+        return (actionName + "_" + entityName).toUpperCase();
+    }
+}
@@ -409,6 +409,13 @@ public class CommandWrapperBuilder {
         return this;
     }
 
+    public CommandWrapperBuilder bulkLoanRepaymentTransaction() {
+        this.actionName = "BULKREPAYMENT";
+        this.entityName = "LOAN";
+        this.href = "/loans/transactions/bulk";
+        return this;
+    }
+
     public CommandWrapperBuilder waiveInterestPortionTransaction(final Long loanId) {
         this.actionName = "WAIVEINTERESTPORTION";
         this.entityName = "LOAN";
@@ -12,52 +12,142 @@ import org.mifosplatform.commands.domain.CommandSource;
 import org.mifosplatform.commands.domain.CommandSourceRepository;
 import org.mifosplatform.commands.domain.CommandWrapper;
 import org.mifosplatform.commands.exception.RollbackTransactionAsCommandIsNotApprovedByCheckerException;
-import org.mifosplatform.commands.exception.UnsupportedCommandException;
+import org.mifosplatform.commands.handler.ChunkedCommandSourceHandler;
 import org.mifosplatform.commands.handler.NewCommandSourceHandler;
+import org.mifosplatform.commands.handler.ValidatingCommandSourceHandler;
 import org.mifosplatform.infrastructure.configuration.domain.ConfigurationDomainService;
 import org.mifosplatform.infrastructure.core.api.JsonCommand;
 import org.mifosplatform.infrastructure.core.data.CommandProcessingResult;
 import org.mifosplatform.infrastructure.core.data.CommandProcessingResultBuilder;
+import org.mifosplatform.infrastructure.core.domain.MifosPlatformTenant;
 import org.mifosplatform.infrastructure.core.serialization.ToApiJsonSerializer;
+import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
+import org.mifosplatform.infrastructure.metrics.service.CommandQueryMetricsService;
+import org.mifosplatform.infrastructure.metrics.service.QueryCountingInterceptor;
 import org.mifosplatform.infrastructure.security.service.PlatformSecurityContext;
 import org.mifosplatform.useradministration.domain.AppUser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.ApplicationContext;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Service
 public class SynchronousCommandProcessingService implements CommandProcessingService {
 
+    private final static Logger logger = LoggerFactory.getLogger(SynchronousCommandProcessingService.class);
+
     private PlatformSecurityContext context;
-    private final ApplicationContext applicationContext;
+    private final CommandHandlerRegistry commandHandlerRegistry;
     private final ToApiJsonSerializer<Map<String, Object>> toApiJsonSerializer;
     private CommandSourceRepository commandSourceRepository;
     private final ConfigurationDomainService configurationDomainService;
+    private final CommandQueryMetricsService commandQueryMetricsService;
+    private final TransactionTemplate transactionTemplate;
 
     @Autowired
-    public SynchronousCommandProcessingService(final PlatformSecurityContext context, final ApplicationContext applicationContext,
+    public SynchronousCommandProcessingService(final PlatformSecurityContext context, final CommandHandlerRegistry commandHandlerRegistry,
             final ToApiJsonSerializer<Map<String, Object>> toApiJsonSerializer, final CommandSourceRepository commandSourceRepository,
-            final ConfigurationDomainService configurationDomainService) {
+            final ConfigurationDomainService configurationDomainService, final CommandQueryMetricsService commandQueryMetricsService,
+            final PlatformTransactionManager transactionManager) {
         this.context = context;
         this.context = context;
-        this.applicationContext = applicationContext;
+        this.commandHandlerRegistry = commandHandlerRegistry;
         this.toApiJsonSerializer = toApiJsonSerializer;
         this.commandSourceRepository = commandSourceRepository;
         this.commandSourceRepository = commandSourceRepository;
         this.configurationDomainService = configurationDomainService;
+        this.commandQueryMetricsService = commandQueryMetricsService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
-    @Transactional
+    /**
+     * Processes and logs the command in one transaction, except for commands
+     * of a {@link ChunkedCommandSourceHandler} which are processed outside of
+     * a transaction and logged once processed.
+     */
     @Override
     public CommandProcessingResult processAndLogCommand(final CommandWrapper wrapper, final JsonCommand command,
             final boolean isApprovedByChecker) {
 
-        final boolean rollbackTransaction = this.configurationDomainService.isMakerCheckerEnabledForTask(wrapper.taskPermissionName())
-                && !isApprovedByChecker;
+        final NewCommandSourceHandler handler = this.commandHandlerRegistry.findCommandHandler(wrapper);
+        if (handler instanceof ChunkedCommandSourceHandler && isApprovedByChecker(wrapper, isApprovedByChecker)) { return processChunkedAndLogCommand(
+                wrapper, command, handler); }
+
+        return this.transactionTemplate.execute(new TransactionCallback<CommandProcessingResult>() {
+
+            @Override
+            public CommandProcessingResult doInTransaction(@SuppressWarnings("unused") final TransactionStatus status) {
+                return processAndLogCommandInTransaction(wrapper, command, handler, isApprovedByChecker);
+            }
+        });
+    }
+
+    private boolean isApprovedByChecker(final CommandWrapper wrapper, final boolean isApprovedByChecker) {
+        return isApprovedByChecker || !this.configurationDomainService.isMakerCheckerEnabledForTask(wrapper.taskPermissionName());
+    }
+
+    private CommandProcessingResult processAndLogCommandInTransaction(final CommandWrapper wrapper, final JsonCommand command,
+            final NewCommandSourceHandler handler, final boolean isApprovedByChecker) {
 
-        final NewCommandSourceHandler handler = findCommandHandler(wrapper);
+        final boolean rollbackTransaction = !isApprovedByChecker(wrapper, isApprovedByChecker);
+        if (rollbackTransaction && handler instanceof ValidatingCommandSourceHandler) {
+            // no need to execute and roll back a command awaiting approval
+            return validateAndLogCommand(wrapper, command, (ValidatingCommandSourceHandler) handler);
+        }
+
+        final long queryCountBefore = QueryCountingInterceptor.queryCountOfCurrentThread();
         final CommandProcessingResult result = handler.processCommand(command);
+        recordQueryCountOnCommit(wrapper, queryCountBefore);
+
+        final String changesOnlyJson = logProcessedCommand(wrapper, command, result);
+
+        if (rollbackTransaction) { throw new RollbackTransactionAsCommandIsNotApprovedByCheckerException(changesOnlyJson); }
+
+        return result;
+    }
+
+    /*
+     * the chunks of the command have committed by the time it is logged. Should
+     * logging fail, the result is written to the log so what was committed is
+     * still recorded somewhere.
+     */
+    private CommandProcessingResult processChunkedAndLogCommand(final CommandWrapper wrapper, final JsonCommand command,
+            final NewCommandSourceHandler handler) {
+
+        final long queryCountBefore = QueryCountingInterceptor.queryCountOfCurrentThread();
+        final CommandProcessingResult result = handler.processCommand(command);
+        final long queryCount = QueryCountingInterceptor.queryCountOfCurrentThread() - queryCountBefore;
+        this.commandQueryMetricsService.record(wrapper.actionName(), wrapper.entityName(), ThreadLocalContextUtil.getTenant(), queryCount);
+
+        try {
+            this.transactionTemplate.execute(new TransactionCallback<String>() {
+
+                @Override
+                public String doInTransaction(@SuppressWarnings("unused") final TransactionStatus status) {
+                    return logProcessedCommand(wrapper, command, result);
+                }
+            });
+        } catch (final RuntimeException e) {
+            final String changes = result.hasChanges() ? this.toApiJsonSerializer.serializeResult(result.getChanges()) : null;
+            logger.error("Command " + wrapper.taskPermissionName() + " was processed but could not be logged, its changes were: "
+                    + changes, e);
+            throw e;
+        }
+
+        return result;
+    }
+
+    /**
+     * @return the changes of the command as logged.
+     */
+    private String logProcessedCommand(final CommandWrapper wrapper, final JsonCommand command, final CommandProcessingResult result) {
 
         final AppUser maker = context.authenticatedUser();
 
@@ -85,9 +175,7 @@ public class SynchronousCommandProcessingService implements CommandProcessingSer
             commandSourceRepository.save(commandSourceResult);
         }
 
-        if (rollbackTransaction) { throw new RollbackTransactionAsCommandIsNotApprovedByCheckerException(changesOnlyJson); }
-
-        return result;
+        return changesOnlyJson;
     }
 
     @Transactional
@@ -106,332 +194,47 @@ public class SynchronousCommandProcessingService implements CommandProcessingSer
                 .build();
     }
 
-    private NewCommandSourceHandler findCommandHandler(final CommandWrapper wrapper) {
-        NewCommandSourceHandler handler = null;
-
-        if (wrapper.isConfigurationResource()) {
-            handler = applicationContext.getBean("updateGlobalConfigurationCommandHandler", NewCommandSourceHandler.class);
-        } else if (wrapper.isDatatableResource()) {
-            if (wrapper.isCreate()) {
-                handler = applicationContext.getBean("createDatatableEntryCommandHandler", NewCommandSourceHandler.class);
-            } else if (wrapper.isUpdateMultiple()) {
-                handler = applicationContext.getBean("updateOneToManyDatatableEntryCommandHandler", NewCommandSourceHandler.class);
-            } else if (wrapper.isUpdateOneToOne()) {
-                handler = applicationContext.getBean("updateOneToOneDatatableEntryCommandHandler", NewCommandSourceHandler.class);
-            } else if (wrapper.isDeleteMultiple()) {
-                handler = applicationContext.getBean("deleteOneToManyDatatableEntryCommandHandler", NewCommandSourceHandler.class);
-            } else if (wrapper.isDeleteOneToOne()) {
-                handler = applicationContext.getBean("deleteOneToOneDatatableEntryCommandHandler", NewCommandSourceHandler.class);
-            } else {
-                throw new UnsupportedCommandException(wrapper.commandName());
-            }
-        } else if (wrapper.isNoteResource()) {
-            if (wrapper.isCreate()) {
-                handler = applicationContext.getBean("createNoteCommandHandler", NewCommandSourceHandler.class);
-            } else if (wrapper.isUpdate()) {
-                handler = applicationContext.getBean("updateNoteCommandHandler", NewCommandSourceHandler.class);
-            } else if (wrapper.isDelete()) {
-                handler = applicationContext.getBean("deleteNoteCommandHandler", NewCommandSourceHandler.class);
-            } else {
-                throw new UnsupportedCommandException(wrapper.commandName());
-            }
-        } else if (wrapper.isClientIdentifierResource()) {
-
-            if (wrapper.isCreate()) {
-                handler = applicationContext.getBean("createClientIdentifierCommandHandler", NewCommandSourceHandler.class);
-            } else if (wrapper.isUpdate()) {
-                handler = applicationContext.getBean("updateClientIdentifierCommandHandler", NewCommandSourceHandler.class);
-            } else if (wrapper.isDelete()) {
-                handler = applicationContext.getBean("deleteClientIdentifierCommandHandler", NewCommandSourceHandler.class);
-            } else {
-                throw new UnsupportedCommandException(wrapper.commandName());
-            }
-        } else if (wrapper.isClientResource() && !wrapper.isClientNoteResource() && !wrapper.isClientIdentifierResource()) {
-            if (wrapper.isCreate()) {
-                handler = applicationContext.getBean("createClientCommandHandler", NewCommandSourceHandler.class);
-            } else if (wrapper.isUpdate()) {
-                handler = applicationContext.getBean("updateClientCommandHandler", NewCommandSourceHandler.class);
-            } else if (wrapper.isDelete()) {
-                handler = applicationContext.getBean("deleteClientCommandHandler", NewCommandSourceHandler.class);
-            }
-            // end of client
-        } else if (wrapper.isUpdateRolePermissions()) {
-            handler = applicationContext.getBean("updateRolePermissionsCommandHandler", NewCommandSourceHandler.class);
-        } else if (wrapper.isPermissionResource()) {
-            handler = applicationContext.getBean("updateMakerCheckerPermissionsCommandHandler", NewCommandSourceHandler.class);
-        } else if (wrapper.isRoleResource()) {
-
-            if (wrapper.isCreate()) {
-                handler = applicationContext.getBean("createRoleCommandHandler", NewCommandSourceHandler.class);
-            } else if (wrapper.isUpdate()) {
-                handler = applicationContext.getBean("updateRoleCommandHandler", NewCommandSourceHandler.class);
-            } else {
-                throw new UnsupportedCommandException(wrapper.commandName());
-            }
+    /*
+     * recorded after commit so the statements flushed on commit are included.
+     */
+    private void recordQueryCountOnCommit(final CommandWrapper wrapper, final long queryCountBefore) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            final MifosPlatformTenant tenant = ThreadLocalContextUtil.getTenant();
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+
+                @Override
+                public void afterCommit() {
+                    final long queryCount = QueryCountingInterceptor.queryCountOfCurrentThread() - queryCountBefore;
+                    SynchronousCommandProcessingService.this.commandQueryMetricsService.record(wrapper.actionName(), wrapper.entityName(),
+                            tenant, queryCount);
+                }
+            });
+        }
+    }
 
-        } else if (wrapper.isUserResource()) {
-            if (wrapper.isCreate()) {
-                handler = applicationContext.getBean("createUserCommandHandler", NewCommandSourceHandler.class);
-            } else if (wrapper.isUpdate()) {
-                handler = applicationContext.getBean("updateUserCommandHandler", NewCommandSourceHandler.class);
-            } else if (wrapper.isDelete()) {
-                handler = applicationContext.getBean("deleteUserCommandHandler", NewCommandSourceHandler.class);
-            } else {
-                throw new UnsupportedCommandException(wrapper.commandName());
-            }
-        } else if (wrapper.isStaffResource()) {
-            if (wrapper.isCreate()) {
-                handler = applicationContext.getBean("createStaffCommandHandler", NewCommandSourceHandler.class);
-            } else if (wrapper.isUpdate()) {
-                handler = applicationContext.getBean("updateStaffCommandHandler", NewCommandSourceHandler.class);
-            } else {
-                throw new UnsupportedCommandException(wrapper.commandName());
-            }
-        } else if (wrapper.isGuarantorResource()) {
-            if (wrapper.isCreate()) {
-                handler = applicationContext.getBean("createGuarantorCommandHandler", NewCommandSourceHandler.class);
-            } else if (wrapper.isUpdate()) {
-                handler = applicationContext.getBean("updateGuarantorCommandHandler", NewCommandSourceHandler.class);
-            } else if (wrapper.isDelete()) {
-                handler = applicationContext.getBean("deleteGuarantorCommandHandler", NewCommandSourceHandler.class);
-            } else {
-                throw new UnsupportedCommandException(wrapper.commandName());
-            }
-        } else if (wrapper.isCodeResource()) {
-            if (wrapper.isCreate()) {
-                handler = applicationContext.getBean("createCodeCommandHandler", NewCommandSourceHandler.class);
-            } else if (wrapper.isUpdate()) {
-                handler = applicationContext.getBean("updateCodeCommandHandler", NewCommandSourceHandler.class);
-            } else if (wrapper.isDelete()) {
-                handler = applicationContext.getBean("deleteCodeCommandHandler", NewCommandSourceHandler.class);
-            } else {
-                throw new UnsupportedCommandException(wrapper.commandName());
-            }
-        } else if (wrapper.isCodeValueResource()) {
-            if (wrapper.isCreate()) {
-                handler = applicationContext.getBean("createCodeValueCommandHandler", NewCommandSourceHandler.class);
-            } else if (wrapper.isUpdate()) {
-                handler = applicationContext.getBean("updateCodeValueCommandHandler", NewCommandSourceHandler.class);
-            } else if (wrapper.isDelete()) {
-                handler = applicationContext.getBean("deleteCodeValueCommandHandler", NewCommandSourceHandler.class);
-            } else {
-                throw new UnsupportedCommandException(wrapper.commandName());
-            }
-        } else if (wrapper.isCurrencyResource()) {
-            handler = applicationContext.getBean("updateCurrencyCommandHandler", NewCommandSourceHandler.class);
-        } else if (wrapper.isFundResource()) {
-            if (wrapper.isCreate()) {
-                handler = applicationContext.getBean("createFundCommandHandler", NewCommandSourceHandler.class);
-            } else if (wrapper.isUpdate()) {
-                handler = applicationContext.getBean("updateFundCommandHandler", NewCommandSourceHandler.class);
-            } else {
-                throw new UnsupportedCommandException(wrapper.commandName());
-            }
-        } else if (wrapper.isOfficeResource()) {
-            if (wrapper.isCreate()) {
-                handler = applicationContext.getBean("createOfficeCommandHandler", NewCommandSourceHandler.class);
-            } else if (wrapper.isUpdate()) {
-                handler = applicationContext.getBean("updateOfficeCommandHandler", NewCommandSourceHandler.class);
-            } else {
-                throw new UnsupportedCommandException(wrapper.commandName());
-            }
-        } else if (wrapper.isOfficeTransactionResource()) {
-            if (wrapper.isCreate()) {
-                handler = applicationContext.getBean("createOfficeTransactionCommandHandler", NewCommandSourceHandler.class);
-            } else if (wrapper.isDelete()) {
-                handler = applicationContext.getBean("deleteOfficeTransactionCommandHandler", NewCommandSourceHandler.class);
-            } else {
-                throw new UnsupportedCommandException(wrapper.commandName());
-            }
-        } else if (wrapper.isChargeDefinitionResource()) {
-            if (wrapper.isCreate()) {
-                handler = applicationContext.getBean("createChargeDefinitionCommandHandler", NewCommandSourceHandler.class);
-            } else if (wrapper.isUpdate()) {
-                handler = applicationContext.getBean("updateChargeDefinitionCommandHandler", NewCommandSourceHandler.class);
-            } else if (wrapper.isDelete()) {
-                handler = applicationContext.getBean("deleteChargeDefinitionCommandHandler", NewCommandSourceHandler.class);
-            } else {
-                throw new UnsupportedCommandException(wrapper.commandName());
-            }
-        } else if (wrapper.isLoanProductResource()) {
-            if (wrapper.isCreate()) {
-                handler = applicationContext.getBean("createLoanProductCommandHandler", NewCommandSourceHandler.class);
-            } else if (wrapper.isUpdate()) {
-                handler = applicationContext.getBean("updateLoanProductCommandHandler", NewCommandSourceHandler.class);
-            } else {
-                throw new UnsupportedCommandException(wrapper.commandName());
-            }
-        } else if (wrapper.isLoanResource()) {
-            if (wrapper.isApproveLoanApplication()) {
-                handler = applicationContext.getBean("loanApplicationApprovalCommandHandler", NewCommandSourceHandler.class);
-            } else if (wrapper.isUndoApprovalOfLoanApplication()) {
-                handler = applicationContext.getBean("loanApplicationApprovalUndoCommandHandler", NewCommandSourceHandler.class);
-            } else if (wrapper.isApplicantWithdrawalFromLoanApplication()) {
-                handler = applicationContext.getBean("loanApplicationWithdrawnByApplicantCommandHandler", NewCommandSourceHandler.class);
-            } else if (wrapper.isRejectionOfLoanApplication()) {
-                handler = applicationContext.getBean("loanApplicationRejectedCommandHandler", NewCommandSourceHandler.class);
-            } else if (wrapper.isDisbursementOfLoan()) {
-                handler = applicationContext.getBean("disburseLoanCommandHandler", NewCommandSourceHandler.class);
-            } else if (wrapper.isUndoDisbursementOfLoan()) {
-                handler = applicationContext.getBean("undoDisbursalLoanCommandHandler", NewCommandSourceHandler.class);
-            } else if (wrapper.isLoanRepayment()) {
-                handler = applicationContext.getBean("loanRepaymentCommandHandler", NewCommandSourceHandler.class);
-            } else if (wrapper.isLoanRepaymentAdjustment()) {
-                handler = applicationContext.getBean("loanRepaymentAdjustmentCommandHandler", NewCommandSourceHandler.class);
-            } else if (wrapper.isWaiveInterestPortionOnLoan()) {
-                handler = applicationContext.getBean("waiveInterestPortionOnLoanCommandHandler", NewCommandSourceHandler.class);
-            } else if (wrapper.isLoanWriteOff()) {
-                handler = applicationContext.getBean("writeOffLoanCommandHandler", NewCommandSourceHandler.class);
-            } else if (wrapper.isCloseLoanAsObligationsMet()) {
-                handler = applicationContext.getBean("closeLoanCommandHandler", NewCommandSourceHandler.class);
-            } else if (wrapper.isCloseLoanAsRescheduled()) {
-                handler = applicationContext.getBean("closeLoanAsRescheduledCommandHandler", NewCommandSourceHandler.class);
-            } else if (wrapper.isUpdateLoanOfficer()) {
-                handler = applicationContext.getBean("updateLoanOfficerCommandHandler", NewCommandSourceHandler.class);
-            } else if (wrapper.isRemoveLoanOfficer()) {
-                handler = applicationContext.getBean("removeLoanOfficerCommandHandler", NewCommandSourceHandler.class);
-            } else if (wrapper.isBulkUpdateLoanOfficer()) {
-                handler = applicationContext.getBean("bulkUpdateLoanOfficerCommandHandler", NewCommandSourceHandler.class);
-            } else if (wrapper.isCreate()) {
-                handler = applicationContext.getBean("loanApplicationSubmittalCommandHandler", NewCommandSourceHandler.class);
-            } else if (wrapper.isUpdate()) {
-                handler = applicationContext.getBean("loanApplicationModificationCommandHandler", NewCommandSourceHandler.class);
-            } else if (wrapper.isDelete()) {
-                handler = applicationContext.getBean("loanApplicationDeletionCommandHandler", NewCommandSourceHandler.class);
-            } else {
-                throw new UnsupportedCommandException(wrapper.commandName());
-            }
-        } else if (wrapper.isLoanChargeResource()) {
-            if (wrapper.isAddLoanCharge()) {
-                handler = applicationContext.getBean("addLoanChargeCommandHandler", NewCommandSourceHandler.class);
-            } else if (wrapper.isDeleteLoanCharge()) {
-                handler = applicationContext.getBean("deleteLoanChargeCommandHandler", NewCommandSourceHandler.class);
-            } else if (wrapper.isUpdateLoanCharge()) {
-                handler = applicationContext.getBean("updateLoanChargeCommandHandler", NewCommandSourceHandler.class);
-            } else if (wrapper.isWaiveLoanCharge()) {
-                handler = applicationContext.getBean("waiveLoanChargeCommandHandler", NewCommandSourceHandler.class);
-            }
-        } else if (wrapper.isGLAccountResource()) {
-            if (wrapper.isCreate()) {
-                handler = applicationContext.getBean("createGLAccountCommandHandler", NewCommandSourceHandler.class);
-            } else if (wrapper.isUpdate()) {
-                handler = applicationContext.getBean("updateGLAccountCommandHandler", NewCommandSourceHandler.class);
-            } else if (wrapper.isDelete()) {
-                handler = applicationContext.getBean("deleteGLAccountCommandHandler", NewCommandSourceHandler.class);
-            } else {
-                throw new UnsupportedCommandException(wrapper.commandName());
-            }
-        } else if (wrapper.isGLClosureResource()) {
-            if (wrapper.isCreate()) {
-                handler = applicationContext.getBean("createGLClosureCommandHandler", NewCommandSourceHandler.class);
-            } else if (wrapper.isUpdate()) {
-                handler = applicationContext.getBean("updateGLClosureCommandHandler", NewCommandSourceHandler.class);
-            } else if (wrapper.isDelete()) {
-                handler = applicationContext.getBean("deleteGLClosureCommandHandler", NewCommandSourceHandler.class);
-            } else {
-                throw new UnsupportedCommandException(wrapper.commandName());
-            }
-        } else if (wrapper.isJournalEntryResource()) {
-            if (wrapper.isCreate()) {
-                handler = applicationContext.getBean("createJournalEntryCommandHandler", NewCommandSourceHandler.class);
-            } else if (wrapper.isRevertJournalEntry()) {
-                handler = applicationContext.getBean("reverseJournalEntryCommandHandler", NewCommandSourceHandler.class);
-            } else {
-                throw new UnsupportedCommandException(wrapper.commandName());
-            }    
-        } else if (wrapper.isDepositProductResource()) {
-        	if (wrapper.isCreate()) {
-                handler = applicationContext.getBean("createDepositProductCommandHandler", NewCommandSourceHandler.class);
-            } else if (wrapper.isUpdate()) {
-                handler = applicationContext.getBean("updateDepositProductCommandHandler", NewCommandSourceHandler.class);
-            } else if (wrapper.isDelete()) {
-                handler = applicationContext.getBean("deleteDepositProductCommandHandler", NewCommandSourceHandler.class);
-            } else {
-                throw new UnsupportedCommandException(wrapper.commandName());
-            }
-        } else if (wrapper.isDepositAccountResource()) {
-        	if (wrapper.isCreate()) {
-                handler = applicationContext.getBean("createDepositAccountCommandHandler", NewCommandSourceHandler.class);
-            } else if (wrapper.isUpdate()) {
-                handler = applicationContext.getBean("updateDepositAccountCommandHandler", NewCommandSourceHandler.class);
-            } else if (wrapper.isDelete()) {
-                handler = applicationContext.getBean("deleteDepositAccountCommandHandler", NewCommandSourceHandler.class);
-            } else if (wrapper.isApprovalOfDeposit()) {
-            	handler = applicationContext.getBean("approveDepositAccountCommandHandler", NewCommandSourceHandler.class);
-            } else if (wrapper.isWithdrawDepositAmount()) {
-            	handler = applicationContext.getBean("withdrawDepositAccountAmountCommandHandler", NewCommandSourceHandler.class);
-            } else if (wrapper.isWithdrawInterest()) {
-            	handler = applicationContext.getBean("withdrawInterestDepositAccountAmountCommandHandler", NewCommandSourceHandler.class);
-            } else if (wrapper.isRenewOfDepositApplicaion()) {
-            	handler = applicationContext.getBean("renewDepositAccountCommandHandler", NewCommandSourceHandler.class);
-            } else if (wrapper.isRejectionOfDepositApplicaion()) {
-            	handler = applicationContext.getBean("rejectDepositAccountCommandHandler", NewCommandSourceHandler.class);
-            } else if (wrapper.isWithdrawByApplicant()) {
-            	handler = applicationContext.getBean("withDrawByApplicantDepositAccountCommandHandler", NewCommandSourceHandler.class);
-            } else if (wrapper.isUndoApprovalOfDepositApplication()) {
-            	handler = applicationContext.getBean("undoApprovalDepositAccountCommandHandler", NewCommandSourceHandler.class);
-            } else {
-                throw new UnsupportedCommandException(wrapper.commandName());
-            }
-        } else if (wrapper.isSavingProductResource()) {
-        	if (wrapper.isCreate()) {
-                handler = applicationContext.getBean("createSavingProductCommandHandler", NewCommandSourceHandler.class);
-            } else if (wrapper.isUpdate()) {
-                handler = applicationContext.getBean("updateSavingProductCommandHandler", NewCommandSourceHandler.class);
-            } else if (wrapper.isDelete()) {
-                handler = applicationContext.getBean("deleteSavingProductCommandHandler", NewCommandSourceHandler.class);
-            } else {
-                throw new UnsupportedCommandException(wrapper.commandName());
-            }
-        } else if (wrapper.isSavingAccountResource()) {
-        	if (wrapper.isCreate()) {
-                handler = applicationContext.getBean("createSavingAccountCommandHandler", NewCommandSourceHandler.class);
-            } else if (wrapper.isUpdate()) {
-                handler = applicationContext.getBean("updateSavingAccountCommandHandler", NewCommandSourceHandler.class);
-            } else if (wrapper.isDelete()) {
-                handler = applicationContext.getBean("deleteSavingAccountCommandHandler", NewCommandSourceHandler.class);
-            } else if (wrapper.isApprovalOfSaving()) {
-                handler = applicationContext.getBean("approveSavingAccountCommandHandler", NewCommandSourceHandler.class);
-            } else if (wrapper.isSavingAccountDeposit()) {
-                handler = applicationContext.getBean("depositSavingAmountCommandHandler", NewCommandSourceHandler.class);
-            } else if (wrapper.isRejectOfSavingAccount()) {
-                handler = applicationContext.getBean("rejectSavingAccountCommandHandler", NewCommandSourceHandler.class);
-            } else if (wrapper.isWithdrawSavingAmount()) {
-                handler = applicationContext.getBean("withdrawSavingAmountCommandHandler", NewCommandSourceHandler.class);
-            } else if (wrapper.isWithdrawOfSavingApplicatin()) {
-                handler = applicationContext.getBean("withdrawSavingApplicationCommandHandler", NewCommandSourceHandler.class);
-            } else if (wrapper.isUndoApprovalOfSavingAccount()) {
-                handler = applicationContext.getBean("undoApprovalSavingAccountCommandHandler", NewCommandSourceHandler.class);
-            } else {
-                throw new UnsupportedCommandException(wrapper.commandName());
-            }
-        } else if (wrapper.isCalendarResource()) {
-            if (wrapper.isCreate()) {
-                handler = applicationContext.getBean("createCalendarCommandHandler", NewCommandSourceHandler.class);
-            } else if (wrapper.isUpdate()) {
-                handler = applicationContext.getBean("updateCalendarCommandHandler", NewCommandSourceHandler.class);
-            } else if (wrapper.isDelete()) {
-                handler = applicationContext.getBean("deleteCalendarCommandHandler", NewCommandSourceHandler.class);
-            } else {
-                throw new UnsupportedCommandException(wrapper.commandName());
-            }
-        } else if (wrapper.isGroupResource()) {
-            if (wrapper.isCreate()) {
-                handler = applicationContext.getBean("createGroupCommandHandler", NewCommandSourceHandler.class);
-            } else if (wrapper.isUpdate()) {
-                handler = applicationContext.getBean("updateGroupCommandHandler", NewCommandSourceHandler.class);
-            } else if (wrapper.isUnassignStaff()) {
-                handler = applicationContext.getBean("unassignStaffCommandHandler", NewCommandSourceHandler.class);
-            } else if (wrapper.isDelete()) {
-                handler = applicationContext.getBean("deleteGroupCommandHandler", NewCommandSourceHandler.class);
-            } else {
-                throw new UnsupportedCommandException(wrapper.commandName());
-            }
-            
-        } else {
-            throw new UnsupportedCommandException(wrapper.commandName());
+    /*
+     * the command is only validated, not executed, and logged as awaiting
+     * approval with the changes it would make.
+     */
+    private CommandProcessingResult validateAndLogCommand(final CommandWrapper wrapper, final JsonCommand command,
+            final ValidatingCommandSourceHandler handler) {
+
+        final CommandProcessingResult result = handler.validateCommand(command);
+
+        final AppUser maker = context.authenticatedUser();
+
+        final CommandSource commandSourceResult = CommandSource.fullEntryFrom(wrapper, command, maker);
+        commandSourceResult.updateForAudit(result.getOfficeId(), result.getGroupId(), result.getClientId(), result.getLoanId());
+        if (result.hasChanges()) {
+            commandSourceResult.updateJsonTo(this.toApiJsonSerializer.serializeResult(result.getChanges()));
+        }
+
+        if (commandSourceResult.hasJson()) {
+            commandSourceResult.markAsAwaitingApproval();
+            commandSourceRepository.save(commandSourceResult);
         }
 
-        return handler;
+        return new CommandProcessingResultBuilder().withCommandId(command.commandId()).withEntityId(commandSourceResult.resourceId())
+                .build();
     }
-}
\ No newline at end of file
+}
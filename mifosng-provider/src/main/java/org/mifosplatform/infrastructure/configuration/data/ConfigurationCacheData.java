@@ -0,0 +1,33 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.configuration.data;
+
+/**
+ * Immutable data object representing the usage of the configuration cache
+ * across all tenants since startup.
+ */
+public class ConfigurationCacheData {
+
+    @SuppressWarnings("unused")
+    private final long hitCount;
+    @SuppressWarnings("unused")
+    private final long missCount;
+    @SuppressWarnings("unused")
+    private final double hitRate;
+    @SuppressWarnings("unused")
+    private final long invalidationCount;
+    @SuppressWarnings("unused")
+    private final long cachedTenants;
+
+    public ConfigurationCacheData(final long hitCount, final long missCount, final double hitRate, final long invalidationCount,
+            final long cachedTenants) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.hitRate = hitRate;
+        this.invalidationCount = invalidationCount;
+        this.cachedTenants = cachedTenants;
+    }
+}
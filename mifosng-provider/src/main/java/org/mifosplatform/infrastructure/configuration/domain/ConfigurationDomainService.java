@@ -5,8 +5,27 @@
  */
 package org.mifosplatform.infrastructure.configuration.domain;
 
+import java.util.Map;
+
+import org.mifosplatform.infrastructure.configuration.data.ConfigurationCacheData;
+
 public interface ConfigurationDomainService {
 
     boolean isMakerCheckerEnabledForTask(String taskPermissionCode);
 
+    boolean isGlobalConfigurationPropertyEnabled(String propertyName);
+
+    /**
+     * @return the global configuration properties of the current tenant and
+     *         whether they are enabled, in the order they were defined.
+     */
+    Map<String, Boolean> retrieveGlobalConfigurationProperties();
+
+    /**
+     * Drops the configuration cached for the current tenant, to be called
+     * whenever global configuration or maker-checker settings change.
+     */
+    void invalidateConfiguration();
+
+    ConfigurationCacheData retrieveCacheStatistics();
 }
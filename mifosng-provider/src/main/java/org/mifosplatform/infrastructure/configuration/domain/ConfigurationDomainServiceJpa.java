@@ -5,38 +5,174 @@
  */
 package org.mifosplatform.infrastructure.configuration.domain;
 
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
 import org.apache.commons.lang.StringUtils;
+import org.mifosplatform.infrastructure.configuration.data.ConfigurationCacheData;
 import org.mifosplatform.infrastructure.configuration.exception.GlobalConfigurationPropertyNotFoundException;
-import org.mifosplatform.useradministration.domain.Permission;
-import org.mifosplatform.useradministration.domain.PermissionRepository;
+import org.mifosplatform.infrastructure.core.domain.MifosPlatformTenant;
+import org.mifosplatform.infrastructure.core.service.TenantAwareRoutingDataSource;
+import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
 import org.mifosplatform.useradministration.exception.PermissionNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 
+/**
+ * Answers configuration questions from a per tenant snapshot of the maker
+ * checker flags of all permissions and of the global configuration
+ * properties, so processing a command does not query either table.
+ *
+ * The snapshot of a tenant is dropped through
+ * {@link #invalidateConfiguration()} by the global configuration and maker
+ * checker permission commands. Snapshots also expire after
+ * <code>mifosx.configuration.cacheTtlSeconds</code> (default 600) to pick up
+ * changes made directly in the database.
+ */
 @Service
 public class ConfigurationDomainServiceJpa implements ConfigurationDomainService {
 
-    private final PermissionRepository permissionRepository;
-    private final GlobalConfigurationRepository globalConfigurationRepository;
+    private static final String MAKER_CHECKER_PROPERTY = "maker-checker";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Cache<Long, TenantConfiguration> configurationByTenant;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong invalidationCount = new AtomicLong();
 
     @Autowired
-    public ConfigurationDomainServiceJpa(final PermissionRepository permissionRepository,
-            final GlobalConfigurationRepository globalConfigurationRepository) {
-        this.permissionRepository = permissionRepository;
-        this.globalConfigurationRepository = globalConfigurationRepository;
+    public ConfigurationDomainServiceJpa(final TenantAwareRoutingDataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+
+        final long ttlSeconds = Long.getLong("mifosx.configuration.cacheTtlSeconds", 600);
+        this.configurationByTenant = CacheBuilder.newBuilder().expireAfterWrite(ttlSeconds, TimeUnit.SECONDS).build();
     }
 
     @Override
     public boolean isMakerCheckerEnabledForTask(final String taskPermissionCode) {
         if (StringUtils.isBlank(taskPermissionCode)) { throw new PermissionNotFoundException(taskPermissionCode); }
 
-        final Permission thisTask = this.permissionRepository.findOneByCode(taskPermissionCode);
-        if (thisTask == null) { throw new PermissionNotFoundException(taskPermissionCode); }
+        final TenantConfiguration configuration = configurationForCurrentTenant();
+
+        final Boolean makerCheckerEnabledForTask = configuration.makerCheckerByPermissionCode.get(taskPermissionCode.toUpperCase());
+        if (makerCheckerEnabledForTask == null) { throw new PermissionNotFoundException(taskPermissionCode); }
+
+        return makerCheckerEnabledForTask.booleanValue() && configuration.isEnabled(MAKER_CHECKER_PROPERTY);
+    }
+
+    @Override
+    public boolean isGlobalConfigurationPropertyEnabled(final String propertyName) {
+        return configurationForCurrentTenant().isEnabled(propertyName);
+    }
+
+    @Override
+    public Map<String, Boolean> retrieveGlobalConfigurationProperties() {
+        return configurationForCurrentTenant().globalConfiguration;
+    }
+
+    @Override
+    public void invalidateConfiguration() {
+        final Long tenantId = ThreadLocalContextUtil.getTenant().getId();
+        this.invalidationCount.incrementAndGet();
+
+        this.configurationByTenant.invalidate(tenantId);
+
+        /*
+         * a concurrent command could reload the old configuration before the
+         * change is committed, so the snapshot is dropped again after commit.
+         */
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+
+                @Override
+                public void afterCommit() {
+                    ConfigurationDomainServiceJpa.this.configurationByTenant.invalidate(tenantId);
+                }
+            });
+        }
+    }
+
+    @Override
+    public ConfigurationCacheData retrieveCacheStatistics() {
+        final long hits = this.hitCount.get();
+        final long misses = this.missCount.get();
+        final double hitRate = hits + misses == 0 ? 0 : (double) hits / (hits + misses);
+
+        return new ConfigurationCacheData(hits, misses, hitRate, this.invalidationCount.get(), this.configurationByTenant.size());
+    }
+
+    private TenantConfiguration configurationForCurrentTenant() {
+        final MifosPlatformTenant tenant = ThreadLocalContextUtil.getTenant();
+
+        TenantConfiguration configuration = this.configurationByTenant.getIfPresent(tenant.getId());
+        if (configuration == null) {
+            this.missCount.incrementAndGet();
+            configuration = loadConfiguration();
+            this.configurationByTenant.put(tenant.getId(), configuration);
+        } else {
+            this.hitCount.incrementAndGet();
+        }
+
+        return configuration;
+    }
+
+    private TenantConfiguration loadConfiguration() {
+        final Map<String, Boolean> makerCheckerByPermissionCode = new HashMap<String, Boolean>(512);
+        this.jdbcTemplate.query("select p.code, p.can_maker_checker from m_permission p", new RowCallbackHandler() {
+
+            @Override
+            public void processRow(final ResultSet rs) throws SQLException {
+                makerCheckerByPermissionCode.put(rs.getString("code").toUpperCase(), Boolean.valueOf(rs.getBoolean("can_maker_checker")));
+            }
+        });
+
+        final Map<String, Boolean> globalConfiguration = new LinkedHashMap<String, Boolean>();
+        this.jdbcTemplate.query("select c.name, c.enabled from c_configuration c order by c.id", new RowCallbackHandler() {
+
+            @Override
+            public void processRow(final ResultSet rs) throws SQLException {
+                globalConfiguration.put(rs.getString("name"), Boolean.valueOf(rs.getBoolean("enabled")));
+            }
+        });
+
+        return new TenantConfiguration(makerCheckerByPermissionCode, globalConfiguration);
+    }
+
+    private static final class TenantConfiguration {
+
+        private final Map<String, Boolean> makerCheckerByPermissionCode;
+        private final Map<String, Boolean> globalConfiguration;
+        private final Map<String, Boolean> globalConfigurationByLowerCaseName;
+
+        TenantConfiguration(final Map<String, Boolean> makerCheckerByPermissionCode, final Map<String, Boolean> globalConfiguration) {
+            this.makerCheckerByPermissionCode = Collections.unmodifiableMap(makerCheckerByPermissionCode);
+            this.globalConfiguration = Collections.unmodifiableMap(globalConfiguration);
 
-        final String makerCheckerConfigurationProperty = "maker-checker";
-        final GlobalConfigurationProperty property = this.globalConfigurationRepository.findOneByName(makerCheckerConfigurationProperty);
-        if (property == null) { throw new GlobalConfigurationPropertyNotFoundException(makerCheckerConfigurationProperty); }
+            final Map<String, Boolean> byLowerCaseName = new HashMap<String, Boolean>(globalConfiguration.size() * 2);
+            for (final Map.Entry<String, Boolean> property : globalConfiguration.entrySet()) {
+                byLowerCaseName.put(property.getKey().toLowerCase(), property.getValue());
+            }
+            this.globalConfigurationByLowerCaseName = byLowerCaseName;
+        }
 
-        return thisTask.hasMakerCheckerEnabled() && property.isEnabled();
+        boolean isEnabled(final String propertyName) {
+            final Boolean enabled = propertyName == null ? null : this.globalConfigurationByLowerCaseName.get(propertyName.toLowerCase());
+            if (enabled == null) { throw new GlobalConfigurationPropertyNotFoundException(propertyName); }
+            return enabled.booleanValue();
+        }
     }
-}
\ No newline at end of file
+}
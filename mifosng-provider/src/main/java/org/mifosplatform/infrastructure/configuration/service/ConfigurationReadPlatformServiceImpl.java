@@ -5,32 +5,28 @@
  */
 package org.mifosplatform.infrastructure.configuration.service;
 
-import java.sql.ResultSet;
-import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import org.mifosplatform.infrastructure.configuration.data.GlobalConfigurationData;
 import org.mifosplatform.infrastructure.configuration.data.GlobalConfigurationPropertyData;
-import org.mifosplatform.infrastructure.core.service.TenantAwareRoutingDataSource;
+import org.mifosplatform.infrastructure.configuration.domain.ConfigurationDomainService;
 import org.mifosplatform.infrastructure.security.service.PlatformSecurityContext;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Service;
 
 @Service
 public class ConfigurationReadPlatformServiceImpl implements ConfigurationReadPlatformService {
 
-    private final JdbcTemplate jdbcTemplate;
     private final PlatformSecurityContext context;
-    private final RowMapper<GlobalConfigurationPropertyData> rm;
+    private final ConfigurationDomainService configurationDomainService;
 
     @Autowired
-    public ConfigurationReadPlatformServiceImpl(final PlatformSecurityContext context, final TenantAwareRoutingDataSource dataSource) {
+    public ConfigurationReadPlatformServiceImpl(final PlatformSecurityContext context,
+            final ConfigurationDomainService configurationDomainService) {
         this.context = context;
-        this.jdbcTemplate = new JdbcTemplate(dataSource);
-
-        rm = new GlobalConfigurationRowMapper();
+        this.configurationDomainService = configurationDomainService;
     }
 
     @Override
@@ -38,21 +34,13 @@ public class ConfigurationReadPlatformServiceImpl implements ConfigurationReadPl
 
         context.authenticatedUser();
 
-        final String sql = "SELECT c.name, c.enabled FROM c_configuration c order by c.id";
-        final List<GlobalConfigurationPropertyData> globalConfiguration = this.jdbcTemplate.query(sql, rm, new Object[] {});
-
-        return new GlobalConfigurationData(globalConfiguration);
-    }
-
-    private static final class GlobalConfigurationRowMapper implements RowMapper<GlobalConfigurationPropertyData> {
+        final Map<String, Boolean> properties = this.configurationDomainService.retrieveGlobalConfigurationProperties();
 
-        @Override
-        public GlobalConfigurationPropertyData mapRow(final ResultSet rs, @SuppressWarnings("unused") final int rowNum) throws SQLException {
-
-            final String name = rs.getString("name");
-            final boolean enabled = rs.getBoolean("enabled");
-
-            return new GlobalConfigurationPropertyData(name, enabled);
+        final List<GlobalConfigurationPropertyData> globalConfiguration = new ArrayList<GlobalConfigurationPropertyData>(properties.size());
+        for (final Map.Entry<String, Boolean> property : properties.entrySet()) {
+            globalConfiguration.add(new GlobalConfigurationPropertyData(property.getKey(), property.getValue().booleanValue()));
         }
+
+        return new GlobalConfigurationData(globalConfiguration);
     }
-}
\ No newline at end of file
+}
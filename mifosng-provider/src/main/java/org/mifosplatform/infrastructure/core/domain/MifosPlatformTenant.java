@@ -8,6 +8,7 @@ package org.mifosplatform.infrastructure.core.domain;
 public class MifosPlatformTenant {
 
     private final Long id;
+    private final String tenantIdentifier;
     private final String name;
     private final String schemaName;
     private final String schemaServer;
@@ -15,11 +16,23 @@ public class MifosPlatformTenant {
     private final String schemaUsername;
     private final String schemaPassword;
     private final String timezoneId;
+    private final Integer poolInitialSize;
+    private final Integer poolMaxActive;
+    private final Integer poolMinIdle;
+    private final Integer poolMaxIdle;
+    private final String replicaServer;
+    private final String replicaServerPort;
+    private final String replicaUsername;
+    private final String replicaPassword;
     
 
-    public MifosPlatformTenant(final Long id, final String name, final String schemaName, final String schemaServer,
-            final String schemaServerPort, final String schemaUsername, final String schemaPassword, String timezoneId) {
+    public MifosPlatformTenant(final Long id, final String tenantIdentifier, final String name, final String schemaName,
+            final String schemaServer, final String schemaServerPort, final String schemaUsername, final String schemaPassword,
+            String timezoneId, final Integer poolInitialSize, final Integer poolMaxActive, final Integer poolMinIdle,
+            final Integer poolMaxIdle, final String replicaServer, final String replicaServerPort, final String replicaUsername,
+            final String replicaPassword) {
         this.id = id;
+        this.tenantIdentifier = tenantIdentifier;
         this.name = name;
         this.schemaName = schemaName;
         this.schemaServer = schemaServer;
@@ -27,6 +40,14 @@ public class MifosPlatformTenant {
         this.schemaUsername = schemaUsername;
         this.schemaPassword = schemaPassword;
         this.timezoneId = timezoneId;
+        this.poolInitialSize = poolInitialSize;
+        this.poolMaxActive = poolMaxActive;
+        this.poolMinIdle = poolMinIdle;
+        this.poolMaxIdle = poolMaxIdle;
+        this.replicaServer = replicaServer;
+        this.replicaServerPort = replicaServerPort;
+        this.replicaUsername = replicaUsername;
+        this.replicaPassword = replicaPassword;
         
     }
 
@@ -34,6 +55,10 @@ public class MifosPlatformTenant {
         return id;
     }
 
+    public String getTenantIdentifier() {
+        return tenantIdentifier;
+    }
+
     public String getName() {
         return name;
     }
@@ -61,5 +86,48 @@ public class MifosPlatformTenant {
     public String getTimezoneId() {
         return timezoneId;
     }
-      
+
+    /**
+     * Connection pool settings are optional, <code>null</code> means the
+     * platform default applies.
+     */
+    public Integer getPoolInitialSize() {
+        return poolInitialSize;
+    }
+
+    public Integer getPoolMaxActive() {
+        return poolMaxActive;
+    }
+
+    public Integer getPoolMinIdle() {
+        return poolMinIdle;
+    }
+
+    public Integer getPoolMaxIdle() {
+        return poolMaxIdle;
+    }
+
+    /**
+     * A read replica of the tenant schema is optional, the port and
+     * credentials of the schema are used where left <code>null</code>.
+     */
+    public boolean hasReadReplica() {
+        return replicaServer != null && replicaServer.trim().length() > 0;
+    }
+
+    public String getReplicaServer() {
+        return replicaServer;
+    }
+
+    public String getReplicaServerPort() {
+        return replicaServerPort == null ? schemaServerPort : replicaServerPort;
+    }
+
+    public String getReplicaUsername() {
+        return replicaUsername == null ? schemaUsername : replicaUsername;
+    }
+
+    public String getReplicaPassword() {
+        return replicaPassword == null ? schemaPassword : replicaPassword;
+    }
 }
\ No newline at end of file
@@ -5,13 +5,20 @@
  */
 package org.mifosplatform.infrastructure.core.serialization;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.util.Collection;
 import java.util.Set;
 
+import javax.ws.rs.core.StreamingOutput;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonIOException;
+import com.google.gson.stream.JsonWriter;
 
 /**
  * An abstract helper implementation of {@link ToApiJsonSerializer} for
@@ -73,6 +80,68 @@ public final class DefaultToApiJsonSerializer<T> implements ToApiJsonSerializer<
         return serializeWithSettings(delegatedSerializer, settings, singleObject);
     }
 
+    @Override
+    public StreamingOutput serializeStreaming(final ApiRequestJsonSerializationSettings settings, final Collection<T> collection,
+            final Set<String> supportedResponseParameters) {
+        return serializeStreaming(settings, new StreamingDataSource<T>() {
+
+            @Override
+            public void forEach(final ElementHandler<T> handler) {
+                for (final T element : collection) {
+                    handler.handle(element);
+                }
+            }
+        }, supportedResponseParameters);
+    }
+
+    @Override
+    public StreamingOutput serializeStreaming(final ApiRequestJsonSerializationSettings settings, final StreamingDataSource<T> source,
+            final Set<String> supportedResponseParameters) {
+        Gson serializer = findAppropriateSerializer(settings, supportedResponseParameters);
+        if (serializer == null) {
+            serializer = this.helper.createGsonBuilder(settings.isPrettyPrint());
+        }
+        final Gson delegatedSerializer = serializer;
+        final boolean prettyPrint = settings.isPrettyPrint();
+
+        return new StreamingOutput() {
+
+            @Override
+            public void write(final OutputStream out) throws IOException {
+                final JsonWriter writer = new JsonWriter(new OutputStreamWriter(out, "UTF-8"));
+                if (prettyPrint) {
+                    writer.setIndent("  ");
+                }
+
+                writer.beginArray();
+                try {
+                    source.forEach(new StreamingDataSource.ElementHandler<T>() {
+
+                        @Override
+                        public void handle(final T element) {
+                            if (element == null) {
+                                try {
+                                    writer.nullValue();
+                                } catch (final IOException e) {
+                                    throw new JsonIOException(e);
+                                }
+                            } else {
+                                delegatedSerializer.toJson(element, element.getClass(), writer);
+                            }
+                        }
+                    });
+                } catch (final JsonIOException e) {
+                    // failures to write to the response (typically the client
+                    // going away) are reported as they would be outside gson
+                    if (e.getCause() instanceof IOException) { throw (IOException) e.getCause(); }
+                    throw e;
+                }
+                writer.endArray();
+                writer.flush();
+            }
+        };
+    }
+
     private String serializeWithSettings(final Gson gson, final ApiRequestJsonSerializationSettings settings, final Object[] dataObject) {
         String json = null;
         if (gson != null) {
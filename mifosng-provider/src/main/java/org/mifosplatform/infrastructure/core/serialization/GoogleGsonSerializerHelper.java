@@ -6,6 +6,7 @@
 package org.mifosplatform.infrastructure.core.serialization;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -17,29 +18,70 @@ import org.mifosplatform.infrastructure.core.api.ParameterListExclusionStrategy;
 import org.mifosplatform.infrastructure.core.exception.UnsupportedParameterException;
 import org.springframework.stereotype.Service;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.gson.ExclusionStrategy;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 
 /**
  * Helper class for serialization of java objects into JSON using google-gson.
+ *
+ * {@link Gson} instances are thread safe and cache the type adapters they
+ * build, so serializers for partial responses are kept by supported
+ * parameters, requested parameters and pretty printing rather than built per
+ * request. At most <code>mifosx.serialization.gsonCacheSize</code> (default
+ * 256) of them are kept.
  */
 @Service
 public final class GoogleGsonSerializerHelper {
 
+    private final JodaLocalDateAdapter localDateAdapter = new JodaLocalDateAdapter();
+    private final JodaDateTimeAdapter dateTimeAdapter = new JodaDateTimeAdapter();
+
+    private final Gson excludeNothingWithPrettyPrintingOff;
+    private final Gson excludeNothingWithPrettyPrintingOn;
+    private final Cache<SerializerKey, Gson> partialResponseSerializers;
+
+    public GoogleGsonSerializerHelper() {
+        this.excludeNothingWithPrettyPrintingOff = newGsonBuilder(null, false).create();
+        this.excludeNothingWithPrettyPrintingOn = newGsonBuilder(null, true).create();
+        this.partialResponseSerializers = CacheBuilder.newBuilder()
+                .maximumSize(Long.getLong("mifosx.serialization.gsonCacheSize", 256)).build();
+    }
+
     public Gson createGsonBuilder(final boolean prettyPrint) {
-        final GsonBuilder builder = new GsonBuilder();
-        builder.registerTypeAdapter(LocalDate.class, new JodaLocalDateAdapter());
-        builder.registerTypeAdapter(DateTime.class, new JodaDateTimeAdapter());
-        if (prettyPrint) {
-            builder.setPrettyPrinting();
-        }
-        return builder.create();
+        return prettyPrint ? this.excludeNothingWithPrettyPrintingOn : this.excludeNothingWithPrettyPrintingOff;
     }
 
     public Gson createGsonBuilderWithParameterExclusionSerializationStrategy(final Set<String> supportedParameters,
             final boolean prettyPrint, final Set<String> responseParameters) {
 
+        final SerializerKey key = new SerializerKey(supportedParameters, responseParameters, prettyPrint);
+
+        Gson gson = this.partialResponseSerializers.getIfPresent(key);
+        if (gson == null) {
+            // only combinations that pass validation end up cached
+            final Set<String> parameterNamesToSkip = parameterNamesToSkip(supportedParameters, responseParameters);
+
+            final ExclusionStrategy strategy = new ParameterListExclusionStrategy(parameterNamesToSkip);
+            gson = newGsonBuilder(strategy, prettyPrint).create();
+
+            this.partialResponseSerializers.put(key.immutableCopy(), gson);
+        }
+        return gson;
+    }
+
+    public String serializedJsonFrom(final Gson serializer, final Object[] dataObjects) {
+        return serializer.toJson(dataObjects);
+    }
+
+    public String serializedJsonFrom(final Gson serializer, final Object singleDataObject) {
+        return serializer.toJson(singleDataObject);
+    }
+
+    private static Set<String> parameterNamesToSkip(final Set<String> supportedParameters, final Set<String> responseParameters) {
+
         final Set<String> parameterNamesToSkip = new HashSet<String>();
 
         if (!responseParameters.isEmpty()) {
@@ -56,22 +98,58 @@ public final class GoogleGsonSerializerHelper {
             parameterNamesToSkip.removeAll(responseParameters);
         }
 
-        final ExclusionStrategy strategy = new ParameterListExclusionStrategy(parameterNamesToSkip);
+        return parameterNamesToSkip;
+    }
 
-        final GsonBuilder builder = new GsonBuilder().addSerializationExclusionStrategy(strategy);
-        builder.registerTypeAdapter(LocalDate.class, new JodaLocalDateAdapter());
-        builder.registerTypeAdapter(DateTime.class, new JodaDateTimeAdapter());
+    private GsonBuilder newGsonBuilder(final ExclusionStrategy strategy, final boolean prettyPrint) {
+        final GsonBuilder builder = new GsonBuilder();
+        if (strategy != null) {
+            builder.addSerializationExclusionStrategy(strategy);
+        }
+        builder.registerTypeAdapter(LocalDate.class, this.localDateAdapter);
+        builder.registerTypeAdapter(DateTime.class, this.dateTimeAdapter);
         if (prettyPrint) {
             builder.setPrettyPrinting();
         }
-        return builder.create();
+        return builder;
     }
 
-    public String serializedJsonFrom(final Gson serializer, final Object[] dataObjects) {
-        return serializer.toJson(dataObjects);
-    }
+    private static final class SerializerKey {
 
-    public String serializedJsonFrom(final Gson serializer, final Object singleDataObject) {
-        return serializer.toJson(singleDataObject);
+        private final Set<String> supportedParameters;
+        private final Set<String> responseParameters;
+        private final boolean prettyPrint;
+        private final int hashCode;
+
+        SerializerKey(final Set<String> supportedParameters, final Set<String> responseParameters, final boolean prettyPrint) {
+            this.supportedParameters = supportedParameters;
+            this.responseParameters = responseParameters;
+            this.prettyPrint = prettyPrint;
+            this.hashCode = 31 * (31 * supportedParameters.hashCode() + responseParameters.hashCode()) + (prettyPrint ? 1 : 0);
+        }
+
+        /*
+         * lookups use the callers sets as is, cached keys must not change
+         * with them.
+         */
+        SerializerKey immutableCopy() {
+            return new SerializerKey(Collections.unmodifiableSet(new HashSet<String>(this.supportedParameters)),
+                    Collections.unmodifiableSet(new HashSet<String>(this.responseParameters)), this.prettyPrint);
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) { return true; }
+            if (!(obj instanceof SerializerKey)) { return false; }
+            final SerializerKey other = (SerializerKey) obj;
+            return this.hashCode == other.hashCode && this.prettyPrint == other.prettyPrint
+                    && this.responseParameters.equals(other.responseParameters)
+                    && this.supportedParameters.equals(other.supportedParameters);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hashCode;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,25 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.core.serialization;
+
+/**
+ * Elements produced one at a time, typically as rows are read from a streamed
+ * result set, so a large collection can be written to the response without
+ * first being held in memory.
+ */
+public interface StreamingDataSource<T> {
+
+    /**
+     * Passes each element in turn to the handler. Called while the response
+     * is being written, so any query runs at that point.
+     */
+    void forEach(ElementHandler<T> handler);
+
+    interface ElementHandler<T> {
+
+        void handle(T element);
+    }
+}
@@ -8,6 +8,8 @@ package org.mifosplatform.infrastructure.core.serialization;
 import java.util.Collection;
 import java.util.Set;
 
+import javax.ws.rs.core.StreamingOutput;
+
 public interface ToApiJsonSerializer<T> {
 
     String serialize(Object object);
@@ -19,4 +21,19 @@ public interface ToApiJsonSerializer<T> {
     String serialize(ApiRequestJsonSerializationSettings settings, Collection<T> collection, Set<String> supportedResponseParameters);
 
     String serialize(ApiRequestJsonSerializationSettings settings, T single, Set<String> supportedResponseParameters);
-}
\ No newline at end of file
+
+    /**
+     * Serializes the collection as a JSON array written element by element to
+     * the response, rather than rendering the whole response as a
+     * {@link String} first.
+     */
+    StreamingOutput serializeStreaming(ApiRequestJsonSerializationSettings settings, Collection<T> collection,
+            Set<String> supportedResponseParameters);
+
+    /**
+     * Serializes the elements of the source as a JSON array written to the
+     * response as the source produces them.
+     */
+    StreamingOutput serializeStreaming(ApiRequestJsonSerializationSettings settings, StreamingDataSource<T> source,
+            Set<String> supportedResponseParameters);
+}
@@ -0,0 +1,70 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.core.service;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.tomcat.jdbc.pool.DataSource;
+import org.apache.tomcat.jdbc.pool.PoolConfiguration;
+
+/**
+ * A tomcat jdbc pool {@link DataSource} that keeps track of how long callers
+ * wait to borrow a connection from the pool.
+ */
+public class ConnectionWaitTimingDataSource extends DataSource {
+
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    public ConnectionWaitTimingDataSource(final PoolConfiguration poolProperties) {
+        super(poolProperties);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        final long start = System.nanoTime();
+        try {
+            return super.getConnection();
+        } finally {
+            recordWait(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public Connection getConnection(final String username, final String password) throws SQLException {
+        final long start = System.nanoTime();
+        try {
+            return super.getConnection(username, password);
+        } finally {
+            recordWait(System.nanoTime() - start);
+        }
+    }
+
+    private void recordWait(final long waitNanos) {
+        this.borrowCount.incrementAndGet();
+        this.totalWaitNanos.addAndGet(waitNanos);
+
+        long currentMax = this.maxWaitNanos.get();
+        while (waitNanos > currentMax && !this.maxWaitNanos.compareAndSet(currentMax, waitNanos)) {
+            currentMax = this.maxWaitNanos.get();
+        }
+    }
+
+    public long getBorrowCount() {
+        return this.borrowCount.get();
+    }
+
+    public long getTotalWaitNanos() {
+        return this.totalWaitNanos.get();
+    }
+
+    public long getMaxWaitNanos() {
+        return this.maxWaitNanos.get();
+    }
+}
@@ -14,4 +14,22 @@ import javax.sql.DataSource;
 public interface DataSourcePerTenantService {
 
     DataSource retrieveTenantAwareDataSource();
+
+    /**
+     * @return a pool of the tenant of this request for results streamed to a
+     *         response, whose connections are never reclaimed as abandoned.
+     */
+    DataSource retrieveTenantAwareStreamingDataSource();
+
+    /**
+     * @return the read replica of the tenant of this request, or
+     *         <code>null</code> when it has none or it is down or lagging.
+     */
+    DataSource retrieveTenantAwareReadReplicaDataSource();
+
+    /**
+     * Stops handing out the read replica of the tenant of this request until
+     * it is next checked, as a connection to it could not be had.
+     */
+    void markReadReplicaUnavailable();
 }
\ No newline at end of file
@@ -0,0 +1,60 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.core.service;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+
+/**
+ * A {@link JpaTransactionManager} that begins a read only transaction on the
+ * read replica of the tenant only when the thread has been marked through
+ * {@link ReadReplicaContext}. All other transactions, including read only
+ * ones such as those of the spring data repositories, begin on the primary
+ * so they never see data that is behind.
+ * 
+ * A transaction that may write always begins on the primary, even within
+ * marked work. The connection of a transaction is taken when it begins, so
+ * the preference is set here and restored once it completes.
+ */
+public class ReadReplicaAwareJpaTransactionManager extends JpaTransactionManager {
+
+    private static final ThreadLocal<Deque<Boolean>> outerPreferences = new ThreadLocal<Deque<Boolean>>() {
+
+        @Override
+        protected Deque<Boolean> initialValue() {
+            return new ArrayDeque<Boolean>();
+        }
+    };
+
+    @Override
+    protected void doBegin(final Object transaction, final TransactionDefinition definition) {
+        final boolean previous = ReadReplicaContext.setReplicaPreferred(definition.isReadOnly()
+                && ReadReplicaContext.isReplicaPreferred());
+        try {
+            super.doBegin(transaction, definition);
+        } catch (final RuntimeException e) {
+            ReadReplicaContext.setReplicaPreferred(previous);
+            throw e;
+        } catch (final Error e) {
+            ReadReplicaContext.setReplicaPreferred(previous);
+            throw e;
+        }
+        outerPreferences.get().push(Boolean.valueOf(previous));
+    }
+
+    @Override
+    protected void doCleanupAfterCompletion(final Object transaction) {
+        try {
+            super.doCleanupAfterCompletion(transaction);
+        } finally {
+            final Boolean previous = outerPreferences.get().poll();
+            ReadReplicaContext.setReplicaPreferred(previous != null && previous.booleanValue());
+        }
+    }
+}
@@ -0,0 +1,50 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.core.service;
+
+/**
+ * Marks the work of the current thread as read only, so that
+ * {@link TenantAwareRoutingDataSource} hands out connections to the read
+ * replica of the tenant where it has a usable one.
+ * 
+ * Only work that can live with data that is a little behind should be
+ * marked, typically reporting:
+ * 
+ * <pre>
+ * final boolean previous = ReadReplicaContext.setReplicaPreferred(true);
+ * try {
+ *     ...
+ * } finally {
+ *     ReadReplicaContext.setReplicaPreferred(previous);
+ * }
+ * </pre>
+ */
+public final class ReadReplicaContext {
+
+    private static final ThreadLocal<Boolean> replicaPreferred = new ThreadLocal<Boolean>();
+
+    private ReadReplicaContext() {
+        //
+    }
+
+    /**
+     * @return whether the replica was preferred before, to be restored when
+     *         the work is done.
+     */
+    public static boolean setReplicaPreferred(final boolean preferred) {
+        final boolean previous = isReplicaPreferred();
+        if (preferred) {
+            replicaPreferred.set(Boolean.TRUE);
+        } else {
+            replicaPreferred.remove();
+        }
+        return previous;
+    }
+
+    public static boolean isReplicaPreferred() {
+        return Boolean.TRUE.equals(replicaPreferred.get());
+    }
+}
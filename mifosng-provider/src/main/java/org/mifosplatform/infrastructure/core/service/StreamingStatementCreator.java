@@ -0,0 +1,49 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.core.service;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.SqlProvider;
+import org.springframework.jdbc.core.SqlTypeValue;
+import org.springframework.jdbc.core.StatementCreatorUtils;
+
+/**
+ * Creates a forward only statement that MySQL Connector/J streams row by row
+ * instead of reading the whole result into memory.
+ * 
+ * No other statement can run on the connection until the streamed result set
+ * is closed, so rows should be handled without going back to the database.
+ */
+public final class StreamingStatementCreator implements PreparedStatementCreator, SqlProvider {
+
+    private final String sql;
+    private final Object[] params;
+
+    public StreamingStatementCreator(final String sql, final Object... params) {
+        this.sql = sql;
+        this.params = params;
+    }
+
+    @Override
+    public PreparedStatement createPreparedStatement(final Connection con) throws SQLException {
+        final PreparedStatement statement = con.prepareStatement(this.sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        statement.setFetchSize(Integer.MIN_VALUE);
+        for (int i = 0; i < this.params.length; i++) {
+            StatementCreatorUtils.setParameterValue(statement, i + 1, SqlTypeValue.TYPE_UNKNOWN, this.params[i]);
+        }
+        return statement;
+    }
+
+    @Override
+    public String getSql() {
+        return this.sql;
+    }
+}
@@ -10,6 +10,8 @@ import java.sql.SQLException;
 
 import javax.sql.DataSource;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.datasource.AbstractDataSource;
 import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
@@ -24,15 +26,32 @@ import org.springframework.stereotype.Service;
  * 
  * The {@link DataSourcePerTenantService} is responsible for returning the
  * appropriate {@link DataSource} for the tenant of this request.
+ * 
+ * Work marked through {@link ReadReplicaContext} is given a connection to
+ * the read replica of the tenant when it has a usable one, and to the primary
+ * otherwise.
  */
 @Service(value = "tenantAwareDataSource")
 public class TenantAwareRoutingDataSource extends AbstractDataSource {
 
+    private final static Logger logger = LoggerFactory.getLogger(TenantAwareRoutingDataSource.class);
+
     @Autowired
     private DataSourcePerTenantService dataSourcePerTenantService;
 
     @Override
     public Connection getConnection() throws SQLException {
+        if (ReadReplicaContext.isReplicaPreferred()) {
+            final DataSource readReplica = dataSourcePerTenantService.retrieveTenantAwareReadReplicaDataSource();
+            if (readReplica != null) {
+                try {
+                    return readReplica.getConnection();
+                } catch (final SQLException e) {
+                    logger.warn("Falling back to the primary, no connection to the read replica", e);
+                    dataSourcePerTenantService.markReadReplicaUnavailable();
+                }
+            }
+        }
         return determineTargetDataSource().getConnection();
     }
 
@@ -0,0 +1,61 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.core.service;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.stereotype.Service;
+
+/**
+ * A {@link DataSource} for results streamed to a response through
+ * {@link StreamingStatementCreator}, routed by tenant as
+ * {@link TenantAwareRoutingDataSource} is.
+ *
+ * Connections come from pools that never reclaim them as abandoned, so an
+ * export that takes longer than the abandoned timeout of the tenant pool is
+ * not cut short. Work marked through {@link ReadReplicaContext} streams from
+ * the read replica of the tenant when it has a usable one.
+ */
+@Service(value = "tenantAwareStreamingDataSource")
+public class TenantAwareStreamingDataSource extends AbstractDataSource {
+
+    private final static Logger logger = LoggerFactory.getLogger(TenantAwareStreamingDataSource.class);
+
+    @Autowired
+    private DataSourcePerTenantService dataSourcePerTenantService;
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (ReadReplicaContext.isReplicaPreferred()) {
+            final DataSource readReplica = dataSourcePerTenantService.retrieveTenantAwareReadReplicaDataSource();
+            if (readReplica != null) {
+                try {
+                    return readReplica.getConnection();
+                } catch (final SQLException e) {
+                    logger.warn("Falling back to the primary, no connection to the read replica", e);
+                    dataSourcePerTenantService.markReadReplicaUnavailable();
+                }
+            }
+        }
+        return determineTargetDataSource().getConnection();
+    }
+
+    private DataSource determineTargetDataSource() {
+        return dataSourcePerTenantService.retrieveTenantAwareStreamingDataSource();
+    }
+
+    @Override
+    public Connection getConnection(final String username, final String password) throws SQLException {
+        return determineTargetDataSource().getConnection(username, password);
+    }
+}
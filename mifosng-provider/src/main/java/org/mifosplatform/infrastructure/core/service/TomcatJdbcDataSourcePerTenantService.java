@@ -5,16 +5,25 @@
  */
 package org.mifosplatform.infrastructure.core.service;
 
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
+import javax.annotation.PreDestroy;
 import javax.sql.DataSource;
 
 import org.apache.tomcat.jdbc.pool.PoolConfiguration;
 import org.apache.tomcat.jdbc.pool.PoolProperties;
 import org.mifosplatform.infrastructure.core.domain.MifosPlatformTenant;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 
 /**
@@ -24,13 +33,44 @@ import org.springframework.stereotype.Service;
  * 
  * {@link ThreadLocalContextUtil} is used to retrieve the
  * {@link MifosPlatformTenant} for the request.
+ * 
+ * Pool sizes come from the tenant record when set there and otherwise from the
+ * <code>mifosx.tenantPool.*</code> system properties.
+ * 
+ * Results streamed to a response are read through a separate, smaller pool
+ * of each tenant that does not reclaim abandoned connections, as a long export
+ * would otherwise be cut short. The tenant pool resets the abandoned timer of
+ * a connection on every statement, so only a connection unused for
+ * 60 seconds is reclaimed.
+ * 
+ * A tenant with a read replica on its record gets a second, read only pool
+ * for it, which does not reclaim abandoned connections either as it serves
+ * reporting. The replica is handed out while it is reachable and no more than
+ * <code>mifosx.replica.maxLagSeconds</code> (default 30) behind, checked at
+ * most every <code>mifosx.replica.checkIntervalSeconds</code> (default 10).
+ * The replica user needs the REPLICATION CLIENT privilege for the lag check.
  */
 @Service
 public class TomcatJdbcDataSourcePerTenantService implements DataSourcePerTenantService {
-	
-    private final Map<Long, DataSource> tenantToDataSourceMap = new ConcurrentHashMap<Long, DataSource>(1);
+
+    private final static Logger logger = LoggerFactory.getLogger(TomcatJdbcDataSourcePerTenantService.class);
+
+    private final ConcurrentMap<Long, DataSource> tenantToDataSourceMap = new ConcurrentHashMap<Long, DataSource>(1);
+    private final ConcurrentMap<Long, DataSource> tenantToStreamingDataSourceMap = new ConcurrentHashMap<Long, DataSource>(1);
+    private final ConcurrentMap<Long, ReadReplica> tenantToReadReplicaMap = new ConcurrentHashMap<Long, ReadReplica>(1);
     private final DataSource tenantDataSource;
 
+    private final int defaultInitialSize = Integer.getInteger("mifosx.tenantPool.initialSize", 0);
+    private final int defaultMaxActive = Integer.getInteger("mifosx.tenantPool.maxActive", 40);
+    private final int defaultMinIdle = Integer.getInteger("mifosx.tenantPool.minIdle", 1);
+    private final int defaultMaxIdle = Integer.getInteger("mifosx.tenantPool.maxIdle", 10);
+    private final int maxWaitMillis = Integer.getInteger("mifosx.tenantPool.maxWaitMillis", 30000);
+    private final int slowQueryThresholdMillis = Integer.getInteger("mifosx.tenantPool.slowQueryThresholdMillis", 1000);
+
+    private final long replicaMaxLagSeconds = Long.getLong("mifosx.replica.maxLagSeconds", 30);
+    private final long replicaCheckIntervalMillis = TimeUnit.SECONDS.toMillis(Long.getLong("mifosx.replica.checkIntervalSeconds", 10));
+    private final int replicaConnectTimeoutMillis = Integer.getInteger("mifosx.replica.connectTimeoutMillis", 2000);
+
     @Autowired
     public TomcatJdbcDataSourcePerTenantService(final @Qualifier("tenantDataSourceJndi") DataSource tenantDataSource) {
         this.tenantDataSource = tenantDataSource;
@@ -46,57 +86,220 @@ public class TomcatJdbcDataSourcePerTenantService implements DataSourcePerTenant
         if (tenant != null) {
             // if tenant information available switch to appropriate datasource
             // for that tenant.
-            if (this.tenantToDataSourceMap.containsKey(tenant.getId())) {
-                tenantDataSource = this.tenantToDataSourceMap.get(tenant.getId());
-            } else {
+            tenantDataSource = this.tenantToDataSourceMap.get(tenant.getId());
+            if (tenantDataSource == null) {
+                tenantDataSource = createDataSourceOnceFor(tenant);
+            }
+        }
+
+        return tenantDataSource;
+    }
+
+    /*
+     * concurrent first requests for a tenant must not each create (and leak) a
+     * pool of their own.
+     */
+    private DataSource createDataSourceOnceFor(final MifosPlatformTenant tenant) {
+        synchronized (this.tenantToDataSourceMap) {
+            DataSource tenantDataSource = this.tenantToDataSourceMap.get(tenant.getId());
+            if (tenantDataSource == null) {
                 tenantDataSource = createNewDataSourceFor(tenant);
                 this.tenantToDataSourceMap.put(tenant.getId(), tenantDataSource);
             }
+            return tenantDataSource;
         }
+    }
 
-        return tenantDataSource;
+    @Override
+    public DataSource retrieveTenantAwareStreamingDataSource() {
+        final MifosPlatformTenant tenant = ThreadLocalContextUtil.getTenant();
+        if (tenant == null) { return this.tenantDataSource; }
+
+        final DataSource streamingDataSource = this.tenantToStreamingDataSourceMap.get(tenant.getId());
+        return streamingDataSource == null ? createStreamingDataSourceOnceFor(tenant) : streamingDataSource;
+    }
+
+    private DataSource createStreamingDataSourceOnceFor(final MifosPlatformTenant tenant) {
+        synchronized (this.tenantToStreamingDataSourceMap) {
+            DataSource streamingDataSource = this.tenantToStreamingDataSourceMap.get(tenant.getId());
+            if (streamingDataSource == null) {
+                streamingDataSource = createNewDataSourceFor(tenant, tenant.getSchemaServer(), tenant.getSchemaServerPort(),
+                        tenant.getSchemaUsername(), tenant.getSchemaPassword(), tenant.getSchemaName() + "_streaming_pool", PoolKind.STREAMING);
+                this.tenantToStreamingDataSourceMap.put(tenant.getId(), streamingDataSource);
+            }
+            return streamingDataSource;
+        }
+    }
+
+    @Override
+    public DataSource retrieveTenantAwareReadReplicaDataSource() {
+        final MifosPlatformTenant tenant = ThreadLocalContextUtil.getTenant();
+        if (tenant == null || !tenant.hasReadReplica()) { return null; }
+
+        ReadReplica replica = this.tenantToReadReplicaMap.get(tenant.getId());
+        if (replica == null) {
+            replica = createReadReplicaOnceFor(tenant);
+        }
+
+        // one caller checks the replica when due, the others go by the last
+        // check
+        final long now = System.currentTimeMillis();
+        final long nextCheckAt = replica.nextCheckAt.get();
+        if (now >= nextCheckAt && replica.nextCheckAt.compareAndSet(nextCheckAt, now + this.replicaCheckIntervalMillis)) {
+            replica.usable = isUpToDate(tenant, replica.dataSource);
+        }
+
+        return replica.usable ? replica.dataSource : null;
+    }
+
+    @Override
+    public void markReadReplicaUnavailable() {
+        final MifosPlatformTenant tenant = ThreadLocalContextUtil.getTenant();
+        final ReadReplica replica = tenant == null ? null : this.tenantToReadReplicaMap.get(tenant.getId());
+        if (replica != null) {
+            replica.usable = false;
+            replica.nextCheckAt.set(System.currentTimeMillis() + this.replicaCheckIntervalMillis);
+        }
+    }
+
+    /*
+     * a replica is up to date when replication runs and is not too far
+     * behind, a server that is not a replica at all (such as a stand-in for
+     * testing) always is.
+     */
+    private boolean isUpToDate(final MifosPlatformTenant tenant, final DataSource replica) {
+        try {
+            final List<Map<String, Object>> status = new JdbcTemplate(replica).queryForList("show slave status");
+            if (status.isEmpty()) { return true; }
+
+            final Object secondsBehindMaster = status.get(0).get("Seconds_Behind_Master");
+            final boolean upToDate = secondsBehindMaster != null
+                    && ((Number) secondsBehindMaster).longValue() <= this.replicaMaxLagSeconds;
+            if (!upToDate) {
+                logger.warn("Read replica of tenant " + tenant.getTenantIdentifier() + " is not used, seconds behind master: "
+                        + secondsBehindMaster);
+            }
+            return upToDate;
+        } catch (final DataAccessException e) {
+            logger.warn("Read replica of tenant " + tenant.getTenantIdentifier() + " is not used, it can not be reached", e);
+            return false;
+        }
+    }
+
+    private ReadReplica createReadReplicaOnceFor(final MifosPlatformTenant tenant) {
+        synchronized (this.tenantToReadReplicaMap) {
+            ReadReplica replica = this.tenantToReadReplicaMap.get(tenant.getId());
+            if (replica == null) {
+                final DataSource dataSource = createNewDataSourceFor(tenant, tenant.getReplicaServer(), tenant.getReplicaServerPort(),
+                        tenant.getReplicaUsername(), tenant.getReplicaPassword(), tenant.getSchemaName() + "_replica_pool", PoolKind.READ_REPLICA);
+                replica = new ReadReplica(dataSource);
+                this.tenantToReadReplicaMap.put(tenant.getId(), replica);
+            }
+            return replica;
+        }
+    }
+
+    @PreDestroy
+    public void closeDataSources() {
+        for (final DataSource dataSource : this.tenantToDataSourceMap.values()) {
+            ((org.apache.tomcat.jdbc.pool.DataSource) dataSource).close();
+        }
+        this.tenantToDataSourceMap.clear();
+        for (final DataSource dataSource : this.tenantToStreamingDataSourceMap.values()) {
+            ((org.apache.tomcat.jdbc.pool.DataSource) dataSource).close();
+        }
+        this.tenantToStreamingDataSourceMap.clear();
+        for (final ReadReplica replica : this.tenantToReadReplicaMap.values()) {
+            ((org.apache.tomcat.jdbc.pool.DataSource) replica.dataSource).close();
+        }
+        this.tenantToReadReplicaMap.clear();
     }
 
     private DataSource createNewDataSourceFor(final MifosPlatformTenant tenant) {
+        return createNewDataSourceFor(tenant, tenant.getSchemaServer(), tenant.getSchemaServerPort(), tenant.getSchemaUsername(),
+                tenant.getSchemaPassword(), tenant.getSchemaName() + "_pool", PoolKind.TENANT);
+    }
+
+    private DataSource createNewDataSourceFor(final MifosPlatformTenant tenant, final String server, final String port,
+            final String username, final String password, final String poolName, final PoolKind kind) {
         // see
         // http://www.tomcatexpert.com/blog/2010/04/01/configuring-jdbc-pool-high-concurrency
 
-        StringBuilder jdbcUrlBuilder = new StringBuilder("jdbc:mysql://").append(tenant.getSchemaServer()).append(':')
-                .append(tenant.getSchemaServerPort()).append('/').append(tenant.getSchemaName());
+        StringBuilder jdbcUrlBuilder = new StringBuilder("jdbc:mysql://").append(server).append(':').append(port).append('/')
+                .append(tenant.getSchemaName())
+                // keep parsed statements per connection, report sql is long
+                .append("?cachePrepStmts=true&prepStmtCacheSize=250&prepStmtCacheSqlLimit=8192");
+        if (kind == PoolKind.READ_REPLICA) {
+            // give up on a replica that is down quickly, work falls back to
+            // the primary
+            jdbcUrlBuilder.append("&connectTimeout=").append(this.replicaConnectTimeoutMillis);
+        }
 
         PoolConfiguration poolConfiguration = new PoolProperties();
         poolConfiguration.setDriverClassName("com.mysql.jdbc.Driver");
-        poolConfiguration.setName(tenant.getSchemaName() + "_pool");
+        poolConfiguration.setName(poolName);
         poolConfiguration.setUrl(jdbcUrlBuilder.toString());
-        poolConfiguration.setUsername(tenant.getSchemaUsername());
-        poolConfiguration.setPassword(tenant.getSchemaPassword());
-
-        //poolConfiguration.setInitialSize(5);
-        //poolConfiguration.setMaxActive(5);
-        //poolConfiguration.setMinIdle(1);
-        //poolConfiguration.setMaxIdle(4);
-        
-        poolConfiguration.setInitialSize(15);
-        //poolConfiguration.setMaxActive(5);
-        //poolConfiguration.setMinIdle(1);
-        //poolConfiguration.setMaxIdle(4);
-
-        //poolConfiguration.setSuspectTimeout(60);
-        //poolConfiguration.setTimeBetweenEvictionRunsMillis(30000);
-        //poolConfiguration.setMinEvictableIdleTimeMillis(60000);
-
-        poolConfiguration.setTestOnBorrow(true);
+        poolConfiguration.setUsername(username);
+        poolConfiguration.setPassword(password);
+        poolConfiguration.setDefaultReadOnly(kind == PoolKind.READ_REPLICA);
+
+        // sized per tenant where the tenant record says so, connections are
+        // only opened when first needed; streamed exports are few but long
+        // and get a quarter of that
+        final int tenantMaxActive = valueOrDefault(tenant.getPoolMaxActive(), this.defaultMaxActive);
+        final int maxActive = kind == PoolKind.STREAMING ? Math.max(tenantMaxActive / 4, 2) : tenantMaxActive;
+        final int maxIdle = Math.min(valueOrDefault(tenant.getPoolMaxIdle(), this.defaultMaxIdle), maxActive);
+        final int minIdle = Math.min(valueOrDefault(tenant.getPoolMinIdle(), this.defaultMinIdle), maxIdle);
+        poolConfiguration.setInitialSize(Math.min(valueOrDefault(tenant.getPoolInitialSize(), this.defaultInitialSize), maxActive));
+        poolConfiguration.setMaxActive(maxActive);
+        poolConfiguration.setMaxIdle(maxIdle);
+        poolConfiguration.setMinIdle(minIdle);
+        poolConfiguration.setMaxWait(this.maxWaitMillis);
+
+        // idle connections above minIdle are closed by the pool cleaner so
+        // quiet tenants shrink back down
+        poolConfiguration.setTimeBetweenEvictionRunsMillis(30000);
+        poolConfiguration.setMinEvictableIdleTimeMillis(60000);
+
+        // validate idle connections in the background rather than on borrow
+        poolConfiguration.setTestOnBorrow(false);
+        poolConfiguration.setTestWhileIdle(true);
         poolConfiguration.setValidationQuery("SELECT 1");
         poolConfiguration.setValidationInterval(30000);
 
-        poolConfiguration.setRemoveAbandoned(true);
-        poolConfiguration.setRemoveAbandonedTimeout(60);
-        poolConfiguration.setLogAbandoned(true);
-        poolConfiguration.setAbandonWhenPercentageFull(50);
+        // a streamed result is read without going back to the connection, so
+        // its abandoned timer would not be reset while the rows are written
+        if (kind == PoolKind.TENANT) {
+            poolConfiguration.setRemoveAbandoned(true);
+            poolConfiguration.setRemoveAbandonedTimeout(60);
+            poolConfiguration.setLogAbandoned(true);
+            poolConfiguration.setAbandonWhenPercentageFull(50);
+        }
 
         poolConfiguration.setJdbcInterceptors("org.apache.tomcat.jdbc.pool.interceptor.ConnectionState;"
-                + "org.apache.tomcat.jdbc.pool.interceptor.StatementFinalizer;org.apache.tomcat.jdbc.pool.interceptor.SlowQueryReport");
+                + "org.apache.tomcat.jdbc.pool.interceptor.StatementFinalizer;"
+                + "org.apache.tomcat.jdbc.pool.interceptor.ResetAbandonedTimer;"
+                + "org.apache.tomcat.jdbc.pool.interceptor.SlowQueryReport(threshold=" + this.slowQueryThresholdMillis + ")");
+
+        return new ConnectionWaitTimingDataSource(poolConfiguration);
+    }
 
-        return new org.apache.tomcat.jdbc.pool.DataSource(poolConfiguration);
+    private static int valueOrDefault(final Integer value, final int defaultValue) {
+        return value == null ? defaultValue : value.intValue();
+    }
+
+    private static enum PoolKind {
+        TENANT, STREAMING, READ_REPLICA
+    }
+
+    private static final class ReadReplica {
+
+        private final DataSource dataSource;
+        private final AtomicLong nextCheckAt = new AtomicLong();
+        private volatile boolean usable;
+
+        ReadReplica(final DataSource dataSource) {
+            this.dataSource = dataSource;
+        }
     }
-}
\ No newline at end of file
+}
@@ -18,6 +18,8 @@ import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 import javax.ws.rs.core.UriInfo;
 
 import org.mifosplatform.commands.domain.CommandWrapper;
@@ -29,7 +31,6 @@ import org.mifosplatform.infrastructure.core.data.CommandProcessingResultBuilder
 import org.mifosplatform.infrastructure.core.serialization.ToApiJsonSerializer;
 import org.mifosplatform.infrastructure.dataqueries.data.DatatableData;
 import org.mifosplatform.infrastructure.dataqueries.data.GenericResultsetData;
-import org.mifosplatform.infrastructure.dataqueries.service.GenericDataService;
 import org.mifosplatform.infrastructure.dataqueries.service.ReadWriteNonCoreDataService;
 import org.mifosplatform.infrastructure.security.service.PlatformSecurityContext;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -42,18 +43,15 @@ import org.springframework.stereotype.Component;
 public class DatatablesApiResource {
 
     private final PlatformSecurityContext context;
-    private final GenericDataService genericDataService;
     private final ReadWriteNonCoreDataService readWriteNonCoreDataService;
     private final ToApiJsonSerializer<GenericResultsetData> toApiJsonSerializer;
     private final PortfolioCommandSourceWritePlatformService commandsSourceWritePlatformService;
 
     @Autowired
-    public DatatablesApiResource(final PlatformSecurityContext context, final GenericDataService genericDataService,
-            final ReadWriteNonCoreDataService readWriteNonCoreDataService,
+    public DatatablesApiResource(final PlatformSecurityContext context, final ReadWriteNonCoreDataService readWriteNonCoreDataService,
             final ToApiJsonSerializer<GenericResultsetData> toApiJsonSerializer,
             final PortfolioCommandSourceWritePlatformService commandsSourceWritePlatformService) {
         this.context = context;
-        this.genericDataService = genericDataService;
         this.readWriteNonCoreDataService = readWriteNonCoreDataService;
         this.toApiJsonSerializer = toApiJsonSerializer;
         this.commandsSourceWritePlatformService = commandsSourceWritePlatformService;
@@ -99,48 +97,46 @@ public class DatatablesApiResource {
     @Path("{datatable}/{apptableId}")
     @Consumes({ MediaType.APPLICATION_JSON })
     @Produces({ MediaType.APPLICATION_JSON })
-    public String getDatatable(@PathParam("datatable") final String datatable, @PathParam("apptableId") final Long apptableId,
+    public Response getDatatable(@PathParam("datatable") final String datatable, @PathParam("apptableId") final Long apptableId,
             @QueryParam("order") final String order, @Context final UriInfo uriInfo) {
 
         context.authenticatedUser().validateHasDatatableReadPermission(datatable);
 
-        GenericResultsetData results = this.readWriteNonCoreDataService.retrieveDataTableGenericResultSet(datatable, apptableId, order,
-                null);
-
-        String json = "";
         final boolean genericResultSet = ApiParameterHelper.genericResultSet(uriInfo.getQueryParameters());
         if (genericResultSet) {
+            GenericResultsetData results = this.readWriteNonCoreDataService.retrieveDataTableGenericResultSet(datatable, apptableId,
+                    order, null);
+
             final boolean prettyPrint = ApiParameterHelper.prettyPrint(uriInfo.getQueryParameters());
-            json = this.toApiJsonSerializer.serializePretty(prettyPrint, results);
-        } else {
-            json = this.genericDataService.generateJsonFromGenericResultsetData(results);
+            return Response.ok().entity(this.toApiJsonSerializer.serializePretty(prettyPrint, results)).build();
         }
 
-        return json;
+        final StreamingOutput json = this.readWriteNonCoreDataService.retrieveDataTableJson(datatable, apptableId, order, null);
+
+        return Response.ok().entity(json).build();
     }
 
     @GET
     @Path("{datatable}/{apptableId}/{datatableId}")
     @Consumes({ MediaType.APPLICATION_JSON })
     @Produces({ MediaType.APPLICATION_JSON })
-    public String getDatatableManyEntry(@PathParam("datatable") final String datatable, @PathParam("apptableId") final Long apptableId,
+    public Response getDatatableManyEntry(@PathParam("datatable") final String datatable, @PathParam("apptableId") final Long apptableId,
             @PathParam("datatableId") final Long datatableId, @QueryParam("order") final String order, @Context final UriInfo uriInfo) {
 
         context.authenticatedUser().validateHasDatatableReadPermission(datatable);
 
-        GenericResultsetData results = this.readWriteNonCoreDataService.retrieveDataTableGenericResultSet(datatable, apptableId, order,
-                datatableId);
-
-        String json = "";
         final boolean genericResultSet = ApiParameterHelper.genericResultSet(uriInfo.getQueryParameters());
         if (genericResultSet) {
+            GenericResultsetData results = this.readWriteNonCoreDataService.retrieveDataTableGenericResultSet(datatable, apptableId,
+                    order, datatableId);
+
             final boolean prettyPrint = ApiParameterHelper.prettyPrint(uriInfo.getQueryParameters());
-            json = this.toApiJsonSerializer.serializePretty(prettyPrint, results);
-        } else {
-            json = this.genericDataService.generateJsonFromGenericResultsetData(results);
+            return Response.ok().entity(this.toApiJsonSerializer.serializePretty(prettyPrint, results)).build();
         }
 
-        return json;
+        final StreamingOutput json = this.readWriteNonCoreDataService.retrieveDataTableJson(datatable, apptableId, order, datatableId);
+
+        return Response.ok().entity(json).build();
     }
 
     @POST
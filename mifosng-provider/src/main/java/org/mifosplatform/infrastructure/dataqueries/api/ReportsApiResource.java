@@ -12,6 +12,7 @@ import java.util.Set;
 
 import javax.ws.rs.Consumes;
 import javax.ws.rs.GET;
+import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
@@ -24,10 +25,12 @@ import javax.ws.rs.core.StreamingOutput;
 import javax.ws.rs.core.UriInfo;
 
 import org.mifosplatform.infrastructure.core.api.ApiParameterHelper;
+import org.mifosplatform.infrastructure.core.exception.PlatformDataIntegrityException;
 import org.mifosplatform.infrastructure.core.serialization.ToApiJsonSerializer;
 import org.mifosplatform.infrastructure.dataqueries.data.GenericResultsetData;
-import org.mifosplatform.infrastructure.dataqueries.service.GenericDataService;
+import org.mifosplatform.infrastructure.dataqueries.data.ReportJobData;
 import org.mifosplatform.infrastructure.dataqueries.service.ReadReportingService;
+import org.mifosplatform.infrastructure.dataqueries.service.ReportJobService;
 import org.mifosplatform.infrastructure.security.exception.NoAuthorizationException;
 import org.mifosplatform.infrastructure.security.service.PlatformSecurityContext;
 import org.mifosplatform.useradministration.domain.AppUser;
@@ -43,15 +46,18 @@ public class ReportsApiResource {
     private final PlatformSecurityContext context;
     private final ToApiJsonSerializer<GenericResultsetData> toApiJsonSerializer;
     private final ReadReportingService readExtraDataAndReportingService;
-    private final GenericDataService genericDataService;
+    private final ReportJobService reportJobService;
+    private final ToApiJsonSerializer<ReportJobData> reportJobJsonSerializer;
 
     @Autowired
     public ReportsApiResource(final PlatformSecurityContext context, final ReadReportingService readExtraDataAndReportingService,
-            final GenericDataService genericDataService, final ToApiJsonSerializer<GenericResultsetData> toApiJsonSerializer) {
+            final ToApiJsonSerializer<GenericResultsetData> toApiJsonSerializer, final ReportJobService reportJobService,
+            final ToApiJsonSerializer<ReportJobData> reportJobJsonSerializer) {
         this.context = context;
         this.readExtraDataAndReportingService = readExtraDataAndReportingService;
-        this.genericDataService = genericDataService;
         this.toApiJsonSerializer = toApiJsonSerializer;
+        this.reportJobService = reportJobService;
+        this.reportJobJsonSerializer = reportJobJsonSerializer;
     }
 
     @GET
@@ -130,22 +136,20 @@ public class ReportsApiResource {
         if (!exportCsv) {
             Map<String, String> reportParams = getReportParams(queryParams, false);
 
-            GenericResultsetData result = this.readExtraDataAndReportingService.retrieveGenericResultset(reportName, parameterTypeValue,
-                    reportParams);
-
-            String json = "";
             final boolean genericResultSetIsPassed = ApiParameterHelper.genericResultSetPassed(uriInfo.getQueryParameters());
             final boolean genericResultSet = ApiParameterHelper.genericResultSet(uriInfo.getQueryParameters());
-            if (genericResultSetIsPassed) {
-                if (genericResultSet) {
-                    json = this.toApiJsonSerializer.serializePretty(prettyPrint, result);
-                } else {
-                    json = this.genericDataService.generateJsonFromGenericResultsetData(result);
-                }
-            } else {
-                json = this.toApiJsonSerializer.serializePretty(prettyPrint, result);
+            if (genericResultSetIsPassed && !genericResultSet) {
+                // rows are written to the response as they are read
+                final StreamingOutput json = this.readExtraDataAndReportingService.retrieveReportJson(reportName, parameterTypeValue,
+                        reportParams);
+                return Response.ok().entity(json).type(MediaType.APPLICATION_JSON).build();
             }
 
+            GenericResultsetData result = this.readExtraDataAndReportingService.retrieveGenericResultset(reportName, parameterTypeValue,
+                    reportParams);
+
+            final String json = this.toApiJsonSerializer.serializePretty(prettyPrint, result);
+
             return Response.ok().entity(json).type(MediaType.APPLICATION_JSON).build();
         }
 
@@ -157,6 +161,52 @@ public class ReportsApiResource {
                 .header("Content-Disposition", "attachment;filename=" + reportName.replaceAll(" ", "") + ".csv").build();
     }
 
+    /**
+     * Runs the report in the background, taking the same parameters as
+     * {@link #retrieveReport(String, UriInfo)}. The job returned is polled
+     * through <code>reports/jobs/{jobId}</code> and its result downloaded
+     * from <code>reports/jobs/{jobId}/result</code> once completed.
+     */
+    @POST
+    @Path("{reportName}/jobs")
+    @Consumes({ MediaType.APPLICATION_JSON })
+    @Produces({ MediaType.APPLICATION_JSON })
+    public String submitReportJob(@PathParam("reportName") final String reportName, @Context final UriInfo uriInfo) {
+
+        MultivaluedMap<String, String> queryParams = uriInfo.getQueryParameters();
+
+        checkUserPermissionForReport(reportName, false);
+
+        final String reportType = this.readExtraDataAndReportingService.getReportType(reportName);
+        if (reportType.equalsIgnoreCase("Pentaho")) { throw new PlatformDataIntegrityException(
+                "error.msg.reporting.job.pentaho.not.supported", "Pentaho reports cannot be run as report jobs", reportName); }
+
+        final ReportJobData job = this.reportJobService.submitReportJob(reportName, ApiParameterHelper.exportCsv(queryParams),
+                getReportParams(queryParams, false));
+
+        return this.reportJobJsonSerializer.serialize(job);
+    }
+
+    @GET
+    @Path("jobs/{jobId}")
+    @Consumes({ MediaType.APPLICATION_JSON })
+    @Produces({ MediaType.APPLICATION_JSON })
+    public String retrieveReportJob(@PathParam("jobId") final String jobId, @Context final UriInfo uriInfo) {
+
+        final ReportJobData job = this.reportJobService.retrieveReportJob(jobId);
+
+        final boolean prettyPrint = ApiParameterHelper.prettyPrint(uriInfo.getQueryParameters());
+        return this.reportJobJsonSerializer.serializePretty(prettyPrint, job);
+    }
+
+    @GET
+    @Path("jobs/{jobId}/result")
+    @Consumes({ MediaType.APPLICATION_JSON })
+    @Produces({ MediaType.APPLICATION_JSON, "application/x-msdownload" })
+    public Response retrieveReportJobResult(@PathParam("jobId") final String jobId) {
+        return this.reportJobService.retrieveReportJobResult(jobId);
+    }
+
     private void checkUserPermissionForReport(final String reportName, final boolean parameterType) {
 
         // Anyone can run a 'report' that is simply getting possible parameter
@@ -0,0 +1,44 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.dataqueries.data;
+
+import org.joda.time.DateTime;
+
+/**
+ * Immutable data object representing a report run in the background, whose
+ * result can be downloaded once it is completed.
+ */
+public class ReportJobData {
+
+    @SuppressWarnings("unused")
+    private final String jobId;
+    @SuppressWarnings("unused")
+    private final String reportName;
+    @SuppressWarnings("unused")
+    private final String outputType;
+    @SuppressWarnings("unused")
+    private final String status;
+    @SuppressWarnings("unused")
+    private final DateTime submittedOn;
+    @SuppressWarnings("unused")
+    private final DateTime finishedOn;
+    @SuppressWarnings("unused")
+    private final long elapsedMillis;
+    @SuppressWarnings("unused")
+    private final String errorMessage;
+
+    public ReportJobData(final String jobId, final String reportName, final String outputType, final String status,
+            final DateTime submittedOn, final DateTime finishedOn, final long elapsedMillis, final String errorMessage) {
+        this.jobId = jobId;
+        this.reportName = reportName;
+        this.outputType = outputType;
+        this.status = status;
+        this.submittedOn = submittedOn;
+        this.finishedOn = finishedOn;
+        this.elapsedMillis = elapsedMillis;
+        this.errorMessage = errorMessage;
+    }
+}
@@ -7,15 +7,36 @@ package org.mifosplatform.infrastructure.dataqueries.service;
 
 import java.util.List;
 
+import javax.ws.rs.core.StreamingOutput;
+
 import org.mifosplatform.infrastructure.dataqueries.data.GenericResultsetData;
 import org.mifosplatform.infrastructure.dataqueries.data.ResultsetColumnHeaderData;
 
 public interface GenericDataService {
 
-    GenericResultsetData fillGenericResultSet(final String sql);
+    GenericResultsetData fillGenericResultSet(String sql, Object... params);
 
     String generateJsonFromGenericResultsetData(GenericResultsetData grs);
 
+    /**
+     * Runs the query when the response is written and streams its rows to the
+     * response in the format of
+     * {@link #generateJsonFromGenericResultsetData(GenericResultsetData)}
+     * without holding the result set in memory.
+     * 
+     * @param columnHeaders
+     *            headers matching the columns of the query in order, or
+     *            <code>null</code> to derive them from the result set.
+     */
+    StreamingOutput streamJsonFromSql(String sql, List<ResultsetColumnHeaderData> columnHeaders, Object... params);
+
+    /**
+     * Runs the query when the response is written and streams its rows to the
+     * response as UTF-8 CSV, headed by the column labels, without holding the
+     * result set in memory.
+     */
+    StreamingOutput streamCsvFromSql(String sql, Object... params);
+
     String replace(String str, String pattern, String replace);
 
     String wrapSQL(String sql);
@@ -5,13 +5,27 @@
  */
 package org.mifosplatform.infrastructure.dataqueries.service;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
 import java.util.ArrayList;
 import java.util.List;
 
 import javax.sql.DataSource;
+import javax.ws.rs.core.StreamingOutput;
 
 import org.joda.time.LocalDate;
+import org.mifosplatform.infrastructure.core.service.StreamingStatementCreator;
 import org.mifosplatform.infrastructure.core.service.TenantAwareRoutingDataSource;
+import org.mifosplatform.infrastructure.core.service.TenantAwareStreamingDataSource;
 import org.mifosplatform.infrastructure.dataqueries.data.GenericResultsetData;
 import org.mifosplatform.infrastructure.dataqueries.data.ResultsetColumnHeaderData;
 import org.mifosplatform.infrastructure.dataqueries.data.ResultsetColumnValueData;
@@ -19,26 +33,34 @@ import org.mifosplatform.infrastructure.dataqueries.data.ResultsetRowData;
 import org.mifosplatform.infrastructure.dataqueries.exception.DatatableNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.support.rowset.SqlRowSet;
 import org.springframework.jdbc.support.rowset.SqlRowSetMetaData;
 import org.springframework.stereotype.Service;
 
+import com.google.gson.stream.JsonWriter;
+
 @Service
 public class GenericDataServiceImpl implements GenericDataService {
 
+    private static final int CSV_BUFFER_SIZE = 64 * 1024;
+
     private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate streamingJdbcTemplate;
     private final DataSource dataSource;
 
     @Autowired
-    public GenericDataServiceImpl(final TenantAwareRoutingDataSource dataSource) {
+    public GenericDataServiceImpl(final TenantAwareRoutingDataSource dataSource, final TenantAwareStreamingDataSource streamingDataSource) {
         this.dataSource = dataSource;
         this.jdbcTemplate = new JdbcTemplate(this.dataSource);
+        this.streamingJdbcTemplate = new JdbcTemplate(streamingDataSource);
     }
 
     @Override
-    public GenericResultsetData fillGenericResultSet(final String sql) {
+    public GenericResultsetData fillGenericResultSet(final String sql, final Object... params) {
 
-        final SqlRowSet rs = this.jdbcTemplate.queryForRowSet(sql);
+        final SqlRowSet rs = this.jdbcTemplate.queryForRowSet(sql, params);
 
         final List<ResultsetColumnHeaderData> columnHeaders = new ArrayList<ResultsetColumnHeaderData>();
         final List<ResultsetRowData> resultsetDataRows = new ArrayList<ResultsetRowData>();
@@ -101,69 +123,264 @@ public class GenericDataServiceImpl implements GenericDataService {
     @Override
     public String generateJsonFromGenericResultsetData(final GenericResultsetData grs) {
 
-        StringBuffer writer = new StringBuffer();
+        final StringWriter json = new StringWriter();
+        final JsonWriter writer = new JsonWriter(json);
 
-        writer.append("[");
+        final String[] displayTypes = jsonDisplayTypes(grs.getColumnHeaders());
+        try {
+            writer.beginArray();
+            for (final ResultsetRowData rowData : grs.getData()) {
+                final List<String> row = rowData.getRow();
 
-        final List<ResultsetColumnHeaderData> columnHeaders = grs.getColumnHeaders();
+                writer.beginObject();
+                for (int j = 0; j < row.size(); j++) {
+                    writer.name(grs.getColumnHeaders().get(j).getColumnName());
+                    writeJsonValue(writer, displayTypes[j], row.get(j));
+                }
+                writer.endObject();
+            }
+            writer.endArray();
+            writer.flush();
+        } catch (final IOException e) {
+            // not thrown when writing to a StringWriter
+            throw new IllegalStateException(e);
+        }
 
-        List<ResultsetRowData> data = grs.getData();
-        List<String> row;
-        Integer rSize;
-        String doubleQuote = "\"";
-        String slashDoubleQuote = "\\\"";
-        String currColType;
-        String currVal;
+        return json.toString();
+    }
+
+    @Override
+    public StreamingOutput streamJsonFromSql(final String sql, final List<ResultsetColumnHeaderData> columnHeaders,
+            final Object... params) {
 
-        for (int i = 0; i < data.size(); i++) {
-            writer.append("\n{");
+        return new StreamingOutput() {
 
-            row = data.get(i).getRow();
-            rSize = row.size();
-            for (int j = 0; j < rSize; j++) {
+            @Override
+            public void write(final OutputStream out) throws IOException {
+                final JsonWriter writer = new JsonWriter(new OutputStreamWriter(out, "UTF-8"));
 
-                writer.append(doubleQuote + columnHeaders.get(j).getColumnName() + doubleQuote + ": ");
-                currColType = columnHeaders.get(j).getColumnDisplayType();
-                final String colType = columnHeaders.get(j).getColumnType();
-                if (currColType == null && colType.equalsIgnoreCase("INT")) {
-                    currColType = "INTEGER";
+                writer.beginArray();
+                try {
+                    GenericDataServiceImpl.this.streamingJdbcTemplate.query(new StreamingStatementCreator(sql, params), new JsonRowWriter(
+                            writer, columnHeaders));
+                } catch (final ResponseWriterException e) {
+                    throw e.getCause();
                 }
-                if (currColType == null && colType.equalsIgnoreCase("VARCHAR")) {
-                    currColType = "VARCHAR";
+                writer.endArray();
+                writer.flush();
+            }
+        };
+    }
+
+    @Override
+    public StreamingOutput streamCsvFromSql(final String sql, final Object... params) {
+
+        return new StreamingOutput() {
+
+            @Override
+            public void write(final OutputStream out) throws IOException {
+                final Writer writer = new BufferedWriter(new OutputStreamWriter(out, "UTF-8"), CSV_BUFFER_SIZE);
+
+                try {
+                    GenericDataServiceImpl.this.streamingJdbcTemplate.query(new StreamingStatementCreator(sql, params),
+                            new CsvWriter(writer));
+                } catch (final ResponseWriterException e) {
+                    throw e.getCause();
                 }
-                if (currColType == null && colType.equalsIgnoreCase("DATE")) {
-                    currColType = "DATE";
+                writer.flush();
+            }
+        };
+    }
+
+    /*
+     * the display type decides how a value is rendered, falling back on the
+     * column type for headers without one
+     */
+    private static String[] jsonDisplayTypes(final List<ResultsetColumnHeaderData> columnHeaders) {
+        final String[] displayTypes = new String[columnHeaders.size()];
+        for (int j = 0; j < displayTypes.length; j++) {
+            String currColType = columnHeaders.get(j).getColumnDisplayType();
+            final String colType = columnHeaders.get(j).getColumnType();
+            if (currColType == null && colType.equalsIgnoreCase("INT")) {
+                currColType = "INTEGER";
+            }
+            if (currColType == null && colType.equalsIgnoreCase("VARCHAR")) {
+                currColType = "VARCHAR";
+            }
+            if (currColType == null && colType.equalsIgnoreCase("DATE")) {
+                currColType = "DATE";
+            }
+            displayTypes[j] = currColType;
+        }
+        return displayTypes;
+    }
+
+    private static void writeJsonValue(final JsonWriter writer, final String displayType, final String value) throws IOException {
+        if (value == null || displayType == null) {
+            writer.nullValue();
+        } else if (displayType.equals("DECIMAL") || displayType.equals("INTEGER")) {
+            writeJsonNumber(writer, value);
+        } else if (displayType.equals("DATE")) {
+            final LocalDate localDate = new LocalDate(value);
+            writer.beginArray();
+            writer.value(localDate.getYear());
+            writer.value(localDate.getMonthOfYear());
+            writer.value(localDate.getDayOfMonth());
+            writer.endArray();
+        } else {
+            writer.value(value);
+        }
+    }
+
+    /*
+     * a numeric column can still hold a value that is not a plain number,
+     * such as an empty string in a datatable column. It is written as a string
+     * rather than failing the response part way through.
+     */
+    private static void writeJsonNumber(final JsonWriter writer, final String value) throws IOException {
+        final BigDecimal number;
+        try {
+            number = new BigDecimal(value);
+        } catch (final NumberFormatException e) {
+            writer.value(value);
+            return;
+        }
+        writer.value(number);
+    }
+
+    /**
+     * Writes each row as a JSON object as it is read from the result set.
+     */
+    private static final class JsonRowWriter implements RowCallbackHandler {
+
+        private final JsonWriter writer;
+        private List<ResultsetColumnHeaderData> columnHeaders;
+        private String[] displayTypes;
+
+        JsonRowWriter(final JsonWriter writer, final List<ResultsetColumnHeaderData> columnHeaders) {
+            this.writer = writer;
+            this.columnHeaders = columnHeaders;
+        }
+
+        @Override
+        public void processRow(final ResultSet rs) throws SQLException {
+            if (this.displayTypes == null) {
+                if (this.columnHeaders == null) {
+                    this.columnHeaders = columnHeadersFrom(rs.getMetaData());
                 }
-                currVal = row.get(j);
-                if (currVal != null && currColType != null) {
-                    if (currColType.equals("DECIMAL") || currColType.equals("INTEGER")) {
-                        writer.append(currVal);
-                    } else {
-                        if (currColType.equals("DATE")) {
-                            LocalDate localDate = new LocalDate(currVal);
-                            writer.append("[" + localDate.getYear() + ", " + localDate.getMonthOfYear() + ", " + localDate.getDayOfMonth()
-                                    + "]");
-                        } else {
-
-                            writer.append(doubleQuote + replace(currVal, doubleQuote, slashDoubleQuote) + doubleQuote);
+                this.displayTypes = jsonDisplayTypes(this.columnHeaders);
+            }
+
+            try {
+                this.writer.beginObject();
+                for (int j = 0; j < this.displayTypes.length; j++) {
+                    this.writer.name(this.columnHeaders.get(j).getColumnName());
+                    writeJsonValue(this.writer, this.displayTypes[j], rs.getString(j + 1));
+                }
+                this.writer.endObject();
+            } catch (final IOException e) {
+                throw new ResponseWriterException(e);
+            }
+        }
+
+        private static List<ResultsetColumnHeaderData> columnHeadersFrom(final ResultSetMetaData rsmd) throws SQLException {
+            final List<ResultsetColumnHeaderData> columnHeaders = new ArrayList<ResultsetColumnHeaderData>();
+            for (int i = 0; i < rsmd.getColumnCount(); i++) {
+                columnHeaders.add(ResultsetColumnHeaderData.basic(rsmd.getColumnLabel(i + 1), rsmd.getColumnTypeName(i + 1)));
+            }
+            return columnHeaders;
+        }
+    }
+
+    /**
+     * Writes the column labels and then each row as a CSV line as it is read
+     * from the result set. Numeric columns are written as they are and all
+     * others are quoted, with <code>null</code> written as an empty value.
+     */
+    private static final class CsvWriter implements ResultSetExtractor<Void> {
+
+        private final Writer writer;
+
+        CsvWriter(final Writer writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public Void extractData(final ResultSet rs) throws SQLException {
+            final ResultSetMetaData rsmd = rs.getMetaData();
+            final int columnCount = rsmd.getColumnCount();
+            final boolean[] numeric = new boolean[columnCount];
+
+            try {
+                for (int i = 0; i < columnCount; i++) {
+                    numeric[i] = isNumeric(rsmd.getColumnType(i + 1));
+                    if (i > 0) {
+                        this.writer.write(',');
+                    }
+                    writeQuoted(rsmd.getColumnLabel(i + 1));
+                }
+                this.writer.write('\n');
+
+                while (rs.next()) {
+                    for (int i = 0; i < columnCount; i++) {
+                        if (i > 0) {
+                            this.writer.write(',');
+                        }
+                        final String value = rs.getString(i + 1);
+                        if (value != null) {
+                            if (numeric[i]) {
+                                this.writer.write(value);
+                            } else {
+                                writeQuoted(value);
+                            }
                         }
                     }
-                } else {
-                    writer.append("null");
+                    this.writer.write('\n');
                 }
-                if (j < (rSize - 1)) writer.append(",\n");
+            } catch (final IOException e) {
+                throw new ResponseWriterException(e);
             }
+            return null;
+        }
+
+        private void writeQuoted(final String value) throws IOException {
+            this.writer.write('"');
+            this.writer.write(value.replace("\"", "\"\""));
+            this.writer.write('"');
+        }
 
-            if (i < (data.size() - 1)) {
-                writer.append("},");
-            } else {
-                writer.append("}");
+        private static boolean isNumeric(final int sqlType) {
+            switch (sqlType) {
+                case Types.BIGINT:
+                case Types.DECIMAL:
+                case Types.DOUBLE:
+                case Types.FLOAT:
+                case Types.INTEGER:
+                case Types.NUMERIC:
+                case Types.REAL:
+                case Types.SMALLINT:
+                case Types.TINYINT:
+                    return true;
+                default:
+                    return false;
             }
         }
+    }
 
-        writer.append("\n]");
-        return writer.toString();
+    /**
+     * Carries a failure to write to the response (typically the client going
+     * away) out of a {@link RowCallbackHandler} or {@link ResultSetExtractor}.
+     */
+    private static final class ResponseWriterException extends RuntimeException {
+
+        ResponseWriterException(final IOException cause) {
+            super(cause);
+        }
 
+        @Override
+        public synchronized IOException getCause() {
+            return (IOException) super.getCause();
+        }
     }
 
     @Override
@@ -18,9 +18,18 @@ public interface ReadReportingService {
 
     GenericResultsetData retrieveGenericResultset(String name, String type, Map<String, String> extractedQueryParams);
 
+    StreamingOutput retrieveReportJson(String name, String type, Map<String, String> extractedQueryParams);
+
     Response processPentahoRequest(String reportName, String outputType, Map<String, String> queryParams);
 
     String retrieveReportPDF(String name, String type, Map<String, String> extractedQueryParams);
 
     String getReportType(String reportName);
+
+    /**
+     * @return whether the results of the report depend on the current user
+     *         rather than only on their office hierarchy, that is its SQL
+     *         uses <code>${currentUserId}</code>.
+     */
+    boolean isReportSpecificToUser(String name, String type);
 }
\ No newline at end of file
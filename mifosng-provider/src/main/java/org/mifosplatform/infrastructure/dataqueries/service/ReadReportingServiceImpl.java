@@ -5,17 +5,19 @@
  */
 package org.mifosplatform.infrastructure.dataqueries.service;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.OutputStream;
 import java.sql.Date;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
 import javax.sql.DataSource;
 import javax.ws.rs.core.Response;
@@ -24,11 +26,14 @@ import javax.ws.rs.core.StreamingOutput;
 import org.apache.commons.lang.StringUtils;
 import org.mifosplatform.infrastructure.core.exception.PlatformDataIntegrityException;
 import org.mifosplatform.infrastructure.core.service.FileUtils;
+import org.mifosplatform.infrastructure.core.service.ReadReplicaContext;
 import org.mifosplatform.infrastructure.core.service.TenantAwareRoutingDataSource;
+import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
 import org.mifosplatform.infrastructure.dataqueries.data.GenericResultsetData;
 import org.mifosplatform.infrastructure.dataqueries.data.ResultsetColumnHeaderData;
 import org.mifosplatform.infrastructure.dataqueries.data.ResultsetRowData;
 import org.mifosplatform.infrastructure.dataqueries.exception.ReportNotFoundException;
+import org.mifosplatform.infrastructure.dataqueries.service.ReportSqlTemplate.BoundReportSql;
 import org.mifosplatform.infrastructure.security.service.PlatformSecurityContext;
 import org.mifosplatform.useradministration.domain.AppUser;
 import org.pentaho.reporting.engine.classic.core.ClassicEngineBoot;
@@ -51,6 +56,8 @@ import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.support.rowset.SqlRowSet;
 import org.springframework.stereotype.Service;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.lowagie.text.Document;
 import com.lowagie.text.PageSize;
 import com.lowagie.text.pdf.PdfPTable;
@@ -67,6 +74,15 @@ public class ReadReportingServiceImpl implements ReadReportingService {
     private final GenericDataService genericDataService;
     private boolean noPentaho = false;
 
+    private final ConcurrentMap<Long, Cache<String, ReportSqlTemplate>> templatesByTenant =
+            new ConcurrentHashMap<Long, Cache<String, ReportSqlTemplate>>();
+    private final long templateTtlSeconds;
+
+    private final ResourceManager resourceManager;
+    private final Cache<String, ParsedReport> parsedReports;
+    private final Semaphore pentahoRenderPermits;
+    private final long pentahoRenderWaitSeconds;
+
     @Autowired
     public ReadReportingServiceImpl(final PlatformSecurityContext context, final TenantAwareRoutingDataSource dataSource,
             final GenericDataService genericDataService) {
@@ -78,150 +94,173 @@ public class ReadReportingServiceImpl implements ReadReportingService {
         this.dataSource = dataSource;
         this.jdbcTemplate = new JdbcTemplate(this.dataSource);
         this.genericDataService = genericDataService;
+        this.templateTtlSeconds = Long.getLong("mifosx.reporting.sqlCacheTtlSeconds", 600);
+
+        this.resourceManager = new ResourceManager();
+        this.resourceManager.registerDefaults();
+        this.parsedReports = CacheBuilder.newBuilder().maximumSize(Long.getLong("mifosx.reporting.pentahoCacheSize", 100)).build();
+        this.pentahoRenderPermits = new Semaphore(Integer.getInteger("mifosx.reporting.pentahoMaxConcurrentRenders", Runtime.getRuntime()
+                .availableProcessors()), true);
+        this.pentahoRenderWaitSeconds = Long.getLong("mifosx.reporting.pentahoRenderWaitSeconds", 60);
     }
 
     @Override
     public StreamingOutput retrieveReportCSV(final String name, final String type, final Map<String, String> queryParams) {
 
+        final BoundReportSql sql = getReportSql(name, type, queryParams);
+        final StreamingOutput csv = genericDataService.streamCsvFromSql(sql.getSql(), sql.getParams());
+
         return new StreamingOutput() {
 
             @Override
-            public void write(final OutputStream out) {
-                try {
-
-                    GenericResultsetData result = retrieveGenericResultset(name, type, queryParams);
-                    StringBuffer sb = generateCsvFileBuffer(result);
-
-                    InputStream in = new ByteArrayInputStream(sb.toString().getBytes("UTF-8"));
+            public void write(final OutputStream out) throws IOException {
+                long startTime = System.currentTimeMillis();
+                logger.info("STARTING REPORT: " + name + "   Type: " + type);
 
-                    byte[] outputByte = new byte[4096];
-                    Integer readLen = in.read(outputByte, 0, 4096);
-
-                    while (readLen != -1) {
-                        out.write(outputByte, 0, readLen);
-                        readLen = in.read(outputByte, 0, 4096);
-                    }
-                    // in.close();
-                    // out.flush();
-                    // out.close();
-                } catch (Exception e) {
-                    throw new PlatformDataIntegrityException("error.msg.exception.error", e.getMessage());
+                // reports are run on the read replica where the tenant has one
+                final boolean previous = ReadReplicaContext.setReplicaPreferred(true);
+                try {
+                    csv.write(out);
+                } finally {
+                    ReadReplicaContext.setReplicaPreferred(previous);
                 }
+
+                long elapsed = System.currentTimeMillis() - startTime;
+                logger.info("FINISHING Report/Request Name: " + name + " - " + type + "     Elapsed Time: " + elapsed);
             }
         };
-
     }
 
-    private StringBuffer generateCsvFileBuffer(final GenericResultsetData result) {
-        StringBuffer writer = new StringBuffer();
+    @Override
+    public GenericResultsetData retrieveGenericResultset(final String name, final String type, final Map<String, String> queryParams) {
 
-        List<ResultsetColumnHeaderData> columnHeaders = result.getColumnHeaders();
-        logger.info("NO. of Columns: " + columnHeaders.size());
-        Integer chSize = columnHeaders.size();
-        for (int i = 0; i < chSize; i++) {
-            writer.append('"' + columnHeaders.get(i).getColumnName() + '"');
-            if (i < (chSize - 1)) writer.append(",");
-        }
-        writer.append('\n');
-
-        List<ResultsetRowData> data = result.getData();
-        List<String> row;
-        Integer rSize;
-        // String currCol;
-        String currColType;
-        String currVal;
-        String doubleQuote = "\"";
-        String twoDoubleQuotes = doubleQuote + doubleQuote;
-        logger.info("NO. of Rows: " + data.size());
-        for (int i = 0; i < data.size(); i++) {
-            row = data.get(i).getRow();
-            rSize = row.size();
-            for (int j = 0; j < rSize; j++) {
-                // currCol = columnHeaders.get(j).getColumnName();
-                currColType = columnHeaders.get(j).getColumnType();
-                currVal = row.get(j);
-                if (currVal != null) {
-                    if (currColType.equals("DECIMAL") || currColType.equals("DOUBLE") || currColType.equals("BIGINT")
-                            || currColType.equals("SMALLINT") || currColType.equals("INT"))
-                        writer.append(currVal);
-                    else
-                        writer.append('"' + genericDataService.replace(currVal, doubleQuote, twoDoubleQuotes) + '"');
+        long startTime = System.currentTimeMillis();
+        logger.info("STARTING REPORT: " + name + "   Type: " + type);
 
-                }
-                if (j < (rSize - 1)) writer.append(",");
-            }
-            writer.append('\n');
+        final BoundReportSql sql = getReportSql(name, type, queryParams);
+
+        final boolean previous = ReadReplicaContext.setReplicaPreferred(true);
+        GenericResultsetData result;
+        try {
+            result = genericDataService.fillGenericResultSet(sql.getSql(), sql.getParams());
+        } finally {
+            ReadReplicaContext.setReplicaPreferred(previous);
         }
 
-        return writer;
+        long elapsed = System.currentTimeMillis() - startTime;
+        logger.info("FINISHING Report/Request Name: " + name + " - " + type + "     Elapsed Time: " + elapsed);
+        return result;
     }
 
     @Override
-    public GenericResultsetData retrieveGenericResultset(final String name, final String type, final Map<String, String> queryParams) {
+    public StreamingOutput retrieveReportJson(final String name, final String type, final Map<String, String> queryParams) {
 
-        long startTime = System.currentTimeMillis();
-        logger.info("STARTING REPORT: " + name + "   Type: " + type);
+        final BoundReportSql sql = getReportSql(name, type, queryParams);
+        final StreamingOutput json = genericDataService.streamJsonFromSql(sql.getSql(), null, sql.getParams());
+
+        return new StreamingOutput() {
+
+            @Override
+            public void write(final OutputStream out) throws IOException {
+                long startTime = System.currentTimeMillis();
+                logger.info("STARTING REPORT: " + name + "   Type: " + type);
+
+                final boolean previous = ReadReplicaContext.setReplicaPreferred(true);
+                try {
+                    json.write(out);
+                } finally {
+                    ReadReplicaContext.setReplicaPreferred(previous);
+                }
+
+                long elapsed = System.currentTimeMillis() - startTime;
+                logger.info("FINISHING Report/Request Name: " + name + " - " + type + "     Elapsed Time: " + elapsed);
+            }
+        };
+    }
+
+    private BoundReportSql getReportSql(final String name, final String type, final Map<String, String> queryParams) {
 
-        String sql;
         if (name.equals(".")) {
             // this is to support api /reports - which isn't an important
             // call. It isn't used in the default reporting UI. But there is a
             // need to provide an api that does bring back 'permitted' reports
             // PERMITTED REPORTS SQL
-            sql = "select r.report_id, r.report_name, r.report_type, r.report_subtype, r.report_category,"
+            final String sql = "select r.report_id, r.report_name, r.report_type, r.report_subtype, r.report_category,"
                     + " rp.parameter_id, rp.report_parameter_name, p.parameter_name" + " from stretchy_report r"
                     + " left join stretchy_report_parameter rp on rp.report_id = r.report_id"
                     + " left join stretchy_parameter p on p.parameter_id = rp.parameter_id" + " where exists" + " (select 'f'"
                     + " from m_appuser_role ur " + " join m_role r on r.id = ur.role_id"
                     + " left join m_role_permission rp on rp.role_id = r.id" + " left join m_permission p on p.id = rp.permission_id"
-                    + " where ur.appuser_id = " + context.authenticatedUser().getId()
+                    + " where ur.appuser_id = ?"
                     + " and (p.code in ('ALL_FUNCTIONS', 'ALL_FUNCTIONS_READ') or p.code = concat('READ_', r.report_name))) "
                     + " order by r.report_name, rp.parameter_id";
-        } else {
-            sql = getSQLtoRun(name, type, queryParams);
+            return new BoundReportSql(sql, context.authenticatedUser().getId());
         }
-
-        GenericResultsetData result = genericDataService.fillGenericResultSet(sql);
-
-        long elapsed = System.currentTimeMillis() - startTime;
-        logger.info("FINISHING Report/Request Name: " + name + " - " + type + "     Elapsed Time: " + elapsed);
-        return result;
+        return getSQLtoRun(name, type, queryParams);
     }
 
-    private String getSQLtoRun(final String name, final String type, final Map<String, String> queryParams) {
-
-        String sql = getSql(name, type);
+    private BoundReportSql getSQLtoRun(final String name, final String type, final Map<String, String> queryParams) {
 
-        Set<String> keys = queryParams.keySet();
-        for (String key : keys) {
-            String pValue = queryParams.get(key);
-            // logger.info("(" + key + " : " + pValue + ")");
-            sql = genericDataService.replace(sql, key, pValue);
-        }
+        final Map<String, String> values = new HashMap<String, String>(queryParams);
 
         AppUser currentUser = context.authenticatedUser();
         // Allows sql query to restrict data by office hierarchy if required
-        sql = genericDataService.replace(sql, "${currentUserHierarchy}", currentUser.getOffice().getHierarchy());
+        values.put("${currentUserHierarchy}", currentUser.getOffice().getHierarchy());
         // Allows sql query to restrict data by current user Id if required
         // (typically used to return report lists containing only reports
         // permitted to be run by the user
-        sql = genericDataService.replace(sql, "${currentUserId}", currentUser.getId().toString());
+        values.put("${currentUserId}", currentUser.getId().toString());
 
-        sql = genericDataService.wrapSQL(sql);
+        return getTemplate(name, type).bind(values);
+    }
 
-        return sql;
+    @Override
+    public boolean isReportSpecificToUser(final String name, final String type) {
+        // the list of permitted reports is run for the current user
+        return name.equals(".") || getTemplate(name, type).references("${currentUserId}");
+    }
 
+    /*
+     * report sql is only changed directly in the stretchy tables, so parsed
+     * templates are kept for mifosx.reporting.sqlCacheTtlSeconds (default
+     * 600) before the sql is read again.
+     */
+    private ReportSqlTemplate getTemplate(final String name, final String type) {
+        final Cache<String, ReportSqlTemplate> templates = templatesForCurrentTenant();
+        final String key = type + ":" + name;
+
+        ReportSqlTemplate template = templates.getIfPresent(key);
+        if (template == null) {
+            template = ReportSqlTemplate.parse(getSql(name, type));
+            templates.put(key, template);
+        }
+        return template;
+    }
+
+    private Cache<String, ReportSqlTemplate> templatesForCurrentTenant() {
+        final Long tenantId = ThreadLocalContextUtil.getTenant().getId();
+
+        Cache<String, ReportSqlTemplate> templates = this.templatesByTenant.get(tenantId);
+        if (templates == null) {
+            final Cache<String, ReportSqlTemplate> newTemplates = CacheBuilder.newBuilder()
+                    .expireAfterWrite(this.templateTtlSeconds, TimeUnit.SECONDS).build();
+            templates = this.templatesByTenant.putIfAbsent(tenantId, newTemplates);
+            if (templates == null) {
+                templates = newTemplates;
+            }
+        }
+        return templates;
     }
 
     private String getSql(final String name, final String type) {
 
-        final String inputSql = "select " + type + "_sql as the_sql from stretchy_" + type + " where " + type + "_name = '" + name + "'";
+        final String inputSql = "select " + type + "_sql as the_sql from stretchy_" + type + " where " + type + "_name = ?";
         final String inputSqlWrapped = genericDataService.wrapSQL(inputSql);
 
-        final SqlRowSet rs = this.jdbcTemplate.queryForRowSet(inputSqlWrapped);
+        final SqlRowSet rs = this.jdbcTemplate.queryForRowSet(inputSqlWrapped, name);
 
         if (rs.next()) { return rs.getString("the_sql"); }
-        throw new ReportNotFoundException(inputSql);
+        throw new ReportNotFoundException(inputSql.replace("?", "'" + name + "'"));
     }
 
     @Override
@@ -263,49 +302,120 @@ public class ReadReportingServiceImpl implements ReadReportingService {
         final String reportPath = FileUtils.MIFOSX_BASE_DIR + File.separator + "pentahoReports" + File.separator + reportName + ".prpt";
         logger.info("Report path: " + reportPath);
 
-        // load report definition
-        ResourceManager manager = new ResourceManager();
-        manager.registerDefaults();
-        Resource res;
+        final MasterReport masterReport = loadReport(reportPath);
+        addParametersToReport(masterReport, queryParams);
 
-        try {
-            res = manager.createDirectly(reportPath, MasterReport.class);
-            MasterReport masterReport = (MasterReport) res.getResource();
+        final String renderType = outputType.toUpperCase();
 
-            addParametersToReport(masterReport, queryParams);
+        // a server already busy is reported as an error rather than failing
+        // part way through the stream
+        checkRenderPermitAvailable();
 
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        final StreamingOutput output = new StreamingOutput() {
 
-            if ("PDF".equalsIgnoreCase(outputType)) {
-                PdfReportUtil.createPDF(masterReport, baos);
-                return Response.ok().entity(baos.toByteArray()).type("application/pdf").build();
+            @Override
+            public void write(final OutputStream out) throws IOException {
+                acquireRenderPermit();
+                try {
+                    renderReport(masterReport, renderType, out);
+                } finally {
+                    ReadReportingServiceImpl.this.pentahoRenderPermits.release();
+                }
             }
+        };
 
-            if ("XLS".equalsIgnoreCase(outputType)) {
-                ExcelReportUtil.createXLS(masterReport, baos);
-                return Response.ok().entity(baos.toByteArray()).type("application/vnd.ms-excel")
-                        .header("Content-Disposition", "attachment;filename=" + reportName.replaceAll(" ", "") + ".xls").build();
-            }
+        return pentahoResponse(reportName, renderType, output);
+    }
 
-            if ("CSV".equalsIgnoreCase(outputType)) {
-                CSVReportUtil.createCSV(masterReport, baos, "UTF-8");
-                return Response.ok().entity(baos.toByteArray()).type("application/x-msdownload")
-                        .header("Content-Disposition", "attachment;filename=" + reportName.replaceAll(" ", "") + ".csv").build();
-            }
+    private static Response pentahoResponse(final String reportName, final String renderType, final StreamingOutput output) {
+
+        if ("PDF".equals(renderType)) { return Response.ok().entity(output).type("application/pdf").build(); }
 
-            if ("HTML".equalsIgnoreCase(outputType)) {
-                HtmlReportUtil.createStreamHTML(masterReport, baos);
-                return Response.ok().entity(baos.toByteArray()).type("text/html").build();
+        if ("XLS".equals(renderType)) { return Response.ok().entity(output).type("application/vnd.ms-excel")
+                .header("Content-Disposition", "attachment;filename=" + reportName.replaceAll(" ", "") + ".xls").build(); }
+
+        if ("CSV".equals(renderType)) { return Response.ok().entity(output).type("application/x-msdownload")
+                .header("Content-Disposition", "attachment;filename=" + reportName.replaceAll(" ", "") + ".csv").build(); }
+
+        return Response.ok().entity(output).type("text/html").build();
+    }
+
+    /*
+     * a report definition is parsed once per modification of its file and
+     * each request works on its own clone, as parameter values are set on the
+     * report itself.
+     */
+    private MasterReport loadReport(final String reportPath) {
+        final long lastModified = new File(reportPath).lastModified();
+
+        ParsedReport parsed = this.parsedReports.getIfPresent(reportPath);
+        if (parsed == null || parsed.lastModified != lastModified) {
+            try {
+                final Resource res = this.resourceManager.createDirectly(reportPath, MasterReport.class);
+                parsed = new ParsedReport((MasterReport) res.getResource(), lastModified);
+            } catch (ResourceException e) {
+                throw new PlatformDataIntegrityException("error.msg.reporting.error", e.getMessage());
             }
-        } catch (ResourceException e) {
+            this.parsedReports.put(reportPath, parsed);
+        }
+
+        return (MasterReport) parsed.report.clone();
+    }
+
+    /*
+     * does not hold the permit, the report is only rendered if its response
+     * is written.
+     */
+    private void checkRenderPermitAvailable() {
+        if (!this.pentahoRenderPermits.tryAcquire()) { throw new PlatformDataIntegrityException("error.msg.reporting.busy",
+                "Too many reports are being run, please try again later."); }
+        this.pentahoRenderPermits.release();
+    }
+
+    /*
+     * renders are limited to mifosx.reporting.pentahoMaxConcurrentRenders
+     * (default the number of processors) as each one can hold a large part
+     * of the report in memory. The permit is taken and released while the
+     * report is written.
+     */
+    private void acquireRenderPermit() {
+        try {
+            final boolean acquired = this.pentahoRenderPermits.tryAcquire(this.pentahoRenderWaitSeconds, TimeUnit.SECONDS);
+            if (!acquired) { throw new PlatformDataIntegrityException("error.msg.reporting.busy",
+                    "Too many reports are being run, please try again later."); }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
             throw new PlatformDataIntegrityException("error.msg.reporting.error", e.getMessage());
+        }
+    }
+
+    private void renderReport(final MasterReport masterReport, final String outputType, final OutputStream out) throws IOException {
+        try {
+            final OutputStream buffered = new BufferedOutputStream(out);
+            if ("PDF".equals(outputType)) {
+                PdfReportUtil.createPDF(masterReport, buffered);
+            } else if ("XLS".equals(outputType)) {
+                ExcelReportUtil.createXLS(masterReport, buffered);
+            } else if ("CSV".equals(outputType)) {
+                CSVReportUtil.createCSV(masterReport, buffered, "UTF-8");
+            } else {
+                HtmlReportUtil.createStreamHTML(masterReport, buffered);
+            }
+            buffered.flush();
         } catch (ReportProcessingException e) {
             throw new PlatformDataIntegrityException("error.msg.reporting.error", e.getMessage());
-        } catch (IOException e) {
-            throw new PlatformDataIntegrityException("error.msg.reporting.error", e.getMessage());
         }
+    }
+
+    private static final class ParsedReport {
 
-        throw new PlatformDataIntegrityException("error.msg.invalid.outputType", "No matching Output Type: " + outputType);
+        private final MasterReport report;
+        private final long lastModified;
+
+        ParsedReport(final MasterReport report, final long lastModified) {
+            this.report = report;
+            this.lastModified = lastModified;
+        }
     }
 
     private void addParametersToReport(final MasterReport report, final Map<String, String> queryParams) {
@@ -8,6 +8,8 @@ package org.mifosplatform.infrastructure.dataqueries.service;
 import java.util.List;
 import java.util.Map;
 
+import javax.ws.rs.core.StreamingOutput;
+
 import org.mifosplatform.infrastructure.core.api.JsonCommand;
 import org.mifosplatform.infrastructure.dataqueries.data.DatatableData;
 import org.mifosplatform.infrastructure.dataqueries.data.GenericResultsetData;
@@ -25,6 +27,8 @@ public interface ReadWriteNonCoreDataService {
 
     GenericResultsetData retrieveDataTableGenericResultSet(String datatable, Long appTableId, String order, Long id);
 
+    StreamingOutput retrieveDataTableJson(String datatable, Long appTableId, String order, Long id);
+
     void createNewDatatableEntry(String datatable, Long appTableId, JsonCommand command);
 
     Map<String, Object> updateDatatableEntryOneToOne(String datatable, Long appTableId, JsonCommand command);
@@ -15,6 +15,7 @@ import java.util.Map;
 import java.util.Set;
 
 import javax.sql.DataSource;
+import javax.ws.rs.core.StreamingOutput;
 
 import org.apache.commons.lang.StringUtils;
 import org.hibernate.exception.ConstraintViolationException;
@@ -322,6 +323,28 @@ public class ReadWriteNonCoreDataServiceImpl implements ReadWriteNonCoreDataServ
 
         final List<ResultsetColumnHeaderData> columnHeaders = this.genericDataService.fillResultsetColumnHeaders(datatable);
 
+        final String sql = getDataTableEntriesSql(datatable, appTable, appTableId, order, id);
+
+        final List<ResultsetRowData> result = fillDatatableResultSetDataRows(sql);
+
+        return new GenericResultsetData(columnHeaders, result);
+    }
+
+    @Override
+    public StreamingOutput retrieveDataTableJson(final String datatable, final Long appTableId, final String order, final Long id) {
+
+        final String appTable = getWithinScopeApplicationTableName(datatable, appTableId);
+
+        final List<ResultsetColumnHeaderData> columnHeaders = this.genericDataService.fillResultsetColumnHeaders(datatable);
+
+        final String sql = getDataTableEntriesSql(datatable, appTable, appTableId, order, id);
+
+        return this.genericDataService.streamJsonFromSql(sql, columnHeaders);
+    }
+
+    private String getDataTableEntriesSql(final String datatable, final String appTable, final Long appTableId, final String order,
+            final Long id) {
+
         String sql = "";
 
         // id only used for reading a specific entry in a one to many datatable
@@ -336,9 +359,7 @@ public class ReadWriteNonCoreDataServiceImpl implements ReadWriteNonCoreDataServ
             sql = sql + " order by " + order;
         }
 
-        final List<ResultsetRowData> result = fillDatatableResultSetDataRows(sql);
-
-        return new GenericResultsetData(columnHeaders, result);
+        return sql;
     }
 
     private void checkMainResourceExistsWithinScope(final String appTable, final Long appTableId) {
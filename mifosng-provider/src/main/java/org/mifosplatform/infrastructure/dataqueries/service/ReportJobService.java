@@ -0,0 +1,28 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.dataqueries.service;
+
+import java.util.Map;
+
+import javax.ws.rs.core.Response;
+
+import org.mifosplatform.infrastructure.dataqueries.data.ReportJobData;
+
+public interface ReportJobService {
+
+    /**
+     * Queues a run of a stretchy report, or returns the job of an identical
+     * request that is still running or whose result is still kept.
+     * 
+     * @param exportCsv
+     *            true for a CSV result, JSON otherwise.
+     */
+    ReportJobData submitReportJob(String reportName, boolean exportCsv, Map<String, String> queryParams);
+
+    ReportJobData retrieveReportJob(String jobId);
+
+    Response retrieveReportJobResult(String jobId);
+}
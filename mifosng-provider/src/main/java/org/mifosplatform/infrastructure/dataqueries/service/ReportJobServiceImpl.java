@@ -0,0 +1,388 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.dataqueries.service;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+
+import org.joda.time.DateTime;
+import org.mifosplatform.infrastructure.core.domain.MifosPlatformTenant;
+import org.mifosplatform.infrastructure.core.exception.PlatformDataIntegrityException;
+import org.mifosplatform.infrastructure.core.service.FileUtils;
+import org.mifosplatform.infrastructure.core.service.NamedDaemonThreadFactory;
+import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
+import org.mifosplatform.infrastructure.dataqueries.data.ReportJobData;
+import org.mifosplatform.infrastructure.dataqueries.exception.ReportJobNotFoundException;
+import org.mifosplatform.infrastructure.security.exception.NoAuthorizationException;
+import org.mifosplatform.infrastructure.security.service.PlatformSecurityContext;
+import org.mifosplatform.useradministration.domain.AppUser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * Runs stretchy reports in the background and writes their results to
+ * <code>reportJobs/{tenant}</code> under {@link FileUtils#MIFOSX_BASE_DIR}.
+ *
+ * Each tenant has its own pool of
+ * <code>mifosx.reporting.jobThreadsPerTenant</code> threads (default 2) with
+ * room for <code>mifosx.reporting.jobQueueSizePerTenant</code> waiting jobs
+ * (default 50), so one tenant cannot hold up the reports of another.
+ *
+ * A request for the same report, parameters and output by a user of the same
+ * office hierarchy is answered with the job already running, or with the
+ * completed one while its result is kept. A report whose SQL uses
+ * <code>${currentUserId}</code> is only shared with, and readable by, the
+ * same user. Results are kept for
+ * <code>mifosx.reporting.jobResultTtlSeconds</code> seconds (default 900),
+ * and their files are deleted a further period later so a result still being
+ * downloaded is not removed. Jobs are held in memory only, the result files
+ * left by an earlier run are deleted on startup.
+ */
+@Service
+public class ReportJobServiceImpl implements ReportJobService {
+
+    private final static Logger logger = LoggerFactory.getLogger(ReportJobServiceImpl.class);
+
+    private final PlatformSecurityContext context;
+    private final ReadReportingService readReportingService;
+    private final int threadsPerTenant;
+    private final int queueSizePerTenant;
+    private final long resultTtlMillis;
+
+    private final ConcurrentMap<String, ThreadPoolExecutor> executorsByTenant = new ConcurrentHashMap<String, ThreadPoolExecutor>();
+    private final ConcurrentMap<String, ReportJob> jobsById = new ConcurrentHashMap<String, ReportJob>();
+    private final ConcurrentMap<String, ReportJob> jobsByRequest = new ConcurrentHashMap<String, ReportJob>();
+    private final ConcurrentLinkedQueue<DiscardedResult> discardedResults = new ConcurrentLinkedQueue<DiscardedResult>();
+
+    @Autowired
+    public ReportJobServiceImpl(final PlatformSecurityContext context, final ReadReportingService readReportingService) {
+        this.context = context;
+        this.readReportingService = readReportingService;
+        this.threadsPerTenant = Integer.getInteger("mifosx.reporting.jobThreadsPerTenant", 2);
+        this.queueSizePerTenant = Integer.getInteger("mifosx.reporting.jobQueueSizePerTenant", 50);
+        this.resultTtlMillis = TimeUnit.SECONDS.toMillis(Long.getLong("mifosx.reporting.jobResultTtlSeconds", 900));
+    }
+
+    /*
+     * no job survives a restart, so any result on disk is left over
+     */
+    @PostConstruct
+    public void deleteResultsOfEarlierRun() {
+        final File[] tenantDirectories = resultsDirectory().listFiles();
+        if (tenantDirectories == null) { return; }
+
+        for (final File tenantDirectory : tenantDirectories) {
+            final File[] results = tenantDirectory.listFiles();
+            if (results != null) {
+                for (final File result : results) {
+                    if (!result.delete()) {
+                        logger.warn("Could not delete report job result " + result);
+                    }
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void stopExecutors() {
+        for (final ThreadPoolExecutor executor : this.executorsByTenant.values()) {
+            executor.shutdownNow();
+        }
+    }
+
+    @Override
+    public ReportJobData submitReportJob(final String reportName, final boolean exportCsv, final Map<String, String> queryParams) {
+        final MifosPlatformTenant tenant = ThreadLocalContextUtil.getTenant();
+        final AppUser currentUser = this.context.authenticatedUser();
+        removeExpiredJobs();
+
+        final String outputType = exportCsv ? "CSV" : "JSON";
+        final String officeHierarchy = currentUser.getOffice().getHierarchy();
+        final Long userId = this.readReportingService.isReportSpecificToUser(reportName, "report") ? currentUser.getId() : null;
+        final String requestKey = tenant.getTenantIdentifier() + "|" + reportName + "|" + outputType + "|"
+                + new TreeMap<String, String>(queryParams) + "|" + officeHierarchy + (userId == null ? "" : "|" + userId);
+
+        final ReportJob job = new ReportJob(UUID.randomUUID().toString(), tenant.getTenantIdentifier(), requestKey, reportName,
+                outputType, officeHierarchy, userId);
+        this.jobsById.put(job.jobId, job);
+        while (true) {
+            final ReportJob previous = this.jobsByRequest.putIfAbsent(requestKey, job);
+            if (previous == null) {
+                break;
+            }
+            if (previous.isReusable(System.currentTimeMillis(), this.resultTtlMillis)) {
+                this.jobsById.remove(job.jobId);
+                return previous.toData();
+            }
+            if (this.jobsByRequest.replace(requestKey, previous, job)) {
+                break;
+            }
+        }
+
+        try {
+            // the report sql is bound now, while the user is known
+            final StreamingOutput output = exportCsv ? this.readReportingService.retrieveReportCSV(reportName, "report", queryParams)
+                    : this.readReportingService.retrieveReportJson(reportName, "report", queryParams);
+
+            executorFor(tenant).execute(new Runnable() {
+
+                @Override
+                public void run() {
+                    runJob(tenant, job, output);
+                }
+            });
+        } catch (final RejectedExecutionException e) {
+            discard(job);
+            throw new PlatformDataIntegrityException("error.msg.reporting.queue.full",
+                    "Too many reports are queued, please try again later.");
+        } catch (final RuntimeException e) {
+            discard(job);
+            throw e;
+        }
+
+        return job.toData();
+    }
+
+    @Override
+    public ReportJobData retrieveReportJob(final String jobId) {
+        removeExpiredJobs();
+        return jobFor(jobId).toData();
+    }
+
+    @Override
+    public Response retrieveReportJobResult(final String jobId) {
+        removeExpiredJobs();
+        final ReportJob job = jobFor(jobId);
+
+        final File result = job.resultFile;
+        if (result == null || !result.exists()) { throw new PlatformDataIntegrityException("error.msg.report.job.result.not.available",
+                "Result of report job " + jobId + " is not available.", jobId); }
+
+        if ("CSV".equals(job.outputType)) { return Response.ok().entity(result).type("application/x-msdownload")
+                .header("Content-Disposition", "attachment;filename=" + job.reportName.replaceAll(" ", "") + ".csv").build(); }
+
+        return Response.ok().entity(result).type(MediaType.APPLICATION_JSON).build();
+    }
+
+    /*
+     * a job is only visible to users of the tenant and office hierarchy it
+     * was run for that may run the report, and only to its user when the
+     * report depends on the user.
+     */
+    private ReportJob jobFor(final String jobId) {
+        final String tenantIdentifier = ThreadLocalContextUtil.getTenant().getTenantIdentifier();
+        final ReportJob job = this.jobsById.get(jobId);
+        if (job == null || !job.tenantIdentifier.equals(tenantIdentifier)) { throw new ReportJobNotFoundException(jobId); }
+
+        final AppUser currentUser = this.context.authenticatedUser();
+        final boolean sameHierarchy = job.officeHierarchy.equals(currentUser.getOffice().getHierarchy());
+        final boolean sameUser = job.userId == null || job.userId.equals(currentUser.getId());
+        if (!sameHierarchy || !sameUser || currentUser.hasNotPermissionForReport(job.reportName)) { throw new NoAuthorizationException(
+                "Not authorised to read report job: " + jobId); }
+
+        return job;
+    }
+
+    private void runJob(final MifosPlatformTenant tenant, final ReportJob job, final StreamingOutput output) {
+        job.started();
+
+        final File result = new File(resultsDirectory(), tenant.getTenantIdentifier() + File.separator + job.jobId + "."
+                + job.outputType.toLowerCase());
+        final File partial = new File(result.getPath() + ".part");
+        try {
+            ThreadLocalContextUtil.setTenant(tenant);
+            result.getParentFile().mkdirs();
+
+            final OutputStream out = new BufferedOutputStream(new FileOutputStream(partial));
+            try {
+                output.write(out);
+            } finally {
+                out.close();
+            }
+            if (!partial.renameTo(result)) { throw new IOException("Could not move " + partial + " to " + result); }
+
+            job.completed(result);
+            logger.info("Report job " + job.jobId + " for report " + job.reportName + " of tenant " + job.tenantIdentifier
+                    + " completed in " + job.elapsedMillis() + "ms");
+        } catch (final IOException e) {
+            partial.delete();
+            job.failed(e);
+            logger.error("Report job " + job.jobId + " for report " + job.reportName + " of tenant " + job.tenantIdentifier + " failed", e);
+        } catch (final RuntimeException e) {
+            partial.delete();
+            job.failed(e);
+            logger.error("Report job " + job.jobId + " for report " + job.reportName + " of tenant " + job.tenantIdentifier + " failed", e);
+        } finally {
+            ThreadLocalContextUtil.clearTenant();
+        }
+    }
+
+    private static File resultsDirectory() {
+        return new File(FileUtils.MIFOSX_BASE_DIR + File.separator + "reportJobs");
+    }
+
+    private ThreadPoolExecutor executorFor(final MifosPlatformTenant tenant) {
+        ThreadPoolExecutor executor = this.executorsByTenant.get(tenant.getTenantIdentifier());
+        if (executor == null) {
+            // threads are only started for jobs, so an executor losing the
+            // race is simply dropped
+            final ThreadPoolExecutor newExecutor = new ThreadPoolExecutor(this.threadsPerTenant, this.threadsPerTenant, 60,
+                    TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(this.queueSizePerTenant), new NamedDaemonThreadFactory("report-job-"
+                            + tenant.getTenantIdentifier()));
+            newExecutor.allowCoreThreadTimeOut(true);
+            executor = this.executorsByTenant.putIfAbsent(tenant.getTenantIdentifier(), newExecutor);
+            if (executor == null) {
+                executor = newExecutor;
+            }
+        }
+        return executor;
+    }
+
+    /*
+     * result files are deleted by a later sweep, once they have been out of
+     * the maps for as long as results are kept, as a file can still be
+     * streaming to a request that found its job before it was discarded.
+     */
+    private void removeExpiredJobs() {
+        final long now = System.currentTimeMillis();
+
+        DiscardedResult discarded = this.discardedResults.peek();
+        while (discarded != null && discarded.discardedAt + this.resultTtlMillis < now) {
+            if (this.discardedResults.remove(discarded)) {
+                discarded.file.delete();
+            }
+            discarded = this.discardedResults.peek();
+        }
+
+        for (final ReportJob job : this.jobsById.values()) {
+            if (job.isExpired(now, this.resultTtlMillis)) {
+                discard(job);
+            }
+        }
+    }
+
+    private void discard(final ReportJob job) {
+        final boolean removed = this.jobsById.remove(job.jobId, job);
+        this.jobsByRequest.remove(job.requestKey, job);
+        if (removed && job.resultFile != null) {
+            this.discardedResults.add(new DiscardedResult(job.resultFile, System.currentTimeMillis()));
+        }
+    }
+
+    private static final class DiscardedResult {
+
+        private final File file;
+        private final long discardedAt;
+
+        DiscardedResult(final File file, final long discardedAt) {
+            this.file = file;
+            this.discardedAt = discardedAt;
+        }
+    }
+
+    private static final class ReportJob {
+
+        private static final String QUEUED = "queued";
+        private static final String RUNNING = "running";
+        private static final String COMPLETED = "completed";
+        private static final String FAILED = "failed";
+
+        private final String jobId;
+        private final String tenantIdentifier;
+        private final String requestKey;
+        private final String reportName;
+        private final String outputType;
+        private final String officeHierarchy;
+        private final Long userId;
+        private final DateTime submittedOn = new DateTime();
+        private final long submittedAt = System.currentTimeMillis();
+
+        private volatile String status = QUEUED;
+        private volatile DateTime finishedOn;
+        private volatile long finishedAt;
+        private volatile File resultFile;
+        private volatile String errorMessage;
+
+        ReportJob(final String jobId, final String tenantIdentifier, final String requestKey, final String reportName,
+                final String outputType, final String officeHierarchy, final Long userId) {
+            this.jobId = jobId;
+            this.tenantIdentifier = tenantIdentifier;
+            this.requestKey = requestKey;
+            this.reportName = reportName;
+            this.outputType = outputType;
+            this.officeHierarchy = officeHierarchy;
+            this.userId = userId;
+        }
+
+        void started() {
+            this.status = RUNNING;
+        }
+
+        void completed(final File result) {
+            this.resultFile = result;
+            finished(COMPLETED);
+        }
+
+        void failed(final Exception e) {
+            this.errorMessage = e.getMessage();
+            finished(FAILED);
+        }
+
+        private void finished(final String finalStatus) {
+            this.finishedAt = System.currentTimeMillis();
+            this.finishedOn = new DateTime(this.finishedAt);
+            this.status = finalStatus;
+        }
+
+        boolean isFinished() {
+            final String current = this.status;
+            return COMPLETED.equals(current) || FAILED.equals(current);
+        }
+
+        boolean isExpired(final long now, final long ttlMillis) {
+            return isFinished() && this.finishedAt + ttlMillis < now;
+        }
+
+        /**
+         * @return true when an identical request can be answered with this job
+         */
+        boolean isReusable(final long now, final long ttlMillis) {
+            final String current = this.status;
+            if (QUEUED.equals(current) || RUNNING.equals(current)) { return true; }
+            return COMPLETED.equals(current) && !isExpired(now, ttlMillis) && this.resultFile.exists();
+        }
+
+        long elapsedMillis() {
+            return isFinished() ? this.finishedAt - this.submittedAt : System.currentTimeMillis() - this.submittedAt;
+        }
+
+        ReportJobData toData() {
+            return new ReportJobData(this.jobId, this.reportName, this.outputType, this.status, this.submittedOn, this.finishedOn,
+                    elapsedMillis(), this.errorMessage);
+        }
+    }
+}
@@ -0,0 +1,212 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.dataqueries.service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import org.apache.commons.lang.StringUtils;
+import org.mifosplatform.infrastructure.core.exception.PlatformDataIntegrityException;
+
+/**
+ * The SQL of a stretchy report or parameter parsed once into a statement with
+ * a <code>?</code> for each <code>${name}</code> placeholder, so running it
+ * only binds values.
+ *
+ * A placeholder that makes up a whole quoted literal (<code>'${name}'</code>)
+ * is bound as a string, one within a longer literal is bound through
+ * <code>concat</code> and a bare placeholder is bound as a number when its
+ * value is numeric or as a string otherwise. Placeholders in comments are
+ * left alone. SQL with a placeholder inside a quoted identifier cannot be
+ * bound and has values substituted into its text instead, as before.
+ */
+final class ReportSqlTemplate {
+
+    private static final Pattern NUMBER = Pattern.compile("-?\\d+(\\.\\d+)?");
+
+    private final String reportSql;
+    private final String sql;
+    private final List<String> placeholders;
+    private final List<Boolean> bare;
+
+    private ReportSqlTemplate(final String reportSql, final String sql, final List<String> placeholders, final List<Boolean> bare) {
+        this.reportSql = reportSql;
+        this.sql = sql;
+        this.placeholders = placeholders;
+        this.bare = bare;
+    }
+
+    static ReportSqlTemplate parse(final String reportSql) {
+        final StringBuilder sql = new StringBuilder(reportSql.length() + 32);
+        final List<String> placeholders = new ArrayList<String>();
+        final List<Boolean> bare = new ArrayList<Boolean>();
+
+        int i = 0;
+        while (i < reportSql.length()) {
+            final char c = reportSql.charAt(i);
+            if (c == '\'' || c == '"') {
+                final int end = endOfLiteral(reportSql, i);
+                if (end < 0) { return unbound(reportSql); }
+                appendLiteral(sql, c, reportSql.substring(i + 1, end), placeholders, bare);
+                i = end + 1;
+            } else if (c == '`') {
+                final int end = reportSql.indexOf('`', i + 1);
+                if (end < 0 || reportSql.substring(i, end).contains("${")) { return unbound(reportSql); }
+                sql.append(reportSql, i, end + 1);
+                i = end + 1;
+            } else if (reportSql.startsWith("/*", i)) {
+                final int end = reportSql.indexOf("*/", i + 2);
+                final int next = end < 0 ? reportSql.length() : end + 2;
+                sql.append(reportSql, i, next);
+                i = next;
+            } else if (c == '#' || reportSql.startsWith("-- ", i)) {
+                final int end = reportSql.indexOf('\n', i);
+                final int next = end < 0 ? reportSql.length() : end;
+                sql.append(reportSql, i, next);
+                i = next;
+            } else if (reportSql.startsWith("${", i) && reportSql.indexOf('}', i) > 0) {
+                final int end = reportSql.indexOf('}', i);
+                sql.append('?');
+                placeholders.add(reportSql.substring(i, end + 1));
+                bare.add(Boolean.TRUE);
+                i = end + 1;
+            } else {
+                sql.append(c);
+                i++;
+            }
+        }
+
+        return new ReportSqlTemplate(reportSql, wrap(sql.toString()), placeholders, bare);
+    }
+
+    /**
+     * @return whether the SQL uses the placeholder (<code>${name}</code>)
+     *         outside of comments.
+     */
+    boolean references(final String placeholder) {
+        if (this.placeholders == null) { return this.reportSql.contains(placeholder); }
+        return this.placeholders.contains(placeholder);
+    }
+
+    /**
+     * Binds the values of the placeholders, keyed by <code>${name}</code>.
+     */
+    BoundReportSql bind(final Map<String, String> values) {
+        if (this.placeholders == null) {
+            String substituted = this.reportSql;
+            for (final Map.Entry<String, String> value : values.entrySet()) {
+                substituted = StringUtils.replace(substituted, value.getKey(), value.getValue());
+            }
+            return new BoundReportSql(wrap(substituted));
+        }
+
+        final Object[] params = new Object[this.placeholders.size()];
+        for (int i = 0; i < params.length; i++) {
+            final String placeholder = this.placeholders.get(i);
+            final String value = values.get(placeholder);
+            if (value == null) { throw new PlatformDataIntegrityException("error.msg.reporting.parameter.missing", "Report Parameter: "
+                    + placeholder + " - not Provided", placeholder); }
+
+            if (this.bare.get(i).booleanValue() && NUMBER.matcher(value).matches()) {
+                params[i] = new BigDecimal(value);
+            } else {
+                params[i] = value;
+            }
+        }
+        return new BoundReportSql(this.sql, params);
+    }
+
+    /*
+     * wrap sql to prevent JDBC sql errors and a CachedRowSetImpl bug where it
+     * doesn't pick up on label names, only column names
+     */
+    private static String wrap(final String sql) {
+        return "select x.* from (" + sql + ") x";
+    }
+
+    private static ReportSqlTemplate unbound(final String reportSql) {
+        return new ReportSqlTemplate(reportSql, null, null, null);
+    }
+
+    /**
+     * @return the index of the quote closing the literal opened at
+     *         <code>start</code>, or -1 when it is not closed.
+     */
+    private static int endOfLiteral(final String sql, final int start) {
+        final char quote = sql.charAt(start);
+        int i = start + 1;
+        while (i < sql.length()) {
+            final char c = sql.charAt(i);
+            if (c == '\\') {
+                i += 2;
+            } else if (c == quote && i + 1 < sql.length() && sql.charAt(i + 1) == quote) {
+                i += 2;
+            } else if (c == quote) {
+                return i;
+            } else {
+                i++;
+            }
+        }
+        return -1;
+    }
+
+    private static void appendLiteral(final StringBuilder sql, final char quote, final String literal, final List<String> placeholders,
+            final List<Boolean> bare) {
+        final List<String> parts = new ArrayList<String>();
+        int from = 0;
+        int start = literal.indexOf("${");
+        while (start >= 0 && literal.indexOf('}', start) > 0) {
+            final int end = literal.indexOf('}', start);
+            if (start > from) {
+                parts.add(quote + literal.substring(from, start) + quote);
+            }
+            parts.add("?");
+            placeholders.add(literal.substring(start, end + 1));
+            bare.add(Boolean.FALSE);
+            from = end + 1;
+            start = literal.indexOf("${", from);
+        }
+
+        if (from == 0) {
+            sql.append(quote).append(literal).append(quote);
+            return;
+        }
+        if (from < literal.length()) {
+            parts.add(quote + literal.substring(from) + quote);
+        }
+
+        if (parts.size() == 1) {
+            sql.append('?');
+        } else {
+            sql.append("concat(").append(StringUtils.join(parts, ", ")).append(')');
+        }
+    }
+
+    /**
+     * A report statement ready to run, with its parameters in order.
+     */
+    static final class BoundReportSql {
+
+        private final String sql;
+        private final Object[] params;
+
+        BoundReportSql(final String sql, final Object... params) {
+            this.sql = sql;
+            this.params = params;
+        }
+
+        String getSql() {
+            return this.sql;
+        }
+
+        Object[] getParams() {
+            return this.params;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.metrics.api;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.UriInfo;
+
+import org.mifosplatform.infrastructure.configuration.data.ConfigurationCacheData;
+import org.mifosplatform.infrastructure.configuration.domain.ConfigurationDomainService;
+import org.mifosplatform.infrastructure.core.api.ApiRequestParameterHelper;
+import org.mifosplatform.infrastructure.core.serialization.ApiRequestJsonSerializationSettings;
+import org.mifosplatform.infrastructure.core.serialization.DefaultToApiJsonSerializer;
+import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
+import org.mifosplatform.infrastructure.metrics.data.CommandQueryMetricsData;
+import org.mifosplatform.infrastructure.metrics.data.ConnectionPoolMetricsData;
+import org.mifosplatform.infrastructure.metrics.data.EndpointMetricsData;
+import org.mifosplatform.infrastructure.metrics.service.CommandQueryMetricsService;
+import org.mifosplatform.infrastructure.metrics.service.ConnectionPoolMetricsReadPlatformService;
+import org.mifosplatform.infrastructure.metrics.service.RequestMetricsService;
+import org.mifosplatform.infrastructure.security.service.PlatformSecurityContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+
+@Path("/metrics")
+@Component
+@Scope("singleton")
+public class MetricsApiResource {
+
+    private final Set<String> RESPONSE_DATA_PARAMETERS = new HashSet<String>(Arrays.asList("method", "resource", "tenantIdentifier",
+            "since", "requestCount", "clientErrorCount", "serverErrorCount", "requestsPerSecond", "p50", "p95", "p99", "max"));
+
+    private final Set<String> POOL_RESPONSE_DATA_PARAMETERS = new HashSet<String>(Arrays.asList("poolName", "size", "active", "idle",
+            "waiting", "maxActive", "minIdle", "maxIdle", "borrowCount", "averageWait", "maxWait", "slowQueries"));
+
+    private final Set<String> CACHE_RESPONSE_DATA_PARAMETERS = new HashSet<String>(Arrays.asList("hitCount", "missCount", "hitRate",
+            "invalidationCount", "cachedTenants"));
+
+    private final Set<String> COMMAND_QUERIES_RESPONSE_DATA_PARAMETERS = new HashSet<String>(Arrays.asList("actionName", "entityName",
+            "tenantIdentifier", "since", "commandCount", "averageQueries", "minQueries", "maxQueries"));
+
+    private final String resourceNameForPermissions = "METRICS";
+
+    private final PlatformSecurityContext context;
+    private final RequestMetricsService requestMetricsService;
+    private final DefaultToApiJsonSerializer<EndpointMetricsData> toApiJsonSerializer;
+    private final ApiRequestParameterHelper apiRequestParameterHelper;
+    private final ConnectionPoolMetricsReadPlatformService connectionPoolMetricsReadPlatformService;
+    private final DefaultToApiJsonSerializer<ConnectionPoolMetricsData> poolToApiJsonSerializer;
+    private final ConfigurationDomainService configurationDomainService;
+    private final DefaultToApiJsonSerializer<ConfigurationCacheData> cacheToApiJsonSerializer;
+    private final CommandQueryMetricsService commandQueryMetricsService;
+    private final DefaultToApiJsonSerializer<CommandQueryMetricsData> commandQueriesToApiJsonSerializer;
+
+    @Autowired
+    public MetricsApiResource(final PlatformSecurityContext context, final RequestMetricsService requestMetricsService,
+            final DefaultToApiJsonSerializer<EndpointMetricsData> toApiJsonSerializer,
+            final ApiRequestParameterHelper apiRequestParameterHelper,
+            final ConnectionPoolMetricsReadPlatformService connectionPoolMetricsReadPlatformService,
+            final DefaultToApiJsonSerializer<ConnectionPoolMetricsData> poolToApiJsonSerializer,
+            final ConfigurationDomainService configurationDomainService,
+            final DefaultToApiJsonSerializer<ConfigurationCacheData> cacheToApiJsonSerializer,
+            final CommandQueryMetricsService commandQueryMetricsService,
+            final DefaultToApiJsonSerializer<CommandQueryMetricsData> commandQueriesToApiJsonSerializer) {
+        this.context = context;
+        this.requestMetricsService = requestMetricsService;
+        this.toApiJsonSerializer = toApiJsonSerializer;
+        this.apiRequestParameterHelper = apiRequestParameterHelper;
+        this.connectionPoolMetricsReadPlatformService = connectionPoolMetricsReadPlatformService;
+        this.poolToApiJsonSerializer = poolToApiJsonSerializer;
+        this.configurationDomainService = configurationDomainService;
+        this.cacheToApiJsonSerializer = cacheToApiJsonSerializer;
+        this.commandQueryMetricsService = commandQueryMetricsService;
+        this.commandQueriesToApiJsonSerializer = commandQueriesToApiJsonSerializer;
+    }
+
+    @GET
+    @Consumes({ MediaType.APPLICATION_JSON })
+    @Produces({ MediaType.APPLICATION_JSON })
+    public String retrieveEndpointMetrics(@Context final UriInfo uriInfo) {
+
+        context.authenticatedUser().validateHasReadPermission(resourceNameForPermissions);
+
+        final Collection<EndpointMetricsData> endpointMetrics = this.requestMetricsService.retrieveEndpointMetrics(ThreadLocalContextUtil
+                .getTenant());
+
+        final ApiRequestJsonSerializationSettings settings = apiRequestParameterHelper.process(uriInfo.getQueryParameters());
+        return this.toApiJsonSerializer.serialize(settings, endpointMetrics, RESPONSE_DATA_PARAMETERS);
+    }
+
+    @GET
+    @Path("connectionpool")
+    @Consumes({ MediaType.APPLICATION_JSON })
+    @Produces({ MediaType.APPLICATION_JSON })
+    public String retrieveConnectionPoolMetrics(@Context final UriInfo uriInfo) {
+
+        context.authenticatedUser().validateHasReadPermission(resourceNameForPermissions);
+
+        final ConnectionPoolMetricsData poolMetrics = this.connectionPoolMetricsReadPlatformService.retrieveConnectionPoolMetrics();
+
+        final ApiRequestJsonSerializationSettings settings = apiRequestParameterHelper.process(uriInfo.getQueryParameters());
+        return this.poolToApiJsonSerializer.serialize(settings, poolMetrics, POOL_RESPONSE_DATA_PARAMETERS);
+    }
+
+    @GET
+    @Path("configurationcache")
+    @Consumes({ MediaType.APPLICATION_JSON })
+    @Produces({ MediaType.APPLICATION_JSON })
+    public String retrieveConfigurationCacheMetrics(@Context final UriInfo uriInfo) {
+
+        context.authenticatedUser().validateHasReadPermission(resourceNameForPermissions);
+
+        final ConfigurationCacheData cacheMetrics = this.configurationDomainService.retrieveCacheStatistics();
+
+        final ApiRequestJsonSerializationSettings settings = apiRequestParameterHelper.process(uriInfo.getQueryParameters());
+        return this.cacheToApiJsonSerializer.serialize(settings, cacheMetrics, CACHE_RESPONSE_DATA_PARAMETERS);
+    }
+
+    @GET
+    @Path("commandqueries")
+    @Consumes({ MediaType.APPLICATION_JSON })
+    @Produces({ MediaType.APPLICATION_JSON })
+    public String retrieveCommandQueryMetrics(@Context final UriInfo uriInfo) {
+
+        context.authenticatedUser().validateHasReadPermission(resourceNameForPermissions);
+
+        final Collection<CommandQueryMetricsData> commandQueryMetrics = this.commandQueryMetricsService
+                .retrieveCommandQueryMetrics(ThreadLocalContextUtil.getTenant());
+
+        final ApiRequestJsonSerializationSettings settings = apiRequestParameterHelper.process(uriInfo.getQueryParameters());
+        return this.commandQueriesToApiJsonSerializer.serialize(settings, commandQueryMetrics, COMMAND_QUERIES_RESPONSE_DATA_PARAMETERS);
+    }
+}
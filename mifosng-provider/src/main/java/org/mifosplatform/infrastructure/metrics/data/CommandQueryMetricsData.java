@@ -0,0 +1,44 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.metrics.data;
+
+import org.joda.time.DateTime;
+
+/**
+ * Immutable data object representing the number of queries the commands of
+ * one type ran for one tenant.
+ */
+public class CommandQueryMetricsData {
+
+    @SuppressWarnings("unused")
+    private final String actionName;
+    @SuppressWarnings("unused")
+    private final String entityName;
+    @SuppressWarnings("unused")
+    private final String tenantIdentifier;
+    @SuppressWarnings("unused")
+    private final DateTime since;
+    @SuppressWarnings("unused")
+    private final long commandCount;
+    @SuppressWarnings("unused")
+    private final double averageQueries;
+    @SuppressWarnings("unused")
+    private final long minQueries;
+    @SuppressWarnings("unused")
+    private final long maxQueries;
+
+    public CommandQueryMetricsData(final String actionName, final String entityName, final String tenantIdentifier, final DateTime since,
+            final long commandCount, final double averageQueries, final long minQueries, final long maxQueries) {
+        this.actionName = actionName;
+        this.entityName = entityName;
+        this.tenantIdentifier = tenantIdentifier;
+        this.since = since;
+        this.commandCount = commandCount;
+        this.averageQueries = averageQueries;
+        this.minQueries = minQueries;
+        this.maxQueries = maxQueries;
+    }
+}
@@ -0,0 +1,57 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.metrics.data;
+
+import java.util.Collection;
+
+/**
+ * Immutable data object representing the state of a tenants connection pool.
+ * Wait times are in milliseconds.
+ */
+public class ConnectionPoolMetricsData {
+
+    @SuppressWarnings("unused")
+    private final String poolName;
+    @SuppressWarnings("unused")
+    private final int size;
+    @SuppressWarnings("unused")
+    private final int active;
+    @SuppressWarnings("unused")
+    private final int idle;
+    @SuppressWarnings("unused")
+    private final int waiting;
+    @SuppressWarnings("unused")
+    private final int maxActive;
+    @SuppressWarnings("unused")
+    private final int minIdle;
+    @SuppressWarnings("unused")
+    private final int maxIdle;
+    @SuppressWarnings("unused")
+    private final long borrowCount;
+    @SuppressWarnings("unused")
+    private final double averageWait;
+    @SuppressWarnings("unused")
+    private final double maxWait;
+    @SuppressWarnings("unused")
+    private final Collection<SlowQueryData> slowQueries;
+
+    public ConnectionPoolMetricsData(final String poolName, final int size, final int active, final int idle, final int waiting,
+            final int maxActive, final int minIdle, final int maxIdle, final long borrowCount, final double averageWait,
+            final double maxWait, final Collection<SlowQueryData> slowQueries) {
+        this.poolName = poolName;
+        this.size = size;
+        this.active = active;
+        this.idle = idle;
+        this.waiting = waiting;
+        this.maxActive = maxActive;
+        this.minIdle = minIdle;
+        this.maxIdle = maxIdle;
+        this.borrowCount = borrowCount;
+        this.averageWait = averageWait;
+        this.maxWait = maxWait;
+        this.slowQueries = slowQueries;
+    }
+}
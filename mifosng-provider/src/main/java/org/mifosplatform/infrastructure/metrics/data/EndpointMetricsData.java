@@ -0,0 +1,57 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.metrics.data;
+
+import org.joda.time.DateTime;
+
+/**
+ * Immutable data object representing request statistics of one endpoint for
+ * one tenant. Latencies are in milliseconds.
+ */
+public class EndpointMetricsData {
+
+    @SuppressWarnings("unused")
+    private final String method;
+    @SuppressWarnings("unused")
+    private final String resource;
+    @SuppressWarnings("unused")
+    private final String tenantIdentifier;
+    @SuppressWarnings("unused")
+    private final DateTime since;
+    @SuppressWarnings("unused")
+    private final long requestCount;
+    @SuppressWarnings("unused")
+    private final long clientErrorCount;
+    @SuppressWarnings("unused")
+    private final long serverErrorCount;
+    @SuppressWarnings("unused")
+    private final double requestsPerSecond;
+    @SuppressWarnings("unused")
+    private final double p50;
+    @SuppressWarnings("unused")
+    private final double p95;
+    @SuppressWarnings("unused")
+    private final double p99;
+    @SuppressWarnings("unused")
+    private final double max;
+
+    public EndpointMetricsData(final String method, final String resource, final String tenantIdentifier, final DateTime since,
+            final long requestCount, final long clientErrorCount, final long serverErrorCount, final double requestsPerSecond,
+            final double p50, final double p95, final double p99, final double max) {
+        this.method = method;
+        this.resource = resource;
+        this.tenantIdentifier = tenantIdentifier;
+        this.since = since;
+        this.requestCount = requestCount;
+        this.clientErrorCount = clientErrorCount;
+        this.serverErrorCount = serverErrorCount;
+        this.requestsPerSecond = requestsPerSecond;
+        this.p50 = p50;
+        this.p95 = p95;
+        this.p99 = p99;
+        this.max = max;
+    }
+}
@@ -0,0 +1,32 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.metrics.data;
+
+/**
+ * Immutable data object representing a query reported as slow by the
+ * connection pool. Times are in milliseconds.
+ */
+public class SlowQueryData {
+
+    @SuppressWarnings("unused")
+    private final String query;
+    @SuppressWarnings("unused")
+    private final int invocations;
+    @SuppressWarnings("unused")
+    private final int failures;
+    @SuppressWarnings("unused")
+    private final long maxTime;
+    @SuppressWarnings("unused")
+    private final long totalTime;
+
+    public SlowQueryData(final String query, final int invocations, final int failures, final long maxTime, final long totalTime) {
+        this.query = query;
+        this.invocations = invocations;
+        this.failures = failures;
+        this.maxTime = maxTime;
+        this.totalTime = totalTime;
+    }
+}
@@ -0,0 +1,22 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.metrics.service;
+
+import java.util.Collection;
+
+import org.mifosplatform.infrastructure.core.domain.MifosPlatformTenant;
+import org.mifosplatform.infrastructure.metrics.data.CommandQueryMetricsData;
+
+/**
+ * Aggregates the number of queries processing a command ran, per command type
+ * and tenant, as counted by {@link QueryCountingInterceptor}.
+ */
+public interface CommandQueryMetricsService {
+
+    void record(String actionName, String entityName, MifosPlatformTenant tenant, long queryCount);
+
+    Collection<CommandQueryMetricsData> retrieveCommandQueryMetrics(MifosPlatformTenant tenant);
+}
@@ -0,0 +1,69 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.metrics.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.apache.tomcat.jdbc.pool.interceptor.SlowQueryReport;
+import org.apache.tomcat.jdbc.pool.interceptor.SlowQueryReport.QueryStats;
+import org.mifosplatform.infrastructure.core.service.ConnectionWaitTimingDataSource;
+import org.mifosplatform.infrastructure.core.service.DataSourcePerTenantService;
+import org.mifosplatform.infrastructure.metrics.data.ConnectionPoolMetricsData;
+import org.mifosplatform.infrastructure.metrics.data.SlowQueryData;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+@Service
+public class ConnectionPoolMetricsReadPlatformServiceImpl implements ConnectionPoolMetricsReadPlatformService {
+
+    private final DataSourcePerTenantService dataSourcePerTenantService;
+
+    @Autowired
+    public ConnectionPoolMetricsReadPlatformServiceImpl(final DataSourcePerTenantService dataSourcePerTenantService) {
+        this.dataSourcePerTenantService = dataSourcePerTenantService;
+    }
+
+    @Override
+    public ConnectionPoolMetricsData retrieveConnectionPoolMetrics() {
+
+        final DataSource dataSource = this.dataSourcePerTenantService.retrieveTenantAwareDataSource();
+        if (!(dataSource instanceof org.apache.tomcat.jdbc.pool.DataSource)) { return null; }
+
+        final org.apache.tomcat.jdbc.pool.DataSource pool = (org.apache.tomcat.jdbc.pool.DataSource) dataSource;
+
+        long borrowCount = 0;
+        double averageWait = 0;
+        double maxWait = 0;
+        if (pool instanceof ConnectionWaitTimingDataSource) {
+            final ConnectionWaitTimingDataSource timedPool = (ConnectionWaitTimingDataSource) pool;
+            borrowCount = timedPool.getBorrowCount();
+            if (borrowCount > 0) {
+                averageWait = millis(timedPool.getTotalWaitNanos()) / borrowCount;
+            }
+            maxWait = millis(timedPool.getMaxWaitNanos());
+        }
+
+        final Collection<SlowQueryData> slowQueries = new ArrayList<SlowQueryData>();
+        final Map<String, QueryStats> queryStats = SlowQueryReport.getPoolStats(pool.getName());
+        if (queryStats != null) {
+            for (final QueryStats stats : queryStats.values()) {
+                slowQueries.add(new SlowQueryData(stats.getQuery(), stats.getNrOfInvocations(), stats.getFailures(), stats
+                        .getMaxInvocationTime(), stats.getTotalInvocationTime()));
+            }
+        }
+
+        return new ConnectionPoolMetricsData(pool.getName(), pool.getSize(), pool.getActive(), pool.getIdle(), pool.getWaitCount(),
+                pool.getMaxActive(), pool.getMinIdle(), pool.getMaxIdle(), borrowCount, averageWait, maxWait, slowQueries);
+    }
+
+    private static double millis(final long nanos) {
+        return nanos / 1000000d;
+    }
+}
@@ -0,0 +1,96 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.metrics.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.joda.time.DateTime;
+import org.mifosplatform.infrastructure.core.domain.MifosPlatformTenant;
+import org.mifosplatform.infrastructure.metrics.data.CommandQueryMetricsData;
+import org.springframework.stereotype.Service;
+
+/**
+ * Keeps the query counts of commands in memory since startup. There is a
+ * fixed set of command types so the statistics are bounded per tenant.
+ */
+@Service
+public class InMemoryCommandQueryMetricsService implements CommandQueryMetricsService {
+
+    private final ConcurrentMap<Long, ConcurrentMap<String, CommandStatistics>> statisticsByTenant =
+            new ConcurrentHashMap<Long, ConcurrentMap<String, CommandStatistics>>();
+
+    @Override
+    public void record(final String actionName, final String entityName, final MifosPlatformTenant tenant, final long queryCount) {
+        ConcurrentMap<String, CommandStatistics> commands = this.statisticsByTenant.get(tenant.getId());
+        if (commands == null) {
+            final ConcurrentMap<String, CommandStatistics> newCommands = new ConcurrentHashMap<String, CommandStatistics>();
+            commands = this.statisticsByTenant.putIfAbsent(tenant.getId(), newCommands);
+            if (commands == null) {
+                commands = newCommands;
+            }
+        }
+
+        final String commandType = actionName + "_" + entityName;
+        CommandStatistics statistics = commands.get(commandType);
+        if (statistics == null) {
+            final CommandStatistics newStatistics = new CommandStatistics(actionName, entityName);
+            statistics = commands.putIfAbsent(commandType, newStatistics);
+            if (statistics == null) {
+                statistics = newStatistics;
+            }
+        }
+
+        statistics.record(queryCount);
+    }
+
+    @Override
+    public Collection<CommandQueryMetricsData> retrieveCommandQueryMetrics(final MifosPlatformTenant tenant) {
+        final List<CommandQueryMetricsData> metrics = new ArrayList<CommandQueryMetricsData>();
+
+        final ConcurrentMap<String, CommandStatistics> commands = this.statisticsByTenant.get(tenant.getId());
+        if (commands != null) {
+            for (final CommandStatistics statistics : commands.values()) {
+                metrics.add(statistics.toData(tenant.getTenantIdentifier()));
+            }
+        }
+
+        return metrics;
+    }
+
+    private static final class CommandStatistics {
+
+        private final String actionName;
+        private final String entityName;
+        private final DateTime since = new DateTime();
+
+        private long commandCount;
+        private long totalQueries;
+        private long minQueries = Long.MAX_VALUE;
+        private long maxQueries;
+
+        CommandStatistics(final String actionName, final String entityName) {
+            this.actionName = actionName;
+            this.entityName = entityName;
+        }
+
+        synchronized void record(final long queryCount) {
+            this.commandCount++;
+            this.totalQueries += queryCount;
+            this.minQueries = Math.min(this.minQueries, queryCount);
+            this.maxQueries = Math.max(this.maxQueries, queryCount);
+        }
+
+        synchronized CommandQueryMetricsData toData(final String tenantIdentifier) {
+            final double averageQueries = this.commandCount == 0 ? 0 : (double) this.totalQueries / this.commandCount;
+            return new CommandQueryMetricsData(this.actionName, this.entityName, tenantIdentifier, this.since, this.commandCount,
+                    averageQueries, this.commandCount == 0 ? 0 : this.minQueries, this.maxQueries);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.metrics.service;
+
+/**
+ * A fixed size, log-linear histogram of latencies in microseconds.
+ *
+ * Values below 16 have a bucket each, larger values are split into 8 buckets
+ * per power of two, so any reported percentile is within 12.5% of the actual
+ * value. Not thread safe, it is only ever updated by the aggregating thread.
+ */
+final class LatencyHistogram {
+
+    private static final int LINEAR_BUCKETS = 16;
+    private static final int SUB_BUCKETS = 8;
+    private static final int BUCKET_COUNT = LINEAR_BUCKETS + (40 - 4) * SUB_BUCKETS;
+
+    private final long[] counts = new long[BUCKET_COUNT];
+    private long totalCount;
+    private long maxValue;
+
+    void record(final long micros) {
+        this.counts[bucketFor(micros)]++;
+        this.totalCount++;
+        if (micros > this.maxValue) {
+            this.maxValue = micros;
+        }
+    }
+
+    long percentile(final double percentile) {
+        if (this.totalCount == 0) { return 0; }
+
+        final long target = Math.max(1, (long) Math.ceil(percentile * this.totalCount));
+        long cumulative = 0;
+        for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+            cumulative += this.counts[bucket];
+            if (cumulative >= target) { return Math.min(upperBoundOf(bucket), this.maxValue); }
+        }
+        return this.maxValue;
+    }
+
+    long max() {
+        return this.maxValue;
+    }
+
+    private static int bucketFor(final long micros) {
+        if (micros < LINEAR_BUCKETS) { return (int) Math.max(micros, 0); }
+
+        final int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        final int subBucket = (int) ((micros >>> (exponent - 3)) & (SUB_BUCKETS - 1));
+        return Math.min(LINEAR_BUCKETS + (exponent - 4) * SUB_BUCKETS + subBucket, BUCKET_COUNT - 1);
+    }
+
+    private static long upperBoundOf(final int bucket) {
+        if (bucket < LINEAR_BUCKETS) { return bucket; }
+
+        final int exponent = (bucket - LINEAR_BUCKETS) / SUB_BUCKETS + 4;
+        final int subBucket = (bucket - LINEAR_BUCKETS) % SUB_BUCKETS;
+        return ((SUB_BUCKETS + subBucket + 1L) << (exponent - 3)) - 1;
+    }
+}
@@ -0,0 +1,41 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.metrics.service;
+
+import org.hibernate.EmptyInterceptor;
+
+/**
+ * Counts the statements hibernate prepares on each thread, configured as the
+ * <code>hibernate.ejb.interceptor</code> of the persistence unit.
+ *
+ * Statements run through a <code>JdbcTemplate</code> are not counted.
+ */
+public class QueryCountingInterceptor extends EmptyInterceptor {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final ThreadLocal<long[]> queryCount = new ThreadLocal<long[]>() {
+
+        @Override
+        protected long[] initialValue() {
+            return new long[1];
+        }
+    };
+
+    /**
+     * @return the number of statements prepared on the current thread so
+     *         far, only differences between two calls are meaningful.
+     */
+    public static long queryCountOfCurrentThread() {
+        return queryCount.get()[0];
+    }
+
+    @Override
+    public String onPrepareStatement(final String sql) {
+        queryCount.get()[0]++;
+        return super.onPrepareStatement(sql);
+    }
+}
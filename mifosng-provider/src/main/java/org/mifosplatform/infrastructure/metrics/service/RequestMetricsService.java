@@ -0,0 +1,29 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.metrics.service;
+
+import java.util.Collection;
+
+import org.mifosplatform.infrastructure.core.domain.MifosPlatformTenant;
+import org.mifosplatform.infrastructure.metrics.data.EndpointMetricsData;
+
+/**
+ * Records the outcome of each platform API request and aggregates them into
+ * per-endpoint, per-tenant latency and throughput statistics.
+ */
+public interface RequestMetricsService {
+
+    /**
+     * Called on the request thread so must be cheap and must not block.
+     *
+     * @param resourcePath
+     *            the path of the requested resource relative to the api root,
+     *            it is normalised off the request thread.
+     */
+    void record(String method, String resourcePath, MifosPlatformTenant tenant, int status, long latencyInNanos);
+
+    Collection<EndpointMetricsData> retrieveEndpointMetrics(MifosPlatformTenant tenant);
+}
@@ -0,0 +1,290 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.metrics.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.joda.time.DateTime;
+import org.mifosplatform.infrastructure.core.domain.MifosPlatformTenant;
+import org.mifosplatform.infrastructure.metrics.data.EndpointMetricsData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+/**
+ * Request threads write into a ring buffer, claiming a slot with a single
+ * atomic increment and publishing one small immutable record carrying its
+ * sequence into it. A background thread
+ * drains the buffer every second, normalises resource paths (numeric path
+ * segments become <code>{id}</code>) and folds the requests into per-endpoint,
+ * per-tenant histograms.
+ *
+ * If request threads lap the aggregating thread the oldest unread requests
+ * are dropped rather than blocking a request. The buffer holds
+ * <code>mifosx.metrics.ringBufferSize</code> requests (default 65536, rounded
+ * up to a power of two).
+ */
+@Service
+public class RingBufferRequestMetricsService implements RequestMetricsService {
+
+    private final static Logger logger = LoggerFactory.getLogger(RingBufferRequestMetricsService.class);
+
+    private static final int MAXIMUM_ENDPOINTS_PER_TENANT = 1000;
+    private static final String OTHER_ENDPOINTS = "other";
+
+    private final int capacity;
+    private final int mask;
+    private final AtomicLong nextSequence = new AtomicLong();
+    private final AtomicReferenceArray<RequestRecord> records;
+
+    // only accessed by the aggregating thread
+    private long nextToDrain;
+    private long droppedCount;
+    private final Map<String, String> resourceTemplates = new HashMap<String, String>();
+
+    private final Map<Long, Map<String, EndpointStatistics>> statisticsByTenant = new HashMap<Long, Map<String, EndpointStatistics>>();
+
+    private ScheduledExecutorService aggregator;
+
+    public RingBufferRequestMetricsService() {
+        int size = 1;
+        final int requestedSize = Integer.getInteger("mifosx.metrics.ringBufferSize", 65536);
+        while (size < requestedSize) {
+            size <<= 1;
+        }
+        this.capacity = size;
+        this.mask = size - 1;
+        this.records = new AtomicReferenceArray<RequestRecord>(size);
+    }
+
+    @PostConstruct
+    public void startAggregating() {
+        this.aggregator = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+
+            @Override
+            public Thread newThread(final Runnable runnable) {
+                final Thread thread = new Thread(runnable, "request-metrics-aggregator");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        this.aggregator.scheduleWithFixedDelay(new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    drain();
+                } catch (RuntimeException e) {
+                    logger.error("Unable to aggregate request metrics", e);
+                }
+            }
+        }, 1, 1, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void stopAggregating() {
+        if (this.aggregator != null) {
+            this.aggregator.shutdownNow();
+        }
+    }
+
+    @Override
+    public void record(final String method, final String resourcePath, final MifosPlatformTenant tenant, final int status,
+            final long latencyInNanos) {
+
+        final long sequence = this.nextSequence.getAndIncrement();
+        final int slot = (int) (sequence & this.mask);
+
+        this.records.set(slot, new RequestRecord(sequence, method, resourcePath, tenant, status, latencyInNanos));
+    }
+
+    @Override
+    public Collection<EndpointMetricsData> retrieveEndpointMetrics(final MifosPlatformTenant tenant) {
+
+        final List<EndpointMetricsData> endpointMetrics = new ArrayList<EndpointMetricsData>();
+
+        synchronized (this.statisticsByTenant) {
+            final Map<String, EndpointStatistics> endpoints = this.statisticsByTenant.get(tenant.getId());
+            if (endpoints != null) {
+                for (final EndpointStatistics statistics : endpoints.values()) {
+                    endpointMetrics.add(statistics.toData(tenant.getTenantIdentifier()));
+                }
+            }
+        }
+
+        return endpointMetrics;
+    }
+
+    private void drain() {
+        final long claimed = this.nextSequence.get();
+
+        if (claimed - this.nextToDrain > this.capacity) {
+            this.droppedCount += claimed - this.capacity - this.nextToDrain;
+            this.nextToDrain = claimed - this.capacity;
+        }
+
+        synchronized (this.statisticsByTenant) {
+            while (this.nextToDrain < claimed) {
+                final int slot = (int) (this.nextToDrain & this.mask);
+
+                final RequestRecord record = this.records.get(slot);
+                if (record == null || record.sequence < this.nextToDrain) {
+                    // not yet published, pick up again on next drain
+                    break;
+                }
+
+                if (record.sequence == this.nextToDrain) {
+                    aggregate(record.method, record.resourcePath, record.tenant, record.status, record.latencyInNanos);
+                } else {
+                    // overwritten by a request thread that lapped the buffer
+                    this.droppedCount++;
+                }
+
+                this.nextToDrain++;
+            }
+        }
+
+        if (this.droppedCount > 0) {
+            logger.warn("Dropped " + this.droppedCount + " request metrics, consider increasing mifosx.metrics.ringBufferSize");
+            this.droppedCount = 0;
+        }
+    }
+
+    private void aggregate(final String method, final String resourcePath, final MifosPlatformTenant tenant, final int status,
+            final long latencyInNanos) {
+
+        final Long tenantId = tenant == null ? Long.valueOf(-1) : tenant.getId();
+        Map<String, EndpointStatistics> endpoints = this.statisticsByTenant.get(tenantId);
+        if (endpoints == null) {
+            endpoints = new HashMap<String, EndpointStatistics>();
+            this.statisticsByTenant.put(tenantId, endpoints);
+        }
+
+        String resource = resourceTemplateFor(resourcePath);
+        String endpointKey = method + " " + resource;
+        EndpointStatistics statistics = endpoints.get(endpointKey);
+        if (statistics == null) {
+            if (endpoints.size() >= MAXIMUM_ENDPOINTS_PER_TENANT) {
+                resource = OTHER_ENDPOINTS;
+                endpointKey = method + " " + resource;
+                statistics = endpoints.get(endpointKey);
+            }
+            if (statistics == null) {
+                statistics = new EndpointStatistics(method, resource);
+                endpoints.put(endpointKey, statistics);
+            }
+        }
+
+        statistics.record(status, latencyInNanos);
+    }
+
+    private String resourceTemplateFor(final String resourcePath) {
+        if (resourcePath == null) { return ""; }
+
+        String template = this.resourceTemplates.get(resourcePath);
+        if (template == null) {
+            final StringBuilder templateBuilder = new StringBuilder(resourcePath.length());
+            for (final String segment : resourcePath.split("/")) {
+                if (segment.length() == 0) {
+                    continue;
+                }
+                templateBuilder.append('/');
+                if (isNumeric(segment)) {
+                    templateBuilder.append("{id}");
+                } else {
+                    templateBuilder.append(segment);
+                }
+            }
+            template = templateBuilder.toString();
+
+            // bounded as raw paths include ids
+            if (this.resourceTemplates.size() > 10000) {
+                this.resourceTemplates.clear();
+            }
+            this.resourceTemplates.put(resourcePath, template);
+        }
+        return template;
+    }
+
+    private static boolean isNumeric(final String segment) {
+        for (int index = 0; index < segment.length(); index++) {
+            if (!Character.isDigit(segment.charAt(index))) { return false; }
+        }
+        return true;
+    }
+
+    private static final class RequestRecord {
+
+        private final long sequence;
+        private final String method;
+        private final String resourcePath;
+        private final MifosPlatformTenant tenant;
+        private final int status;
+        private final long latencyInNanos;
+
+        RequestRecord(final long sequence, final String method, final String resourcePath, final MifosPlatformTenant tenant,
+                final int status, final long latencyInNanos) {
+            this.sequence = sequence;
+            this.method = method;
+            this.resourcePath = resourcePath;
+            this.tenant = tenant;
+            this.status = status;
+            this.latencyInNanos = latencyInNanos;
+        }
+    }
+
+    private static final class EndpointStatistics {
+
+        private final String method;
+        private final String resource;
+        private final DateTime since = new DateTime();
+        private final LatencyHistogram latencies = new LatencyHistogram();
+        private long requestCount;
+        private long clientErrorCount;
+        private long serverErrorCount;
+
+        EndpointStatistics(final String method, final String resource) {
+            this.method = method;
+            this.resource = resource;
+        }
+
+        void record(final int status, final long latencyInNanos) {
+            this.requestCount++;
+            if (status >= 500) {
+                this.serverErrorCount++;
+            } else if (status >= 400) {
+                this.clientErrorCount++;
+            }
+            this.latencies.record(TimeUnit.NANOSECONDS.toMicros(latencyInNanos));
+        }
+
+        EndpointMetricsData toData(final String tenantIdentifier) {
+            final double elapsedSeconds = Math.max(1, (System.currentTimeMillis() - this.since.getMillis()) / 1000d);
+
+            return new EndpointMetricsData(this.method, this.resource, tenantIdentifier, this.since, this.requestCount,
+                    this.clientErrorCount, this.serverErrorCount, this.requestCount / elapsedSeconds, millis(this.latencies
+                            .percentile(0.50)), millis(this.latencies.percentile(0.95)), millis(this.latencies.percentile(0.99)),
+                    millis(this.latencies.max()));
+        }
+
+        private static double millis(final long micros) {
+            return micros / 1000d;
+        }
+    }
+}
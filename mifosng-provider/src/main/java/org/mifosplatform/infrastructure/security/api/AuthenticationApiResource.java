@@ -17,6 +17,7 @@ import javax.ws.rs.core.MediaType;
 
 import org.mifosplatform.infrastructure.core.serialization.ToApiJsonSerializer;
 import org.mifosplatform.infrastructure.security.data.AuthenticatedUserData;
+import org.mifosplatform.infrastructure.security.service.AccessTokenService;
 import org.mifosplatform.useradministration.domain.AppUser;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
@@ -36,13 +37,15 @@ public class AuthenticationApiResource {
 
     private final DaoAuthenticationProvider customAuthenticationProvider;
     private final ToApiJsonSerializer<AuthenticatedUserData> apiJsonSerializerService;
+    private final AccessTokenService accessTokenService;
 
     @Autowired
     public AuthenticationApiResource(
             @Qualifier("customAuthenticationProvider") final DaoAuthenticationProvider customAuthenticationProvider,
-            final ToApiJsonSerializer<AuthenticatedUserData> apiJsonSerializerService) {
+            final ToApiJsonSerializer<AuthenticatedUserData> apiJsonSerializerService, final AccessTokenService accessTokenService) {
         this.customAuthenticationProvider = customAuthenticationProvider;
         this.apiJsonSerializerService = apiJsonSerializerService;
+        this.accessTokenService = accessTokenService;
     }
 
     @POST
@@ -64,8 +67,10 @@ public class AuthenticationApiResource {
             AppUser principal = (AppUser) authenticationCheck.getPrincipal();
             byte[] base64EncodedAuthenticationKey = Base64.encode(username + ":" + password);
 
+            final String accessToken = this.accessTokenService.issueAccessToken(principal);
+
             authenticatedUserData = new AuthenticatedUserData(username, permissions, principal.getId(), new String(
-                    base64EncodedAuthenticationKey));
+                    base64EncodedAuthenticationKey), accessToken, this.accessTokenService.accessTokenValidityInSeconds());
         }
 
         return this.apiJsonSerializerService.serialize(authenticatedUserData);
@@ -0,0 +1,64 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.security.api;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.MediaType;
+
+import org.apache.commons.lang.StringUtils;
+import org.mifosplatform.infrastructure.core.exception.UnrecognizedQueryParamException;
+import org.mifosplatform.infrastructure.core.serialization.ToApiJsonSerializer;
+import org.mifosplatform.infrastructure.security.service.PlatformSecurityContext;
+import org.mifosplatform.infrastructure.security.service.TenantDetailsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+
+@Path("/tenants")
+@Component
+@Scope("singleton")
+public class TenantsApiResource {
+
+    private final PlatformSecurityContext context;
+    private final TenantDetailsService tenantDetailsService;
+    private final ToApiJsonSerializer<Map<String, Object>> toApiJsonSerializer;
+
+    @Autowired
+    public TenantsApiResource(final PlatformSecurityContext context, final TenantDetailsService tenantDetailsService,
+            final ToApiJsonSerializer<Map<String, Object>> toApiJsonSerializer) {
+        this.context = context;
+        this.tenantDetailsService = tenantDetailsService;
+        this.toApiJsonSerializer = toApiJsonSerializer;
+    }
+
+    @POST
+    @Consumes({ MediaType.APPLICATION_JSON })
+    @Produces({ MediaType.APPLICATION_JSON })
+    public String handleCommands(@QueryParam("command") final String commandParam) {
+
+        if (!is(commandParam, "refresh")) { throw new UnrecognizedQueryParamException("command", commandParam); }
+
+        context.authenticatedUser().validateHasPermissionTo("REFRESH_TENANTS");
+
+        final int tenantCount = this.tenantDetailsService.refreshTenants();
+
+        final Map<String, Object> result = new HashMap<String, Object>();
+        result.put("tenantCount", tenantCount);
+
+        return this.toApiJsonSerializer.serialize(result);
+    }
+
+    private boolean is(final String commandParam, final String commandValue) {
+        return StringUtils.isNotBlank(commandParam) && commandParam.trim().equalsIgnoreCase(commandValue);
+    }
+}
@@ -19,6 +19,10 @@ public class AuthenticatedUserData {
     @SuppressWarnings("unused")
     private final String base64EncodedAuthenticationKey;
     @SuppressWarnings("unused")
+    private final String accessToken;
+    @SuppressWarnings("unused")
+    private final Long accessTokenExpiresIn;
+    @SuppressWarnings("unused")
     private final boolean authenticated;
     @SuppressWarnings("unused")
     private final Collection<String> permissions;
@@ -27,15 +31,19 @@ public class AuthenticatedUserData {
         this.username = username;
         this.userId = null;
         this.base64EncodedAuthenticationKey = null;
+        this.accessToken = null;
+        this.accessTokenExpiresIn = null;
         this.authenticated = false;
         this.permissions = permissions;
     }
 
     public AuthenticatedUserData(final String username, final Collection<String> permissions, final Long userId,
-            final String base64EncodedAuthenticationKey) {
+            final String base64EncodedAuthenticationKey, final String accessToken, final Long accessTokenExpiresIn) {
         this.username = username;
         this.userId = userId;
         this.base64EncodedAuthenticationKey = base64EncodedAuthenticationKey;
+        this.accessToken = accessToken;
+        this.accessTokenExpiresIn = accessTokenExpiresIn;
         this.authenticated = true;
         this.permissions = permissions;
     }
@@ -5,14 +5,11 @@
  */
 package org.mifosplatform.infrastructure.security.data;
 
-import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 
 import javax.servlet.http.HttpServletRequest;
 
-import org.apache.commons.lang.time.StopWatch;
-
 /**
  * Immutable data object representing platform API request used for
  * logging/debugging.
@@ -30,7 +27,7 @@ public class PlatformRequestLog {
     @SuppressWarnings("unused")
     private Map<String, String> parameters;
 
-    public static PlatformRequestLog from(final StopWatch task, final HttpServletRequest request) throws IOException {
+    public static PlatformRequestLog from(final long startTime, final long totalTime, final HttpServletRequest request) {
 
         final String requestUrl = request.getRequestURL().toString();
 
@@ -39,7 +36,7 @@ public class PlatformRequestLog {
         parameters.remove("password");
         parameters.remove("_");
 
-        return new PlatformRequestLog(task.getStartTime(), task.getTime(), request.getMethod(), requestUrl, parameters);
+        return new PlatformRequestLog(startTime, totalTime, request.getMethod(), requestUrl, parameters);
     }
 
     private PlatformRequestLog(final long startTime, final long time, final String method, final String requestUrl,
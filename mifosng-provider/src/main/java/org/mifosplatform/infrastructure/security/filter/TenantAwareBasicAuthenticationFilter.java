@@ -6,6 +6,8 @@
 package org.mifosplatform.infrastructure.security.filter;
 
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
@@ -13,20 +15,26 @@ import javax.servlet.ServletRequest;
 import javax.servlet.ServletResponse;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
 
-import org.apache.commons.lang.time.StopWatch;
 import org.mifosplatform.infrastructure.core.domain.MifosPlatformTenant;
 import org.mifosplatform.infrastructure.core.serialization.ToApiJsonSerializer;
 import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
+import org.mifosplatform.infrastructure.metrics.service.RequestMetricsService;
 import org.mifosplatform.infrastructure.security.data.PlatformRequestLog;
 import org.mifosplatform.infrastructure.security.exception.InvalidTenantIdentiferException;
+import org.mifosplatform.infrastructure.security.service.AccessTokenService;
 import org.mifosplatform.infrastructure.security.service.TenantDetailsService;
+import org.mifosplatform.useradministration.domain.AppUser;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.AuthenticationEntryPoint;
+import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
 
 /**
@@ -43,6 +51,10 @@ import org.springframework.security.web.authentication.www.BasicAuthenticationFi
  * 
  * If multi-tenant and basic auth credentials are invalid, a http error response
  * is returned.
+ * 
+ * Requests carrying an <code>Authorization: Bearer</code> header are
+ * authenticated using an access token issued by the authentication resource
+ * instead of basic auth credentials.
  */
 public class TenantAwareBasicAuthenticationFilter extends BasicAuthenticationFilter {
 
@@ -54,6 +66,22 @@ public class TenantAwareBasicAuthenticationFilter extends BasicAuthenticationFil
     @Autowired
     private ToApiJsonSerializer<PlatformRequestLog> toApiJsonSerializer;
 
+    @Autowired
+    private AccessTokenService accessTokenService;
+
+    private static final String ACCESS_TOKEN_SCHEME = "Bearer ";
+    private final WebAuthenticationDetailsSource authenticationDetailsSource = new WebAuthenticationDetailsSource();
+
+    @Autowired
+    private RequestMetricsService requestMetricsService;
+
+    /*
+     * detailed request logging is off unless every Nth request is to be
+     * logged.
+     */
+    private final int requestLogSampleEvery = Integer.getInteger("mifosx.requestLog.sampleEvery", 0);
+    private final AtomicLong requestLogCounter = new AtomicLong();
+
     private String tenantRequestHeader = "X-Mifos-Platform-TenantId";
     private boolean exceptionIfHeaderMissing = true;
 
@@ -66,10 +94,12 @@ public class TenantAwareBasicAuthenticationFilter extends BasicAuthenticationFil
     public void doFilter(ServletRequest req, ServletResponse res, FilterChain chain) throws IOException, ServletException {
 
         HttpServletRequest request = (HttpServletRequest) req;
-        HttpServletResponse response = (HttpServletResponse) res;
+        StatusCapturingResponse response = new StatusCapturingResponse((HttpServletResponse) res);
 
-        StopWatch task = new StopWatch();
-        task.start();
+        final long startTime = System.currentTimeMillis();
+        final long start = System.nanoTime();
+        boolean completed = false;
+        MifosPlatformTenant requestTenant = null;
 
         try {
 
@@ -87,23 +117,110 @@ public class TenantAwareBasicAuthenticationFilter extends BasicAuthenticationFil
                         "No tenant identifier found: Add request header of '" + tenantRequestHeader
                                 + "' or add the parameter 'tenantIdentifier' to query string of request URL."); }
 
-                // check tenants database for tenantId
+                // check tenant registry for tenantId
                 final MifosPlatformTenant tenant = this.tenantDetailsService.loadTenantById(tenantId);
 
                 ThreadLocalContextUtil.setTenant(tenant);
+                requestTenant = tenant;
+
+                final String authorizationHeader = request.getHeader("Authorization");
+                if (authorizationHeader != null && authorizationHeader.startsWith(ACCESS_TOKEN_SCHEME)) {
+                    final String accessToken = authorizationHeader.substring(ACCESS_TOKEN_SCHEME.length()).trim();
+                    authenticateWithAccessToken(request, response, chain, accessToken);
+                    completed = true;
+                    return;
+                }
             }
 
-            super.doFilter(req, res, chain);
+            super.doFilter(request, response, chain);
+            completed = true;
         } catch (InvalidTenantIdentiferException e) {
             // deal with exception at low level
             SecurityContextHolder.getContext().setAuthentication(null);
 
             response.addHeader("WWW-Authenticate", "Basic realm=\"" + "Mifos Platform API" + "\"");
             response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+            completed = true;
         } finally {
-            task.stop();
-            final PlatformRequestLog log = PlatformRequestLog.from(task, request);
-            logger.info(toApiJsonSerializer.serialize(log));
+            final long latencyInNanos = System.nanoTime() - start;
+            final int status = completed ? response.getStatus() : HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+
+            final String resourcePath = request.getPathInfo() == null ? request.getRequestURI() : request.getPathInfo();
+            this.requestMetricsService.record(request.getMethod(), resourcePath, requestTenant, status, latencyInNanos);
+
+            if (this.requestLogSampleEvery > 0 && this.requestLogCounter.getAndIncrement() % this.requestLogSampleEvery == 0) {
+                final PlatformRequestLog log = PlatformRequestLog.from(startTime, TimeUnit.NANOSECONDS.toMillis(latencyInNanos), request);
+                logger.info(toApiJsonSerializer.serialize(log));
+            }
+        }
+    }
+
+    /*
+     * access tokens are resolved against cached principals so there is no
+     * user lookup or password hashing on the request path.
+     */
+    private void authenticateWithAccessToken(final HttpServletRequest request, final HttpServletResponse response, final FilterChain chain,
+            final String accessToken) throws IOException, ServletException {
+        try {
+            final AppUser user = this.accessTokenService.authenticate(accessToken);
+
+            final UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(user, null,
+                    user.getAuthorities());
+            authentication.setDetails(this.authenticationDetailsSource.buildDetails(request));
+            SecurityContextHolder.getContext().setAuthentication(authentication);
+        } catch (AuthenticationException e) {
+            SecurityContextHolder.clearContext();
+            getAuthenticationEntryPoint().commence(request, response, e);
+            return;
+        }
+
+        chain.doFilter(request, response);
+    }
+
+    /*
+     * the servlet 2.5 api has no way to read the status of a response.
+     */
+    private static final class StatusCapturingResponse extends HttpServletResponseWrapper {
+
+        private int status = HttpServletResponse.SC_OK;
+
+        StatusCapturingResponse(final HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public void setStatus(final int sc) {
+            this.status = sc;
+            super.setStatus(sc);
+        }
+
+        @SuppressWarnings("deprecation")
+        @Override
+        public void setStatus(final int sc, final String sm) {
+            this.status = sc;
+            super.setStatus(sc, sm);
+        }
+
+        @Override
+        public void sendError(final int sc) throws IOException {
+            this.status = sc;
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendError(final int sc, final String msg) throws IOException {
+            this.status = sc;
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendRedirect(final String location) throws IOException {
+            this.status = HttpServletResponse.SC_MOVED_TEMPORARILY;
+            super.sendRedirect(location);
+        }
+
+        int getStatus() {
+            return this.status;
         }
     }
 }
\ No newline at end of file
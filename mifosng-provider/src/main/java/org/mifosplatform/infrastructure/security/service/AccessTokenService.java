@@ -0,0 +1,29 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.security.service;
+
+import org.mifosplatform.useradministration.domain.AppUser;
+import org.springframework.security.authentication.BadCredentialsException;
+
+/**
+ * Issues and verifies signed, expiring access tokens that can be used in place
+ * of basic auth credentials on subsequent requests.
+ */
+public interface AccessTokenService {
+
+    String issueAccessToken(AppUser user);
+
+    Long accessTokenValidityInSeconds();
+
+    /**
+     * @return the user of the current tenant for which the given access token
+     *         was issued.
+     * @throws BadCredentialsException
+     *             if the token is malformed, expired, was issued for another
+     *             tenant or its user can no longer authenticate.
+     */
+    AppUser authenticate(String accessToken);
+}
@@ -0,0 +1,146 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.security.service;
+
+import java.io.UnsupportedEncodingException;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.apache.commons.lang.StringUtils;
+import org.mifosplatform.infrastructure.core.domain.MifosPlatformTenant;
+import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
+import org.mifosplatform.useradministration.domain.AppUser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.authentication.AccountStatusUserDetailsChecker;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.stereotype.Service;
+
+import com.sun.jersey.core.util.Base64;
+
+/**
+ * Access tokens are of the form <code>base64(payload).base64(signature)</code>
+ * where the payload is <code>tenantIdentifier:userId:expiresAtMillis</code>
+ * and the signature is a HMAC-SHA256 of the payload and the users stored
+ * password hash. Changing a users password therefore revokes all of their
+ * tokens.
+ *
+ * The signing key is taken from the
+ * <code>mifosx.authentication.tokenSecret</code> system property and must be
+ * set to the same value on every node. When absent a random key is generated,
+ * which means tokens do not survive a restart.
+ */
+@Service
+public class HmacAccessTokenService implements AccessTokenService {
+
+    private final static Logger logger = LoggerFactory.getLogger(HmacAccessTokenService.class);
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final String CHARSET = "UTF-8";
+
+    private final PlatformUserCache platformUserCache;
+    private final SecretKeySpec signingKey;
+    private final long validityInSeconds;
+
+    @Autowired
+    public HmacAccessTokenService(final PlatformUserCache platformUserCache) {
+        this.platformUserCache = platformUserCache;
+        this.validityInSeconds = Long.getLong("mifosx.authentication.tokenValiditySeconds", 3600);
+
+        byte[] secret;
+        final String configuredSecret = System.getProperty("mifosx.authentication.tokenSecret");
+        if (StringUtils.isBlank(configuredSecret)) {
+            logger.warn("No mifosx.authentication.tokenSecret configured, access tokens will only be valid on this node until restart.");
+            secret = new byte[32];
+            new SecureRandom().nextBytes(secret);
+        } else {
+            secret = bytesOf(configuredSecret);
+        }
+        this.signingKey = new SecretKeySpec(secret, HMAC_ALGORITHM);
+    }
+
+    @Override
+    public String issueAccessToken(final AppUser user) {
+        final MifosPlatformTenant tenant = ThreadLocalContextUtil.getTenant();
+        final long expiresAt = System.currentTimeMillis() + (this.validityInSeconds * 1000);
+
+        final String payload = tenant.getTenantIdentifier() + ":" + user.getId() + ":" + expiresAt;
+
+        return new String(Base64.encode(bytesOf(payload))) + "." + new String(Base64.encode(sign(payload, user)));
+    }
+
+    @Override
+    public Long accessTokenValidityInSeconds() {
+        return this.validityInSeconds;
+    }
+
+    @Override
+    public AppUser authenticate(final String accessToken) {
+
+        final int separator = accessToken == null ? -1 : accessToken.indexOf('.');
+        if (separator < 1) { throw invalidToken(); }
+
+        final String payload;
+        final byte[] signature;
+        final Long userId;
+        final long expiresAt;
+        final String tenantIdentifier;
+        try {
+            payload = new String(Base64.decode(accessToken.substring(0, separator)), CHARSET);
+            signature = Base64.decode(accessToken.substring(separator + 1));
+
+            final String[] parts = payload.split(":");
+            if (parts.length != 3) { throw invalidToken(); }
+            tenantIdentifier = parts[0];
+            userId = Long.valueOf(parts[1]);
+            expiresAt = Long.parseLong(parts[2]);
+        } catch (UnsupportedEncodingException e) {
+            throw invalidToken();
+        } catch (IllegalArgumentException e) {
+            // also covers NumberFormatException
+            throw invalidToken();
+        }
+
+        if (expiresAt < System.currentTimeMillis()) { throw new BadCredentialsException("Access token has expired."); }
+
+        final MifosPlatformTenant tenant = ThreadLocalContextUtil.getTenant();
+        if (!tenant.getTenantIdentifier().equalsIgnoreCase(tenantIdentifier)) { throw invalidToken(); }
+
+        final AppUser user = this.platformUserCache.retrieveUser(userId);
+        if (user == null || !MessageDigest.isEqual(signature, sign(payload, user))) { throw invalidToken(); }
+
+        new AccountStatusUserDetailsChecker().check(user);
+
+        return user;
+    }
+
+    private byte[] sign(final String payload, final AppUser user) {
+        try {
+            final Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(this.signingKey);
+            return mac.doFinal(bytesOf(payload + ":" + user.getPassword()));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] bytesOf(final String value) {
+        try {
+            return value.getBytes(CHARSET);
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static BadCredentialsException invalidToken() {
+        return new BadCredentialsException("Access token is not valid.");
+    }
+}
@@ -7,62 +7,226 @@ package org.mifosplatform.infrastructure.security.service;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.sql.DataSource;
 
+import org.mifosplatform.infrastructure.core.domain.JdbcSupport;
 import org.mifosplatform.infrastructure.core.domain.MifosPlatformTenant;
 import org.mifosplatform.infrastructure.security.exception.InvalidTenantIdentiferException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.DataAccessException;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Service;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
 /**
  * A JDBC implementation of {@link TenantDetailsService} for loading a tenants
  * details by a <code>tenantIdentifier</code>.
+ *
+ * All tenants are loaded into an in-memory registry at startup and lookups are
+ * answered from an immutable snapshot of that registry so the tenants database
+ * is not visited on every request. The registry is reloaded every
+ * <code>mifosx.tenants.refreshIntervalSeconds</code> seconds (default 300) or
+ * on demand through {@link #refreshTenants()}.
+ *
+ * Identifiers that do not match any tenant are remembered for
+ * <code>mifosx.tenants.unknownIdentifierCacheSeconds</code> seconds (default
+ * 30) so repeated requests with an invalid identifier are rejected without
+ * going to the database.
  */
 @Service
 public class JdbcTenantDetailsService implements TenantDetailsService {
 
+    private final static Logger logger = LoggerFactory.getLogger(JdbcTenantDetailsService.class);
+
+    private static final String TENANT_SELECT = "select id, identifier, name, schema_name as schemaName, schema_server as schemaServer, "
+            + " schema_server_port as schemaServerPort, schema_username as schemaUsername, schema_password as schemaPassword , "
+            + " timezone_id as timezoneId, pool_initial_size as poolInitialSize, pool_max_active as poolMaxActive, "
+            + " pool_min_idle as poolMinIdle, pool_max_idle as poolMaxIdle, replica_server as replicaServer, "
+            + " replica_server_port as replicaServerPort, replica_username as replicaUsername, replica_password as replicaPassword "
+            + " from tenants t ";
+
     private final JdbcTemplate jdbcTemplate;
+    private final long refreshIntervalSeconds;
+    private final Cache<String, Boolean> unknownTenantIdentifiers;
+
+    /*
+     * replaced as a whole on each refresh, never modified in place, so reads
+     * need no locking.
+     */
+    private volatile Map<String, MifosPlatformTenant> tenantsByIdentifier = new HashMap<String, MifosPlatformTenant>();
+
+    private ScheduledExecutorService refreshExecutor;
 
     @Autowired
     public JdbcTenantDetailsService(@Qualifier("tenantDataSourceJndi") final DataSource dataSource) {
         this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.refreshIntervalSeconds = Long.getLong("mifosx.tenants.refreshIntervalSeconds", 300);
+
+        final long unknownIdentifierCacheSeconds = Long.getLong("mifosx.tenants.unknownIdentifierCacheSeconds", 30);
+        this.unknownTenantIdentifiers = CacheBuilder.newBuilder().maximumSize(10000)
+                .expireAfterWrite(unknownIdentifierCacheSeconds, TimeUnit.SECONDS).build();
+    }
+
+    @PostConstruct
+    public void startRegistry() {
+        try {
+            refreshTenants();
+        } catch (DataAccessException e) {
+            // tenants are then loaded on demand until the next refresh
+            // succeeds
+            logger.error("Unable to load tenants at startup", e);
+        }
+
+        if (this.refreshIntervalSeconds > 0) {
+            this.refreshExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+
+                @Override
+                public Thread newThread(final Runnable runnable) {
+                    final Thread thread = new Thread(runnable, "tenant-registry-refresh");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            this.refreshExecutor.scheduleWithFixedDelay(new Runnable() {
+
+                @Override
+                public void run() {
+                    try {
+                        refreshTenants();
+                    } catch (DataAccessException e) {
+                        logger.error("Unable to refresh tenants, continuing with previously loaded tenant details", e);
+                    }
+                }
+            }, this.refreshIntervalSeconds, this.refreshIntervalSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stopRegistry() {
+        if (this.refreshExecutor != null) {
+            this.refreshExecutor.shutdownNow();
+        }
     }
 
     @Override
     public MifosPlatformTenant loadTenantById(final String tenantIdentifier) {
 
+        final String key = registryKeyFor(tenantIdentifier);
+
+        MifosPlatformTenant tenant = this.tenantsByIdentifier.get(key);
+        if (tenant == null) {
+            if (this.unknownTenantIdentifiers.getIfPresent(key) != null) { throw invalidTenantIdentifier(tenantIdentifier); }
+
+            tenant = loadTenantFromDatabase(tenantIdentifier, key);
+        }
+
+        return tenant;
+    }
+
+    @Override
+    public int refreshTenants() {
+        final List<MifosPlatformTenant> tenants = this.jdbcTemplate.query(TENANT_SELECT, new TenantMapper());
+
+        final Map<String, MifosPlatformTenant> refreshed = new HashMap<String, MifosPlatformTenant>(tenants.size() * 2);
+        for (final MifosPlatformTenant tenant : tenants) {
+            refreshed.put(registryKeyFor(tenant.getTenantIdentifier()), tenant);
+        }
+
+        synchronized (this) {
+            this.tenantsByIdentifier = refreshed;
+        }
+        this.unknownTenantIdentifiers.invalidateAll();
+
+        logger.info("Loaded " + refreshed.size() + " tenants into tenant registry");
+
+        return refreshed.size();
+    }
+
+    @Override
+    public Collection<MifosPlatformTenant> findAllTenants() {
+        return Collections.unmodifiableCollection(this.tenantsByIdentifier.values());
+    }
+
+    /*
+     * handles tenants added since the last refresh. Identifiers that are still
+     * not found are remembered so they cannot be used to repeatedly hit the
+     * tenants database.
+     */
+    private MifosPlatformTenant loadTenantFromDatabase(final String tenantIdentifier, final String key) {
         try {
-            TenantMapper rm = new TenantMapper();
-            String sql = "select id, name, schema_name as schemaName, schema_server as schemaServer, schema_server_port as schemaServerPort, "
-                    + " schema_username as schemaUsername, schema_password as schemaPassword , timezone_id as timezoneId "
-                    + " from tenants t where t.identifier like ?";
+            final String sql = TENANT_SELECT + " where t.identifier like ?";
+            final MifosPlatformTenant tenant = this.jdbcTemplate.queryForObject(sql, new TenantMapper(), new Object[] { tenantIdentifier });
+
+            synchronized (this) {
+                final Map<String, MifosPlatformTenant> updated = new HashMap<String, MifosPlatformTenant>(this.tenantsByIdentifier);
+                updated.put(key, tenant);
+                this.tenantsByIdentifier = updated;
+            }
 
-            return this.jdbcTemplate.queryForObject(sql, rm, new Object[] { tenantIdentifier });
+            return tenant;
         } catch (EmptyResultDataAccessException e) {
-            throw new InvalidTenantIdentiferException("The tenant identifier: " + tenantIdentifier + " is not valid.");
+            this.unknownTenantIdentifiers.put(key, Boolean.TRUE);
+            throw invalidTenantIdentifier(tenantIdentifier);
         }
     }
 
+    /*
+     * tenant identifiers were matched case-insensitively by the database so
+     * registry keys are normalised to lower case.
+     */
+    private static String registryKeyFor(final String tenantIdentifier) {
+        return tenantIdentifier == null ? "" : tenantIdentifier.trim().toLowerCase();
+    }
+
+    private static InvalidTenantIdentiferException invalidTenantIdentifier(final String tenantIdentifier) {
+        return new InvalidTenantIdentiferException("The tenant identifier: " + tenantIdentifier + " is not valid.");
+    }
+
     private static final class TenantMapper implements RowMapper<MifosPlatformTenant> {
 
         @Override
         public MifosPlatformTenant mapRow(final ResultSet rs, @SuppressWarnings("unused") final int rowNum) throws SQLException {
 
             Long id = rs.getLong("id");
+            String tenantIdentifier = rs.getString("identifier");
             String name = rs.getString("name");
             String schemaName = rs.getString("schemaName");
             String schemaServer = rs.getString("schemaServer");
             String schemaServerPort = rs.getString("schemaServerPort");
             String schemaUsername = rs.getString("schemaUsername");
             String schemaPassword = rs.getString("schemaPassword");
-            String timezoneId =rs.getString("timezoneId");
-            
-            return new MifosPlatformTenant(id, name, schemaName, schemaServer, schemaServerPort, schemaUsername, schemaPassword ,timezoneId);
+            String timezoneId = rs.getString("timezoneId");
+            Integer poolInitialSize = JdbcSupport.getInteger(rs, "poolInitialSize");
+            Integer poolMaxActive = JdbcSupport.getInteger(rs, "poolMaxActive");
+            Integer poolMinIdle = JdbcSupport.getInteger(rs, "poolMinIdle");
+            Integer poolMaxIdle = JdbcSupport.getInteger(rs, "poolMaxIdle");
+            String replicaServer = rs.getString("replicaServer");
+            String replicaServerPort = rs.getString("replicaServerPort");
+            String replicaUsername = rs.getString("replicaUsername");
+            String replicaPassword = rs.getString("replicaPassword");
+
+            return new MifosPlatformTenant(id, tenantIdentifier, name, schemaName, schemaServer, schemaServerPort, schemaUsername,
+                    schemaPassword, timezoneId, poolInitialSize, poolMaxActive, poolMinIdle, poolMaxIdle, replicaServer,
+                    replicaServerPort, replicaUsername, replicaPassword);
         }
     }
-}
\ No newline at end of file
+}
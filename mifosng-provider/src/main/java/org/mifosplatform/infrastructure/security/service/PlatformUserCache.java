@@ -0,0 +1,34 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.security.service;
+
+import org.mifosplatform.useradministration.domain.AppUser;
+
+/**
+ * A bounded cache of authenticated principals for the tenant of the current
+ * request.
+ */
+public interface PlatformUserCache {
+
+    /**
+     * @return the (fully loaded) user with given id for the current tenant or
+     *         <code>null</code> if no such user exists.
+     */
+    AppUser retrieveUser(Long userId);
+
+    /**
+     * Evicts the given user of the current tenant once the current
+     * transaction (if any) commits.
+     */
+    void invalidateUser(Long userId);
+
+    /**
+     * Evicts all users of the current tenant once the current transaction (if
+     * any) commits. Used when roles or permissions shared by many users
+     * change.
+     */
+    void invalidateAllUsers();
+}
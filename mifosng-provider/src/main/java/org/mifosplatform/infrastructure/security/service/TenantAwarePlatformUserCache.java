@@ -0,0 +1,120 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.security.service;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import org.mifosplatform.infrastructure.core.domain.MifosPlatformTenant;
+import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
+import org.mifosplatform.useradministration.domain.AppUser;
+import org.mifosplatform.useradministration.domain.AppUserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Keeps one bounded cache of {@link AppUser}'s per tenant.
+ *
+ * Cached users are loaded with their roles and permissions and are treated as
+ * read-only. Entries expire after
+ * <code>mifosx.authentication.principalCacheTtlSeconds</code> (default 600) as
+ * a safety net for changes made outside of the user, role and permission
+ * commands (which evict explicitly). Each tenant holds at most
+ * <code>mifosx.authentication.principalCacheSize</code> (default 1000) users.
+ */
+@Service
+public class TenantAwarePlatformUserCache implements PlatformUserCache {
+
+    private final AppUserRepository appUserRepository;
+    private final ConcurrentMap<Long, Cache<Long, AppUser>> usersByTenant = new ConcurrentHashMap<Long, Cache<Long, AppUser>>();
+    private final long maximumUsersPerTenant;
+    private final long ttlSeconds;
+
+    @Autowired
+    public TenantAwarePlatformUserCache(final AppUserRepository appUserRepository) {
+        this.appUserRepository = appUserRepository;
+        this.maximumUsersPerTenant = Long.getLong("mifosx.authentication.principalCacheSize", 1000);
+        this.ttlSeconds = Long.getLong("mifosx.authentication.principalCacheTtlSeconds", 600);
+    }
+
+    @Override
+    public AppUser retrieveUser(final Long userId) {
+        final Cache<Long, AppUser> users = cacheForCurrentTenant();
+
+        AppUser user = users.getIfPresent(userId);
+        if (user == null) {
+            user = this.appUserRepository.findOne(userId);
+            if (user != null) {
+                users.put(userId, user);
+            }
+        }
+
+        return user;
+    }
+
+    @Override
+    public void invalidateUser(final Long userId) {
+        final Cache<Long, AppUser> users = cacheForCurrentTenant();
+        evictNowAndAfterCommit(new Runnable() {
+
+            @Override
+            public void run() {
+                users.invalidate(userId);
+            }
+        });
+    }
+
+    @Override
+    public void invalidateAllUsers() {
+        final Cache<Long, AppUser> users = cacheForCurrentTenant();
+        evictNowAndAfterCommit(new Runnable() {
+
+            @Override
+            public void run() {
+                users.invalidateAll();
+            }
+        });
+    }
+
+    /*
+     * evicting before commit would let a concurrent request reload and cache
+     * the old state, so eviction is repeated once the changes are visible.
+     */
+    private void evictNowAndAfterCommit(final Runnable eviction) {
+        eviction.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+
+                @Override
+                public void afterCommit() {
+                    eviction.run();
+                }
+            });
+        }
+    }
+
+    private Cache<Long, AppUser> cacheForCurrentTenant() {
+        final MifosPlatformTenant tenant = ThreadLocalContextUtil.getTenant();
+
+        Cache<Long, AppUser> users = this.usersByTenant.get(tenant.getId());
+        if (users == null) {
+            final Cache<Long, AppUser> newUsers = CacheBuilder.newBuilder().maximumSize(this.maximumUsersPerTenant)
+                    .expireAfterWrite(this.ttlSeconds, TimeUnit.SECONDS).build();
+            users = this.usersByTenant.putIfAbsent(tenant.getId(), newUsers);
+            if (users == null) {
+                users = newUsers;
+            }
+        }
+
+        return users;
+    }
+}
@@ -5,10 +5,25 @@
  */
 package org.mifosplatform.infrastructure.security.service;
 
+import java.util.Collection;
+
 import org.mifosplatform.infrastructure.core.domain.MifosPlatformTenant;
 
 public interface TenantDetailsService {
 
     MifosPlatformTenant loadTenantById(String tenantId);
 
+    /**
+     * Reloads the details of all tenants from the tenants database replacing
+     * any previously cached tenant details.
+     *
+     * @return the number of tenants now known to the platform.
+     */
+    int refreshTenants();
+
+    /**
+     * @return the tenants currently known to the platform, used by jobs that
+     *         run for every tenant.
+     */
+    Collection<MifosPlatformTenant> findAllTenants();
 }
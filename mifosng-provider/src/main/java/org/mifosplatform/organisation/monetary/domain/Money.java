@@ -61,9 +61,9 @@ public class Money implements Comparable<Money> {
         this.currencyCode = currencyCode;
         this.currencyDigitsAfterDecimal = digitsAfterDecimal;
 
+        // stripping trailing zeros first would not change the rounded amount
         final BigDecimal amountZeroed = defaultToZeroIfNull(amount);
-        BigDecimal amountStripped = amountZeroed.stripTrailingZeros();
-        this.amount = amountStripped.setScale(this.currencyDigitsAfterDecimal, RoundingMode.HALF_EVEN);
+        this.amount = amountZeroed.setScale(this.currencyDigitsAfterDecimal, RoundingMode.HALF_EVEN);
     }
 
     private static BigDecimal defaultToZeroIfNull(final BigDecimal value) {
@@ -180,7 +180,7 @@ public class Money implements Comparable<Money> {
     }
 
     public boolean isZero() {
-        return this.isEqualTo(Money.zero(this.getCurrency()));
+        return this.amount.signum() == 0;
     }
 
     public boolean isEqualTo(final Money other) {
@@ -200,7 +200,7 @@ public class Money implements Comparable<Money> {
     }
 
     public boolean isGreaterThanZero() {
-        return this.isGreaterThan(Money.zero(this.getCurrency()));
+        return this.amount.signum() > 0;
     }
 
     public boolean isLessThan(final Money other) {
@@ -208,7 +208,7 @@ public class Money implements Comparable<Money> {
     }
 
     public boolean isLessThanZero() {
-        return this.isLessThan(Money.zero(this.getCurrency()));
+        return this.amount.signum() < 0;
     }
 
     public String getCurrencyCode() {
@@ -0,0 +1,148 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.organisation.monetary.domain;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Mutable running total of {@link Money} in one currency for loops that would
+ * otherwise create a new {@link Money} on every addition.
+ *
+ * The total is kept as a count of minor units (cents for a currency with two
+ * digits after the decimal point) in a <code>long</code>. Amounts with more
+ * digits after the decimal point than the currency, or a total too large for a
+ * <code>long</code>, are handled with {@link BigDecimal} instead.
+ *
+ * Each addition or subtraction rounds the total to the currency half even,
+ * the same as the matching {@link Money#plus(BigDecimal)} or
+ * {@link Money#minus(BigDecimal)}, so a chain of operations gives the same
+ * amount as the equivalent chain of {@link Money} operations.
+ */
+public final class MoneyAccumulator {
+
+    /*
+     * any unscaled value of at most 18 digits fits in a long
+     */
+    private static final int MAX_LONG_PRECISION = 18;
+
+    private final MonetaryCurrency currency;
+    private final int digitsAfterDecimal;
+
+    private long minorUnits;
+
+    /*
+     * the total once it no longer fits in minorUnits, rounded to the currency
+     */
+    private BigDecimal largeTotal;
+
+    public MoneyAccumulator(final MonetaryCurrency currency) {
+        this.currency = currency;
+        this.digitsAfterDecimal = currency.getDigitsAfterDecimal();
+    }
+
+    public MoneyAccumulator plus(final Money money) {
+        checkCurrencyEqual(money);
+        return plus(money.getAmount());
+    }
+
+    public MoneyAccumulator minus(final Money money) {
+        checkCurrencyEqual(money);
+        return minus(money.getAmount());
+    }
+
+    public MoneyAccumulator plus(final BigDecimal amount) {
+        if (amount.signum() == 0) { return this; }
+
+        if (this.largeTotal == null) {
+            final long amountInMinorUnits = exactMinorUnitsOf(amount);
+            if (amountInMinorUnits != Long.MIN_VALUE) {
+                final long total = this.minorUnits + amountInMinorUnits;
+                // overflowed when both operands have a different sign than
+                // the result
+                if (((this.minorUnits ^ total) & (amountInMinorUnits ^ total)) >= 0) {
+                    this.minorUnits = total;
+                    return this;
+                }
+            }
+        }
+
+        setTotal(getAmount().add(amount).setScale(this.digitsAfterDecimal, RoundingMode.HALF_EVEN));
+        return this;
+    }
+
+    public MoneyAccumulator minus(final BigDecimal amount) {
+        if (amount.signum() == 0) { return this; }
+
+        if (this.largeTotal == null) {
+            final long amountInMinorUnits = exactMinorUnitsOf(amount);
+            if (amountInMinorUnits != Long.MIN_VALUE) {
+                final long total = this.minorUnits - amountInMinorUnits;
+                if (((this.minorUnits ^ amountInMinorUnits) & (this.minorUnits ^ total)) >= 0) {
+                    this.minorUnits = total;
+                    return this;
+                }
+            }
+        }
+
+        setTotal(getAmount().subtract(amount).setScale(this.digitsAfterDecimal, RoundingMode.HALF_EVEN));
+        return this;
+    }
+
+    public BigDecimal getAmount() {
+        if (this.largeTotal != null) { return this.largeTotal; }
+        return BigDecimal.valueOf(this.minorUnits, this.digitsAfterDecimal);
+    }
+
+    public Money toMoney() {
+        return Money.of(this.currency, getAmount());
+    }
+
+    public boolean isZero() {
+        return signum() == 0;
+    }
+
+    public boolean isGreaterThanZero() {
+        return signum() > 0;
+    }
+
+    public boolean isLessThanZero() {
+        return signum() < 0;
+    }
+
+    private int signum() {
+        if (this.largeTotal != null) { return this.largeTotal.signum(); }
+        return this.minorUnits == 0 ? 0 : this.minorUnits > 0 ? 1 : -1;
+    }
+
+    /**
+     * @return the amount in minor units when it has no more digits after the
+     *         decimal point than the currency and fits in a <code>long</code>,
+     *         otherwise {@link Long#MIN_VALUE}.
+     */
+    private long exactMinorUnitsOf(final BigDecimal amount) {
+        final int scale = amount.scale();
+        if (scale > this.digitsAfterDecimal) { return Long.MIN_VALUE; }
+
+        final BigDecimal scaled = scale == this.digitsAfterDecimal ? amount : amount.setScale(this.digitsAfterDecimal);
+        if (scaled.precision() > MAX_LONG_PRECISION) { return Long.MIN_VALUE; }
+        return scaled.unscaledValue().longValue();
+    }
+
+    private void setTotal(final BigDecimal total) {
+        if (total.precision() <= MAX_LONG_PRECISION) {
+            this.minorUnits = total.unscaledValue().longValue();
+            this.largeTotal = null;
+        } else {
+            this.largeTotal = total;
+        }
+    }
+
+    private void checkCurrencyEqual(final Money money) {
+        if (!this.currency.getCode().equals(money.getCurrencyCode())) { throw new UnsupportedOperationException(
+                "currencies are different."); }
+    }
+}
@@ -16,6 +16,7 @@ import org.mifosplatform.portfolio.charge.domain.Charge;
 import org.mifosplatform.portfolio.charge.domain.ChargeRepository;
 import org.mifosplatform.portfolio.charge.exception.ChargeNotFoundException;
 import org.mifosplatform.portfolio.charge.serialization.ChargeDefinitionCommandFromApiJsonDeserializer;
+import org.mifosplatform.portfolio.loanaccount.loanschedule.service.LoanScheduleCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -31,13 +32,16 @@ public class ChargeWritePlatformServiceJpaRepositoryImpl implements ChargeWriteP
     private final PlatformSecurityContext context;
     private final ChargeDefinitionCommandFromApiJsonDeserializer fromApiJsonDeserializer;
     private final ChargeRepository chargeRepository;
+    private final LoanScheduleCache loanScheduleCache;
 
     @Autowired
     public ChargeWritePlatformServiceJpaRepositoryImpl(final PlatformSecurityContext context,
-            final ChargeDefinitionCommandFromApiJsonDeserializer fromApiJsonDeserializer, final ChargeRepository chargeRepository) {
+            final ChargeDefinitionCommandFromApiJsonDeserializer fromApiJsonDeserializer, final ChargeRepository chargeRepository,
+            final LoanScheduleCache loanScheduleCache) {
         this.context = context;
         this.fromApiJsonDeserializer = fromApiJsonDeserializer;
         this.chargeRepository = chargeRepository;
+        this.loanScheduleCache = loanScheduleCache;
     }
 
     @Transactional
@@ -74,6 +78,7 @@ public class ChargeWritePlatformServiceJpaRepositoryImpl implements ChargeWriteP
 
             if (!changes.isEmpty()) {
                 this.chargeRepository.save(chargeForUpdate);
+                this.loanScheduleCache.invalidateSchedules();
             }
 
             return new CommandProcessingResultBuilder().withCommandId(command.commandId()).withEntityId(chargeId).with(changes).build();
@@ -95,6 +100,7 @@ public class ChargeWritePlatformServiceJpaRepositoryImpl implements ChargeWriteP
         chargeForDelete.delete();
 
         chargeRepository.save(chargeForDelete);
+        this.loanScheduleCache.invalidateSchedules();
 
         return new CommandProcessingResultBuilder().withEntityId(chargeForDelete.getId()).build();
     }
@@ -0,0 +1,34 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.portfolio.client.domain;
+
+/**
+ * The kinds of account with their own account number sequence, stored in
+ * <code>m_account_number_sequence</code> under the code. The table is where
+ * the accounts are stored, a sequence without a next value starts after its
+ * largest id.
+ */
+public enum AccountNumberEntityType {
+
+    CLIENT("client", "m_client"), //
+    LOAN("loan", "m_loan");
+
+    private final String code;
+    private final String tableName;
+
+    private AccountNumberEntityType(final String code, final String tableName) {
+        this.code = code;
+        this.tableName = tableName;
+    }
+
+    public String getCode() {
+        return this.code;
+    }
+
+    public String getTableName() {
+        return this.tableName;
+    }
+}
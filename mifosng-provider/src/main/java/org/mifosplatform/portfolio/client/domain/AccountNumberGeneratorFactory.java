@@ -5,16 +5,40 @@
  */
 package org.mifosplatform.portfolio.client.domain;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 @Component
 public class AccountNumberGeneratorFactory {
 
+    private final AccountNumberSequenceService accountNumberSequenceService;
+
+    @Autowired
+    public AccountNumberGeneratorFactory(final AccountNumberSequenceService accountNumberSequenceService) {
+        this.accountNumberSequenceService = accountNumberSequenceService;
+    }
+
+    /**
+     * For use before the client is saved, generates <code>null</code> when
+     * the tenant has no client sequence.
+     */
+    public AccountNumberGenerator determineClientAccountNoGenerator() {
+        return new SequenceAccountNumberGenerator(this.accountNumberSequenceService, AccountNumberEntityType.CLIENT);
+    }
+
     public AccountNumberGenerator determineClientAccountNoGenerator(final Long clientId) {
         return new ZeroPaddedAccountNumberGenerator(clientId, 9);
     }
 
+    /**
+     * For use before the loan is saved, generates <code>null</code> when the
+     * tenant has no loan sequence.
+     */
+    public AccountNumberGenerator determineLoanAccountNoGenerator() {
+        return new SequenceAccountNumberGenerator(this.accountNumberSequenceService, AccountNumberEntityType.LOAN);
+    }
+
     public AccountNumberGenerator determineLoanAccountNoGenerator(final Long loanId) {
         return new ZeroPaddedAccountNumberGenerator(loanId, 9);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,19 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.portfolio.client.domain;
+
+/**
+ * Hands out account numbers of the current tenant so a new account can be
+ * given its number before it is first saved.
+ */
+public interface AccountNumberSequenceService {
+
+    /**
+     * @return the next account number for the entity type, or
+     *         <code>null</code> when the tenant has no sequence for it.
+     */
+    String nextAccountNumber(AccountNumberEntityType entityType);
+}
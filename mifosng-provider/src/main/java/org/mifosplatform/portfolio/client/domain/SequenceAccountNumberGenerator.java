@@ -0,0 +1,27 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.portfolio.client.domain;
+
+/**
+ * Takes account numbers from the sequence of the entity type, generating
+ * <code>null</code> when the tenant has no such sequence.
+ */
+public class SequenceAccountNumberGenerator implements AccountNumberGenerator {
+
+    private final AccountNumberSequenceService accountNumberSequenceService;
+    private final AccountNumberEntityType entityType;
+
+    public SequenceAccountNumberGenerator(final AccountNumberSequenceService accountNumberSequenceService,
+            final AccountNumberEntityType entityType) {
+        this.accountNumberSequenceService = accountNumberSequenceService;
+        this.entityType = entityType;
+    }
+
+    @Override
+    public String generate() {
+        return this.accountNumberSequenceService.nextAccountNumber(this.entityType);
+    }
+}
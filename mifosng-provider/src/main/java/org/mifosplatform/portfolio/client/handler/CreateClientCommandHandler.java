@@ -5,7 +5,8 @@
  */
 package org.mifosplatform.portfolio.client.handler;
 
-import org.mifosplatform.commands.handler.NewCommandSourceHandler;
+import org.mifosplatform.commands.annotation.CommandType;
+import org.mifosplatform.commands.handler.ValidatingCommandSourceHandler;
 import org.mifosplatform.infrastructure.core.api.JsonCommand;
 import org.mifosplatform.infrastructure.core.data.CommandProcessingResult;
 import org.mifosplatform.portfolio.client.service.ClientWritePlatformService;
@@ -14,7 +15,8 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 @Service
-public class CreateClientCommandHandler implements NewCommandSourceHandler {
+@CommandType(entity = "CLIENT", action = "CREATE")
+public class CreateClientCommandHandler implements ValidatingCommandSourceHandler {
 
     private final ClientWritePlatformService clientWritePlatformService;
 
@@ -29,4 +31,10 @@ public class CreateClientCommandHandler implements NewCommandSourceHandler {
 
         return this.clientWritePlatformService.createClient(command);
     }
-}
\ No newline at end of file
+
+    @Override
+    public CommandProcessingResult validateCommand(final JsonCommand command) {
+
+        return this.clientWritePlatformService.validateForCreateClient(command);
+    }
+}
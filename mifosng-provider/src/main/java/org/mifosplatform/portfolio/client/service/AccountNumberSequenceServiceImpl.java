@@ -0,0 +1,206 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.portfolio.client.service;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.mifosplatform.infrastructure.core.service.TenantAwareRoutingDataSource;
+import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
+import org.mifosplatform.portfolio.client.domain.AccountNumberEntityType;
+import org.mifosplatform.portfolio.client.domain.AccountNumberSequenceService;
+import org.mifosplatform.portfolio.client.domain.ZeroPaddedAccountNumberGenerator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Hands out account numbers from blocks held in memory, hi/lo style. A block
+ * of <code>block_size</code> numbers is reserved by moving
+ * <code>next_value</code> of the entity type in
+ * <code>m_account_number_sequence</code> on, so any number of application
+ * nodes can share a tenant without handing out the same number twice.
+ *
+ * A block is reserved in the transaction of the caller that needs it, rather
+ * than taking a second connection, which holds the sequence row locked until
+ * that transaction ends. The caller takes the first number, the rest of the
+ * block is only handed out once the reservation has committed so a
+ * reservation that is rolled back is never used.
+ *
+ * Numbers are the prefix followed by the value zero padded to
+ * <code>number_length</code> digits. Numbers are unique but not handed out
+ * in order across nodes, and those left in a block when the application
+ * stops are never used.
+ *
+ * A sequence whose <code>next_value</code> is null starts after the largest
+ * id of the entity, so it carries on from the account numbers previously
+ * derived from ids. A <code>next_value</code> set when configuring a sequence
+ * must be past those numbers.
+ */
+@Service
+public class AccountNumberSequenceServiceImpl implements AccountNumberSequenceService {
+
+    private final ConcurrentMap<Long, ConcurrentMap<AccountNumberEntityType, Sequence>> sequencesByTenant =
+            new ConcurrentHashMap<Long, ConcurrentMap<AccountNumberEntityType, Sequence>>();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public AccountNumberSequenceServiceImpl(final TenantAwareRoutingDataSource dataSource,
+            final PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public String nextAccountNumber(final AccountNumberEntityType entityType) {
+        return sequenceOf(entityType).next();
+    }
+
+    private Sequence sequenceOf(final AccountNumberEntityType entityType) {
+        final Long tenantId = ThreadLocalContextUtil.getTenant().getId();
+
+        ConcurrentMap<AccountNumberEntityType, Sequence> sequences = this.sequencesByTenant.get(tenantId);
+        if (sequences == null) {
+            final ConcurrentMap<AccountNumberEntityType, Sequence> newSequences =
+                    new ConcurrentHashMap<AccountNumberEntityType, Sequence>();
+            sequences = this.sequencesByTenant.putIfAbsent(tenantId, newSequences);
+            if (sequences == null) {
+                sequences = newSequences;
+            }
+        }
+
+        Sequence sequence = sequences.get(entityType);
+        if (sequence == null) {
+            final Sequence newSequence = new Sequence(entityType);
+            sequence = sequences.putIfAbsent(entityType, newSequence);
+            if (sequence == null) {
+                sequence = newSequence;
+            }
+        }
+        return sequence;
+    }
+
+    /**
+     * Joins the transaction of the caller, or runs in one of its own when
+     * there is none.
+     *
+     * @return the first number of a newly reserved block or <code>null</code>
+     *         when the tenant has no sequence for the entity type.
+     */
+    private String nextFromNewBlock(final Sequence sequence) {
+        return this.transactionTemplate.execute(new TransactionCallback<String>() {
+
+            @Override
+            public String doInTransaction(@SuppressWarnings("unused") final TransactionStatus status) {
+                final Block block = reserveBlock(sequence.entityType);
+                if (block == null) { return null; }
+
+                final String number = block.next();
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+
+                    @Override
+                    public void afterCommit() {
+                        sequence.reserved(block);
+                    }
+                });
+                return number;
+            }
+        });
+    }
+
+    private Block reserveBlock(final AccountNumberEntityType entityType) {
+        final String nextValue = "coalesce(next_value, (select coalesce(max(e.id), 0) + 1 from " + entityType.getTableName() + " e))";
+        final int updated = this.jdbcTemplate.update("update m_account_number_sequence set next_value = " + nextValue
+                + " + greatest(block_size, 1) where entity_type = ?", entityType.getCode());
+        if (updated == 0) { return null; }
+
+        // the row stays locked by the update until commit
+        return this.jdbcTemplate.queryForObject(
+                "select s.prefix as prefix, s.number_length as numberLength, s.block_size as blockSize, s.next_value as nextValue "
+                        + " from m_account_number_sequence s where s.entity_type = ?", new BlockMapper(), entityType.getCode());
+    }
+
+    private final class Sequence {
+
+        private final AccountNumberEntityType entityType;
+        private Block block;
+
+        Sequence(final AccountNumberEntityType entityType) {
+            this.entityType = entityType;
+        }
+
+        /*
+         * the lock is not held while reserving, a transaction waiting for the
+         * sequence row must not keep the transaction holding it from taking
+         * a number. Nothing is kept when there is no sequence so one added
+         * later is picked up.
+         */
+        String next() {
+            synchronized (this) {
+                if (this.block != null && !this.block.isUsedUp()) { return this.block.next(); }
+            }
+            return nextFromNewBlock(this);
+        }
+
+        /*
+         * blocks reserved at the same time by several callers are used one at
+         * a time, the rest of the others is never used
+         */
+        synchronized void reserved(final Block reservedBlock) {
+            if (this.block == null || this.block.isUsedUp()) {
+                this.block = reservedBlock;
+            }
+        }
+    }
+
+    private static final class Block {
+
+        private final String prefix;
+        private final int numberLength;
+        private long nextValue;
+        private final long limit;
+
+        Block(final String prefix, final int numberLength, final long firstValue, final long limit) {
+            this.prefix = prefix;
+            this.numberLength = numberLength;
+            this.nextValue = firstValue;
+            this.limit = limit;
+        }
+
+        boolean isUsedUp() {
+            return this.nextValue >= this.limit;
+        }
+
+        String next() {
+            final String number = new ZeroPaddedAccountNumberGenerator(this.nextValue, this.numberLength).generate();
+            this.nextValue++;
+            return this.prefix + number;
+        }
+    }
+
+    private static final class BlockMapper implements RowMapper<Block> {
+
+        @Override
+        public Block mapRow(final ResultSet rs, @SuppressWarnings("unused") final int rowNum) throws SQLException {
+            final String prefix = rs.getString("prefix");
+            final int numberLength = rs.getInt("numberLength");
+            final long limit = rs.getLong("nextValue");
+            final long firstValue = limit - Math.max(rs.getInt("blockSize"), 1);
+            return new Block(prefix == null ? "" : prefix, numberLength, firstValue, limit);
+        }
+    }
+}
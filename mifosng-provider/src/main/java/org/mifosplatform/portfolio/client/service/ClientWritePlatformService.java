@@ -16,6 +16,8 @@ public interface ClientWritePlatformService {
 
     CommandProcessingResult createClient(JsonCommand command);
 
+    CommandProcessingResult validateForCreateClient(JsonCommand command);
+
     CommandProcessingResult updateClient(Long clientId, JsonCommand command);
 
     CommandProcessingResult deleteClient(Long clientId);
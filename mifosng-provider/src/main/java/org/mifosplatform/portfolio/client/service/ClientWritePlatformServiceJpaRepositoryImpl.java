@@ -119,6 +119,27 @@ public class ClientWritePlatformServiceJpaRepositoryImpl implements ClientWriteP
                 "Unknown data integrity issue with resource.");
     }
 
+    @Transactional(readOnly = true)
+    @Override
+    public CommandProcessingResult validateForCreateClient(final JsonCommand command) {
+
+        context.authenticatedUser();
+
+        this.fromApiJsonDeserializer.validateForCreate(command.json());
+
+        final Long officeId = command.longValueOfParameterNamed("officeId");
+        final Office clientOffice = this.officeRepository.findOne(officeId);
+        if (clientOffice == null) { throw new OfficeNotFoundException(officeId); }
+
+        final Long groupId = command.longValueOfParameterNamed("groupId");
+        if (groupId != null && this.groupRepository.findOne(groupId) == null) { throw new GroupNotFoundException(groupId); }
+
+        return new CommandProcessingResultBuilder() //
+                .withCommandId(command.commandId()) //
+                .withOfficeId(clientOffice.getId()) //
+                .build();
+    }
+
     @Transactional
     @Override
     public CommandProcessingResult createClient(final JsonCommand command) {
@@ -143,8 +164,16 @@ public class ClientWritePlatformServiceJpaRepositoryImpl implements ClientWriteP
             }
             
             final Client newClient = Client.fromJson(clientOffice, clientParentGroup , command);
+            if (newClient.isAccountNumberRequiresAutoGeneration()) {
+                final String accountNo = this.accountIdentifierGeneratorFactory.determineClientAccountNoGenerator().generate();
+                if (accountNo != null) {
+                    newClient.updateAccountNo(accountNo);
+                }
+            }
             this.clientRepository.save(newClient);
 
+            // without a client sequence the account number is derived from the
+            // id once saved
             if (newClient.isAccountNumberRequiresAutoGeneration()) {
                 final AccountNumberGenerator accountNoGenerator = this.accountIdentifierGeneratorFactory
                         .determineClientAccountNoGenerator(newClient.getId());
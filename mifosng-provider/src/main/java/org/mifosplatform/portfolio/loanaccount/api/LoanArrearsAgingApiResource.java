@@ -0,0 +1,75 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.portfolio.loanaccount.api;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.GET;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.MediaType;
+
+import org.apache.commons.lang.StringUtils;
+import org.mifosplatform.infrastructure.core.exception.UnrecognizedQueryParamException;
+import org.mifosplatform.infrastructure.core.serialization.DefaultToApiJsonSerializer;
+import org.mifosplatform.infrastructure.security.service.PlatformSecurityContext;
+import org.mifosplatform.portfolio.loanaccount.data.LoanArrearsAgingJobData;
+import org.mifosplatform.portfolio.loanaccount.service.LoanArrearsAgingWritePlatformService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+
+@Path("/loans/arrearsaging")
+@Component
+@Scope("singleton")
+public class LoanArrearsAgingApiResource {
+
+    private final String resourceNameForPermissions = "LOAN";
+
+    private final PlatformSecurityContext context;
+    private final LoanArrearsAgingWritePlatformService arrearsAgingWritePlatformService;
+    private final DefaultToApiJsonSerializer<LoanArrearsAgingJobData> toApiJsonSerializer;
+
+    @Autowired
+    public LoanArrearsAgingApiResource(final PlatformSecurityContext context,
+            final LoanArrearsAgingWritePlatformService arrearsAgingWritePlatformService,
+            final DefaultToApiJsonSerializer<LoanArrearsAgingJobData> toApiJsonSerializer) {
+        this.context = context;
+        this.arrearsAgingWritePlatformService = arrearsAgingWritePlatformService;
+        this.toApiJsonSerializer = toApiJsonSerializer;
+    }
+
+    @GET
+    @Consumes({ MediaType.APPLICATION_JSON })
+    @Produces({ MediaType.APPLICATION_JSON })
+    public String retrieveArrearsAgingJob() {
+
+        context.authenticatedUser().validateHasReadPermission(resourceNameForPermissions);
+
+        final LoanArrearsAgingJobData job = this.arrearsAgingWritePlatformService.retrieveArrearsAgingJob();
+
+        return this.toApiJsonSerializer.serialize(job);
+    }
+
+    @POST
+    @Consumes({ MediaType.APPLICATION_JSON })
+    @Produces({ MediaType.APPLICATION_JSON })
+    public String handleCommands(@QueryParam("command") final String commandParam) {
+
+        if (!is(commandParam, "recalculate")) { throw new UnrecognizedQueryParamException("command", commandParam); }
+
+        context.authenticatedUser().validateHasPermissionTo("RECALCULATEARREARSAGING_LOAN");
+
+        final LoanArrearsAgingJobData job = this.arrearsAgingWritePlatformService.recalculateArrearsAging();
+
+        return this.toApiJsonSerializer.serialize(job);
+    }
+
+    private boolean is(final String commandParam, final String commandValue) {
+        return StringUtils.isNotBlank(commandParam) && commandParam.trim().equalsIgnoreCase(commandValue);
+    }
+}
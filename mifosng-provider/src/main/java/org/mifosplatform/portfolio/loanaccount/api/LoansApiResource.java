@@ -7,7 +7,9 @@ package org.mifosplatform.portfolio.loanaccount.api;
 
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Date;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import javax.ws.rs.Consumes;
@@ -21,10 +23,12 @@ import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.StreamingOutput;
 import javax.ws.rs.core.UriInfo;
 
 import org.apache.commons.lang.StringUtils;
 import org.joda.time.LocalDate;
+import org.mifosplatform.accounting.journalentry.api.DateParam;
 import org.mifosplatform.commands.domain.CommandWrapper;
 import org.mifosplatform.commands.service.CommandWrapperBuilder;
 import org.mifosplatform.commands.service.PortfolioCommandSourceWritePlatformService;
@@ -39,6 +43,7 @@ import org.mifosplatform.infrastructure.core.exception.UnrecognizedQueryParamExc
 import org.mifosplatform.infrastructure.core.serialization.ApiRequestJsonSerializationSettings;
 import org.mifosplatform.infrastructure.core.serialization.DefaultToApiJsonSerializer;
 import org.mifosplatform.infrastructure.core.serialization.FromJsonHelper;
+import org.mifosplatform.infrastructure.core.serialization.StreamingDataSource;
 import org.mifosplatform.infrastructure.security.service.PlatformSecurityContext;
 import org.mifosplatform.organisation.staff.data.BulkTransferLoanOfficerData;
 import org.mifosplatform.organisation.staff.data.StaffData;
@@ -48,6 +53,7 @@ import org.mifosplatform.portfolio.charge.service.ChargeReadPlatformService;
 import org.mifosplatform.portfolio.fund.data.FundData;
 import org.mifosplatform.portfolio.fund.service.FundReadPlatformService;
 import org.mifosplatform.portfolio.loanaccount.data.LoanAccountData;
+import org.mifosplatform.portfolio.loanaccount.data.LoanAssociationFilter;
 import org.mifosplatform.portfolio.loanaccount.data.LoanChargeData;
 import org.mifosplatform.portfolio.loanaccount.data.LoanCollateralData;
 import org.mifosplatform.portfolio.loanaccount.data.LoanTransactionData;
@@ -55,6 +61,8 @@ import org.mifosplatform.portfolio.loanaccount.data.RepaymentScheduleRelatedLoan
 import org.mifosplatform.portfolio.loanaccount.guarantor.data.GuarantorData;
 import org.mifosplatform.portfolio.loanaccount.guarantor.service.GuarantorReadPlatformService;
 import org.mifosplatform.portfolio.loanaccount.loanschedule.data.LoanScheduleData;
+import org.mifosplatform.portfolio.loanaccount.loanschedule.data.LoanSchedulePeriodData;
+import org.mifosplatform.portfolio.loanaccount.loanschedule.data.LoanScheduleScenarioData;
 import org.mifosplatform.portfolio.loanaccount.loanschedule.service.LoanScheduleCalculationPlatformService;
 import org.mifosplatform.portfolio.loanaccount.service.LoanChargeReadPlatformService;
 import org.mifosplatform.portfolio.loanaccount.service.LoanCollateralReadPlatformService;
@@ -87,6 +95,15 @@ public class LoansApiResource {
             "interestRateFrequencyTypeOptions", "fundOptions", "repaymentStrategyOptions", "chargeOptions", "loanOfficerOptions",
             "loanPurposeOptions", "loanCollateralOptions", "chargeTemplate"));
 
+    private final Set<String> SCHEDULE_PERIOD_DATA_PARAMETERS = new HashSet<String>(Arrays.asList("period", "fromDate", "dueDate",
+            "daysInPeriod", "principalDisbursed", "principalOriginalDue", "principalDue", "principalPaid", "principalWrittenOff",
+            "principalOutstanding", "principalLoanBalanceOutstanding", "interestOriginalDue", "interestDue", "interestPaid",
+            "interestWaived", "interestWrittenOff", "interestOutstanding", "feeChargesDue", "feeChargesPaid", "feeChargesWaived",
+            "feeChargesWrittenOff", "feeChargesOutstanding", "penaltyChargesDue", "penaltyChargesPaid", "penaltyChargesWaived",
+            "penaltyChargesWrittenOff", "penaltyChargesOutstanding", "totalOriginalDueForPeriod", "totalDueForPeriod",
+            "totalPaidForPeriod", "totalWaivedForPeriod", "totalWrittenOffForPeriod", "totalOutstandingForPeriod", "totalOverdue",
+            "totalActualCostOfLoanForPeriod"));
+
     private final String resourceNameForPermissions = "LOAN";
 
     private final PlatformSecurityContext context;
@@ -103,6 +120,8 @@ public class LoansApiResource {
     private final CodeValueReadPlatformService codeValueReadPlatformService;
     private final DefaultToApiJsonSerializer<LoanAccountData> toApiJsonSerializer;
     private final DefaultToApiJsonSerializer<LoanScheduleData> loanScheduleToApiJsonSerializer;
+    private final DefaultToApiJsonSerializer<LoanScheduleScenarioData> loanScheduleScenarioToApiJsonSerializer;
+    private final DefaultToApiJsonSerializer<LoanSchedulePeriodData> loanSchedulePeriodToApiJsonSerializer;
     private final DefaultToApiJsonSerializer<BulkTransferLoanOfficerData> loanOfficeTransferToApiJsonSerializer;
     private final ApiRequestParameterHelper apiRequestParameterHelper;
     private final FromJsonHelper fromJsonHelper;
@@ -119,6 +138,8 @@ public class LoansApiResource {
             final CodeValueReadPlatformService codeValueReadPlatformService,
             final DefaultToApiJsonSerializer<LoanAccountData> toApiJsonSerializer,
             final DefaultToApiJsonSerializer<LoanScheduleData> loanScheduleToApiJsonSerializer,
+            final DefaultToApiJsonSerializer<LoanScheduleScenarioData> loanScheduleScenarioToApiJsonSerializer,
+            final DefaultToApiJsonSerializer<LoanSchedulePeriodData> loanSchedulePeriodToApiJsonSerializer,
             final DefaultToApiJsonSerializer<BulkTransferLoanOfficerData> loanOfficeTransferToApiJsonSerializer,
             final ApiRequestParameterHelper apiRequestParameterHelper, final FromJsonHelper fromJsonHelper,
             final PortfolioCommandSourceWritePlatformService commandsSourceWritePlatformService) {
@@ -136,6 +157,8 @@ public class LoansApiResource {
         this.codeValueReadPlatformService = codeValueReadPlatformService;
         this.toApiJsonSerializer = toApiJsonSerializer;
         this.loanScheduleToApiJsonSerializer = loanScheduleToApiJsonSerializer;
+        this.loanScheduleScenarioToApiJsonSerializer = loanScheduleScenarioToApiJsonSerializer;
+        this.loanSchedulePeriodToApiJsonSerializer = loanSchedulePeriodToApiJsonSerializer;
         this.loanOfficeTransferToApiJsonSerializer = loanOfficeTransferToApiJsonSerializer;
         this.apiRequestParameterHelper = apiRequestParameterHelper;
         this.fromJsonHelper = fromJsonHelper;
@@ -237,7 +260,14 @@ public class LoansApiResource {
     @Path("{loanId}")
     @Consumes({ MediaType.APPLICATION_JSON })
     @Produces({ MediaType.APPLICATION_JSON })
-    public String retrieveLoan(@PathParam("loanId") final Long loanId, @Context final UriInfo uriInfo) {
+    public String retrieveLoan(@PathParam("loanId") final Long loanId, @QueryParam("transactionsOffset") final Integer transactionsOffset,
+            @QueryParam("transactionsLimit") final Integer transactionsLimit,
+            @QueryParam("transactionsFromDate") final DateParam transactionsFromDate,
+            @QueryParam("transactionsToDate") final DateParam transactionsToDate,
+            @QueryParam("repaymentScheduleOffset") final Integer repaymentScheduleOffset,
+            @QueryParam("repaymentScheduleLimit") final Integer repaymentScheduleLimit,
+            @QueryParam("repaymentScheduleFromDate") final DateParam repaymentScheduleFromDate,
+            @QueryParam("repaymentScheduleToDate") final DateParam repaymentScheduleToDate, @Context final UriInfo uriInfo) {
 
         context.authenticatedUser().validateHasReadPermission(resourceNameForPermissions);
 
@@ -267,7 +297,10 @@ public class LoansApiResource {
 
             if (associationParameters.contains("transactions")) {
                 mandatoryResponseParameters.add("transactions");
-                final Collection<LoanTransactionData> currentLoanRepayments = this.loanReadPlatformService.retrieveLoanTransactions(loanId);
+                final LoanAssociationFilter filter = LoanAssociationFilter.from("transactions", transactionsOffset, transactionsLimit,
+                        dateOf(transactionsFromDate), dateOf(transactionsToDate));
+                final Collection<LoanTransactionData> currentLoanRepayments = this.loanReadPlatformService.retrieveLoanTransactions(
+                        loanId, filter);
                 if (!CollectionUtils.isEmpty(currentLoanRepayments)) {
                     loanRepayments = currentLoanRepayments;
                 }
@@ -277,7 +310,9 @@ public class LoansApiResource {
                 mandatoryResponseParameters.add("repaymentSchedule");
 
                 final RepaymentScheduleRelatedLoanData repaymentScheduleRelatedData = loanBasicDetails.repaymentScheduleRelatedData();
-                repaymentSchedule = this.loanReadPlatformService.retrieveRepaymentSchedule(loanId, repaymentScheduleRelatedData);
+                final LoanAssociationFilter filter = LoanAssociationFilter.from("repaymentSchedule", repaymentScheduleOffset,
+                        repaymentScheduleLimit, dateOf(repaymentScheduleFromDate), dateOf(repaymentScheduleToDate));
+                repaymentSchedule = this.loanReadPlatformService.retrieveRepaymentSchedule(loanId, repaymentScheduleRelatedData, filter);
             }
 
             if (associationParameters.contains("charges")) {
@@ -344,6 +379,30 @@ public class LoansApiResource {
         return this.toApiJsonSerializer.serialize(settings, loanAccount, LOAN_DATA_PARAMETERS);
     }
 
+    /**
+     * Streams the periods of the repayment schedule as they are read, for
+     * schedules too long to embed in the loan.
+     */
+    @GET
+    @Path("{loanId}/repaymentschedule")
+    @Consumes({ MediaType.APPLICATION_JSON })
+    @Produces({ MediaType.APPLICATION_JSON })
+    public StreamingOutput retrieveRepaymentSchedulePeriods(@PathParam("loanId") final Long loanId,
+            @QueryParam("offset") final Integer offset, @QueryParam("limit") final Integer limit,
+            @QueryParam("fromDate") final DateParam fromDate, @QueryParam("toDate") final DateParam toDate,
+            @Context final UriInfo uriInfo) {
+
+        context.authenticatedUser().validateHasReadPermission(resourceNameForPermissions);
+
+        final LoanAccountData loanBasicDetails = this.loanReadPlatformService.retrieveLoanAccountDetails(loanId);
+        final LoanAssociationFilter filter = LoanAssociationFilter.from(null, offset, limit, dateOf(fromDate), dateOf(toDate));
+        final StreamingDataSource<LoanSchedulePeriodData> periods = this.loanReadPlatformService.streamRepaymentSchedulePeriods(loanId,
+                loanBasicDetails.repaymentScheduleRelatedData(), filter);
+
+        final ApiRequestJsonSerializationSettings settings = apiRequestParameterHelper.process(uriInfo.getQueryParameters());
+        return this.loanSchedulePeriodToApiJsonSerializer.serializeStreaming(settings, periods, SCHEDULE_PERIOD_DATA_PARAMETERS);
+    }
+
     @POST
     @Consumes({ MediaType.APPLICATION_JSON })
     @Produces({ MediaType.APPLICATION_JSON })
@@ -355,12 +414,23 @@ public class LoansApiResource {
             final JsonElement parsedQuery = this.fromJsonHelper.parse(apiRequestBodyAsJson);
             final JsonQuery query = JsonQuery.from(apiRequestBodyAsJson, parsedQuery, this.fromJsonHelper);
 
-            final LoanScheduleData loanSchedule = this.calculationPlatformService.calculateLoanSchedule(query);
+            final LoanScheduleData loanSchedule = this.calculationPlatformService.previewLoanSchedule(query);
 
             final ApiRequestJsonSerializationSettings settings = apiRequestParameterHelper.process(uriInfo.getQueryParameters());
             return this.loanScheduleToApiJsonSerializer.serialize(settings, loanSchedule, new HashSet<String>());
         }
 
+        if (is(commandParam, "calculateLoanScheduleScenarios")) {
+
+            final JsonElement parsedQuery = this.fromJsonHelper.parse(apiRequestBodyAsJson);
+            final JsonQuery query = JsonQuery.from(apiRequestBodyAsJson, parsedQuery, this.fromJsonHelper);
+
+            final List<LoanScheduleScenarioData> scenarios = this.calculationPlatformService.previewLoanScheduleScenarios(query);
+
+            final ApiRequestJsonSerializationSettings settings = apiRequestParameterHelper.process(uriInfo.getQueryParameters());
+            return this.loanScheduleScenarioToApiJsonSerializer.serialize(settings, scenarios, new HashSet<String>());
+        }
+
         final CommandWrapper commandRequest = new CommandWrapperBuilder().createLoanApplication().withJson(apiRequestBodyAsJson).build();
 
         final CommandProcessingResult result = this.commandsSourceWritePlatformService.logCommandSource(commandRequest);
@@ -445,6 +515,10 @@ public class LoansApiResource {
         return StringUtils.isNotBlank(commandParam) && commandParam.trim().equalsIgnoreCase(commandValue);
     }
 
+    private static Date dateOf(final DateParam dateParam) {
+        return dateParam == null ? null : dateParam.getDate();
+    }
+
     @GET
     @Path("{loanId}/assign/template")
     @Consumes({ MediaType.APPLICATION_JSON })
@@ -0,0 +1,58 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.portfolio.loanaccount.data;
+
+import org.joda.time.DateTime;
+import org.joda.time.LocalDate;
+
+/**
+ * Immutable data object representing the progress of a recalculation of the
+ * arrears aging of all active loans of a tenant.
+ */
+public class LoanArrearsAgingJobData {
+
+    @SuppressWarnings("unused")
+    private final String tenantIdentifier;
+    @SuppressWarnings("unused")
+    private final LocalDate asOfDate;
+    @SuppressWarnings("unused")
+    private final DateTime startedOn;
+    @SuppressWarnings("unused")
+    private final DateTime finishedOn;
+    @SuppressWarnings("unused")
+    private final boolean running;
+    @SuppressWarnings("unused")
+    private final int officeCount;
+    @SuppressWarnings("unused")
+    private final int officesProcessed;
+    @SuppressWarnings("unused")
+    private final int officesFailed;
+    @SuppressWarnings("unused")
+    private final long loansInArrears;
+    @SuppressWarnings("unused")
+    private final long agingRecordsDeleted;
+    @SuppressWarnings("unused")
+    private final long elapsedMillis;
+    @SuppressWarnings("unused")
+    private final long slowestOfficeMillis;
+
+    public LoanArrearsAgingJobData(final String tenantIdentifier, final LocalDate asOfDate, final DateTime startedOn,
+            final DateTime finishedOn, final boolean running, final int officeCount, final int officesProcessed, final int officesFailed,
+            final long loansInArrears, final long agingRecordsDeleted, final long elapsedMillis, final long slowestOfficeMillis) {
+        this.tenantIdentifier = tenantIdentifier;
+        this.asOfDate = asOfDate;
+        this.startedOn = startedOn;
+        this.finishedOn = finishedOn;
+        this.running = running;
+        this.officeCount = officeCount;
+        this.officesProcessed = officesProcessed;
+        this.officesFailed = officesFailed;
+        this.loansInArrears = loansInArrears;
+        this.agingRecordsDeleted = agingRecordsDeleted;
+        this.elapsedMillis = elapsedMillis;
+        this.slowestOfficeMillis = slowestOfficeMillis;
+    }
+}
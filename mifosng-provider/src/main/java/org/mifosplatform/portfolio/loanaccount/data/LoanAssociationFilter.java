@@ -0,0 +1,93 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.portfolio.loanaccount.data;
+
+import java.util.Date;
+
+import org.joda.time.LocalDate;
+
+/**
+ * Immutable data object restricting which transactions or repayment schedule
+ * periods of a loan are retrieved: those dated within an optional range,
+ * skipping the first <code>offset</code> and returning at most
+ * <code>limit</code> of them.
+ */
+public final class LoanAssociationFilter {
+
+    private final String parameterPrefix;
+    private final Integer offset;
+    private final Integer limit;
+    private final LocalDate fromDate;
+    private final LocalDate toDate;
+
+    public static LoanAssociationFilter unfiltered() {
+        return new LoanAssociationFilter(null, null, null, null, null);
+    }
+
+    /**
+     * @param parameterPrefix
+     *            prefix of the query parameters the values came from, used
+     *            to name them in validation errors.
+     */
+    public static LoanAssociationFilter from(final String parameterPrefix, final Integer offset, final Integer limit,
+            final Date fromDate, final Date toDate) {
+        return new LoanAssociationFilter(parameterPrefix, offset, limit, fromDate == null ? null : new LocalDate(fromDate),
+                toDate == null ? null : new LocalDate(toDate));
+    }
+
+    private LoanAssociationFilter(final String parameterPrefix, final Integer offset, final Integer limit, final LocalDate fromDate,
+            final LocalDate toDate) {
+        this.parameterPrefix = parameterPrefix == null ? "" : parameterPrefix;
+        this.offset = offset;
+        this.limit = limit;
+        this.fromDate = fromDate;
+        this.toDate = toDate;
+    }
+
+    public boolean isUnfiltered() {
+        return !isPaged() && !isDateRanged();
+    }
+
+    public boolean isPaged() {
+        return this.offset != null || this.limit != null;
+    }
+
+    public boolean isDateRanged() {
+        return this.fromDate != null || this.toDate != null;
+    }
+
+    /**
+     * @return whether the filter lets through the first element of an
+     *         association dated on the date given.
+     */
+    public boolean includesFirstDatedOn(final LocalDate date) {
+        if (this.offset != null && this.offset.intValue() > 0) { return false; }
+        if (this.fromDate != null && date.isBefore(this.fromDate)) { return false; }
+        if (this.toDate != null && date.isAfter(this.toDate)) { return false; }
+        return true;
+    }
+
+    public String parameterName(final String suffix) {
+        return this.parameterPrefix.length() == 0 ? suffix : this.parameterPrefix + Character.toUpperCase(suffix.charAt(0))
+                + suffix.substring(1);
+    }
+
+    public Integer getOffset() {
+        return this.offset;
+    }
+
+    public Integer getLimit() {
+        return this.limit;
+    }
+
+    public LocalDate getFromDate() {
+        return this.fromDate;
+    }
+
+    public LocalDate getToDate() {
+        return this.toDate;
+    }
+}
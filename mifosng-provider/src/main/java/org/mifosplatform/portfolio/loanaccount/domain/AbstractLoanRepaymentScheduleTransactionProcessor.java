@@ -11,6 +11,7 @@ import java.util.Set;
 import org.joda.time.LocalDate;
 import org.mifosplatform.organisation.monetary.domain.MonetaryCurrency;
 import org.mifosplatform.organisation.monetary.domain.Money;
+import org.mifosplatform.organisation.monetary.domain.MoneyAccumulator;
 
 /**
  * Abstract implementation of {@link LoanRepaymentScheduleTransactionProcessor}
@@ -21,17 +22,43 @@ import org.mifosplatform.organisation.monetary.domain.Money;
  */
 public abstract class AbstractLoanRepaymentScheduleTransactionProcessor implements LoanRepaymentScheduleTransactionProcessor {
 
+    /**
+     * Interval, in transactions, at which a {@link LoanRepaymentScheduleCheckpoint}
+     * is stored when reprocessing transactions, zero or less stores none.
+     */
+    private static final int CHECKPOINT_INTERVAL = Integer.getInteger("mifosx.loan.replayCheckpointInterval", 16);
+
     /**
      * Provides support for passing all {@link LoanTransaction}'s so it will
      * completely re-process the entire loan schedule. This is required in cases
      * where the {@link LoanTransaction} being processed is in the past and
      * falls before existing transactions or and adjustment is made to an
      * existing in which case the entire loan schedule needs to be re-processed.
+     * 
+     * Processing restarts from the last {@link LoanRepaymentScheduleCheckpoint}
+     * that is still valid, which is before the earliest transaction that was
+     * added, adjusted or reversed. Transactions before it keep their derived
+     * components.
      */
     @Override
     public void handleTransaction(final LocalDate disbursementDate, final List<LoanTransaction> transactionsPostDisbursement,
             final MonetaryCurrency currency, final List<LoanRepaymentScheduleInstallment> installments, final Set<LoanCharge> charges) {
 
+        final String scheduleHash = LoanRepaymentScheduleCheckpoint.scheduleHash(currency, installments, charges);
+
+        final String[] transactionsHashes = new String[transactionsPostDisbursement.size()];
+        String transactionsHash = "";
+        int lastCheckpointIndex = -1;
+        for (int i = 0; i < transactionsPostDisbursement.size(); i++) {
+            final LoanTransaction loanTransaction = transactionsPostDisbursement.get(i);
+            transactionsHash = LoanRepaymentScheduleCheckpoint.nextTransactionsHash(transactionsHash, loanTransaction, currency);
+            transactionsHashes[i] = transactionsHash;
+
+            if (LoanRepaymentScheduleCheckpoint.isValidFor(loanTransaction.getReplayCheckpoint(), scheduleHash, transactionsHash)) {
+                lastCheckpointIndex = i;
+            }
+        }
+
         if (charges != null) {
             for (LoanCharge loanCharge : charges) {
                 if (!loanCharge.isDueAtDisbursement()) {
@@ -49,7 +76,13 @@ public abstract class AbstractLoanRepaymentScheduleTransactionProcessor implemen
         LoanRepaymentScheduleProcessingWrapper wrapper = new LoanRepaymentScheduleProcessingWrapper();
         wrapper.reprocess(currency, disbursementDate, installments, charges);
 
-        for (LoanTransaction loanTransaction : transactionsPostDisbursement) {
+        if (lastCheckpointIndex >= 0) {
+            final String checkpoint = transactionsPostDisbursement.get(lastCheckpointIndex).getReplayCheckpoint();
+            LoanRepaymentScheduleCheckpoint.restore(checkpoint, installments, charges);
+        }
+
+        for (int i = lastCheckpointIndex + 1; i < transactionsPostDisbursement.size(); i++) {
+            final LoanTransaction loanTransaction = transactionsPostDisbursement.get(i);
 
             if (loanTransaction.isRepayment() || loanTransaction.isInterestWaiver()) {
                 loanTransaction.resetDerivedComponents();
@@ -58,6 +91,12 @@ public abstract class AbstractLoanRepaymentScheduleTransactionProcessor implemen
                 loanTransaction.resetDerivedComponents();
                 handleWriteOff(loanTransaction, currency, installments);
             }
+
+            String checkpoint = null;
+            if (scheduleHash != null && CHECKPOINT_INTERVAL > 0 && (i + 1) % CHECKPOINT_INTERVAL == 0) {
+                checkpoint = LoanRepaymentScheduleCheckpoint.create(scheduleHash, transactionsHashes[i], installments, charges);
+            }
+            loanTransaction.updateReplayCheckpoint(checkpoint);
         }
     }
 
@@ -163,24 +202,25 @@ public abstract class AbstractLoanRepaymentScheduleTransactionProcessor implemen
     public void handleWriteOff(final LoanTransaction loanTransaction, final MonetaryCurrency currency,
             final List<LoanRepaymentScheduleInstallment> installments) {
 
-        Money principalPortion = Money.zero(currency);
-        Money interestPortion = Money.zero(currency);
-        Money feeChargesPortion = Money.zero(currency);
-        Money penaltychargesPortion = Money.zero(currency);
+        final MoneyAccumulator principalPortion = new MoneyAccumulator(currency);
+        final MoneyAccumulator interestPortion = new MoneyAccumulator(currency);
+        final MoneyAccumulator feeChargesPortion = new MoneyAccumulator(currency);
+        final MoneyAccumulator penaltychargesPortion = new MoneyAccumulator(currency);
 
         // determine how much is written off in total and breakdown for
         // principal, interest and charges
         for (LoanRepaymentScheduleInstallment currentInstallment : installments) {
 
             if (currentInstallment.isNotFullyCompleted()) {
-                principalPortion = principalPortion.plus(currentInstallment.writeOffOutstandingPrincipal(currency));
-                interestPortion = interestPortion.plus(currentInstallment.writeOffOutstandingInterest(currency));
-                feeChargesPortion = feeChargesPortion.plus(currentInstallment.writeOffOutstandingFeeCharges(currency));
-                penaltychargesPortion = penaltychargesPortion.plus(currentInstallment.writeOffOutstandingPenaltyCharges(currency));
+                principalPortion.plus(currentInstallment.writeOffOutstandingPrincipal(currency));
+                interestPortion.plus(currentInstallment.writeOffOutstandingInterest(currency));
+                feeChargesPortion.plus(currentInstallment.writeOffOutstandingFeeCharges(currency));
+                penaltychargesPortion.plus(currentInstallment.writeOffOutstandingPenaltyCharges(currency));
             }
         }
 
-        loanTransaction.updateComponentsAndTotal(principalPortion, interestPortion, feeChargesPortion, penaltychargesPortion);
+        loanTransaction.updateComponentsAndTotal(principalPortion.toMoney(), interestPortion.toMoney(), feeChargesPortion.toMoney(),
+                penaltychargesPortion.toMoney());
     }
 
     // abstract interface
@@ -10,6 +10,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
+import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -35,8 +36,6 @@ import javax.persistence.UniqueConstraint;
 
 import org.apache.commons.lang.ObjectUtils;
 import org.apache.commons.lang.StringUtils;
-import org.hibernate.annotations.LazyCollection;
-import org.hibernate.annotations.LazyCollectionOption;
 import org.joda.time.LocalDate;
 import org.joda.time.format.DateTimeFormat;
 import org.joda.time.format.DateTimeFormatter;
@@ -217,28 +216,23 @@ public class Loan extends AbstractPersistable<Long> {
     @Column(name = "interest_calculated_from_date")
     private Date interestChargedFromDate;
 
-    @LazyCollection(LazyCollectionOption.FALSE)
     @OneToMany(cascade = CascadeType.ALL, mappedBy = "loan", orphanRemoval = true)
     private Set<LoanCharge> charges = new HashSet<LoanCharge>();
 
-    @LazyCollection(LazyCollectionOption.FALSE)
     @OneToMany(cascade = CascadeType.ALL, mappedBy = "loan", orphanRemoval = true)
     private Set<LoanCollateral> collateral = null;
 
-    @LazyCollection(LazyCollectionOption.FALSE)
     @OneToMany(cascade = CascadeType.ALL, mappedBy = "loan", orphanRemoval = true)
     private Set<LoanOfficerAssignmentHistory> loanOfficerHistory;
 
     // see
     // http://stackoverflow.com/questions/4334970/hibernate-cannot-simultaneously-fetch-multiple-bags
-    @LazyCollection(LazyCollectionOption.FALSE)
     @OneToMany(cascade = CascadeType.ALL, mappedBy = "loan", orphanRemoval = true)
     private final List<LoanRepaymentScheduleInstallment> repaymentScheduleInstallments = new ArrayList<LoanRepaymentScheduleInstallment>();
 
     // see
     // http://stackoverflow.com/questions/4334970/hibernate-cannot-simultaneously-fetch-multiple-bags
     @OrderBy(value = "dateOf, id")
-    @LazyCollection(LazyCollectionOption.FALSE)
     @OneToMany(cascade = CascadeType.ALL, mappedBy = "loan", orphanRemoval = true)
     private final List<LoanTransaction> loanTransactions = new ArrayList<LoanTransaction>();
 
@@ -258,6 +252,13 @@ public class Loan extends AbstractPersistable<Long> {
     @Transient
     private LoanSummaryWrapper loanSummaryWrapper;
 
+    /*
+     * collections loaded by fetch plan, null when the loan was not loaded
+     * through one and any collection may be loaded on first access.
+     */
+    @Transient
+    private Set<LoanFetchPlan.Association> fetchedAssociations;
+
     public static Loan newIndividualLoanApplication(final String accountNo, final Client client, final LoanProduct loanProduct,
             final Fund fund, final Staff officer, final CodeValue loanPurpose,
             final LoanTransactionProcessingStrategy transactionProcessingStrategy, final LoanSchedule loanSchedule,
@@ -1355,6 +1356,48 @@ public class Loan extends AbstractPersistable<Long> {
         return loanTransaction;
     }
 
+    /**
+     * Checks a repayment could be made without changing the loan, used when
+     * the repayment is only submitted for approval.
+     */
+    public void validateRepayment(final LocalDate transactionDate, final BigDecimal transactionAmount,
+            final LoanLifecycleStateMachine loanLifecycleStateMachine) {
+        validateRepaymentOrWaiverAllowed(loanLifecycleStateMachine);
+
+        final LoanTransaction loanTransaction = LoanTransaction.repayment(Money.of(loanCurrency(), transactionAmount), transactionDate);
+        validateRepaymentOrWaiverTransaction(loanTransaction, null);
+    }
+
+    /**
+     * Checks interest could be waived without changing the loan, used when the
+     * waiver is only submitted for approval.
+     */
+    public void validateInterestWaiver(final JsonCommand command, final LoanLifecycleStateMachine loanLifecycleStateMachine) {
+        validateRepaymentOrWaiverAllowed(loanLifecycleStateMachine);
+
+        final LocalDate transactionDate = command.localDateValueOfParameterNamed("transactionDate");
+        final BigDecimal transactionAmount = command.bigDecimalValueOfParameterNamed("transactionAmount");
+
+        final LoanTransaction waiveInterestTransaction = LoanTransaction.waiver(this, Money.of(loanCurrency(), transactionAmount),
+                transactionDate);
+        validateRepaymentOrWaiverTransaction(waiveInterestTransaction, null);
+    }
+
+    /*
+     * the same transition a repayment or waiver makes, without updating the
+     * status. The state machine leaves the status unchanged when the loan
+     * cannot take a repayment, so any outcome other than active is rejected.
+     */
+    private void validateRepaymentOrWaiverAllowed(final LoanLifecycleStateMachine loanLifecycleStateMachine) {
+        final LoanStatus currentStatus = LoanStatus.fromInt(this.loanStatus);
+        final LoanStatus statusEnum = loanLifecycleStateMachine.transition(LoanEvent.LOAN_REPAYMENT_OR_WAIVER, currentStatus);
+        if (statusEnum == null || !statusEnum.hasStateOf(LoanStatus.ACTIVE)) {
+            final String errorMessage = "A repayment or waiver cannot be made on a loan with status " + currentStatus.getCode() + ".";
+            throw new InvalidLoanStateTransitionException("transaction", "not.allowed.in.current.status", errorMessage,
+                    currentStatus.getCode());
+        }
+    }
+
     private void handleRepaymentOrWaiverTransaction(final LoanTransaction loanTransaction,
             final LoanLifecycleStateMachine loanLifecycleStateMachine, final LoanTransaction adjustedTransaction) {
 
@@ -1370,6 +1413,26 @@ public class Loan extends AbstractPersistable<Long> {
             this.loanTransactions.add(loanTransaction);
         }
 
+        validateRepaymentOrWaiverTransaction(loanTransaction, adjustedTransaction);
+
+        final LoanRepaymentScheduleTransactionProcessor loanRepaymentScheduleTransactionProcessor = this.transactionProcessorFactory
+                .determineProcessor(this.transactionProcessingStrategy);
+        if (isTransactionChronologicallyLatest && adjustedTransaction == null) {
+            loanRepaymentScheduleTransactionProcessor.handleTransaction(loanTransaction, getCurrency(), this.repaymentScheduleInstallments,
+                    setOfLoanCharges());
+        } else {
+            final List<LoanTransaction> allNonContraTransactionsPostDisbursement = retreiveListOfTransactionsPostDisbursement();
+            loanRepaymentScheduleTransactionProcessor.handleTransaction(getDisbursementDate(), allNonContraTransactionsPostDisbursement,
+                    getCurrency(), this.repaymentScheduleInstallments, setOfLoanCharges());
+        }
+
+        updateLoanSummaryDerivedFields();
+
+        doPostLoanTransactionChecks(loanTransaction.getTransactionDate(), loanLifecycleStateMachine);
+    }
+
+    private void validateRepaymentOrWaiverTransaction(final LoanTransaction loanTransaction, final LoanTransaction adjustedTransaction) {
+
         if (loanTransaction.isNotRepayment() && loanTransaction.isNotWaiver()) {
             final String errorMessage = "A transaction of type repayment or waiver was expected but not received.";
             throw new InvalidLoanTransactionTypeException("transaction", "is.not.a.repayment.or.waiver.transaction", errorMessage);
@@ -1399,21 +1462,6 @@ public class Loan extends AbstractPersistable<Long> {
                         loanTransaction.getAmount(loanCurrency()), totalInterestOutstandingOnLoan.getAmount());
             }
         }
-
-        final LoanRepaymentScheduleTransactionProcessor loanRepaymentScheduleTransactionProcessor = this.transactionProcessorFactory
-                .determineProcessor(this.transactionProcessingStrategy);
-        if (isTransactionChronologicallyLatest && adjustedTransaction == null) {
-            loanRepaymentScheduleTransactionProcessor.handleTransaction(loanTransaction, getCurrency(), this.repaymentScheduleInstallments,
-                    setOfLoanCharges());
-        } else {
-            final List<LoanTransaction> allNonContraTransactionsPostDisbursement = retreiveListOfTransactionsPostDisbursement();
-            loanRepaymentScheduleTransactionProcessor.handleTransaction(getDisbursementDate(), allNonContraTransactionsPostDisbursement,
-                    getCurrency(), this.repaymentScheduleInstallments, setOfLoanCharges());
-        }
-
-        updateLoanSummaryDerivedFields();
-
-        doPostLoanTransactionChecks(loanTransaction.getTransactionDate(), loanLifecycleStateMachine);
     }
 
     private List<LoanTransaction> retreiveListOfTransactionsPostDisbursement() {
@@ -2166,4 +2214,34 @@ public class Loan extends AbstractPersistable<Long> {
         this.loanSummaryWrapper = loanSummaryWrapper;
         this.transactionProcessorFactory = transactionProcessorFactory;
     }
+
+    Collection<?> association(final LoanFetchPlan.Association association) {
+        switch (association) {
+            case CHARGES:
+                return this.charges;
+            case COLLATERAL:
+                return this.collateral;
+            case LOAN_OFFICER_HISTORY:
+                return this.loanOfficerHistory;
+            case REPAYMENT_SCHEDULE:
+                return this.repaymentScheduleInstallments;
+            default:
+                return this.loanTransactions;
+        }
+    }
+
+    void markAsFetched(final Set<LoanFetchPlan.Association> associations) {
+        if (this.fetchedAssociations == null) {
+            this.fetchedAssociations = EnumSet.noneOf(LoanFetchPlan.Association.class);
+        }
+        this.fetchedAssociations.addAll(associations);
+    }
+
+    /**
+     * @return false only when the loan was loaded through a fetch plan that
+     *         did not include the association.
+     */
+    boolean isFetchedOrUnplanned(final LoanFetchPlan.Association association) {
+        return this.fetchedAssociations == null || this.fetchedAssociations.contains(association);
+    }
 }
\ No newline at end of file
@@ -226,6 +226,20 @@ public class LoanCharge extends AbstractPersistable<Long> {
         this.paid = false;
     }
 
+    /**
+     * @return the amount paid and outstanding, as restored by
+     *         {@link #restorePaidAmounts(BigDecimal, BigDecimal)}.
+     */
+    BigDecimal[] getPaidAmounts() {
+        return new BigDecimal[] { this.amountPaid, this.amountOutstanding };
+    }
+
+    void restorePaidAmounts(final BigDecimal amountPaid, final BigDecimal amountOutstanding) {
+        this.amountPaid = amountPaid;
+        this.amountOutstanding = amountOutstanding;
+        this.paid = determineIfFullyPaid();
+    }
+
     public Money waive(final MonetaryCurrency currency) {
         this.amountWaived = this.amount;
         this.amountOutstanding = calculateAmountOutstanding(currency);
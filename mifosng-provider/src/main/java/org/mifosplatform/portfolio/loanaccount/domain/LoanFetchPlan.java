@@ -0,0 +1,79 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.portfolio.loanaccount.domain;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Named sets of the collections of a {@link Loan} that a command needs loaded
+ * up front, see {@link LoanRepositoryCustom#findOneWithFetchPlan(Long, LoanFetchPlan)}.
+ *
+ * A collection left out of a plan is still loaded on first access but costs
+ * an extra query. When <code>mifosx.loan.fetchPlanGuard</code> is set that
+ * access fails instead, so a plan missing a collection its command touches is
+ * caught when running the platform against a test database.
+ */
+public enum LoanFetchPlan {
+
+    /**
+     * Loan application commands, which may touch any part of the loan.
+     */
+    FULL(Association.values()),
+
+    /**
+     * Disbursal, repayment, adjustment, waiver, write-off, close and charge
+     * commands, which reprocess the transactions against the schedule.
+     */
+    TRANSACTIONS(Association.CHARGES, Association.REPAYMENT_SCHEDULE, Association.TRANSACTIONS),
+
+    /**
+     * Loan officer assignment and unassignment.
+     */
+    LOAN_OFFICER_ASSIGNMENT(Association.LOAN_OFFICER_HISTORY);
+
+    private final Set<Association> associations;
+
+    private LoanFetchPlan(final Association... associations) {
+        final Set<Association> included = EnumSet.noneOf(Association.class);
+        included.addAll(Arrays.asList(associations));
+        this.associations = Collections.unmodifiableSet(included);
+    }
+
+    public Set<Association> associations() {
+        return this.associations;
+    }
+
+    /**
+     * The lazily loaded collections of a {@link Loan}.
+     */
+    public static enum Association {
+        CHARGES("charges"), //
+        COLLATERAL("collateral"), //
+        LOAN_OFFICER_HISTORY("loanOfficerHistory"), //
+        REPAYMENT_SCHEDULE("repaymentScheduleInstallments"), //
+        TRANSACTIONS("loanTransactions");
+
+        private final String role;
+
+        private Association(final String property) {
+            this.role = Loan.class.getName() + "." + property;
+        }
+
+        /**
+         * @return the association of the collection role given, or
+         *         <code>null</code> when it is not a collection of a loan.
+         */
+        public static Association fromRole(final String role) {
+            for (final Association association : values()) {
+                if (association.role.equals(role)) { return association; }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.portfolio.loanaccount.domain;
+
+import org.hibernate.HibernateException;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.InitializeCollectionEvent;
+import org.hibernate.event.spi.InitializeCollectionEventListener;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.metamodel.source.MetadataImplementor;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+
+/**
+ * Fails the lazy loading of a collection of a {@link Loan} that was loaded
+ * through a {@link LoanFetchPlan} not including it, so a command handler
+ * touching more of the loan than its plan loads is caught rather than
+ * quietly costing an extra query per command.
+ *
+ * Registered with hibernate through
+ * <code>META-INF/services/org.hibernate.integrator.spi.Integrator</code> and
+ * only enabled when the <code>mifosx.loan.fetchPlanGuard</code> system
+ * property is <code>true</code>, e.g. when running the platform against a test
+ * database. The unit tests do not boot hibernate so it is not set for them.
+ */
+public class LoanFetchPlanGuard implements Integrator {
+
+    @Override
+    public void integrate(final Configuration configuration, final SessionFactoryImplementor sessionFactory,
+            final SessionFactoryServiceRegistry serviceRegistry) {
+        register(serviceRegistry);
+    }
+
+    @Override
+    public void integrate(final MetadataImplementor metadata, final SessionFactoryImplementor sessionFactory,
+            final SessionFactoryServiceRegistry serviceRegistry) {
+        register(serviceRegistry);
+    }
+
+    @Override
+    public void disintegrate(final SessionFactoryImplementor sessionFactory, final SessionFactoryServiceRegistry serviceRegistry) {
+        // nothing to release
+    }
+
+    private void register(final SessionFactoryServiceRegistry serviceRegistry) {
+        if (Boolean.getBoolean("mifosx.loan.fetchPlanGuard")) {
+            serviceRegistry.getService(EventListenerRegistry.class).prependListeners(EventType.INIT_COLLECTION,
+                    new UnplannedAssociationListener());
+        }
+    }
+
+    private static final class UnplannedAssociationListener implements InitializeCollectionEventListener {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public void onInitializeCollection(final InitializeCollectionEvent event) throws HibernateException {
+            final Object owner = event.getAffectedOwnerOrNull();
+            if (owner instanceof Loan) {
+                final Loan loan = (Loan) owner;
+                final LoanFetchPlan.Association association = LoanFetchPlan.Association.fromRole(event.getCollection().getRole());
+                if (association != null && !loan.isFetchedOrUnplanned(association)) {
+                    final String errorMessage = "Collection " + association + " of loan " + loan.getId()
+                            + " is not part of the fetch plan it was loaded with.";
+                    throw new IllegalStateException(errorMessage);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,283 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.portfolio.loanaccount.domain;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.joda.time.LocalDate;
+import org.mifosplatform.organisation.monetary.domain.MonetaryCurrency;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+/**
+ * Compact record of the derived state of a loan's repayment schedule and
+ * charges after one of its transactions has been processed.
+ *
+ * Checkpoints are stored on every n-th transaction whenever the transactions
+ * of a loan are reprocessed, so a backdated or adjusted transaction only needs
+ * the transactions after the last checkpoint before it to be processed again.
+ *
+ * A checkpoint records a hash of the schedule and charges, and a hash of all
+ * transactions up to and including the one it is stored on. It is only used
+ * when both still match, so any change to an earlier transaction, the
+ * schedule or the charges falls back to processing from disbursement.
+ */
+final class LoanRepaymentScheduleCheckpoint {
+
+    private static final String VERSION = "1";
+    private static final String PAID_AS_DUE = "*";
+    private static final int DERIVED_COMPONENTS = 11;
+
+    private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+
+    private LoanRepaymentScheduleCheckpoint() {
+        //
+    }
+
+    /**
+     * @return a hash of the schedule and charges the state of a checkpoint
+     *         depends on, or <code>null</code> when a charge has not been saved
+     *         yet and checkpoints can not be used.
+     */
+    static String scheduleHash(final MonetaryCurrency currency, final List<LoanRepaymentScheduleInstallment> installments,
+            final Set<LoanCharge> charges) {
+
+        final Hasher hasher = HASH_FUNCTION.newHasher();
+        putString(hasher, currency.getCode());
+        hasher.putInt(currency.getDigitsAfterDecimal());
+
+        for (final LoanRepaymentScheduleInstallment installment : installments) {
+            hasher.putInt(installment.getInstallmentNumber());
+            putDate(hasher, installment.getFromDate());
+            putDate(hasher, installment.getDueDate());
+
+            // only principal and interest due are hashed per installment, fee
+            // and penalty charges due follow from the loan charges hashed
+            // below by id, due date, amount, waived and written off
+            final BigDecimal[] dueComponents = installment.getDueComponents();
+            putDecimal(hasher, dueComponents[0]);
+            putDecimal(hasher, dueComponents[1]);
+        }
+
+        if (charges != null) {
+            final List<LoanCharge> chargesById = new ArrayList<LoanCharge>(charges);
+            for (final LoanCharge charge : chargesById) {
+                if (charge.getId() == null) { return null; }
+            }
+            Collections.sort(chargesById, new Comparator<LoanCharge>() {
+
+                @Override
+                public int compare(final LoanCharge o1, final LoanCharge o2) {
+                    return o1.getId().compareTo(o2.getId());
+                }
+            });
+
+            for (final LoanCharge charge : chargesById) {
+                hasher.putLong(charge.getId());
+                hasher.putBoolean(charge.isDueAtDisbursement());
+                hasher.putBoolean(charge.isPenaltyCharge());
+                putDate(hasher, charge.getDueLocalDate());
+                putDecimal(hasher, charge.amount());
+                putDecimal(hasher, charge.getAmountWaived(currency).getAmount());
+                putDecimal(hasher, charge.getAmountWrittenOff(currency).getAmount());
+            }
+        }
+
+        return hasher.hash().toString();
+    }
+
+    /**
+     * @return the hash of the transactions up to and including
+     *         <code>transaction</code> given the hash of the ones before it
+     *         (an empty string for the first transaction).
+     */
+    static String nextTransactionsHash(final String previousTransactionsHash, final LoanTransaction transaction,
+            final MonetaryCurrency currency) {
+
+        final Hasher hasher = HASH_FUNCTION.newHasher();
+        putString(hasher, previousTransactionsHash);
+        hasher.putInt(transaction.getTypeOf().getValue());
+        putDate(hasher, transaction.getTransactionDate());
+        // the amount of a write-off is derived when it is processed
+        if (!transaction.isWriteOff()) {
+            putDecimal(hasher, transaction.getAmount(currency).getAmount());
+        }
+
+        return hasher.hash().toString();
+    }
+
+    static boolean isValidFor(final String checkpoint, final String scheduleHash, final String transactionsHash) {
+        return checkpoint != null && scheduleHash != null
+                && checkpoint.startsWith(VERSION + "|" + scheduleHash + "|" + transactionsHash + "|");
+    }
+
+    static String create(final String scheduleHash, final String transactionsHash,
+            final List<LoanRepaymentScheduleInstallment> installments, final Set<LoanCharge> charges) {
+
+        final StringBuilder checkpoint = new StringBuilder(32 + installments.size() * 4);
+        checkpoint.append(VERSION).append('|').append(scheduleHash).append('|').append(transactionsHash).append('|');
+
+        // installments not touched by any transaction yet are left off the end
+        int lastTouchedInstallment = -1;
+        final List<String> encodedInstallments = new ArrayList<String>(installments.size());
+        for (final LoanRepaymentScheduleInstallment installment : installments) {
+            final String encoded = encode(installment);
+            if (encoded.length() > 0) {
+                lastTouchedInstallment = encodedInstallments.size();
+            }
+            encodedInstallments.add(encoded);
+        }
+        for (int i = 0; i <= lastTouchedInstallment; i++) {
+            if (i > 0) {
+                checkpoint.append(';');
+            }
+            checkpoint.append(encodedInstallments.get(i));
+        }
+
+        checkpoint.append('|');
+        if (charges != null) {
+            boolean first = true;
+            for (final LoanCharge charge : charges) {
+                if (!charge.isDueAtDisbursement()) {
+                    if (!first) {
+                        checkpoint.append(';');
+                    }
+                    final BigDecimal[] paidAmounts = charge.getPaidAmounts();
+                    checkpoint.append(charge.getId()).append(':').append(plain(paidAmounts[0])).append(':').append(plain(paidAmounts[1]));
+                    first = false;
+                }
+            }
+        }
+
+        return checkpoint.toString();
+    }
+
+    /**
+     * Restores the installments and charges to the state recorded, expects
+     * the fee and penalty charges of the installments to have been derived
+     * from the charges already.
+     */
+    static void restore(final String checkpoint, final List<LoanRepaymentScheduleInstallment> installments, final Set<LoanCharge> charges) {
+
+        final String[] parts = checkpoint.split("\\|", -1);
+
+        final String[] encodedInstallments = parts[3].split(";", -1);
+        for (int i = 0; i < installments.size(); i++) {
+            final String encoded = i < encodedInstallments.length ? encodedInstallments[i] : "";
+            restore(installments.get(i), encoded);
+        }
+
+        if (charges != null) {
+            final Map<Long, String[]> paidAmountsByChargeId = new HashMap<Long, String[]>();
+            if (parts[4].length() > 0) {
+                for (final String encodedCharge : parts[4].split(";")) {
+                    final String[] fields = encodedCharge.split(":", -1);
+                    paidAmountsByChargeId.put(Long.valueOf(fields[0]), fields);
+                }
+            }
+
+            for (final LoanCharge charge : charges) {
+                final String[] fields = paidAmountsByChargeId.get(charge.getId());
+                if (!charge.isDueAtDisbursement() && fields != null) {
+                    charge.restorePaidAmounts(decimal(fields[1]), decimal(fields[2]));
+                }
+            }
+        }
+    }
+
+    private static String encode(final LoanRepaymentScheduleInstallment installment) {
+        final BigDecimal[] derived = installment.getDerivedComponents();
+        final boolean completed = installment.isFullyCompleted();
+
+        if (completed && isPaidAsDue(installment.getDueComponents(), derived)) { return PAID_AS_DUE; }
+
+        boolean untouched = !completed;
+        for (final BigDecimal component : derived) {
+            untouched = untouched && component == null;
+        }
+        if (untouched) { return ""; }
+
+        final StringBuilder encoded = new StringBuilder(completed ? "1" : "0");
+        for (final BigDecimal component : derived) {
+            encoded.append(',').append(plain(component));
+        }
+        return encoded.toString();
+    }
+
+    private static void restore(final LoanRepaymentScheduleInstallment installment, final String encoded) {
+        final BigDecimal[] derived = new BigDecimal[DERIVED_COMPONENTS];
+        boolean completed = false;
+
+        if (PAID_AS_DUE.equals(encoded)) {
+            final BigDecimal[] due = installment.getDueComponents();
+            derived[0] = due[0];
+            derived[2] = due[1];
+            derived[5] = due[2];
+            derived[8] = due[3];
+            completed = true;
+        } else if (encoded.length() > 0) {
+            final String[] fields = encoded.split(",", -1);
+            completed = "1".equals(fields[0]);
+            for (int i = 0; i < DERIVED_COMPONENTS; i++) {
+                derived[i] = decimal(fields[i + 1]);
+            }
+        }
+
+        installment.restoreDerivedComponents(derived, completed);
+    }
+
+    /*
+     * the common case of an installment paid in full with nothing waived or
+     * written off is recorded as a single character
+     */
+    private static boolean isPaidAsDue(final BigDecimal[] due, final BigDecimal[] derived) {
+        return sameAmount(derived[0], due[0]) && sameAmount(derived[2], due[1]) && sameAmount(derived[5], due[2])
+                && sameAmount(derived[8], due[3]) && derived[1] == null && derived[3] == null && derived[4] == null
+                && derived[6] == null && derived[7] == null && derived[9] == null && derived[10] == null;
+    }
+
+    private static boolean sameAmount(final BigDecimal derived, final BigDecimal due) {
+        if (derived == null || due == null) { return derived == due; }
+        return derived.compareTo(due) == 0;
+    }
+
+    private static String plain(final BigDecimal value) {
+        return value == null ? "" : value.toPlainString();
+    }
+
+    private static BigDecimal decimal(final String value) {
+        return value.length() == 0 ? null : new BigDecimal(value);
+    }
+
+    private static void putString(final Hasher hasher, final String value) {
+        hasher.putString(value).putChar(';');
+    }
+
+    private static void putDate(final Hasher hasher, final LocalDate date) {
+        putString(hasher, date == null ? "" : date.toString());
+    }
+
+    /*
+     * amounts loaded from the database have a different scale than amounts
+     * calculated, and zero is stored as null, so only the value is hashed
+     */
+    private static void putDecimal(final Hasher hasher, final BigDecimal value) {
+        if (value == null || value.signum() == 0) {
+            putString(hasher, "0");
+        } else {
+            putString(hasher, value.stripTrailingZeros().toPlainString());
+        }
+    }
+}
@@ -271,6 +271,41 @@ public final class LoanRepaymentScheduleInstallment extends AbstractAuditableCus
         this.completed = false;
     }
 
+    /**
+     * @return the principal, interest, fee charges and penalty charges due in
+     *         that order.
+     */
+    BigDecimal[] getDueComponents() {
+        return new BigDecimal[] { this.principal, this.interestCharged, this.feeChargesCharged, this.penaltyCharges };
+    }
+
+    /**
+     * @return the components derived from processing transactions in the
+     *         order taken by
+     *         {@link #restoreDerivedComponents(BigDecimal[], boolean)}.
+     */
+    BigDecimal[] getDerivedComponents() {
+        return new BigDecimal[] { this.principalCompleted, this.principalWrittenOff, this.interestPaid, this.interestWaived,
+                this.interestWrittenOff, this.feeChargesPaid, this.feeChargesWaived, this.feeChargesWrittenOff, this.penaltyChargesPaid,
+                this.penaltyChargesWaived, this.penaltyChargesWrittenOff };
+    }
+
+    void restoreDerivedComponents(final BigDecimal[] derivedComponents, final boolean completed) {
+        this.principalCompleted = derivedComponents[0];
+        this.principalWrittenOff = derivedComponents[1];
+        this.interestPaid = derivedComponents[2];
+        this.interestWaived = derivedComponents[3];
+        this.interestWrittenOff = derivedComponents[4];
+        this.feeChargesPaid = derivedComponents[5];
+        this.feeChargesWaived = derivedComponents[6];
+        this.feeChargesWrittenOff = derivedComponents[7];
+        this.penaltyChargesPaid = derivedComponents[8];
+        this.penaltyChargesWaived = derivedComponents[9];
+        this.penaltyChargesWrittenOff = derivedComponents[10];
+
+        this.completed = completed;
+    }
+
     public Money payPenaltyChargesComponent(final Money transactionAmountRemaining) {
 
         final MonetaryCurrency currency = transactionAmountRemaining.getCurrency();
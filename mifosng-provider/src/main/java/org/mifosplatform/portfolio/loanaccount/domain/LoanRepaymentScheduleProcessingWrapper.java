@@ -11,6 +11,7 @@ import java.util.Set;
 import org.joda.time.LocalDate;
 import org.mifosplatform.organisation.monetary.domain.MonetaryCurrency;
 import org.mifosplatform.organisation.monetary.domain.Money;
+import org.mifosplatform.organisation.monetary.domain.MoneyAccumulator;
 
 /**
  * A wrapper around loan schedule related data exposing needed behaviour by
@@ -49,84 +50,84 @@ public class LoanRepaymentScheduleProcessingWrapper {
     private Money cumulativeFeeChargesDueWithin(final LocalDate periodStart, final LocalDate periodEnd, final Set<LoanCharge> loanCharges,
             final MonetaryCurrency monetaryCurrency) {
 
-        Money cumulative = Money.zero(monetaryCurrency);
+        final MoneyAccumulator cumulative = new MoneyAccumulator(monetaryCurrency);
 
         for (LoanCharge loanCharge : loanCharges) {
             if (loanCharge.isDueForCollectionFromAndUpToAndIncluding(periodStart, periodEnd) && loanCharge.isFeeCharge()) {
-                cumulative = cumulative.plus(loanCharge.amount());
+                cumulative.plus(loanCharge.amount());
             }
         }
 
-        return cumulative;
+        return cumulative.toMoney();
     }
 
     private Money cumulativeFeeChargesWaivedWithin(final LocalDate periodStart, final LocalDate periodEnd,
             final Set<LoanCharge> loanCharges, final MonetaryCurrency currency) {
 
-        Money cumulative = Money.zero(currency);
+        final MoneyAccumulator cumulative = new MoneyAccumulator(currency);
 
         for (LoanCharge loanCharge : loanCharges) {
             if (loanCharge.isDueForCollectionFromAndUpToAndIncluding(periodStart, periodEnd) && loanCharge.isFeeCharge()) {
-                cumulative = cumulative.plus(loanCharge.getAmountWaived(currency));
+                cumulative.plus(loanCharge.getAmountWaived(currency));
             }
         }
 
-        return cumulative;
+        return cumulative.toMoney();
     }
 
     private Money cumulativeFeeChargesWrittenOffWithin(final LocalDate periodStart, final LocalDate periodEnd,
             final Set<LoanCharge> loanCharges, final MonetaryCurrency currency) {
 
-        Money cumulative = Money.zero(currency);
+        final MoneyAccumulator cumulative = new MoneyAccumulator(currency);
 
         for (LoanCharge loanCharge : loanCharges) {
             if (loanCharge.isDueForCollectionFromAndUpToAndIncluding(periodStart, periodEnd) && loanCharge.isFeeCharge()) {
-                cumulative = cumulative.plus(loanCharge.getAmountWrittenOff(currency));
+                cumulative.plus(loanCharge.getAmountWrittenOff(currency));
             }
         }
 
-        return cumulative;
+        return cumulative.toMoney();
     }
 
     private Money cumulativePenaltyChargesDueWithin(final LocalDate periodStart, final LocalDate periodEnd,
             final Set<LoanCharge> loanCharges, final MonetaryCurrency currency) {
 
-        Money cumulative = Money.zero(currency);
+        final MoneyAccumulator cumulative = new MoneyAccumulator(currency);
 
         for (LoanCharge loanCharge : loanCharges) {
             if (loanCharge.isDueForCollectionFromAndUpToAndIncluding(periodStart, periodEnd) && loanCharge.isPenaltyCharge()) {
-                cumulative = cumulative.plus(loanCharge.amount());
+                cumulative.plus(loanCharge.amount());
             }
         }
 
-        return cumulative;
+        return cumulative.toMoney();
     }
 
     private Money cumulativePenaltyChargesWaivedWithin(final LocalDate periodStart, final LocalDate periodEnd,
             final Set<LoanCharge> loanCharges, final MonetaryCurrency currency) {
 
-        Money cumulative = Money.zero(currency);
+        final MoneyAccumulator cumulative = new MoneyAccumulator(currency);
 
         for (LoanCharge loanCharge : loanCharges) {
             if (loanCharge.isDueForCollectionFromAndUpToAndIncluding(periodStart, periodEnd) && loanCharge.isPenaltyCharge()) {
-                cumulative = cumulative.plus(loanCharge.getAmountWaived(currency));
+                cumulative.plus(loanCharge.getAmountWaived(currency));
             }
         }
 
-        return cumulative;
+        return cumulative.toMoney();
     }
 
     private Money cumulativePenaltyChargesWrittenOffWithin(final LocalDate periodStart, final LocalDate periodEnd,
             final Set<LoanCharge> loanCharges, final MonetaryCurrency currency) {
 
-        Money cumulative = Money.zero(currency);
+        final MoneyAccumulator cumulative = new MoneyAccumulator(currency);
 
         for (LoanCharge loanCharge : loanCharges) {
             if (loanCharge.isDueForCollectionFromAndUpToAndIncluding(periodStart, periodEnd) && loanCharge.isPenaltyCharge()) {
-                cumulative = cumulative.plus(loanCharge.getAmountWrittenOff(currency));
+                cumulative.plus(loanCharge.getAmountWrittenOff(currency));
             }
         }
 
-        return cumulative;
+        return cumulative.toMoney();
     }
 }
\ No newline at end of file
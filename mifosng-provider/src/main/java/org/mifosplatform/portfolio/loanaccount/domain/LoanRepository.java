@@ -8,7 +8,6 @@ package org.mifosplatform.portfolio.loanaccount.domain;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 
-public interface LoanRepository extends JpaRepository<Loan, Long>,
-		JpaSpecificationExecutor<Loan> {
-	// no added behaviour
+public interface LoanRepository extends JpaRepository<Loan, Long>, JpaSpecificationExecutor<Loan>, LoanRepositoryCustom {
+    // no added behaviour
 }
\ No newline at end of file
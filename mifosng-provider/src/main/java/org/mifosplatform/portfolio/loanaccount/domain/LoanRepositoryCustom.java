@@ -0,0 +1,27 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.portfolio.loanaccount.domain;
+
+public interface LoanRepositoryCustom {
+
+    /**
+     * Loads the loan with the collections of the fetch plan initialised, one
+     * query per collection, so the loan can be used once the current
+     * transaction (if any) has ended.
+     *
+     * @return the loan, or <code>null</code> when there is no loan with the
+     *         id.
+     */
+    Loan findOneWithFetchPlan(Long loanId, LoanFetchPlan fetchPlan);
+
+    /**
+     * As {@link #findOneWithFetchPlan(Long, LoanFetchPlan)} but locks the loan
+     * row until the current transaction ends, for commands that change the
+     * loan. The lock keeps the loan and its arrears aging from being changed
+     * by the arrears aging recalculation at the same time.
+     */
+    Loan findOneForUpdateWithFetchPlan(Long loanId, LoanFetchPlan fetchPlan);
+}
@@ -0,0 +1,48 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.portfolio.loanaccount.domain;
+
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import javax.persistence.PersistenceContext;
+
+import org.hibernate.Hibernate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public class LoanRepositoryImpl implements LoanRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Transactional(readOnly = true)
+    @Override
+    public Loan findOneWithFetchPlan(final Long loanId, final LoanFetchPlan fetchPlan) {
+        return fetch(this.entityManager.find(Loan.class, loanId), fetchPlan);
+    }
+
+    @Transactional
+    @Override
+    public Loan findOneForUpdateWithFetchPlan(final Long loanId, final LoanFetchPlan fetchPlan) {
+        return fetch(this.entityManager.find(Loan.class, loanId, LockModeType.PESSIMISTIC_WRITE), fetchPlan);
+    }
+
+    /*
+     * the collections are initialised separately rather than join fetched as
+     * the schedule and transactions are both bags, which hibernate can not
+     * fetch in one query.
+     */
+    private static Loan fetch(final Loan loan, final LoanFetchPlan fetchPlan) {
+        if (loan != null) {
+            loan.markAsFetched(fetchPlan.associations());
+            for (final LoanFetchPlan.Association association : fetchPlan.associations()) {
+                Hibernate.initialize(loan.association(association));
+            }
+        }
+        return loan;
+    }
+}
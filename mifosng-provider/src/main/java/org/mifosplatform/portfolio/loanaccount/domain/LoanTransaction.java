@@ -64,6 +64,9 @@ public final class LoanTransaction extends AbstractPersistable<Long> {
     @Column(name = "is_reversed", nullable = false)
     private boolean reversed;
 
+    @Column(name = "replay_checkpoint", nullable = true)
+    private String replayCheckpoint;
+
     protected LoanTransaction() {
         this.loan = null;
         this.dateOf = null;
@@ -120,6 +123,17 @@ public final class LoanTransaction extends AbstractPersistable<Long> {
         this.loan = loan;
     }
 
+    /**
+     * @see LoanRepaymentScheduleCheckpoint
+     */
+    String getReplayCheckpoint() {
+        return this.replayCheckpoint;
+    }
+
+    void updateReplayCheckpoint(final String replayCheckpoint) {
+        this.replayCheckpoint = replayCheckpoint;
+    }
+
     /**
      * This updates the derived fields of a loan transaction for the principal,
      * interest and interest waived portions.
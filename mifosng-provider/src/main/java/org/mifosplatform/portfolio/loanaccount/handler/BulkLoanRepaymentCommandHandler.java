@@ -0,0 +1,43 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.portfolio.loanaccount.handler;
+
+import org.mifosplatform.commands.annotation.CommandType;
+import org.mifosplatform.commands.handler.ChunkedCommandSourceHandler;
+import org.mifosplatform.infrastructure.core.api.JsonCommand;
+import org.mifosplatform.infrastructure.core.data.CommandProcessingResult;
+import org.mifosplatform.portfolio.loanaccount.service.LoanBulkRepaymentWritePlatformService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * The repayments are applied in chunks that each commit on their own, so the
+ * command is processed outside of a transaction and logged once all chunks
+ * have run.
+ */
+@Service
+@CommandType(entity = "LOAN", action = "BULKREPAYMENT")
+public class BulkLoanRepaymentCommandHandler implements ChunkedCommandSourceHandler {
+
+    private final LoanBulkRepaymentWritePlatformService writePlatformService;
+
+    @Autowired
+    public BulkLoanRepaymentCommandHandler(final LoanBulkRepaymentWritePlatformService writePlatformService) {
+        this.writePlatformService = writePlatformService;
+    }
+
+    @Override
+    public CommandProcessingResult processCommand(final JsonCommand command) {
+
+        return this.writePlatformService.makeBulkLoanRepayment(command);
+    }
+
+    @Override
+    public CommandProcessingResult validateCommand(final JsonCommand command) {
+
+        return this.writePlatformService.validateBulkLoanRepayment(command);
+    }
+}
@@ -5,28 +5,39 @@
  */
 package org.mifosplatform.portfolio.loanaccount.handler;
 
-import org.mifosplatform.commands.handler.NewCommandSourceHandler;
+import org.mifosplatform.commands.annotation.CommandType;
+import org.mifosplatform.commands.handler.ChunkedCommandSourceHandler;
 import org.mifosplatform.infrastructure.core.api.JsonCommand;
 import org.mifosplatform.infrastructure.core.data.CommandProcessingResult;
-import org.mifosplatform.portfolio.loanaccount.service.LoanWritePlatformService;
+import org.mifosplatform.portfolio.loanaccount.service.LoanBulkReassignmentWritePlatformService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
+/**
+ * The loans are reassigned in chunks that each commit on their own, so the
+ * command is processed outside of a transaction and logged once all chunks
+ * have run.
+ */
 @Service
-public class BulkUpdateLoanOfficerCommandHandler implements NewCommandSourceHandler {
+@CommandType(entity = "LOAN", action = "BULKREASSIGN")
+public class BulkUpdateLoanOfficerCommandHandler implements ChunkedCommandSourceHandler {
 
-    private final LoanWritePlatformService writePlatformService;
+    private final LoanBulkReassignmentWritePlatformService writePlatformService;
 
     @Autowired
-    public BulkUpdateLoanOfficerCommandHandler(final LoanWritePlatformService writePlatformService) {
+    public BulkUpdateLoanOfficerCommandHandler(final LoanBulkReassignmentWritePlatformService writePlatformService) {
         this.writePlatformService = writePlatformService;
     }
 
-    @Transactional
     @Override
     public CommandProcessingResult processCommand(final JsonCommand command) {
 
         return this.writePlatformService.bulkLoanReassignment(command);
     }
+
+    @Override
+    public CommandProcessingResult validateCommand(final JsonCommand command) {
+
+        return this.writePlatformService.validateBulkLoanReassignment(command);
+    }
 }
\ No newline at end of file
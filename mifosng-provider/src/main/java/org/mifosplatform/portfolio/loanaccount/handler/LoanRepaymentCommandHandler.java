@@ -5,7 +5,8 @@
  */
 package org.mifosplatform.portfolio.loanaccount.handler;
 
-import org.mifosplatform.commands.handler.NewCommandSourceHandler;
+import org.mifosplatform.commands.annotation.CommandType;
+import org.mifosplatform.commands.handler.ValidatingCommandSourceHandler;
 import org.mifosplatform.infrastructure.core.api.JsonCommand;
 import org.mifosplatform.infrastructure.core.data.CommandProcessingResult;
 import org.mifosplatform.portfolio.loanaccount.service.LoanWritePlatformService;
@@ -14,7 +15,8 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 @Service
-public class LoanRepaymentCommandHandler implements NewCommandSourceHandler {
+@CommandType(entity = "LOAN", action = "REPAYMENT")
+public class LoanRepaymentCommandHandler implements ValidatingCommandSourceHandler {
 
     private final LoanWritePlatformService writePlatformService;
 
@@ -29,4 +31,10 @@ public class LoanRepaymentCommandHandler implements NewCommandSourceHandler {
 
         return this.writePlatformService.makeLoanRepayment(command.getLoanId(), command);
     }
-}
\ No newline at end of file
+
+    @Override
+    public CommandProcessingResult validateCommand(final JsonCommand command) {
+
+        return this.writePlatformService.validateLoanRepayment(command.getLoanId(), command);
+    }
+}
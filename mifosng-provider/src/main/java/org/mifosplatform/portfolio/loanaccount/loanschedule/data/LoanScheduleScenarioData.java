@@ -0,0 +1,34 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.portfolio.loanaccount.loanschedule.data;
+
+import java.math.BigDecimal;
+
+/**
+ * Immutable data object representing the schedule calculated for one of the
+ * scenarios of a multi-scenario schedule calculation, along with the terms
+ * the scenario was calculated with.
+ */
+@SuppressWarnings("unused")
+public class LoanScheduleScenarioData {
+
+    private final Integer scenario;
+    private final BigDecimal principal;
+    private final Integer loanTermFrequency;
+    private final Integer numberOfRepayments;
+    private final BigDecimal interestRatePerPeriod;
+    private final LoanScheduleData repaymentSchedule;
+
+    public LoanScheduleScenarioData(final Integer scenario, final BigDecimal principal, final Integer loanTermFrequency,
+            final Integer numberOfRepayments, final BigDecimal interestRatePerPeriod, final LoanScheduleData repaymentSchedule) {
+        this.scenario = scenario;
+        this.principal = principal;
+        this.loanTermFrequency = loanTermFrequency;
+        this.numberOfRepayments = numberOfRepayments;
+        this.interestRatePerPeriod = interestRatePerPeriod;
+        this.repaymentSchedule = repaymentSchedule;
+    }
+}
@@ -6,10 +6,12 @@
 package org.mifosplatform.portfolio.loanaccount.loanschedule.service;
 
 import java.math.BigDecimal;
+import java.util.Locale;
 import java.util.Set;
 
 import org.joda.time.LocalDate;
 import org.mifosplatform.infrastructure.core.serialization.FromJsonHelper;
+import org.mifosplatform.infrastructure.core.service.DateUtils;
 import org.mifosplatform.organisation.monetary.domain.ApplicationCurrency;
 import org.mifosplatform.organisation.monetary.domain.ApplicationCurrencyRepository;
 import org.mifosplatform.organisation.monetary.domain.MonetaryCurrency;
@@ -29,11 +31,17 @@ import org.mifosplatform.portfolio.loanproduct.exception.LoanProductNotFoundExce
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
 
 @Service
 public class LoanScheduleAssembler {
 
+    private static final String[] SCHEDULE_INTEGER_PARAMETERS = { "interestRateFrequencyType", "interestType",
+            "interestCalculationPeriodType", "repaymentEvery", "repaymentFrequencyType", "numberOfRepayments", "amortizationType",
+            "loanTermFrequency", "loanTermFrequencyType" };
+
     private final FromJsonHelper fromApiJsonHelper;
     private final LoanProductRepository loanProductRepository;
     private final ApplicationCurrencyRepository applicationCurrencyRepository;
@@ -71,6 +79,75 @@ public class LoanScheduleAssembler {
         final MonetaryCurrency currency = loanProduct.getCurrency();
         final ApplicationCurrency applicationCurrency = this.applicationCurrencyRepository.findOneByCode(currency.getCode());
 
+        return assemble(element, applicationCurrency, inArrearsTolerance);
+    }
+
+    /**
+     * Assembles the schedule in the currency given, already resolved from the
+     * loan product of the <code>productId</code> parameter.
+     */
+    public LoanSchedule fromJsonInCurrency(final JsonElement element, final ApplicationCurrency applicationCurrency) {
+        return assemble(element, applicationCurrency, null);
+    }
+
+    /**
+     * Normalizes the parameters that determine the generated schedule so
+     * requests that differ only in formatting, locale or unrelated parameters
+     * share a key. The date the schedule is generated on is part of the key as
+     * it determines which periods are overdue.
+     * 
+     * @return the key or <code>null</code> when the schedule depends on
+     *         existing loan charges and so must not be cached.
+     */
+    public String scheduleKeyFromJson(final JsonElement element) {
+        final StringBuilder key = new StringBuilder(256);
+
+        appendKeyPart(key, DateUtils.getLocalDateOfTenant());
+        appendKeyPart(key, fromApiJsonHelper.extractLongNamed("productId", element));
+        appendKeyPart(key, fromApiJsonHelper.extractBigDecimalWithLocaleNamed("principal", element));
+        appendKeyPart(key, fromApiJsonHelper.extractBigDecimalWithLocaleNamed("interestRatePerPeriod", element));
+        for (final String parameterName : SCHEDULE_INTEGER_PARAMETERS) {
+            appendKeyPart(key, fromApiJsonHelper.extractIntegerWithLocaleNamed(parameterName, element));
+        }
+        appendKeyPart(key, fromApiJsonHelper.extractLocalDateNamed("expectedDisbursementDate", element));
+        appendKeyPart(key, fromApiJsonHelper.extractLocalDateNamed("repaymentsStartingFromDate", element));
+        appendKeyPart(key, fromApiJsonHelper.extractLocalDateNamed("interestChargedFromDate", element));
+
+        if (element.isJsonObject() && element.getAsJsonObject().has("charges") && element.getAsJsonObject().get("charges").isJsonArray()) {
+            final JsonObject topLevelJsonElement = element.getAsJsonObject();
+            final String dateFormat = fromApiJsonHelper.extractDateFormatParameter(topLevelJsonElement);
+            final Locale locale = fromApiJsonHelper.extractLocaleParameter(topLevelJsonElement);
+
+            final JsonArray array = topLevelJsonElement.get("charges").getAsJsonArray();
+            for (int i = 0; i < array.size(); i++) {
+                final JsonObject loanChargeElement = array.get(i).getAsJsonObject();
+                if (fromApiJsonHelper.extractLongNamed("id", loanChargeElement) != null) { return null; }
+
+                key.append('[');
+                appendKeyPart(key, fromApiJsonHelper.extractLongNamed("chargeId", loanChargeElement));
+                appendKeyPart(key, fromApiJsonHelper.extractBigDecimalNamed("amount", loanChargeElement, locale));
+                appendKeyPart(key, fromApiJsonHelper.extractIntegerNamed("chargeTimeType", loanChargeElement, locale));
+                appendKeyPart(key, fromApiJsonHelper.extractIntegerNamed("chargeCalculationType", loanChargeElement, locale));
+                appendKeyPart(key, fromApiJsonHelper.extractLocalDateNamed("dueDate", loanChargeElement, dateFormat, locale));
+                key.append(']');
+            }
+        }
+
+        return key.toString();
+    }
+
+    private void appendKeyPart(final StringBuilder key, final Object value) {
+        if (value instanceof BigDecimal) {
+            // 1000 and 1000.00 give the same schedule
+            key.append(((BigDecimal) value).stripTrailingZeros().toPlainString());
+        } else {
+            key.append(value);
+        }
+        key.append('|');
+    }
+
+    private LoanSchedule assemble(final JsonElement element, final ApplicationCurrency applicationCurrency,
+            final BigDecimal inArrearsTolerance) {
         final BigDecimal principal = fromApiJsonHelper.extractBigDecimalWithLocaleNamed("principal", element);
         final BigDecimal interestRatePerPeriod = fromApiJsonHelper.extractBigDecimalWithLocaleNamed("interestRatePerPeriod", element);
         final Integer interestRateFrequencyType = fromApiJsonHelper.extractIntegerWithLocaleNamed("interestRateFrequencyType", element);
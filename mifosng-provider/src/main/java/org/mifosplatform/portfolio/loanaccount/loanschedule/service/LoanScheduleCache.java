@@ -0,0 +1,39 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.portfolio.loanaccount.loanschedule.service;
+
+import org.mifosplatform.organisation.monetary.domain.ApplicationCurrency;
+import org.mifosplatform.portfolio.loanaccount.loanschedule.data.LoanScheduleData;
+
+/**
+ * Caches generated loan schedules and the reference data needed to generate
+ * them for the schedule previews of the current tenant.
+ */
+public interface LoanScheduleCache {
+
+    /**
+     * @return the schedule cached for the normalized schedule inputs given or
+     *         <code>null</code> when there is none.
+     */
+    LoanScheduleData retrieveSchedule(String scheduleKey);
+
+    void cacheSchedule(String scheduleKey, LoanScheduleData loanSchedule);
+
+    /**
+     * @return a read-only copy of the currency of the loan product.
+     */
+    ApplicationCurrency retrieveCurrencyOfLoanProduct(Long loanProductId);
+
+    /**
+     * Drops the cached currency of the loan product and all cached schedules.
+     */
+    void invalidateLoanProduct(Long loanProductId);
+
+    /**
+     * Drops all cached schedules, used when a charge definition changes.
+     */
+    void invalidateSchedules();
+}
@@ -5,10 +5,26 @@
  */
 package org.mifosplatform.portfolio.loanaccount.loanschedule.service;
 
+import java.util.List;
+
 import org.mifosplatform.infrastructure.core.api.JsonQuery;
 import org.mifosplatform.portfolio.loanaccount.loanschedule.data.LoanScheduleData;
+import org.mifosplatform.portfolio.loanaccount.loanschedule.data.LoanScheduleScenarioData;
 
 public interface LoanScheduleCalculationPlatformService {
 
     LoanScheduleData calculateLoanSchedule(JsonQuery query);
+
+    /**
+     * Same as {@link #calculateLoanSchedule(JsonQuery)} but answered from the
+     * cache of previously generated schedules where possible. Used for
+     * previews only, never for a schedule that is saved.
+     */
+    LoanScheduleData previewLoanSchedule(JsonQuery query);
+
+    /**
+     * Previews the schedule of each of the <code>scenarios</code> of the query,
+     * each overriding some of the terms of the rest of the query, in parallel.
+     */
+    List<LoanScheduleScenarioData> previewLoanScheduleScenarios(JsonQuery query);
 }
@@ -5,28 +5,83 @@
  */
 package org.mifosplatform.portfolio.loanaccount.loanschedule.service;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
 import org.mifosplatform.infrastructure.core.api.JsonQuery;
+import org.mifosplatform.infrastructure.core.domain.MifosPlatformTenant;
+import org.mifosplatform.infrastructure.core.exception.PlatformInternalServerException;
+import org.mifosplatform.infrastructure.core.serialization.FromJsonHelper;
+import org.mifosplatform.infrastructure.core.service.NamedDaemonThreadFactory;
+import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
 import org.mifosplatform.infrastructure.security.service.PlatformSecurityContext;
+import org.mifosplatform.organisation.monetary.domain.ApplicationCurrency;
 import org.mifosplatform.portfolio.loanaccount.loanschedule.data.LoanScheduleData;
+import org.mifosplatform.portfolio.loanaccount.loanschedule.data.LoanScheduleScenarioData;
 import org.mifosplatform.portfolio.loanaccount.loanschedule.domain.LoanSchedule;
 import org.mifosplatform.portfolio.loanaccount.serialization.CalculateLoanScheduleQueryFromApiJsonHelper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+/**
+ * Calculates loan schedules.
+ * 
+ * Previews are memoized in the {@link LoanScheduleCache} of the tenant, keyed
+ * by the normalized schedule inputs. The scenarios of a multi-scenario preview
+ * are calculated on a pool of <code>mifosx.loan.scheduleScenarioThreads</code>
+ * (default 4) threads shared by all requests, at most
+ * <code>mifosx.loan.maxScheduleScenarios</code> (default 20) per request.
+ */
 @Service
 public class LoanScheduleCalculationPlatformServiceImpl implements LoanScheduleCalculationPlatformService {
 
+    private static final String SCENARIOS_PARAMETER_NAME = "scenarios";
+
     private final PlatformSecurityContext context;
     private final CalculateLoanScheduleQueryFromApiJsonHelper fromApiJsonDeserializer;
     private final LoanScheduleAssembler loanScheduleAssembler;
+    private final LoanScheduleCache loanScheduleCache;
+    private final FromJsonHelper fromApiJsonHelper;
+    private final int scenarioThreads;
+    private final int maximumNumberOfScenarios;
+
+    private ExecutorService scenarioExecutor;
 
     @Autowired
     public LoanScheduleCalculationPlatformServiceImpl(final PlatformSecurityContext context,
             final CalculateLoanScheduleQueryFromApiJsonHelper fromApiJsonDeserializer,
-            final LoanScheduleAssembler loanScheduleAssembler) {
+            final LoanScheduleAssembler loanScheduleAssembler, final LoanScheduleCache loanScheduleCache,
+            final FromJsonHelper fromApiJsonHelper) {
         this.context = context;
         this.fromApiJsonDeserializer = fromApiJsonDeserializer;
         this.loanScheduleAssembler = loanScheduleAssembler;
+        this.loanScheduleCache = loanScheduleCache;
+        this.fromApiJsonHelper = fromApiJsonHelper;
+        this.scenarioThreads = Integer.getInteger("mifosx.loan.scheduleScenarioThreads", 4);
+        this.maximumNumberOfScenarios = Integer.getInteger("mifosx.loan.maxScheduleScenarios", 20);
+    }
+
+    @PostConstruct
+    public void startScenarioExecutor() {
+        this.scenarioExecutor = Executors.newFixedThreadPool(this.scenarioThreads, new NamedDaemonThreadFactory("loan-schedule-scenario"));
+    }
+
+    @PreDestroy
+    public void stopScenarioExecutor() {
+        this.scenarioExecutor.shutdownNow();
     }
 
     @Override
@@ -38,4 +93,116 @@ public class LoanScheduleCalculationPlatformServiceImpl implements LoanScheduleC
         final LoanSchedule loanSchedule = this.loanScheduleAssembler.fromJson(query.parsedJson());
         return loanSchedule.generate();
     }
-}
\ No newline at end of file
+
+    @Override
+    public LoanScheduleData previewLoanSchedule(final JsonQuery query) {
+        context.authenticatedUser();
+
+        this.fromApiJsonDeserializer.validate(query.json());
+
+        return previewLoanSchedule(query.parsedJson());
+    }
+
+    @Override
+    public List<LoanScheduleScenarioData> previewLoanScheduleScenarios(final JsonQuery query) {
+        context.authenticatedUser();
+
+        this.fromApiJsonDeserializer.validateScenarios(query.json(), this.maximumNumberOfScenarios);
+
+        // every scenario is validated before any is calculated
+        final List<JsonElement> scenarioQueries = scenarioQueriesFrom(query.parsedJson().getAsJsonObject());
+        for (final JsonElement scenarioQuery : scenarioQueries) {
+            this.fromApiJsonDeserializer.validate(this.fromApiJsonHelper.toJson(scenarioQuery));
+        }
+
+        final MifosPlatformTenant tenant = ThreadLocalContextUtil.getTenant();
+        final List<Future<LoanScheduleData>> schedules = new ArrayList<Future<LoanScheduleData>>(scenarioQueries.size());
+        for (final JsonElement scenarioQuery : scenarioQueries) {
+            schedules.add(this.scenarioExecutor.submit(new Callable<LoanScheduleData>() {
+
+                @Override
+                public LoanScheduleData call() {
+                    try {
+                        ThreadLocalContextUtil.setTenant(tenant);
+                        return previewLoanSchedule(scenarioQuery);
+                    } finally {
+                        ThreadLocalContextUtil.clearTenant();
+                    }
+                }
+            }));
+        }
+
+        final List<LoanScheduleScenarioData> scenarios = new ArrayList<LoanScheduleScenarioData>(scenarioQueries.size());
+        try {
+            for (int i = 0; i < scenarioQueries.size(); i++) {
+                final JsonElement scenarioQuery = scenarioQueries.get(i);
+                final LoanScheduleData repaymentSchedule = schedules.get(i).get();
+
+                scenarios.add(new LoanScheduleScenarioData(i + 1, this.fromApiJsonHelper.extractBigDecimalWithLocaleNamed("principal",
+                        scenarioQuery), this.fromApiJsonHelper.extractIntegerWithLocaleNamed("loanTermFrequency", scenarioQuery),
+                        this.fromApiJsonHelper.extractIntegerWithLocaleNamed("numberOfRepayments", scenarioQuery),
+                        this.fromApiJsonHelper.extractBigDecimalWithLocaleNamed("interestRatePerPeriod", scenarioQuery), repaymentSchedule));
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PlatformInternalServerException("error.msg.loan.schedule.scenarios.interrupted",
+                    "Calculation of loan schedule scenarios was interrupted.");
+        } catch (final ExecutionException e) {
+            // rethrown as is so it is reported like for a single schedule
+            if (e.getCause() instanceof RuntimeException) { throw (RuntimeException) e.getCause(); }
+            throw new PlatformInternalServerException("error.msg.loan.schedule.scenarios.failed",
+                    "Calculation of loan schedule scenarios failed: " + e.getCause().getMessage());
+        } finally {
+            for (final Future<LoanScheduleData> schedule : schedules) {
+                schedule.cancel(true);
+            }
+        }
+
+        return scenarios;
+    }
+
+    private LoanScheduleData previewLoanSchedule(final JsonElement element) {
+        final String scheduleKey = this.loanScheduleAssembler.scheduleKeyFromJson(element);
+        if (scheduleKey != null) {
+            final LoanScheduleData cachedSchedule = this.loanScheduleCache.retrieveSchedule(scheduleKey);
+            if (cachedSchedule != null) { return cachedSchedule; }
+        }
+
+        final Long loanProductId = this.fromApiJsonHelper.extractLongNamed("productId", element);
+        final ApplicationCurrency currency = this.loanScheduleCache.retrieveCurrencyOfLoanProduct(loanProductId);
+
+        final LoanScheduleData loanSchedule = this.loanScheduleAssembler.fromJsonInCurrency(element, currency).generate();
+        if (scheduleKey != null) {
+            this.loanScheduleCache.cacheSchedule(scheduleKey, loanSchedule);
+        }
+
+        return loanSchedule;
+    }
+
+    /**
+     * @return a copy of the query for each scenario, with the terms the
+     *         scenario gives in place of those of the query.
+     */
+    private List<JsonElement> scenarioQueriesFrom(final JsonObject query) {
+        final JsonObject baseQuery = new JsonObject();
+        for (final Map.Entry<String, JsonElement> parameter : query.entrySet()) {
+            if (!SCENARIOS_PARAMETER_NAME.equals(parameter.getKey())) {
+                baseQuery.add(parameter.getKey(), parameter.getValue());
+            }
+        }
+
+        final JsonArray scenarios = query.getAsJsonArray(SCENARIOS_PARAMETER_NAME);
+        final List<JsonElement> scenarioQueries = new ArrayList<JsonElement>(scenarios.size());
+        for (final JsonElement scenario : scenarios) {
+            final JsonObject scenarioQuery = new JsonObject();
+            for (final Map.Entry<String, JsonElement> parameter : baseQuery.entrySet()) {
+                scenarioQuery.add(parameter.getKey(), parameter.getValue());
+            }
+            for (final Map.Entry<String, JsonElement> term : scenario.getAsJsonObject().entrySet()) {
+                scenarioQuery.add(term.getKey(), term.getValue());
+            }
+            scenarioQueries.add(scenarioQuery);
+        }
+        return scenarioQueries;
+    }
+}
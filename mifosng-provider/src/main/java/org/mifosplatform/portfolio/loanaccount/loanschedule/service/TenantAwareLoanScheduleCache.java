@@ -0,0 +1,164 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.portfolio.loanaccount.loanschedule.service;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import org.mifosplatform.infrastructure.core.domain.MifosPlatformTenant;
+import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
+import org.mifosplatform.organisation.monetary.domain.ApplicationCurrency;
+import org.mifosplatform.organisation.monetary.domain.ApplicationCurrencyRepository;
+import org.mifosplatform.organisation.monetary.exception.CurrencyNotFoundException;
+import org.mifosplatform.portfolio.loanaccount.loanschedule.data.LoanScheduleData;
+import org.mifosplatform.portfolio.loanproduct.domain.LoanProduct;
+import org.mifosplatform.portfolio.loanproduct.domain.LoanProductRepository;
+import org.mifosplatform.portfolio.loanproduct.exception.LoanProductNotFoundException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Keeps one bounded cache of generated schedules per tenant along with the
+ * currency of each loan product and copies of the currencies themselves.
+ *
+ * Each tenant holds at most <code>mifosx.loan.scheduleCacheSize</code>
+ * (default 1000) schedules. All entries expire after
+ * <code>mifosx.loan.scheduleCacheTtlSeconds</code> (default 600) as a safety
+ * net for changes made outside of the loan product and charge commands (which
+ * evict explicitly); currencies have no update command of their own.
+ */
+@Service
+public class TenantAwareLoanScheduleCache implements LoanScheduleCache {
+
+    private final LoanProductRepository loanProductRepository;
+    private final ApplicationCurrencyRepository applicationCurrencyRepository;
+    private final ConcurrentMap<Long, TenantCaches> cachesByTenant = new ConcurrentHashMap<Long, TenantCaches>();
+    private final long maximumSchedulesPerTenant;
+    private final long ttlSeconds;
+
+    @Autowired
+    public TenantAwareLoanScheduleCache(final LoanProductRepository loanProductRepository,
+            final ApplicationCurrencyRepository applicationCurrencyRepository) {
+        this.loanProductRepository = loanProductRepository;
+        this.applicationCurrencyRepository = applicationCurrencyRepository;
+        this.maximumSchedulesPerTenant = Long.getLong("mifosx.loan.scheduleCacheSize", 1000);
+        this.ttlSeconds = Long.getLong("mifosx.loan.scheduleCacheTtlSeconds", 600);
+    }
+
+    @Override
+    public LoanScheduleData retrieveSchedule(final String scheduleKey) {
+        return cachesForCurrentTenant().schedules.getIfPresent(scheduleKey);
+    }
+
+    @Override
+    public void cacheSchedule(final String scheduleKey, final LoanScheduleData loanSchedule) {
+        cachesForCurrentTenant().schedules.put(scheduleKey, loanSchedule);
+    }
+
+    @Override
+    public ApplicationCurrency retrieveCurrencyOfLoanProduct(final Long loanProductId) {
+        final TenantCaches caches = cachesForCurrentTenant();
+
+        String currencyCode = caches.currencyCodeByLoanProduct.getIfPresent(loanProductId);
+        if (currencyCode == null) {
+            final LoanProduct loanProduct = this.loanProductRepository.findOne(loanProductId);
+            if (loanProduct == null) { throw new LoanProductNotFoundException(loanProductId); }
+
+            currencyCode = loanProduct.getCurrency().getCode();
+            caches.currencyCodeByLoanProduct.put(loanProductId, currencyCode);
+        }
+
+        ApplicationCurrency currency = caches.currencies.getIfPresent(currencyCode);
+        if (currency == null) {
+            final ApplicationCurrency storedCurrency = this.applicationCurrencyRepository.findOneByCode(currencyCode);
+            if (storedCurrency == null) { throw new CurrencyNotFoundException(currencyCode); }
+
+            // a detached copy so the cached currency is never tied to a session
+            currency = new ApplicationCurrency(storedCurrency.getCode(), storedCurrency.getName(), storedCurrency.getDecimalPlaces(),
+                    storedCurrency.getNameCode(), storedCurrency.getDisplaySymbol());
+            caches.currencies.put(currencyCode, currency);
+        }
+
+        return currency;
+    }
+
+    @Override
+    public void invalidateLoanProduct(final Long loanProductId) {
+        final TenantCaches caches = cachesForCurrentTenant();
+        evictNowAndAfterCommit(new Runnable() {
+
+            @Override
+            public void run() {
+                caches.currencyCodeByLoanProduct.invalidate(loanProductId);
+                caches.schedules.invalidateAll();
+            }
+        });
+    }
+
+    @Override
+    public void invalidateSchedules() {
+        final TenantCaches caches = cachesForCurrentTenant();
+        evictNowAndAfterCommit(new Runnable() {
+
+            @Override
+            public void run() {
+                caches.schedules.invalidateAll();
+            }
+        });
+    }
+
+    /*
+     * evicting before commit would let a concurrent preview reload and cache
+     * the old state, so eviction is repeated once the changes are visible.
+     */
+    private void evictNowAndAfterCommit(final Runnable eviction) {
+        eviction.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+
+                @Override
+                public void afterCommit() {
+                    eviction.run();
+                }
+            });
+        }
+    }
+
+    private TenantCaches cachesForCurrentTenant() {
+        final MifosPlatformTenant tenant = ThreadLocalContextUtil.getTenant();
+
+        TenantCaches caches = this.cachesByTenant.get(tenant.getId());
+        if (caches == null) {
+            final TenantCaches newCaches = new TenantCaches(this.maximumSchedulesPerTenant, this.ttlSeconds);
+            caches = this.cachesByTenant.putIfAbsent(tenant.getId(), newCaches);
+            if (caches == null) {
+                caches = newCaches;
+            }
+        }
+
+        return caches;
+    }
+
+    private static final class TenantCaches {
+
+        private final Cache<String, LoanScheduleData> schedules;
+        private final Cache<Long, String> currencyCodeByLoanProduct;
+        private final Cache<String, ApplicationCurrency> currencies;
+
+        TenantCaches(final long maximumSchedules, final long ttlSeconds) {
+            this.schedules = CacheBuilder.newBuilder().maximumSize(maximumSchedules).expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                    .build();
+            this.currencyCodeByLoanProduct = CacheBuilder.newBuilder().expireAfterWrite(ttlSeconds, TimeUnit.SECONDS).build();
+            this.currencies = CacheBuilder.newBuilder().expireAfterWrite(ttlSeconds, TimeUnit.SECONDS).build();
+        }
+    }
+}
@@ -43,6 +43,13 @@ public final class CalculateLoanScheduleQueryFromApiJsonHelper {
             "expectedDisbursementDate", "repaymentsStartingFromDate", "interestChargedFromDate", "submittedOnDate", "submittedOnNote",
             "locale", "dateFormat", "charges", "collateral"));
 
+    /**
+     * The parameters each scenario of a multi-scenario calculation may
+     * override.
+     */
+    final Set<String> supportedScenarioParameters = new HashSet<String>(Arrays.asList("principal", "loanTermFrequency",
+            "numberOfRepayments", "interestRatePerPeriod"));
+
     private final FromJsonHelper fromApiJsonHelper;
 
     @Autowired
@@ -188,6 +195,60 @@ public final class CalculateLoanScheduleQueryFromApiJsonHelper {
                 "Validation errors exist.", dataValidationErrors); }
     }
 
+    /**
+     * Validates the <code>scenarios</code> array of a multi-scenario
+     * calculation. The rest of the query, with each scenario applied, is
+     * validated through {@link #validate(String)}.
+     */
+    public void validateScenarios(final String json, final int maximumNumberOfScenarios) {
+        if (StringUtils.isBlank(json)) { throw new InvalidJsonException(); }
+
+        final List<ApiParameterError> dataValidationErrors = new ArrayList<ApiParameterError>();
+        final DataValidatorBuilder baseDataValidator = new DataValidatorBuilder(dataValidationErrors).resource("loan");
+
+        final JsonElement element = fromApiJsonHelper.parse(json);
+        final String scenariosParameterName = "scenarios";
+        if (!element.isJsonObject() || !element.getAsJsonObject().has(scenariosParameterName)) {
+            baseDataValidator.reset().parameter(scenariosParameterName).value(null).notNull();
+        } else if (!element.getAsJsonObject().get(scenariosParameterName).isJsonArray()) {
+            baseDataValidator.reset().parameter(scenariosParameterName).expectedArrayButIsNot();
+        } else {
+            final JsonObject topLevelJsonElement = element.getAsJsonObject();
+            final Locale locale = fromApiJsonHelper.extractLocaleParameter(topLevelJsonElement);
+            final Type arrayObjectParameterTypeOfMap = new TypeToken<Map<String, Object>>() {}.getType();
+
+            final JsonArray array = topLevelJsonElement.get(scenariosParameterName).getAsJsonArray();
+            baseDataValidator.reset().parameter(scenariosParameterName).value(array.size()).inMinMaxRange(1, maximumNumberOfScenarios);
+
+            for (int i = 1; i <= array.size(); i++) {
+                final JsonObject scenarioElement = array.get(i - 1).getAsJsonObject();
+                final String arrayObjectJson = this.fromApiJsonHelper.toJson(scenarioElement);
+                fromApiJsonHelper.checkForUnsupportedParameters(arrayObjectParameterTypeOfMap, arrayObjectJson,
+                        supportedScenarioParameters);
+
+                final BigDecimal principal = fromApiJsonHelper.extractBigDecimalNamed("principal", scenarioElement, locale);
+                baseDataValidator.reset().parameter(scenariosParameterName).parameterAtIndexArray("principal", i).value(principal)
+                        .ignoreIfNull().positiveAmount();
+
+                final Integer loanTermFrequency = fromApiJsonHelper.extractIntegerNamed("loanTermFrequency", scenarioElement, locale);
+                baseDataValidator.reset().parameter(scenariosParameterName).parameterAtIndexArray("loanTermFrequency", i)
+                        .value(loanTermFrequency).ignoreIfNull().integerGreaterThanZero();
+
+                final Integer numberOfRepayments = fromApiJsonHelper.extractIntegerNamed("numberOfRepayments", scenarioElement, locale);
+                baseDataValidator.reset().parameter(scenariosParameterName).parameterAtIndexArray("numberOfRepayments", i)
+                        .value(numberOfRepayments).ignoreIfNull().integerGreaterThanZero();
+
+                final BigDecimal interestRatePerPeriod = fromApiJsonHelper.extractBigDecimalNamed("interestRatePerPeriod",
+                        scenarioElement, locale);
+                baseDataValidator.reset().parameter(scenariosParameterName).parameterAtIndexArray("interestRatePerPeriod", i)
+                        .value(interestRatePerPeriod).ignoreIfNull().positiveAmount();
+            }
+        }
+
+        if (!dataValidationErrors.isEmpty()) { throw new PlatformApiDataValidationException("validation.msg.validation.errors.exist",
+                "Validation errors exist.", dataValidationErrors); }
+    }
+
     private void validateSelectedPeriodFrequencyTypeIsTheSame(final List<ApiParameterError> dataValidationErrors,
             final Integer loanTermFrequency, final Integer loanTermFrequencyType, final Integer numberOfRepayments,
             final Integer repaymentEvery, final Integer repaymentEveryType) {
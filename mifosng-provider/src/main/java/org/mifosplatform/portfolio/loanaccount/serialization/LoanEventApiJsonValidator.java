@@ -11,6 +11,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 
@@ -24,6 +25,7 @@ import org.mifosplatform.infrastructure.core.serialization.FromJsonHelper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.reflect.TypeToken;
 
@@ -91,6 +93,66 @@ public final class LoanEventApiJsonValidator {
         throwExceptionIfValidationWarningsExist(dataValidationErrors);
     }
 
+    public void validateBulkRepayment(final String json) {
+
+        if (StringUtils.isBlank(json)) { throw new InvalidJsonException(); }
+
+        final Set<String> bulkRepaymentParameters = new HashSet<String>(Arrays.asList("transactionDate", "repayments", "locale",
+                "dateFormat"));
+
+        final Type typeOfMap = new TypeToken<Map<String, Object>>() {}.getType();
+        fromApiJsonHelper.checkForUnsupportedParameters(typeOfMap, json, bulkRepaymentParameters);
+
+        final List<ApiParameterError> dataValidationErrors = new ArrayList<ApiParameterError>();
+        final DataValidatorBuilder baseDataValidator = new DataValidatorBuilder(dataValidationErrors).resource("loan.transaction");
+
+        final JsonElement element = fromApiJsonHelper.parse(json);
+        // the date of the collection sheet, used for repayments without one
+        fromApiJsonHelper.extractLocalDateNamed("transactionDate", element);
+
+        final JsonArray repayments = fromApiJsonHelper.extractJsonArrayNamed("repayments", element);
+        baseDataValidator.reset().parameter("repayments").value(repayments).notNull();
+        if (repayments != null) {
+            baseDataValidator.reset().parameter("repayments").value(repayments.size()).integerGreaterThanZero();
+        }
+
+        throwExceptionIfValidationWarningsExist(dataValidationErrors);
+    }
+
+    /**
+     * Validates one repayment of a collection sheet on its own so an invalid
+     * repayment does not fail the others.
+     */
+    public void validateBulkRepaymentItem(final JsonElement repayment, final LocalDate sheetTransactionDate, final String dateFormat,
+            final Locale locale) {
+
+        final Set<String> repaymentParameters = new HashSet<String>(Arrays.asList("loanId", "transactionDate", "transactionAmount",
+                "note"));
+
+        final Type typeOfMap = new TypeToken<Map<String, Object>>() {}.getType();
+        fromApiJsonHelper.checkForUnsupportedParameters(typeOfMap, fromApiJsonHelper.toJson(repayment), repaymentParameters);
+
+        final List<ApiParameterError> dataValidationErrors = new ArrayList<ApiParameterError>();
+        final DataValidatorBuilder baseDataValidator = new DataValidatorBuilder(dataValidationErrors).resource("loan.transaction");
+
+        final Long loanId = fromApiJsonHelper.extractLongNamed("loanId", repayment);
+        baseDataValidator.reset().parameter("loanId").value(loanId).notNull().longGreaterThanZero();
+
+        LocalDate transactionDate = sheetTransactionDate;
+        if (fromApiJsonHelper.parameterExists("transactionDate", repayment)) {
+            transactionDate = fromApiJsonHelper.extractLocalDateNamed("transactionDate", repayment, dateFormat, locale);
+        }
+        baseDataValidator.reset().parameter("transactionDate").value(transactionDate).notNull();
+
+        final BigDecimal transactionAmount = fromApiJsonHelper.extractBigDecimalNamed("transactionAmount", repayment, locale);
+        baseDataValidator.reset().parameter("transactionAmount").value(transactionAmount).notNull().positiveAmount();
+
+        final String note = fromApiJsonHelper.extractStringNamed("note", repayment);
+        baseDataValidator.reset().parameter("note").value(note).notExceedingLengthOf(1000);
+
+        throwExceptionIfValidationWarningsExist(dataValidationErrors);
+    }
+
     public void validateTransactionWithNoAmount(final String json) {
         if (StringUtils.isBlank(json)) { throw new InvalidJsonException(); }
 
@@ -30,6 +30,7 @@ import org.mifosplatform.portfolio.loanaccount.domain.DefaultLoanLifecycleStateM
 import org.mifosplatform.portfolio.loanaccount.domain.Loan;
 import org.mifosplatform.portfolio.loanaccount.domain.LoanCharge;
 import org.mifosplatform.portfolio.loanaccount.domain.LoanCollateral;
+import org.mifosplatform.portfolio.loanaccount.domain.LoanFetchPlan;
 import org.mifosplatform.portfolio.loanaccount.domain.LoanLifecycleStateMachine;
 import org.mifosplatform.portfolio.loanaccount.domain.LoanRepaymentScheduleTransactionProcessorFactory;
 import org.mifosplatform.portfolio.loanaccount.domain.LoanRepository;
@@ -124,8 +125,17 @@ public class LoanApplicationWritePlatformServiceJpaRepositoryImpl implements Loa
 
         final Loan newLoanApplication = loanAssembler.assembleFrom(command, currentUser);
 
+        if (newLoanApplication.isAccountNumberRequiresAutoGeneration()) {
+            final String accountNo = this.accountIdentifierGeneratorFactory.determineLoanAccountNoGenerator().generate();
+            if (accountNo != null) {
+                newLoanApplication.updateAccountNo(accountNo);
+            }
+        }
+
         this.loanRepository.save(newLoanApplication);
 
+        // without a loan sequence the account number is derived from the id
+        // once saved
         if (newLoanApplication.isAccountNumberRequiresAutoGeneration()) {
             final AccountNumberGenerator accountNoGenerator = this.accountIdentifierGeneratorFactory
                     .determineLoanAccountNoGenerator(newLoanApplication.getId());
@@ -443,7 +453,7 @@ public class LoanApplicationWritePlatformServiceJpaRepositoryImpl implements Loa
     }
 
     private Loan retrieveLoanBy(final Long loanId) {
-        final Loan loan = this.loanRepository.findOne(loanId);
+        final Loan loan = this.loanRepository.findOneForUpdateWithFetchPlan(loanId, LoanFetchPlan.FULL);
         if (loan == null) { throw new LoanNotFoundException(loanId); }
         loan.setHelpers(defaultLoanLifecycleStateMachine(), this.loanSummaryWrapper, this.loanRepaymentScheduleTransactionProcessorFactory);
         return loan;
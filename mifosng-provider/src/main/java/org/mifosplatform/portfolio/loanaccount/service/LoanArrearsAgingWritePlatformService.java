@@ -0,0 +1,41 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.portfolio.loanaccount.service;
+
+import org.mifosplatform.portfolio.loanaccount.data.LoanArrearsAgingJobData;
+
+/**
+ * Recalculates the arrears aging (<code>m_loan_arrears_aging</code>) of all
+ * active loans as of the tenant's current date.
+ *
+ * The arrears aging of a loan is otherwise only recalculated when a command
+ * changes the loan, so loans without any activity would never move into
+ * older aging buckets.
+ */
+public interface LoanArrearsAgingWritePlatformService {
+
+    /**
+     * Starts a recalculation for the current tenant in the background unless
+     * one is already running.
+     *
+     * @return the progress of the recalculation.
+     */
+    LoanArrearsAgingJobData recalculateArrearsAging();
+
+    /**
+     * Recalculates each tenant with the
+     * <code>arrears-aging-recalculation</code> global configuration property
+     * enabled, one after the other, skipping any already being recalculated.
+     */
+    void recalculateArrearsAgingOfAllTenants();
+
+    /**
+     * @return the progress of the running or last recalculation for the
+     *         current tenant, or <code>null</code> when none has run since
+     *         startup.
+     */
+    LoanArrearsAgingJobData retrieveArrearsAgingJob();
+}
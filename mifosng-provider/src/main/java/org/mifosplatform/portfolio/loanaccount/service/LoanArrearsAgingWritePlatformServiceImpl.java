@@ -0,0 +1,421 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.portfolio.loanaccount.service;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.joda.time.DateTime;
+import org.joda.time.LocalDate;
+import org.mifosplatform.infrastructure.configuration.domain.ConfigurationDomainService;
+import org.mifosplatform.infrastructure.core.domain.MifosPlatformTenant;
+import org.mifosplatform.infrastructure.core.service.DateUtils;
+import org.mifosplatform.infrastructure.core.service.TenantAwareRoutingDataSource;
+import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
+import org.mifosplatform.infrastructure.security.service.TenantDetailsService;
+import org.mifosplatform.organisation.monetary.domain.MonetaryCurrency;
+import org.mifosplatform.organisation.monetary.domain.Money;
+import org.mifosplatform.portfolio.loanaccount.data.LoanArrearsAgingJobData;
+import org.mifosplatform.portfolio.loanaccount.domain.LoanStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Recalculates arrears aging straight from the repayment schedule rows of the
+ * loans through JDBC, no loan is loaded as an entity.
+ *
+ * A recalculation of a tenant is split into one unit of work per office, run
+ * on the <code>loanArrearsAgingExecutor</code>. The aging records of an office
+ * are written in one transaction as batched upserts and deletes. The loans of
+ * the office are locked first, as commands lock a loan they change, so a
+ * command never overwrites or inserts aging records of a loan while its office
+ * is recalculated and the other way round.
+ *
+ * Every night the tenants with the <code>arrears-aging-recalculation</code>
+ * global configuration property enabled are recalculated.
+ */
+@Service
+public class LoanArrearsAgingWritePlatformServiceImpl implements LoanArrearsAgingWritePlatformService {
+
+    private final static Logger logger = LoggerFactory.getLogger(LoanArrearsAgingWritePlatformServiceImpl.class);
+
+    private static final String OFFICE_LOANS_CRITERIA = " left join m_client c on c.id = l.client_id"
+            + " left join m_group g on g.id = l.group_id"
+            + " where (c.office_id = ? or (l.client_id is null and g.office_id = ?))";
+
+    /*
+     * installments due before the date given are overdue, the same rule as
+     * LoanRepaymentScheduleInstallment.isOverdueOn
+     */
+    private static final String OVERDUE_SQL = "select l.id as loanId, l.currency_code as currencyCode, l.currency_digits as currencyDigits,"
+            + " sum(ifnull(rs.principal_amount, 0) - ifnull(rs.principal_completed_derived, 0)"
+            + " - ifnull(rs.principal_writtenoff_derived, 0)) as principalOverdue,"
+            + " sum(ifnull(rs.interest_amount, 0) - ifnull(rs.interest_completed_derived, 0) - ifnull(rs.interest_waived_derived, 0)"
+            + " - ifnull(rs.interest_writtenoff_derived, 0)) as interestOverdue,"
+            + " sum(ifnull(rs.fee_charges_amount, 0) - ifnull(rs.fee_charges_completed_derived, 0)"
+            + " - ifnull(rs.fee_charges_waived_derived, 0) - ifnull(rs.fee_charges_writtenoff_derived, 0)) as feeChargesOverdue,"
+            + " sum(ifnull(rs.penalty_charges_amount, 0) - ifnull(rs.penalty_charges_completed_derived, 0)"
+            + " - ifnull(rs.penalty_charges_waived_derived, 0) - ifnull(rs.penalty_charges_writtenoff_derived, 0)) as penaltyChargesOverdue,"
+            + " min(rs.duedate) as overdueSinceDate"
+            + " from m_loan l"
+            + " join m_loan_repayment_schedule rs on rs.loan_id = l.id and rs.duedate < ?"
+            + OFFICE_LOANS_CRITERIA
+            + " and l.loan_status_id = ?"
+            + " group by l.id";
+
+    /*
+     * the clients and groups are read in subqueries so only the loan rows are
+     * locked
+     */
+    private static final String LOCK_LOANS_SQL = "select l.id from m_loan l"
+            + " where l.client_id in (select c.id from m_client c where c.office_id = ?)"
+            + " or (l.client_id is null and l.group_id in (select g.id from m_group g where g.office_id = ?)) for update";
+
+    private static final String EXISTING_AGING_SQL = "select la.loan_id from m_loan_arrears_aging la"
+            + " join m_loan l on l.id = la.loan_id"
+            + OFFICE_LOANS_CRITERIA;
+
+    private static final String UPSERT_AGING_SQL = "insert into m_loan_arrears_aging (loan_id, principal_overdue_derived,"
+            + " interest_overdue_derived, fee_charges_overdue_derived, penalty_charges_overdue_derived, total_overdue_derived,"
+            + " overdue_since_date_derived) values (?, ?, ?, ?, ?, ?, ?)"
+            + " on duplicate key update principal_overdue_derived = values(principal_overdue_derived),"
+            + " interest_overdue_derived = values(interest_overdue_derived),"
+            + " fee_charges_overdue_derived = values(fee_charges_overdue_derived),"
+            + " penalty_charges_overdue_derived = values(penalty_charges_overdue_derived),"
+            + " total_overdue_derived = values(total_overdue_derived),"
+            + " overdue_since_date_derived = values(overdue_since_date_derived)";
+
+    private static final String DELETE_AGING_SQL = "delete from m_loan_arrears_aging where loan_id = ?";
+
+    private static final String RECALCULATION_PROPERTY = "arrears-aging-recalculation";
+
+    private static final int BATCH_SIZE = 500;
+
+    private final TenantDetailsService tenantDetailsService;
+    private final ConfigurationDomainService configurationDomainService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TaskScheduler scheduler;
+    private final AsyncTaskExecutor workers;
+
+    /*
+     * the running or last recalculation of each tenant, a tenant is only
+     * recalculated by one thread at a time
+     */
+    private final ConcurrentMap<String, JobProgress> jobsByTenant = new ConcurrentHashMap<String, JobProgress>();
+
+    /*
+     * a tenant is recalculated on the scheduler and its offices on the
+     * workers, so a recalculation waiting for its offices never holds up a
+     * worker
+     */
+    @Autowired
+    public LoanArrearsAgingWritePlatformServiceImpl(final TenantDetailsService tenantDetailsService,
+            final ConfigurationDomainService configurationDomainService, final TenantAwareRoutingDataSource dataSource,
+            final PlatformTransactionManager transactionManager, @Qualifier("jobScheduler") final TaskScheduler scheduler,
+            @Qualifier("loanArrearsAgingExecutor") final AsyncTaskExecutor workers) {
+        this.tenantDetailsService = tenantDetailsService;
+        this.configurationDomainService = configurationDomainService;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.scheduler = scheduler;
+        this.workers = workers;
+    }
+
+    @Override
+    public LoanArrearsAgingJobData recalculateArrearsAging() {
+        final MifosPlatformTenant tenant = ThreadLocalContextUtil.getTenant();
+        final JobProgress progress = startJob(tenant);
+        if (progress.isNew()) {
+            this.scheduler.schedule(new Runnable() {
+
+                @Override
+                public void run() {
+                    recalculateTenant(tenant, progress);
+                }
+            }, new Date());
+        }
+        return progress.toData();
+    }
+
+    @Override
+    public LoanArrearsAgingJobData retrieveArrearsAgingJob() {
+        final JobProgress progress = this.jobsByTenant.get(ThreadLocalContextUtil.getTenant().getTenantIdentifier());
+        return progress == null ? null : progress.toData();
+    }
+
+    @Scheduled(cron = "0 0 1 * * *")
+    @Override
+    public void recalculateArrearsAgingOfAllTenants() {
+        for (final MifosPlatformTenant tenant : this.tenantDetailsService.findAllTenants()) {
+            if (isRecalculationEnabled(tenant)) {
+                final JobProgress progress = startJob(tenant);
+                if (progress.isNew()) {
+                    recalculateTenant(tenant, progress);
+                }
+            }
+        }
+    }
+
+    private boolean isRecalculationEnabled(final MifosPlatformTenant tenant) {
+        try {
+            ThreadLocalContextUtil.setTenant(tenant);
+            return this.configurationDomainService.isGlobalConfigurationPropertyEnabled(RECALCULATION_PROPERTY);
+        } catch (final RuntimeException e) {
+            logger.error("Arrears aging of tenant " + tenant.getTenantIdentifier() + " not recalculated", e);
+            return false;
+        } finally {
+            ThreadLocalContextUtil.clearTenant();
+        }
+    }
+
+    /**
+     * @return the progress of a new recalculation, or of the one already
+     *         running for the tenant.
+     */
+    private JobProgress startJob(final MifosPlatformTenant tenant) {
+        final JobProgress progress = new JobProgress(tenant.getTenantIdentifier());
+        while (true) {
+            final JobProgress previous = this.jobsByTenant.putIfAbsent(tenant.getTenantIdentifier(), progress);
+            if (previous == null) { return progress; }
+            if (previous.isRunning()) { return previous; }
+            if (this.jobsByTenant.replace(tenant.getTenantIdentifier(), previous, progress)) { return progress; }
+        }
+    }
+
+    private void recalculateTenant(final MifosPlatformTenant tenant, final JobProgress progress) {
+        try {
+            ThreadLocalContextUtil.setTenant(tenant);
+            final LocalDate asOfDate = DateUtils.getLocalDateOfTenant();
+
+            // offices are processed in hierarchy order so progress moves down
+            // the office tree
+            final List<Long> officeIds = this.jdbcTemplate.queryForList("select id from m_office order by hierarchy", Long.class);
+            progress.started(asOfDate, officeIds.size());
+
+            final List<Future<?>> offices = new ArrayList<Future<?>>(officeIds.size());
+            for (final Long officeId : officeIds) {
+                offices.add(this.workers.submit(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        recalculateOffice(tenant, officeId, asOfDate, progress);
+                    }
+                }));
+            }
+            for (final Future<?> office : offices) {
+                office.get();
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (final ExecutionException e) {
+            logger.error("Recalculation of arrears aging of tenant " + tenant.getTenantIdentifier() + " failed", e.getCause());
+        } catch (final RuntimeException e) {
+            logger.error("Recalculation of arrears aging of tenant " + tenant.getTenantIdentifier() + " failed", e);
+        } finally {
+            progress.finished();
+            ThreadLocalContextUtil.clearTenant();
+        }
+        logger.info(progress.toString());
+    }
+
+    private void recalculateOffice(final MifosPlatformTenant tenant, final Long officeId, final LocalDate asOfDate,
+            final JobProgress progress) {
+        final long start = System.currentTimeMillis();
+        try {
+            ThreadLocalContextUtil.setTenant(tenant);
+            this.transactionTemplate.execute(new TransactionCallbackWithoutResult() {
+
+                @Override
+                protected void doInTransactionWithoutResult(@SuppressWarnings("unused") final TransactionStatus status) {
+                    writeArrearsAgingOfOffice(officeId, asOfDate, progress);
+                }
+            });
+            progress.officeProcessed(System.currentTimeMillis() - start);
+        } catch (final RuntimeException e) {
+            progress.officeFailed();
+            logger.error("Recalculation of arrears aging of office " + officeId + " of tenant " + tenant.getTenantIdentifier()
+                    + " failed", e);
+        } finally {
+            ThreadLocalContextUtil.clearTenant();
+        }
+    }
+
+    private void writeArrearsAgingOfOffice(final Long officeId, final LocalDate asOfDate, final JobProgress progress) {
+
+        // waits for commands changing loans of the office to commit, the
+        // overdue amounts below are read after they have
+        this.jdbcTemplate.queryForList(LOCK_LOANS_SQL, Long.class, officeId, officeId);
+
+        final List<Object[]> upserts = new ArrayList<Object[]>();
+        final Set<Long> loansInArrears = new HashSet<Long>();
+        this.jdbcTemplate.query(OVERDUE_SQL, new RowCallbackHandler() {
+
+            @Override
+            public void processRow(final ResultSet rs) throws SQLException {
+                final Object[] aging = arrearsAgingFrom(rs);
+                if (aging != null) {
+                    loansInArrears.add((Long) aging[0]);
+                    upserts.add(aging);
+                    if (upserts.size() == BATCH_SIZE) {
+                        LoanArrearsAgingWritePlatformServiceImpl.this.jdbcTemplate.batchUpdate(UPSERT_AGING_SQL, upserts);
+                        upserts.clear();
+                    }
+                }
+            }
+        }, new java.sql.Date(asOfDate.toDate().getTime()), officeId, officeId, LoanStatus.ACTIVE.getValue());
+        if (!upserts.isEmpty()) {
+            this.jdbcTemplate.batchUpdate(UPSERT_AGING_SQL, upserts);
+        }
+
+        // loans no longer in arrears, including loans that are no longer
+        // active
+        final List<Object[]> deletes = new ArrayList<Object[]>();
+        for (final Long loanId : this.jdbcTemplate.queryForList(EXISTING_AGING_SQL, Long.class, officeId, officeId)) {
+            if (!loansInArrears.contains(loanId)) {
+                deletes.add(new Object[] { loanId });
+            }
+        }
+        for (int from = 0; from < deletes.size(); from += BATCH_SIZE) {
+            this.jdbcTemplate.batchUpdate(DELETE_AGING_SQL, deletes.subList(from, Math.min(from + BATCH_SIZE, deletes.size())));
+        }
+
+        progress.agingWritten(loansInArrears.size(), deletes.size());
+    }
+
+    /**
+     * Rounds the overdue amounts to the currency of the loan as
+     * <code>LoanSummaryArrearsAging</code> does.
+     *
+     * @return the row to upsert, or <code>null</code> when the loan is not in
+     *         arrears.
+     */
+    private static Object[] arrearsAgingFrom(final ResultSet rs) throws SQLException {
+        final MonetaryCurrency currency = new MonetaryCurrency(rs.getString("currencyCode"), rs.getInt("currencyDigits"));
+
+        final Money principalOverdue = Money.of(currency, rs.getBigDecimal("principalOverdue"));
+        final Money interestOverdue = Money.of(currency, rs.getBigDecimal("interestOverdue"));
+        final Money feeChargesOverdue = Money.of(currency, rs.getBigDecimal("feeChargesOverdue"));
+        final Money penaltyChargesOverdue = Money.of(currency, rs.getBigDecimal("penaltyChargesOverdue"));
+        final Money totalOverdue = principalOverdue.plus(interestOverdue).plus(feeChargesOverdue).plus(penaltyChargesOverdue);
+
+        if (totalOverdue.isZero()) { return null; }
+
+        final java.sql.Date overdueSinceDate = totalOverdue.isGreaterThanZero() ? rs.getDate("overdueSinceDate") : null;
+        return new Object[] { rs.getLong("loanId"), amount(principalOverdue), amount(interestOverdue), amount(feeChargesOverdue),
+                amount(penaltyChargesOverdue), amount(totalOverdue), overdueSinceDate };
+    }
+
+    private static BigDecimal amount(final Money money) {
+        return money.getAmount();
+    }
+
+    private static final class JobProgress {
+
+        private final String tenantIdentifier;
+        private final DateTime startedOn = new DateTime();
+        private final long startedAt = System.currentTimeMillis();
+        private final AtomicInteger officesProcessed = new AtomicInteger();
+        private final AtomicInteger officesFailed = new AtomicInteger();
+        private final AtomicLong loansInArrears = new AtomicLong();
+        private final AtomicLong agingRecordsDeleted = new AtomicLong();
+        private final AtomicLong slowestOfficeMillis = new AtomicLong();
+        private final AtomicInteger state = new AtomicInteger(NEW);
+
+        private static final int NEW = 0;
+        private static final int RUNNING = 1;
+        private static final int FINISHED = 2;
+
+        private volatile LocalDate asOfDate;
+        private volatile int officeCount;
+        private volatile DateTime finishedOn;
+        private volatile long elapsedMillis;
+
+        JobProgress(final String tenantIdentifier) {
+            this.tenantIdentifier = tenantIdentifier;
+        }
+
+        /**
+         * @return true for the caller that created the job, which is
+         *         responsible for running it.
+         */
+        boolean isNew() {
+            return this.state.compareAndSet(NEW, RUNNING);
+        }
+
+        boolean isRunning() {
+            return this.state.get() != FINISHED;
+        }
+
+        void started(final LocalDate asOf, final int numberOfOffices) {
+            this.asOfDate = asOf;
+            this.officeCount = numberOfOffices;
+        }
+
+        void agingWritten(final int loans, final int deleted) {
+            this.loansInArrears.addAndGet(loans);
+            this.agingRecordsDeleted.addAndGet(deleted);
+        }
+
+        void officeProcessed(final long millis) {
+            this.officesProcessed.incrementAndGet();
+            long slowest = this.slowestOfficeMillis.get();
+            while (millis > slowest && !this.slowestOfficeMillis.compareAndSet(slowest, millis)) {
+                slowest = this.slowestOfficeMillis.get();
+            }
+        }
+
+        void officeFailed() {
+            this.officesFailed.incrementAndGet();
+        }
+
+        void finished() {
+            this.elapsedMillis = System.currentTimeMillis() - this.startedAt;
+            this.finishedOn = new DateTime();
+            this.state.set(FINISHED);
+        }
+
+        LoanArrearsAgingJobData toData() {
+            final boolean running = isRunning();
+            final long elapsed = running ? System.currentTimeMillis() - this.startedAt : this.elapsedMillis;
+            return new LoanArrearsAgingJobData(this.tenantIdentifier, this.asOfDate, this.startedOn, this.finishedOn, running,
+                    this.officeCount, this.officesProcessed.get(), this.officesFailed.get(), this.loansInArrears.get(),
+                    this.agingRecordsDeleted.get(), elapsed, this.slowestOfficeMillis.get());
+        }
+
+        @Override
+        public String toString() {
+            return "Recalculated arrears aging of tenant " + this.tenantIdentifier + " as of " + this.asOfDate + ": "
+                    + this.officesProcessed.get() + " of " + this.officeCount + " offices (" + this.officesFailed.get() + " failed), "
+                    + this.loansInArrears.get() + " loans in arrears, " + this.agingRecordsDeleted.get() + " aging records deleted in "
+                    + this.elapsedMillis + "ms, slowest office " + this.slowestOfficeMillis.get() + "ms";
+        }
+    }
+}
@@ -0,0 +1,30 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.portfolio.loanaccount.service;
+
+import org.mifosplatform.infrastructure.core.api.JsonCommand;
+import org.mifosplatform.infrastructure.core.data.CommandProcessingResult;
+
+/**
+ * Moves loans from one loan officer to another, typically all the loans of a
+ * departing loan officer, as one command.
+ */
+public interface LoanBulkReassignmentWritePlatformService {
+
+    /**
+     * Checks every loan can be reassigned before changing any of them. The
+     * changes are then committed in chunks, so a failure part way through
+     * leaves the loans of earlier chunks reassigned. The result lists the
+     * loans reassigned, those already reassigned by an earlier submission and
+     * those left to reassign.
+     */
+    CommandProcessingResult bulkLoanReassignment(JsonCommand command);
+
+    /**
+     * Checks every loan could be reassigned without changing any of them.
+     */
+    CommandProcessingResult validateBulkLoanReassignment(JsonCommand command);
+}
@@ -0,0 +1,283 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.portfolio.loanaccount.service;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.joda.time.LocalDate;
+import org.mifosplatform.infrastructure.core.api.JsonCommand;
+import org.mifosplatform.infrastructure.core.data.CommandProcessingResult;
+import org.mifosplatform.infrastructure.core.data.CommandProcessingResultBuilder;
+import org.mifosplatform.infrastructure.core.domain.JdbcSupport;
+import org.mifosplatform.infrastructure.core.service.DateUtils;
+import org.mifosplatform.infrastructure.core.service.TenantAwareRoutingDataSource;
+import org.mifosplatform.infrastructure.security.service.PlatformSecurityContext;
+import org.mifosplatform.organisation.staff.domain.Staff;
+import org.mifosplatform.portfolio.loanaccount.domain.Loan;
+import org.mifosplatform.portfolio.loanaccount.exception.LoanNotFoundException;
+import org.mifosplatform.portfolio.loanaccount.exception.LoanOfficerAssignmentException;
+import org.mifosplatform.portfolio.loanaccount.service.LoanOfficerAssignment.HistoryRecord;
+import org.mifosplatform.useradministration.domain.AppUser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Reassigns loans without loading them as {@link Loan} entities. The loans
+ * and their loan officer assignment history are read with one query each and
+ * every loan is checked as {@link Loan#reassignLoanOfficer(Staff, LocalDate)}
+ * would before anything is changed.
+ *
+ * The changes are then written in chunks of
+ * <code>mifosx.loan.bulkReassignmentChunkSize</code> loans, each committed in
+ * its own transaction: the loan officer of the chunk is set with a single
+ * update and its history changes are written as JDBC batches. Should a chunk
+ * fail, the loans of earlier chunks stay reassigned and are reported in the
+ * result, and a loan already reassigned is skipped when submitted again.
+ */
+@Service
+public class LoanBulkReassignmentWritePlatformServiceImpl implements LoanBulkReassignmentWritePlatformService {
+
+    private final static Logger logger = LoggerFactory.getLogger(LoanBulkReassignmentWritePlatformServiceImpl.class);
+
+    private static final int CHUNK_SIZE = Integer.getInteger("mifosx.loan.bulkReassignmentChunkSize", 500);
+
+    private final PlatformSecurityContext context;
+    private final LoanAssembler loanAssembler;
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Autowired
+    public LoanBulkReassignmentWritePlatformServiceImpl(final PlatformSecurityContext context, final LoanAssembler loanAssembler,
+            final PlatformTransactionManager transactionManager, final TenantAwareRoutingDataSource dataSource) {
+        this.context = context;
+        this.loanAssembler = loanAssembler;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(this.jdbcTemplate);
+    }
+
+    @Override
+    public CommandProcessingResult bulkLoanReassignment(final JsonCommand command) {
+
+        final AppUser currentUser = this.context.authenticatedUser();
+
+        final Long fromLoanOfficerId = command.longValueOfParameterNamed("fromLoanOfficerId");
+        final Long toLoanOfficerId = command.longValueOfParameterNamed("toLoanOfficerId");
+
+        final List<Long> alreadyReassignedLoanIds = new ArrayList<Long>();
+        final List<LoanOfficerAssignment> changedAssignments = reassign(command, alreadyReassignedLoanIds);
+
+        final List<Long> reassignedLoanIds = new ArrayList<Long>(changedAssignments.size());
+        RuntimeException failure = null;
+        for (int from = 0; from < changedAssignments.size(); from += CHUNK_SIZE) {
+            final List<LoanOfficerAssignment> chunk = changedAssignments.subList(from,
+                    Math.min(from + CHUNK_SIZE, changedAssignments.size()));
+            try {
+                writeInOwnTransaction(chunk, fromLoanOfficerId, toLoanOfficerId, currentUser);
+            } catch (final RuntimeException e) {
+                // the chunks written so far stay committed and are reported
+                // as reassigned, submitting the loans again resumes from here
+                logger.error("Reassigning loans " + loanIdsOf(chunk) + " from loan officer " + fromLoanOfficerId + " to "
+                        + toLoanOfficerId + " failed, " + reassignedLoanIds.size() + " loans were reassigned", e);
+                failure = e;
+                break;
+            }
+
+            reassignedLoanIds.addAll(loanIdsOf(chunk));
+            logger.info("Reassigned " + reassignedLoanIds.size() + " of " + changedAssignments.size() + " loans from loan officer "
+                    + fromLoanOfficerId + " to " + toLoanOfficerId);
+        }
+
+        final Map<String, Object> changes = new LinkedHashMap<String, Object>();
+        changes.put("reassigned", reassignedLoanIds);
+        changes.put("alreadyReassigned", alreadyReassignedLoanIds);
+        changes.put("notReassigned", loanIdsOf(changedAssignments.subList(reassignedLoanIds.size(), changedAssignments.size())));
+        if (failure != null) {
+            changes.put("userMessageGlobalisationCode", "error.msg.loan.bulk.reassignment.failed");
+            changes.put("defaultUserMessage", "Not all loans could be reassigned, submit the loans again to reassign the rest.");
+        }
+
+        return new CommandProcessingResultBuilder() //
+                .withCommandId(command.commandId()) //
+                .with(changes) //
+                .build();
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public CommandProcessingResult validateBulkLoanReassignment(final JsonCommand command) {
+
+        this.context.authenticatedUser();
+
+        reassign(command, new ArrayList<Long>());
+
+        return new CommandProcessingResultBuilder() //
+                .withCommandId(command.commandId()) //
+                .build();
+    }
+
+    /**
+     * Checks and reassigns every loan in memory, before anything is written.
+     * Loans left with the new loan officer by an earlier submission are added
+     * to <code>alreadyReassignedLoanIds</code> instead of being reassigned.
+     */
+    private List<LoanOfficerAssignment> reassign(final JsonCommand command, final List<Long> alreadyReassignedLoanIds) {
+
+        final Long fromLoanOfficerId = command.longValueOfParameterNamed("fromLoanOfficerId");
+        final Long toLoanOfficerId = command.longValueOfParameterNamed("toLoanOfficerId");
+        final String[] loanIds = command.arrayValueOfParameterNamed("loans");
+
+        final LocalDate dateOfLoanOfficerAssignment = command.localDateValueOfParameterNamed("assignmentDate");
+
+        final Staff fromLoanOfficer = this.loanAssembler.findLoanOfficerByIdIfProvided(fromLoanOfficerId);
+        final Staff toLoanOfficer = this.loanAssembler.findLoanOfficerByIdIfProvided(toLoanOfficerId);
+
+        final Map<Long, LoanOfficerAssignment> assignments = retrieveAssignmentsOf(loanIds);
+
+        final LocalDate today = DateUtils.getLocalDateOfTenant();
+        final List<LoanOfficerAssignment> changedAssignments = new ArrayList<LoanOfficerAssignment>(assignments.size());
+        for (final LoanOfficerAssignment assignment : assignments.values()) {
+            if (!assignment.hasLoanOfficer(fromLoanOfficer)) {
+                if (assignment.isReassignedTo(toLoanOfficer, dateOfLoanOfficerAssignment)) {
+                    alreadyReassignedLoanIds.add(assignment.getLoanId());
+                    continue;
+                }
+                throw new LoanOfficerAssignmentException(assignment.getLoanId(), fromLoanOfficerId);
+            }
+
+            assignment.reassignLoanOfficer(toLoanOfficer, dateOfLoanOfficerAssignment, today);
+            changedAssignments.add(assignment);
+        }
+        return changedAssignments;
+    }
+
+    private static List<Long> loanIdsOf(final List<LoanOfficerAssignment> assignments) {
+        final List<Long> loanIds = new ArrayList<Long>(assignments.size());
+        for (final LoanOfficerAssignment assignment : assignments) {
+            loanIds.add(assignment.getLoanId());
+        }
+        return loanIds;
+    }
+
+    private Map<Long, LoanOfficerAssignment> retrieveAssignmentsOf(final String[] loanIdStrings) {
+
+        final List<Long> loanIds = new ArrayList<Long>(loanIdStrings.length);
+        for (final String loanIdString : loanIdStrings) {
+            loanIds.add(Long.valueOf(loanIdString));
+        }
+        final Map<Long, LoanOfficerAssignment> assignments = new LinkedHashMap<Long, LoanOfficerAssignment>();
+        if (loanIds.isEmpty()) { return assignments; }
+
+        final MapSqlParameterSource params = new MapSqlParameterSource("loanIds", loanIds);
+
+        final Map<Long, LoanOfficerAssignment> assignmentsById = new LinkedHashMap<Long, LoanOfficerAssignment>();
+        this.namedParameterJdbcTemplate.query("select l.id as loanId, l.loan_officer_id as loanOfficerId, "
+                + " l.submittedon_date as submittedOnDate, l.loan_status_id as statusId from m_loan l where l.id in (:loanIds)", params,
+                new RowCallbackHandler() {
+
+                    @Override
+                    public void processRow(final ResultSet rs) throws SQLException {
+                        final Long loanId = rs.getLong("loanId");
+                        assignmentsById.put(loanId, new LoanOfficerAssignment(loanId, JdbcSupport.getLong(rs, "loanOfficerId"),
+                                JdbcSupport.getLocalDate(rs, "submittedOnDate"), JdbcSupport.getInteger(rs, "statusId")));
+                    }
+                });
+
+        this.namedParameterJdbcTemplate.query("select h.id as id, h.loan_id as loanId, h.loan_officer_id as loanOfficerId, "
+                + " h.start_date as startDate, h.end_date as endDate from m_loan_officer_assignment_history h "
+                + " where h.loan_id in (:loanIds) order by h.loan_id, h.id", params, new RowCallbackHandler() {
+
+            @Override
+            public void processRow(final ResultSet rs) throws SQLException {
+                final LoanOfficerAssignment assignment = assignmentsById.get(rs.getLong("loanId"));
+                assignment.addHistoryRecord(rs.getLong("id"), JdbcSupport.getLong(rs, "loanOfficerId"),
+                        JdbcSupport.getLocalDate(rs, "startDate"), JdbcSupport.getLocalDate(rs, "endDate"));
+            }
+        });
+
+        // in the order submitted, a loan listed twice is reassigned once
+        for (final Long loanId : loanIds) {
+            final LoanOfficerAssignment assignment = assignmentsById.get(loanId);
+            if (assignment == null) { throw new LoanNotFoundException(loanId); }
+            assignments.put(loanId, assignment);
+        }
+        return assignments;
+    }
+
+    private void writeInOwnTransaction(final List<LoanOfficerAssignment> assignments, final Long fromLoanOfficerId,
+            final Long toLoanOfficerId, final AppUser currentUser) {
+        this.transactionTemplate.execute(new TransactionCallbackWithoutResult() {
+
+            @Override
+            protected void doInTransactionWithoutResult(@SuppressWarnings("unused") final TransactionStatus status) {
+                write(assignments, fromLoanOfficerId, toLoanOfficerId, currentUser);
+            }
+        });
+    }
+
+    private void write(final List<LoanOfficerAssignment> assignments, final Long fromLoanOfficerId, final Long toLoanOfficerId,
+            final AppUser currentUser) {
+
+        final Timestamp now = new Timestamp(System.currentTimeMillis());
+        final List<Long> loanIds = new ArrayList<Long>(assignments.size());
+        final List<Object[]> updatedHistory = new ArrayList<Object[]>();
+        final List<Object[]> newHistory = new ArrayList<Object[]>();
+        for (final LoanOfficerAssignment assignment : assignments) {
+            loanIds.add(assignment.getLoanId());
+            for (final HistoryRecord record : assignment.getHistory()) {
+                if (record.isNew()) {
+                    newHistory.add(new Object[] { assignment.getLoanId(), record.getLoanOfficerId(), record.getStartDate().toDate(), now,
+                            currentUser.getId(), now, currentUser.getId() });
+                } else if (record.isChanged()) {
+                    updatedHistory.add(new Object[] { record.getLoanOfficerId(), record.getStartDate().toDate(),
+                            record.getEndDate() == null ? null : record.getEndDate().toDate(), now, currentUser.getId(), record.getId() });
+                }
+            }
+        }
+
+        // the loans must still be with the loan officer they were checked
+        // against
+        final MapSqlParameterSource params = new MapSqlParameterSource("loanIds", loanIds);
+        params.addValue("toLoanOfficerId", toLoanOfficerId);
+        params.addValue("fromLoanOfficerId", fromLoanOfficerId);
+        final String fromLoanOfficerClause = fromLoanOfficerId == null ? "l.loan_officer_id is null"
+                : "l.loan_officer_id = :fromLoanOfficerId";
+        final int updated = this.namedParameterJdbcTemplate.update("update m_loan l set l.loan_officer_id = :toLoanOfficerId "
+                + " where l.id in (:loanIds) and " + fromLoanOfficerClause, params);
+        if (updated != loanIds.size()) { throw new ConcurrencyFailureException("Loans " + loanIds
+                + " were changed while being reassigned from loan officer " + fromLoanOfficerId); }
+
+        if (!updatedHistory.isEmpty()) {
+            this.jdbcTemplate.batchUpdate("update m_loan_officer_assignment_history set loan_officer_id = ?, start_date = ?, "
+                    + "end_date = ?, lastmodified_date = ?, lastmodifiedby_id = ? where id = ?", updatedHistory);
+        }
+        if (!newHistory.isEmpty()) {
+            this.jdbcTemplate.batchUpdate("insert into m_loan_officer_assignment_history (loan_id, loan_officer_id, start_date, "
+                    + "created_date, createdby_id, lastmodified_date, lastmodifiedby_id) values (?, ?, ?, ?, ?, ?, ?)", newHistory);
+        }
+    }
+}
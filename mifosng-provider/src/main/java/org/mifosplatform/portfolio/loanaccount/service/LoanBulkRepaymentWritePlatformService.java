@@ -0,0 +1,31 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.portfolio.loanaccount.service;
+
+import org.mifosplatform.infrastructure.core.api.JsonCommand;
+import org.mifosplatform.infrastructure.core.data.CommandProcessingResult;
+
+/**
+ * Posts the repayments of a collection sheet, typically hundreds of
+ * repayments collected at group meetings, as one command.
+ */
+public interface LoanBulkRepaymentWritePlatformService {
+
+    /**
+     * Applies each repayment on its own, a repayment that fails does not stop
+     * the others being made.
+     *
+     * @return the outcome of each repayment in the order of the collection
+     *         sheet as the <code>repayments</code> change.
+     */
+    CommandProcessingResult makeBulkLoanRepayment(JsonCommand command);
+
+    /**
+     * Validates the collection sheet for approval. The repayments themselves
+     * are checked one by one once the sheet is approved.
+     */
+    CommandProcessingResult validateBulkLoanRepayment(JsonCommand command);
+}
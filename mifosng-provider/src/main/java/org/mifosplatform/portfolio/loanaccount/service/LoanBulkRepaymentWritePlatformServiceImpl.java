@@ -0,0 +1,417 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.portfolio.loanaccount.service;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.apache.commons.lang.StringUtils;
+import org.joda.time.LocalDate;
+import org.mifosplatform.accounting.journalentry.service.JournalEntryWritePlatformService;
+import org.mifosplatform.infrastructure.core.api.JsonCommand;
+import org.mifosplatform.infrastructure.core.data.ApiParameterError;
+import org.mifosplatform.infrastructure.core.data.CommandProcessingResult;
+import org.mifosplatform.infrastructure.core.data.CommandProcessingResultBuilder;
+import org.mifosplatform.infrastructure.core.exception.AbstractPlatformDomainRuleException;
+import org.mifosplatform.infrastructure.core.exception.AbstractPlatformResourceNotFoundException;
+import org.mifosplatform.infrastructure.core.exception.PlatformApiDataValidationException;
+import org.mifosplatform.infrastructure.core.serialization.FromJsonHelper;
+import org.mifosplatform.infrastructure.core.service.TenantAwareRoutingDataSource;
+import org.mifosplatform.infrastructure.security.service.PlatformSecurityContext;
+import org.mifosplatform.organisation.monetary.domain.ApplicationCurrency;
+import org.mifosplatform.organisation.monetary.domain.ApplicationCurrencyRepository;
+import org.mifosplatform.portfolio.loanaccount.domain.DefaultLoanLifecycleStateMachine;
+import org.mifosplatform.portfolio.loanaccount.domain.Loan;
+import org.mifosplatform.portfolio.loanaccount.domain.LoanFetchPlan;
+import org.mifosplatform.portfolio.loanaccount.domain.LoanLifecycleStateMachine;
+import org.mifosplatform.portfolio.loanaccount.domain.LoanRepaymentScheduleTransactionProcessorFactory;
+import org.mifosplatform.portfolio.loanaccount.domain.LoanRepository;
+import org.mifosplatform.portfolio.loanaccount.domain.LoanStatus;
+import org.mifosplatform.portfolio.loanaccount.domain.LoanSummaryWrapper;
+import org.mifosplatform.portfolio.loanaccount.domain.LoanTransaction;
+import org.mifosplatform.portfolio.loanaccount.domain.LoanTransactionRepository;
+import org.mifosplatform.portfolio.loanaccount.exception.LoanNotFoundException;
+import org.mifosplatform.portfolio.loanaccount.serialization.LoanEventApiJsonValidator;
+import org.mifosplatform.portfolio.note.domain.NoteType;
+import org.mifosplatform.useradministration.domain.AppUser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+
+/**
+ * Repayments are grouped by loan and applied in date order so each loan is
+ * loaded and its schedule reprocessed once for all of its repayments.
+ *
+ * The loans are processed in chunks of
+ * <code>mifosx.loan.bulkRepaymentChunkSize</code> loans, each committed in its
+ * own transaction. Notes and journal entries of a chunk are inserted as JDBC
+ * batches at the end of it. A chunk that fails is retried one loan per
+ * transaction so only the repayments of the failing loan are lost.
+ */
+@Service
+public class LoanBulkRepaymentWritePlatformServiceImpl implements LoanBulkRepaymentWritePlatformService {
+
+    private final static Logger logger = LoggerFactory.getLogger(LoanBulkRepaymentWritePlatformServiceImpl.class);
+
+    private static final int CHUNK_SIZE = Integer.getInteger("mifosx.loan.bulkRepaymentChunkSize", 50);
+
+    private final PlatformSecurityContext context;
+    private final LoanEventApiJsonValidator loanEventApiJsonValidator;
+    private final FromJsonHelper fromApiJsonHelper;
+    private final LoanRepository loanRepository;
+    private final LoanTransactionRepository loanTransactionRepository;
+    private final ApplicationCurrencyRepository applicationCurrencyRepository;
+    private final JournalEntryWritePlatformService journalEntryWritePlatformService;
+    private final LoanSummaryWrapper loanSummaryWrapper;
+    private final LoanRepaymentScheduleTransactionProcessorFactory loanRepaymentScheduleTransactionProcessorFactory;
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public LoanBulkRepaymentWritePlatformServiceImpl(final PlatformSecurityContext context,
+            final LoanEventApiJsonValidator loanEventApiJsonValidator, final FromJsonHelper fromApiJsonHelper,
+            final LoanRepository loanRepository, final LoanTransactionRepository loanTransactionRepository,
+            final ApplicationCurrencyRepository applicationCurrencyRepository,
+            final JournalEntryWritePlatformService journalEntryWritePlatformService, final LoanSummaryWrapper loanSummaryWrapper,
+            final LoanRepaymentScheduleTransactionProcessorFactory loanRepaymentScheduleTransactionProcessorFactory,
+            final PlatformTransactionManager transactionManager, final TenantAwareRoutingDataSource dataSource) {
+        this.context = context;
+        this.loanEventApiJsonValidator = loanEventApiJsonValidator;
+        this.fromApiJsonHelper = fromApiJsonHelper;
+        this.loanRepository = loanRepository;
+        this.loanTransactionRepository = loanTransactionRepository;
+        this.applicationCurrencyRepository = applicationCurrencyRepository;
+        this.journalEntryWritePlatformService = journalEntryWritePlatformService;
+        this.loanSummaryWrapper = loanSummaryWrapper;
+        this.loanRepaymentScheduleTransactionProcessorFactory = loanRepaymentScheduleTransactionProcessorFactory;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Override
+    public CommandProcessingResult makeBulkLoanRepayment(final JsonCommand command) {
+
+        final AppUser currentUser = this.context.authenticatedUser();
+
+        final List<BulkRepayment> repayments = extractRepayments(command);
+        final Map<Long, List<BulkRepayment>> repaymentsByLoan = groupByLoan(repayments);
+        final List<Long> loanIds = new ArrayList<Long>(repaymentsByLoan.keySet());
+
+        for (int from = 0; from < loanIds.size(); from += CHUNK_SIZE) {
+            final List<Long> chunk = loanIds.subList(from, Math.min(from + CHUNK_SIZE, loanIds.size()));
+            try {
+                applyInOwnTransaction(chunk, repaymentsByLoan, currentUser);
+            } catch (final RuntimeException e) {
+                logger.warn("Bulk repayment of loans " + chunk + " failed, retrying each loan on its own", e);
+                for (final Long loanId : chunk) {
+                    for (final BulkRepayment repayment : repaymentsByLoan.get(loanId)) {
+                        repayment.reset();
+                    }
+                    try {
+                        applyInOwnTransaction(Arrays.asList(loanId), repaymentsByLoan, currentUser);
+                    } catch (final RuntimeException loanFailure) {
+                        for (final BulkRepayment repayment : repaymentsByLoan.get(loanId)) {
+                            repayment.reset();
+                            repayment.failed(loanFailure);
+                        }
+                    }
+                }
+            }
+        }
+
+        return bulkRepaymentResult(command, repayments);
+    }
+
+    /*
+     * the sheet is stored as the command awaiting approval, so no changes are
+     * returned. Repayments that fail their own checks are reported as failed
+     * once the sheet is approved.
+     */
+    @Override
+    public CommandProcessingResult validateBulkLoanRepayment(final JsonCommand command) {
+
+        this.context.authenticatedUser();
+
+        this.loanEventApiJsonValidator.validateBulkRepayment(command.json());
+
+        return new CommandProcessingResultBuilder() //
+                .withCommandId(command.commandId()) //
+                .build();
+    }
+
+    private void applyInOwnTransaction(final List<Long> loanIds, final Map<Long, List<BulkRepayment>> repaymentsByLoan,
+            final AppUser currentUser) {
+        this.transactionTemplate.execute(new TransactionCallbackWithoutResult() {
+
+            @Override
+            protected void doInTransactionWithoutResult(@SuppressWarnings("unused") final TransactionStatus status) {
+                applyRepayments(loanIds, repaymentsByLoan, currentUser);
+            }
+        });
+    }
+
+    private void applyRepayments(final List<Long> loanIds, final Map<Long, List<BulkRepayment>> repaymentsByLoan,
+            final AppUser currentUser) {
+
+        final LoanLifecycleStateMachine loanLifecycleStateMachine = new DefaultLoanLifecycleStateMachine(Arrays.asList(LoanStatus
+                .values()));
+        final Map<String, ApplicationCurrency> currenciesByCode = new HashMap<String, ApplicationCurrency>();
+        final List<Map<String, Object>> accountingBridgeDataOfLoans = new ArrayList<Map<String, Object>>();
+        final List<Object[]> notes = new ArrayList<Object[]>();
+
+        for (final Long loanId : loanIds) {
+            final List<BulkRepayment> loanRepayments = repaymentsByLoan.get(loanId);
+            final Loan loan = retrieveLoanBy(loanId, loanRepayments);
+            if (loan == null) {
+                continue;
+            }
+
+            List<Long> existingTransactionIds = null;
+            List<Long> existingReversedTransactionIds = null;
+            for (final BulkRepayment repayment : loanRepayments) {
+                try {
+                    loan.validateRepayment(repayment.transactionDate, repayment.transactionAmount, loanLifecycleStateMachine);
+                } catch (final RuntimeException e) {
+                    // the loan is left unchanged so its other repayments can
+                    // still be made
+                    repayment.failed(e);
+                    continue;
+                }
+
+                final List<Long> transactionIds = new ArrayList<Long>();
+                final List<Long> reversedTransactionIds = new ArrayList<Long>();
+                final LoanTransaction loanRepayment = loan.makeRepayment(repayment.transactionDate, repayment.transactionAmount,
+                        loanLifecycleStateMachine, transactionIds, reversedTransactionIds);
+                this.loanTransactionRepository.save(loanRepayment);
+                repayment.succeeded(loanRepayment.getId());
+
+                // journal entries are posted for all repayments of the sheet
+                if (existingTransactionIds == null) {
+                    existingTransactionIds = transactionIds;
+                    existingReversedTransactionIds = reversedTransactionIds;
+                }
+
+                if (StringUtils.isNotBlank(repayment.note)) {
+                    notes.add(new Object[] { loan.getClientId(), loanId, loanRepayment.getId(), NoteType.LOAN_TRANSACTION.getValue(),
+                            repayment.note });
+                }
+            }
+
+            if (existingTransactionIds != null) {
+                this.loanRepository.save(loan);
+
+                ApplicationCurrency currency = currenciesByCode.get(loan.getCurrencyCode());
+                if (currency == null) {
+                    currency = this.applicationCurrencyRepository.findOneByCode(loan.getCurrencyCode());
+                    currenciesByCode.put(loan.getCurrencyCode(), currency);
+                }
+                accountingBridgeDataOfLoans.add(loan.deriveAccountingBridgeData(currency.toData(), existingTransactionIds,
+                        existingReversedTransactionIds));
+            }
+        }
+
+        insertNotes(notes, currentUser);
+        this.journalEntryWritePlatformService.createJournalEntriesForLoans(accountingBridgeDataOfLoans, currentUser);
+    }
+
+    private Loan retrieveLoanBy(final Long loanId, final List<BulkRepayment> loanRepayments) {
+        final Loan loan = this.loanRepository.findOneForUpdateWithFetchPlan(loanId, LoanFetchPlan.TRANSACTIONS);
+        if (loan == null) {
+            final LoanNotFoundException notFound = new LoanNotFoundException(loanId);
+            for (final BulkRepayment repayment : loanRepayments) {
+                repayment.failed(notFound);
+            }
+            return null;
+        }
+        loan.setHelpers(new DefaultLoanLifecycleStateMachine(Arrays.asList(LoanStatus.values())), this.loanSummaryWrapper,
+                this.loanRepaymentScheduleTransactionProcessorFactory);
+        return loan;
+    }
+
+    private void insertNotes(final List<Object[]> notes, final AppUser currentUser) {
+        if (notes.isEmpty()) { return; }
+
+        final Timestamp now = new Timestamp(System.currentTimeMillis());
+        final List<Object[]> rows = new ArrayList<Object[]>(notes.size());
+        for (final Object[] note : notes) {
+            final Object[] row = Arrays.copyOf(note, note.length + 4);
+            row[note.length] = now;
+            row[note.length + 1] = currentUser.getId();
+            row[note.length + 2] = now;
+            row[note.length + 3] = currentUser.getId();
+            rows.add(row);
+        }
+
+        this.jdbcTemplate.batchUpdate("insert into m_note (client_id, loan_id, loan_transaction_id, note_type_enum, note, created_date, "
+                + "createdby_id, lastmodified_date, lastmodifiedby_id) values (?, ?, ?, ?, ?, ?, ?, ?, ?)", rows);
+    }
+
+    /**
+     * Repayments that are not valid are failed straight away and left out of
+     * the ones applied.
+     */
+    private List<BulkRepayment> extractRepayments(final JsonCommand command) {
+
+        this.loanEventApiJsonValidator.validateBulkRepayment(command.json());
+
+        final JsonElement element = command.parsedJson();
+        final Locale locale = this.fromApiJsonHelper.extractLocaleParameter(element.getAsJsonObject());
+        final String dateFormat = this.fromApiJsonHelper.extractDateFormatParameter(element.getAsJsonObject());
+        final LocalDate sheetTransactionDate = this.fromApiJsonHelper.extractLocalDateNamed("transactionDate", element);
+        final JsonArray repaymentsArray = this.fromApiJsonHelper.extractJsonArrayNamed("repayments", element);
+
+        final List<BulkRepayment> repayments = new ArrayList<BulkRepayment>(repaymentsArray.size());
+        for (int index = 0; index < repaymentsArray.size(); index++) {
+            final JsonElement repaymentElement = repaymentsArray.get(index);
+            final BulkRepayment repayment = new BulkRepayment(index);
+            try {
+                this.loanEventApiJsonValidator.validateBulkRepaymentItem(repaymentElement, sheetTransactionDate, dateFormat, locale);
+
+                repayment.loanId = this.fromApiJsonHelper.extractLongNamed("loanId", repaymentElement);
+                repayment.transactionDate = sheetTransactionDate;
+                if (this.fromApiJsonHelper.parameterExists("transactionDate", repaymentElement)) {
+                    repayment.transactionDate = this.fromApiJsonHelper.extractLocalDateNamed("transactionDate", repaymentElement,
+                            dateFormat, locale);
+                }
+                repayment.transactionAmount = this.fromApiJsonHelper.extractBigDecimalNamed("transactionAmount", repaymentElement, locale);
+                repayment.note = this.fromApiJsonHelper.extractStringNamed("note", repaymentElement);
+            } catch (final PlatformApiDataValidationException e) {
+                repayment.failed(e);
+            }
+            repayments.add(repayment);
+        }
+        return repayments;
+    }
+
+    private Map<Long, List<BulkRepayment>> groupByLoan(final List<BulkRepayment> repayments) {
+        final Map<Long, List<BulkRepayment>> repaymentsByLoan = new LinkedHashMap<Long, List<BulkRepayment>>();
+        for (final BulkRepayment repayment : repayments) {
+            if (repayment.hasFailed()) {
+                continue;
+            }
+            List<BulkRepayment> loanRepayments = repaymentsByLoan.get(repayment.loanId);
+            if (loanRepayments == null) {
+                loanRepayments = new ArrayList<BulkRepayment>();
+                repaymentsByLoan.put(repayment.loanId, loanRepayments);
+            }
+            loanRepayments.add(repayment);
+        }
+
+        // applied in date order so each repayment is the latest on the loan
+        for (final List<BulkRepayment> loanRepayments : repaymentsByLoan.values()) {
+            Collections.sort(loanRepayments, new Comparator<BulkRepayment>() {
+
+                @Override
+                public int compare(final BulkRepayment o1, final BulkRepayment o2) {
+                    final int byDate = o1.transactionDate.compareTo(o2.transactionDate);
+                    return byDate != 0 ? byDate : o1.index - o2.index;
+                }
+            });
+        }
+        return repaymentsByLoan;
+    }
+
+    private CommandProcessingResult bulkRepaymentResult(final JsonCommand command, final List<BulkRepayment> repayments) {
+        int successCount = 0;
+        final List<Map<String, Object>> results = new ArrayList<Map<String, Object>>(repayments.size());
+        for (final BulkRepayment repayment : repayments) {
+            if (!repayment.hasFailed()) {
+                successCount++;
+            }
+            results.add(repayment.result);
+        }
+
+        final Map<String, Object> changes = new LinkedHashMap<String, Object>();
+        changes.put("successCount", successCount);
+        changes.put("failureCount", repayments.size() - successCount);
+        changes.put("repayments", results);
+
+        return new CommandProcessingResultBuilder() //
+                .withCommandId(command.commandId()) //
+                .with(changes) //
+                .build();
+    }
+
+    /**
+     * One repayment of the collection sheet and its outcome.
+     */
+    private static final class BulkRepayment {
+
+        private final int index;
+        private Long loanId;
+        private LocalDate transactionDate;
+        private BigDecimal transactionAmount;
+        private String note;
+        private Map<String, Object> result;
+
+        BulkRepayment(final int index) {
+            this.index = index;
+            reset();
+        }
+
+        void reset() {
+            this.result = new LinkedHashMap<String, Object>();
+            this.result.put("index", this.index);
+            this.result.put("loanId", this.loanId);
+        }
+
+        void succeeded(final Long transactionId) {
+            this.result.put("transactionId", transactionId);
+        }
+
+        void failed(final RuntimeException e) {
+            // the loan id is only known once the repayment is extracted
+            this.result.put("loanId", this.loanId);
+
+            String globalisationMessageCode = "error.msg.loan.bulk.repayment.failed";
+            String defaultUserMessage = "The repayment could not be made.";
+            if (e instanceof AbstractPlatformDomainRuleException) {
+                globalisationMessageCode = ((AbstractPlatformDomainRuleException) e).getGlobalisationMessageCode();
+                defaultUserMessage = ((AbstractPlatformDomainRuleException) e).getDefaultUserMessage();
+            } else if (e instanceof AbstractPlatformResourceNotFoundException) {
+                globalisationMessageCode = ((AbstractPlatformResourceNotFoundException) e).getGlobalisationMessageCode();
+                defaultUserMessage = ((AbstractPlatformResourceNotFoundException) e).getDefaultUserMessage();
+            } else if (e instanceof PlatformApiDataValidationException) {
+                final List<ApiParameterError> errors = ((PlatformApiDataValidationException) e).getErrors();
+                if (errors != null && !errors.isEmpty()) {
+                    globalisationMessageCode = errors.get(0).getUserMessageGlobalisationCode();
+                    defaultUserMessage = errors.get(0).getDefaultUserMessage();
+                } else {
+                    globalisationMessageCode = ((PlatformApiDataValidationException) e).getGlobalisationMessageCode();
+                    defaultUserMessage = ((PlatformApiDataValidationException) e).getDefaultUserMessage();
+                }
+            } else {
+                logger.error("Repayment " + this.index + " of bulk repayment on loan " + this.loanId + " failed", e);
+            }
+            this.result.put("userMessageGlobalisationCode", globalisationMessageCode);
+            this.result.put("defaultUserMessage", defaultUserMessage);
+        }
+
+        boolean hasFailed() {
+            return this.result.containsKey("userMessageGlobalisationCode");
+        }
+    }
+}
@@ -0,0 +1,222 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.portfolio.loanaccount.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.joda.time.LocalDate;
+import org.mifosplatform.organisation.staff.domain.Staff;
+import org.mifosplatform.portfolio.loanaccount.domain.Loan;
+import org.mifosplatform.portfolio.loanaccount.domain.LoanStatus;
+import org.mifosplatform.portfolio.loanaccount.exception.LoanOfficerAssignmentDateException;
+
+/**
+ * The loan officer and assignment history of a loan as read for a bulk
+ * reassignment, changed the way
+ * {@link Loan#reassignLoanOfficer(Staff, LocalDate)} changes those of the
+ * entity.
+ */
+public final class LoanOfficerAssignment {
+
+    private final Long loanId;
+    private Long loanOfficerId;
+    private final LocalDate submittedOnDate;
+    private final Integer statusId;
+    private final List<HistoryRecord> history = new ArrayList<HistoryRecord>();
+
+    public LoanOfficerAssignment(final Long loanId, final Long loanOfficerId, final LocalDate submittedOnDate, final Integer statusId) {
+        this.loanId = loanId;
+        this.loanOfficerId = loanOfficerId;
+        this.submittedOnDate = submittedOnDate;
+        this.statusId = statusId;
+    }
+
+    /**
+     * Records must be added in the order they were created.
+     */
+    public void addHistoryRecord(final Long id, final Long historyLoanOfficerId, final LocalDate startDate, final LocalDate endDate) {
+        this.history.add(new HistoryRecord(id, historyLoanOfficerId, startDate, endDate));
+    }
+
+    public Long getLoanId() {
+        return this.loanId;
+    }
+
+    public Long getLoanOfficerId() {
+        return this.loanOfficerId;
+    }
+
+    public List<HistoryRecord> getHistory() {
+        return Collections.unmodifiableList(this.history);
+    }
+
+    public boolean hasLoanOfficer(final Staff fromLoanOfficer) {
+        if (this.loanOfficerId == null) { return fromLoanOfficer == null; }
+        return fromLoanOfficer != null && this.loanOfficerId.equals(fromLoanOfficer.getId());
+    }
+
+    /**
+     * Whether the loan is already with the loan officer as of the assignment
+     * date, as left by an earlier reassignment of it. A loan pending approval
+     * keeps no history so only its loan officer is compared.
+     */
+    public boolean isReassignedTo(final Staff toLoanOfficer, final LocalDate assignmentDate) {
+        if (toLoanOfficer == null || !hasLoanOfficer(toLoanOfficer)) { return false; }
+
+        final HistoryRecord latestHistoryRecord = findLatestIncompleteHistoryRecord();
+        if (latestHistoryRecord == null) { return LoanStatus.SUBMITED_AND_PENDING_APPROVAL.getValue().equals(this.statusId); }
+        return latestHistoryRecord.isSameLoanOfficer(toLoanOfficer.getId()) && latestHistoryRecord.startDate.isEqual(assignmentDate);
+    }
+
+    public void reassignLoanOfficer(final Staff newLoanOfficer, final LocalDate assignmentDate, final LocalDate today) {
+
+        final Long newLoanOfficerId = newLoanOfficer == null ? null : newLoanOfficer.getId();
+        final HistoryRecord latestHistoryRecord = findLatestIncompleteHistoryRecord();
+        final HistoryRecord lastAssignmentRecord = findLastAssignmentHistoryRecord(newLoanOfficerId, today);
+
+        if (this.submittedOnDate != null && this.submittedOnDate.isAfter(assignmentDate)) {
+
+            final String errorMessage = "The Loan Officer assignment date (" + assignmentDate.toString()
+                    + ") cannot be before loan submitted date (" + this.submittedOnDate.toString() + ").";
+
+            throw new LoanOfficerAssignmentDateException("cannot.be.before.loan.submittal.date", errorMessage, assignmentDate,
+                    this.submittedOnDate);
+
+        } else if (lastAssignmentRecord != null && lastAssignmentRecord.isEndDateAfter(assignmentDate)) {
+
+            final String errorMessage = "The Loan Officer assignment date (" + assignmentDate
+                    + ") cannot be before previous Loan Officer unassigned date (" + lastAssignmentRecord.endDate + ").";
+
+            throw new LoanOfficerAssignmentDateException("cannot.be.before.previous.unassignement.date", errorMessage, assignmentDate,
+                    lastAssignmentRecord.endDate);
+
+        } else if (today.isBefore(assignmentDate)) {
+
+            final String errorMessage = "The Loan Officer assignment date (" + assignmentDate + ") cannot be in the future.";
+
+            throw new LoanOfficerAssignmentDateException("cannot.be.a.future.date", errorMessage, assignmentDate);
+
+        } else if (latestHistoryRecord != null && this.loanOfficerId != null && this.loanOfficerId.equals(newLoanOfficerId)) {
+            latestHistoryRecord.updateStartDate(assignmentDate);
+        } else if (latestHistoryRecord != null && latestHistoryRecord.startDate.isEqual(assignmentDate)) {
+            latestHistoryRecord.updateLoanOfficer(newLoanOfficerId);
+            this.loanOfficerId = newLoanOfficerId;
+        } else if (latestHistoryRecord != null && assignmentDate.isBefore(latestHistoryRecord.startDate)) {
+            final String errorMessage = "Loan with identifier " + this.loanId + " was already assigned before date " + assignmentDate;
+            throw new LoanOfficerAssignmentDateException("is.before.last.assignment.date", errorMessage, this.loanId, assignmentDate);
+        } else {
+            if (latestHistoryRecord != null) {
+                latestHistoryRecord.updateEndDate(assignmentDate);
+            }
+
+            this.loanOfficerId = newLoanOfficerId;
+            if (!LoanStatus.SUBMITED_AND_PENDING_APPROVAL.getValue().equals(this.statusId)) {
+                this.history.add(new HistoryRecord(null, newLoanOfficerId, assignmentDate, null));
+            }
+        }
+    }
+
+    private HistoryRecord findLatestIncompleteHistoryRecord() {
+        for (final HistoryRecord historyRecord : this.history) {
+            if (historyRecord.isCurrentRecord()) { return historyRecord; }
+        }
+        return null;
+    }
+
+    /*
+     * as on the entity, a record with no end date counts as ending today
+     */
+    private HistoryRecord findLastAssignmentHistoryRecord(final Long newLoanOfficerId, final LocalDate today) {
+
+        HistoryRecord lastAssignmentRecordLatestEndDate = null;
+        for (final HistoryRecord historyRecord : this.history) {
+
+            if (historyRecord.isCurrentRecord() && !historyRecord.isSameLoanOfficer(newLoanOfficerId)) { return historyRecord; }
+
+            if (lastAssignmentRecordLatestEndDate == null) {
+                lastAssignmentRecordLatestEndDate = historyRecord;
+            } else if (historyRecord.isEndDateAfter(lastAssignmentRecordLatestEndDate.endDate == null ? today
+                    : lastAssignmentRecordLatestEndDate.endDate)
+                    && !historyRecord.isSameLoanOfficer(newLoanOfficerId)) {
+                lastAssignmentRecordLatestEndDate = historyRecord;
+            }
+        }
+        return lastAssignmentRecordLatestEndDate;
+    }
+
+    /**
+     * A row of <code>m_loan_officer_assignment_history</code>, one without an
+     * id is yet to be inserted.
+     */
+    public static final class HistoryRecord {
+
+        private final Long id;
+        private Long loanOfficerId;
+        private LocalDate startDate;
+        private LocalDate endDate;
+        private boolean changed;
+
+        HistoryRecord(final Long id, final Long loanOfficerId, final LocalDate startDate, final LocalDate endDate) {
+            this.id = id;
+            this.loanOfficerId = loanOfficerId;
+            this.startDate = startDate;
+            this.endDate = endDate;
+        }
+
+        public Long getId() {
+            return this.id;
+        }
+
+        public Long getLoanOfficerId() {
+            return this.loanOfficerId;
+        }
+
+        public LocalDate getStartDate() {
+            return this.startDate;
+        }
+
+        public LocalDate getEndDate() {
+            return this.endDate;
+        }
+
+        public boolean isNew() {
+            return this.id == null;
+        }
+
+        public boolean isChanged() {
+            return this.changed;
+        }
+
+        boolean isCurrentRecord() {
+            return this.endDate == null;
+        }
+
+        boolean isEndDateAfter(final LocalDate compareDate) {
+            return this.endDate == null ? false : this.endDate.isAfter(compareDate);
+        }
+
+        boolean isSameLoanOfficer(final Long otherLoanOfficerId) {
+            return this.loanOfficerId == null ? otherLoanOfficerId == null : this.loanOfficerId.equals(otherLoanOfficerId);
+        }
+
+        void updateLoanOfficer(final Long newLoanOfficerId) {
+            this.loanOfficerId = newLoanOfficerId;
+            this.changed = true;
+        }
+
+        void updateStartDate(final LocalDate newStartDate) {
+            this.startDate = newStartDate;
+            this.changed = true;
+        }
+
+        void updateEndDate(final LocalDate newEndDate) {
+            this.endDate = newEndDate;
+            this.changed = true;
+        }
+    }
+}
@@ -7,10 +7,13 @@ package org.mifosplatform.portfolio.loanaccount.service;
 
 import java.util.Collection;
 
+import org.mifosplatform.infrastructure.core.serialization.StreamingDataSource;
 import org.mifosplatform.portfolio.loanaccount.data.LoanAccountData;
+import org.mifosplatform.portfolio.loanaccount.data.LoanAssociationFilter;
 import org.mifosplatform.portfolio.loanaccount.data.LoanTransactionData;
 import org.mifosplatform.portfolio.loanaccount.data.RepaymentScheduleRelatedLoanData;
 import org.mifosplatform.portfolio.loanaccount.loanschedule.data.LoanScheduleData;
+import org.mifosplatform.portfolio.loanaccount.loanschedule.data.LoanSchedulePeriodData;
 
 public interface LoanReadPlatformService {
 
@@ -18,8 +21,32 @@ public interface LoanReadPlatformService {
 
     LoanScheduleData retrieveRepaymentSchedule(Long loanId, RepaymentScheduleRelatedLoanData repaymentScheduleRelatedData);
 
+    /**
+     * Retrieves the periods of the schedule within the filter. Totals cover
+     * only the periods returned and the disbursement period is included only
+     * when the filter takes in the start of the schedule.
+     */
+    LoanScheduleData retrieveRepaymentSchedule(Long loanId, RepaymentScheduleRelatedLoanData repaymentScheduleRelatedData,
+            LoanAssociationFilter filter);
+
+    /**
+     * Streams the periods of the schedule within the filter as they are read
+     * from the database, starting with the disbursement period when the
+     * filter takes in the start of the schedule.
+     */
+    StreamingDataSource<LoanSchedulePeriodData> streamRepaymentSchedulePeriods(Long loanId,
+            RepaymentScheduleRelatedLoanData repaymentScheduleRelatedData, LoanAssociationFilter filter);
+
     Collection<LoanTransactionData> retrieveLoanTransactions(Long loanId);
 
+    Collection<LoanTransactionData> retrieveLoanTransactions(Long loanId, LoanAssociationFilter filter);
+
+    /**
+     * Streams the transactions within the filter as they are read from the
+     * database.
+     */
+    StreamingDataSource<LoanTransactionData> streamLoanTransactions(Long loanId, LoanAssociationFilter filter);
+
     LoanAccountData retrieveTemplateWithClientAndProductDetails(Long clientId, Long productId);
 
     LoanAccountData retrieveTemplateWithGroupAndProductDetails(Long groupId, Long productId);
@@ -10,13 +10,20 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 
 import org.joda.time.Days;
 import org.joda.time.LocalDate;
+import org.mifosplatform.infrastructure.core.data.ApiParameterError;
+import org.mifosplatform.infrastructure.core.data.DataValidatorBuilder;
 import org.mifosplatform.infrastructure.core.data.EnumOptionData;
 import org.mifosplatform.infrastructure.core.domain.JdbcSupport;
+import org.mifosplatform.infrastructure.core.exception.PlatformApiDataValidationException;
+import org.mifosplatform.infrastructure.core.serialization.StreamingDataSource;
 import org.mifosplatform.infrastructure.core.service.DateUtils;
+import org.mifosplatform.infrastructure.core.service.StreamingStatementCreator;
 import org.mifosplatform.infrastructure.core.service.TenantAwareRoutingDataSource;
+import org.mifosplatform.infrastructure.core.service.TenantAwareStreamingDataSource;
 import org.mifosplatform.infrastructure.security.service.PlatformSecurityContext;
 import org.mifosplatform.organisation.monetary.data.CurrencyData;
 import org.mifosplatform.organisation.monetary.domain.ApplicationCurrency;
@@ -31,12 +38,14 @@ import org.mifosplatform.portfolio.group.service.GroupReadPlatformService;
 import org.mifosplatform.portfolio.loanaccount.data.DisbursementData;
 import org.mifosplatform.portfolio.loanaccount.data.LoanAccountData;
 import org.mifosplatform.portfolio.loanaccount.data.LoanApplicationTimelineData;
+import org.mifosplatform.portfolio.loanaccount.data.LoanAssociationFilter;
 import org.mifosplatform.portfolio.loanaccount.data.LoanStatusEnumData;
 import org.mifosplatform.portfolio.loanaccount.data.LoanSummaryData;
 import org.mifosplatform.portfolio.loanaccount.data.LoanTransactionData;
 import org.mifosplatform.portfolio.loanaccount.data.LoanTransactionEnumData;
 import org.mifosplatform.portfolio.loanaccount.data.RepaymentScheduleRelatedLoanData;
 import org.mifosplatform.portfolio.loanaccount.domain.Loan;
+import org.mifosplatform.portfolio.loanaccount.domain.LoanFetchPlan;
 import org.mifosplatform.portfolio.loanaccount.domain.LoanRepository;
 import org.mifosplatform.portfolio.loanaccount.domain.LoanTransaction;
 import org.mifosplatform.portfolio.loanaccount.domain.LoanTransactionRepository;
@@ -53,6 +62,7 @@ import org.springframework.dao.DataAccessException;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Service;
 
@@ -60,6 +70,7 @@ import org.springframework.stereotype.Service;
 public class LoanReadPlatformServiceImpl implements LoanReadPlatformService {
 
     private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate streamingJdbcTemplate;
     private final PlatformSecurityContext context;
     private final LoanRepository loanRepository;
     private final ApplicationCurrencyRepository applicationCurrencyRepository;
@@ -72,7 +83,8 @@ public class LoanReadPlatformServiceImpl implements LoanReadPlatformService {
     public LoanReadPlatformServiceImpl(final PlatformSecurityContext context, final LoanRepository loanRepository,
             final LoanTransactionRepository loanTransactionRepository, final ApplicationCurrencyRepository applicationCurrencyRepository,
             final LoanProductReadPlatformService loanProductReadPlatformService, final ClientReadPlatformService clientReadPlatformService,
-            final GroupReadPlatformService groupReadPlatformService, final TenantAwareRoutingDataSource dataSource) {
+            final GroupReadPlatformService groupReadPlatformService, final TenantAwareRoutingDataSource dataSource,
+            final TenantAwareStreamingDataSource streamingDataSource) {
         this.context = context;
         this.loanRepository = loanRepository;
         this.loanTransactionRepository = loanTransactionRepository;
@@ -81,6 +93,7 @@ public class LoanReadPlatformServiceImpl implements LoanReadPlatformService {
         this.clientReadPlatformService = clientReadPlatformService;
         this.groupReadPlatformService = groupReadPlatformService;
         this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.streamingJdbcTemplate = new JdbcTemplate(streamingDataSource);
     }
 
     @Override
@@ -102,39 +115,216 @@ public class LoanReadPlatformServiceImpl implements LoanReadPlatformService {
     @Override
     public LoanScheduleData retrieveRepaymentSchedule(final Long loanId,
             final RepaymentScheduleRelatedLoanData repaymentScheduleRelatedLoanData) {
+        return retrieveRepaymentSchedule(loanId, repaymentScheduleRelatedLoanData, LoanAssociationFilter.unfiltered());
+    }
+
+    @Override
+    public LoanScheduleData retrieveRepaymentSchedule(final Long loanId,
+            final RepaymentScheduleRelatedLoanData repaymentScheduleRelatedLoanData, final LoanAssociationFilter filter) {
 
         try {
             context.authenticatedUser();
+            validateFilter(filter);
 
-            final LoanScheduleResultSetExtractor fullResultsetExtractor = new LoanScheduleResultSetExtractor(
-                    repaymentScheduleRelatedLoanData);
-            final String sql = "select " + fullResultsetExtractor.schema() + " where ls.loan_id = ? order by ls.loan_id, ls.installment";
+            final LoanScheduleResultSetExtractor fullResultsetExtractor = scheduleExtractorFor(loanId, repaymentScheduleRelatedLoanData,
+                    filter);
+            final List<Object> params = new ArrayList<Object>();
+            final String sql = "select " + fullResultsetExtractor.schema() + scheduleWhereClause(loanId, filter, params);
 
-            return this.jdbcTemplate.query(sql, fullResultsetExtractor, new Object[] { loanId });
+            return this.jdbcTemplate.query(sql, fullResultsetExtractor, params.toArray());
         } catch (EmptyResultDataAccessException e) {
             throw new LoanNotFoundException(loanId);
         }
     }
 
+    @Override
+    public StreamingDataSource<LoanSchedulePeriodData> streamRepaymentSchedulePeriods(final Long loanId,
+            final RepaymentScheduleRelatedLoanData repaymentScheduleRelatedLoanData, final LoanAssociationFilter filter) {
+
+        context.authenticatedUser();
+        validateFilter(filter);
+
+        return new StreamingDataSource<LoanSchedulePeriodData>() {
+
+            @Override
+            public void forEach(final ElementHandler<LoanSchedulePeriodData> handler) {
+                // worked out before the stream is opened as nothing else can
+                // run on the connection while it is
+                final LoanScheduleResultSetExtractor extractor = scheduleExtractorFor(loanId, repaymentScheduleRelatedLoanData, filter);
+                final List<Object> params = new ArrayList<Object>();
+                final String sql = "select " + extractor.schema() + scheduleWhereClause(loanId, filter, params);
+
+                final LoanSchedulePeriodData disbursementPeriod = extractor.disbursementPeriod();
+                if (disbursementPeriod != null) {
+                    handler.handle(disbursementPeriod);
+                }
+                LoanReadPlatformServiceImpl.this.streamingJdbcTemplate.query(new StreamingStatementCreator(sql, params.toArray()),
+                        new RowCallbackHandler() {
+
+                            @Override
+                            public void processRow(final ResultSet rs) throws SQLException {
+                                handler.handle(extractor.mapPeriod(rs));
+                            }
+                        });
+            }
+        };
+    }
+
+    /*
+     * the running balance and from date of the first period returned depend
+     * on the periods before it, so when the filter skips some of the schedule
+     * those are summed up front
+     */
+    private LoanScheduleResultSetExtractor scheduleExtractorFor(final Long loanId,
+            final RepaymentScheduleRelatedLoanData repaymentScheduleRelatedLoanData, final LoanAssociationFilter filter) {
+
+        final boolean includeDisbursementPeriod = filter.includesFirstDatedOn(repaymentScheduleRelatedLoanData.disbursementData()
+                .disbursementDate());
+        final boolean skipsStartOfSchedule = filter.getFromDate() != null
+                || (filter.getOffset() != null && filter.getOffset().intValue() > 0);
+        if (!skipsStartOfSchedule) { return new LoanScheduleResultSetExtractor(repaymentScheduleRelatedLoanData, includeDisbursementPeriod); }
+
+        final List<Object> params = new ArrayList<Object>();
+        final String windowSql = "select ls.installment from m_loan_repayment_schedule ls " + scheduleWhereClause(loanId, filter, params);
+        final String sql = "select coalesce(sum(p.principal_amount), 0) as principalDueBefore, max(p.duedate) as lastDueDateBefore "
+                + " from m_loan_repayment_schedule p where p.loan_id = ? and p.installment < "
+                + " (select min(w.installment) from (" + windowSql + ") w)";
+        params.add(0, loanId);
+
+        return this.jdbcTemplate.queryForObject(sql, new RowMapper<LoanScheduleResultSetExtractor>() {
+
+            @Override
+            public LoanScheduleResultSetExtractor mapRow(final ResultSet rs, @SuppressWarnings("unused") final int rowNum)
+                    throws SQLException {
+                final BigDecimal principalDueBefore = JdbcSupport.getBigDecimalDefaultToZeroIfNull(rs, "principalDueBefore");
+                final LocalDate lastDueDateBefore = JdbcSupport.getLocalDate(rs, "lastDueDateBefore");
+                return new LoanScheduleResultSetExtractor(repaymentScheduleRelatedLoanData, includeDisbursementPeriod,
+                        principalDueBefore, lastDueDateBefore);
+            }
+        }, params.toArray());
+    }
+
+    private static String scheduleWhereClause(final Long loanId, final LoanAssociationFilter filter, final List<Object> params) {
+        final StringBuilder sql = new StringBuilder(" where ls.loan_id = ?");
+        params.add(loanId);
+        if (filter.getFromDate() != null) {
+            sql.append(" and ls.duedate >= ?");
+            params.add(filter.getFromDate().toDate());
+        }
+        if (filter.getToDate() != null) {
+            sql.append(" and ls.duedate <= ?");
+            params.add(filter.getToDate().toDate());
+        }
+        sql.append(" order by ls.loan_id, ls.installment");
+        appendPage(sql, filter, params);
+        return sql.toString();
+    }
+
     @Override
     public Collection<LoanTransactionData> retrieveLoanTransactions(final Long loanId) {
+        return retrieveLoanTransactions(loanId, LoanAssociationFilter.unfiltered());
+    }
+
+    @Override
+    public Collection<LoanTransactionData> retrieveLoanTransactions(final Long loanId, final LoanAssociationFilter filter) {
         try {
             context.authenticatedUser();
+            validateFilter(filter);
 
             LoanTransactionsMapper rm = new LoanTransactionsMapper();
 
-            // retrieve all loan transactions that are not invalid and have not
-            // been 'contra'ed by another transaction
-            // repayments at time of disbursement (e.g. charges)
-            String sql = "select "
-                    + rm.LoanPaymentsSchema()
-                    + " where tr.loan_id = ? and tr.transaction_type_enum not in (0, 3) and tr.is_reversed=0 order by tr.transaction_date ASC";
-            return this.jdbcTemplate.query(sql, rm, new Object[] { loanId });
+            final List<Object> params = new ArrayList<Object>();
+            final String sql = "select " + rm.LoanPaymentsSchema() + transactionsWhereClause(loanId, filter, params);
+            return this.jdbcTemplate.query(sql, rm, params.toArray());
         } catch (EmptyResultDataAccessException e) {
             return null;
         }
     }
 
+    @Override
+    public StreamingDataSource<LoanTransactionData> streamLoanTransactions(final Long loanId, final LoanAssociationFilter filter) {
+
+        context.authenticatedUser();
+        validateFilter(filter);
+
+        final int loanCount = this.jdbcTemplate.queryForInt("select count(*) from m_loan l where l.id = ?", loanId);
+        if (loanCount == 0) { throw new LoanNotFoundException(loanId); }
+
+        return new StreamingDataSource<LoanTransactionData>() {
+
+            @Override
+            public void forEach(final ElementHandler<LoanTransactionData> handler) {
+                final LoanTransactionsMapper rm = new LoanTransactionsMapper();
+                final List<Object> params = new ArrayList<Object>();
+                final String sql = "select " + rm.LoanPaymentsSchema() + transactionsWhereClause(loanId, filter, params);
+
+                LoanReadPlatformServiceImpl.this.streamingJdbcTemplate.query(new StreamingStatementCreator(sql, params.toArray()),
+                        new RowCallbackHandler() {
+
+                            @Override
+                            public void processRow(final ResultSet rs) throws SQLException {
+                                handler.handle(rm.mapRow(rs, rs.getRow()));
+                            }
+                        });
+            }
+        };
+    }
+
+    /*
+     * retrieve all loan transactions that are not invalid and have not been
+     * 'contra'ed by another transaction repayments at time of disbursement
+     * (e.g. charges)
+     */
+    private static String transactionsWhereClause(final Long loanId, final LoanAssociationFilter filter, final List<Object> params) {
+        final StringBuilder sql = new StringBuilder(" where tr.loan_id = ? and tr.transaction_type_enum not in (0, 3) and tr.is_reversed=0");
+        params.add(loanId);
+        if (filter.getFromDate() != null) {
+            sql.append(" and tr.transaction_date >= ?");
+            params.add(filter.getFromDate().toDate());
+        }
+        if (filter.getToDate() != null) {
+            sql.append(" and tr.transaction_date <= ?");
+            params.add(filter.getToDate().toDate());
+        }
+        // id breaks ties between transactions on the same day so pages do
+        // not overlap
+        sql.append(" order by tr.transaction_date ASC, tr.id ASC");
+        appendPage(sql, filter, params);
+        return sql.toString();
+    }
+
+    private static void appendPage(final StringBuilder sql, final LoanAssociationFilter filter, final List<Object> params) {
+        if (filter.isPaged()) {
+            // mysql has no offset without a limit
+            sql.append(" limit ? offset ?");
+            params.add(filter.getLimit() == null ? Integer.valueOf(Integer.MAX_VALUE) : filter.getLimit());
+            params.add(filter.getOffset() == null ? Integer.valueOf(0) : filter.getOffset());
+        }
+    }
+
+    private static void validateFilter(final LoanAssociationFilter filter) {
+        if (filter.isUnfiltered()) { return; }
+
+        final List<ApiParameterError> dataValidationErrors = new ArrayList<ApiParameterError>();
+        final DataValidatorBuilder baseDataValidator = new DataValidatorBuilder(dataValidationErrors).resource("loan");
+
+        baseDataValidator.reset().parameter(filter.parameterName("offset")).value(filter.getOffset()).ignoreIfNull()
+                .inMinMaxRange(0, Integer.MAX_VALUE);
+        baseDataValidator.reset().parameter(filter.parameterName("limit")).value(filter.getLimit()).ignoreIfNull()
+                .integerGreaterThanZero();
+
+        if (filter.getFromDate() != null && filter.getToDate() != null && filter.getToDate().isBefore(filter.getFromDate())) {
+            final String parameterName = filter.parameterName("toDate");
+            final ApiParameterError error = ApiParameterError.parameterError("validation.msg.loan." + parameterName
+                    + ".is.before.fromDate", "The parameter " + parameterName + " must not be before "
+                    + filter.parameterName("fromDate") + ".", parameterName, filter.getToDate(), filter.getFromDate());
+            dataValidationErrors.add(error);
+        }
+
+        if (!dataValidationErrors.isEmpty()) { throw new PlatformApiDataValidationException("validation.msg.validation.errors.exist",
+                "Validation errors exist.", dataValidationErrors); }
+    }
+
     @Override
     public LoanAccountData retrieveTemplateWithClientAndProductDetails(final Long clientId, final Long productId) {
 
@@ -178,7 +368,7 @@ public class LoanReadPlatformServiceImpl implements LoanReadPlatformService {
 
         // TODO - KW - OPTIMIZE - write simple sql query to fetch back date of
         // possible next transaction date.
-        Loan loan = this.loanRepository.findOne(loanId);
+        Loan loan = this.loanRepository.findOneWithFetchPlan(loanId, LoanFetchPlan.TRANSACTIONS);
         if (loan == null) { throw new LoanNotFoundException(loanId); }
 
         final String currencyCode = loan.repaymentScheduleDetail().getPrincipal().getCurrencyCode();
@@ -204,7 +394,7 @@ public class LoanReadPlatformServiceImpl implements LoanReadPlatformService {
         // TODO - KW -OPTIMIZE - write simple sql query to fetch back overdue
         // interest that can be waived along with the date of repayment period
         // interest is overdue.
-        final Loan loan = this.loanRepository.findOne(loanId);
+        final Loan loan = this.loanRepository.findOneWithFetchPlan(loanId, LoanFetchPlan.TRANSACTIONS);
         if (loan == null) { throw new LoanNotFoundException(loanId); }
 
         final String currencyCode = loan.repaymentScheduleDetail().getPrincipal().getCurrencyCode();
@@ -509,15 +699,55 @@ public class LoanReadPlatformServiceImpl implements LoanReadPlatformService {
         private final CurrencyData currency;
         private final DisbursementData disbursement;
         private final BigDecimal totalFeeChargesDueAtDisbursement;
+        private final boolean includeDisbursementPeriod;
         private LocalDate lastDueDate;
         private BigDecimal outstandingLoanPrincipalBalance;
 
-        public LoanScheduleResultSetExtractor(final RepaymentScheduleRelatedLoanData repaymentScheduleRelatedLoanData) {
+        private final MonetaryCurrency monCurrency;
+        private Money totalPrincipalExpected;
+        private Money totalPrincipalPaid;
+        private Money totalInterestCharged;
+        private Money totalFeeChargesCharged;
+        private Money totalPenaltyChargesCharged;
+        private Money totalWaived;
+        private Money totalWrittenOff;
+        private Money totalRepaymentExpected;
+        private Money totalRepayment;
+        private Money totalOutstanding;
+        private Integer loanTermInDays = Integer.valueOf(0);
+
+        public LoanScheduleResultSetExtractor(final RepaymentScheduleRelatedLoanData repaymentScheduleRelatedLoanData,
+                final boolean includeDisbursementPeriod) {
+            this(repaymentScheduleRelatedLoanData, includeDisbursementPeriod, BigDecimal.ZERO, null);
+        }
+
+        /**
+         * @param principalDueBefore
+         *            principal due on the periods before the first one read.
+         * @param lastDueDateBefore
+         *            due date of the period before the first one read, or
+         *            <code>null</code> when it is the first of the schedule.
+         */
+        public LoanScheduleResultSetExtractor(final RepaymentScheduleRelatedLoanData repaymentScheduleRelatedLoanData,
+                final boolean includeDisbursementPeriod, final BigDecimal principalDueBefore, final LocalDate lastDueDateBefore) {
             this.currency = repaymentScheduleRelatedLoanData.getCurrency();
             this.disbursement = repaymentScheduleRelatedLoanData.disbursementData();
             this.totalFeeChargesDueAtDisbursement = repaymentScheduleRelatedLoanData.getTotalFeeChargesAtDisbursement();
-            this.lastDueDate = disbursement.disbursementDate();
-            this.outstandingLoanPrincipalBalance = disbursement.amount();
+            this.includeDisbursementPeriod = includeDisbursementPeriod;
+            this.lastDueDate = lastDueDateBefore == null ? this.disbursement.disbursementDate() : lastDueDateBefore;
+            this.outstandingLoanPrincipalBalance = this.disbursement.amount().subtract(principalDueBefore);
+
+            this.monCurrency = new MonetaryCurrency(this.currency.code(), this.currency.decimalPlaces());
+            this.totalPrincipalExpected = Money.zero(this.monCurrency);
+            this.totalPrincipalPaid = Money.zero(this.monCurrency);
+            this.totalInterestCharged = Money.zero(this.monCurrency);
+            this.totalFeeChargesCharged = Money.zero(this.monCurrency);
+            this.totalPenaltyChargesCharged = Money.zero(this.monCurrency);
+            this.totalWaived = Money.zero(this.monCurrency);
+            this.totalWrittenOff = Money.zero(this.monCurrency);
+            this.totalRepaymentExpected = Money.zero(this.monCurrency);
+            this.totalRepayment = Money.zero(this.monCurrency);
+            this.totalOutstanding = Money.zero(this.monCurrency);
         }
 
         public String schema() {
@@ -533,120 +763,122 @@ public class LoanReadPlatformServiceImpl implements LoanReadPlatformService {
         @Override
         public LoanScheduleData extractData(final ResultSet rs) throws SQLException, DataAccessException {
 
-            final LoanSchedulePeriodData disbursementPeriod = LoanSchedulePeriodData.disbursementOnlyPeriod(
-                    this.disbursement.disbursementDate(), this.disbursement.amount(), this.totalFeeChargesDueAtDisbursement,
-                    this.disbursement.isDisbursed());
-
             final Collection<LoanSchedulePeriodData> periods = new ArrayList<LoanSchedulePeriodData>();
-            periods.add(disbursementPeriod);
-
-            final MonetaryCurrency monCurrency = new MonetaryCurrency(this.currency.code(), this.currency.decimalPlaces());
-            final BigDecimal totalPrincipalDisbursed = Money.of(monCurrency, this.disbursement.amount()).getAmount();
-            Money totalPrincipalExpected = Money.zero(monCurrency);
-            Money totalPrincipalPaid = Money.zero(monCurrency);
-            Money totalInterestCharged = Money.zero(monCurrency);
-            Money totalFeeChargesCharged = Money.zero(monCurrency);
-            Money totalPenaltyChargesCharged = Money.zero(monCurrency);
-            Money totalWaived = Money.zero(monCurrency);
-            Money totalWrittenOff = Money.zero(monCurrency);
-            Money totalRepaymentExpected = Money.zero(monCurrency);
-            Money totalRepayment = Money.zero(monCurrency);
-            Money totalOutstanding = Money.zero(monCurrency);
-
-            Integer loanTermInDays = Integer.valueOf(0);
-            while (rs.next()) {
-
-                final Long loanId = rs.getLong("loanId");
-                final Integer period = JdbcSupport.getInteger(rs, "period");
-                LocalDate fromDate = JdbcSupport.getLocalDate(rs, "fromDate");
-                final LocalDate dueDate = JdbcSupport.getLocalDate(rs, "dueDate");
-
-                Integer daysInPeriod = Integer.valueOf(0);
-                if (fromDate != null) {
-                    daysInPeriod = Days.daysBetween(fromDate, dueDate).getDays();
-                    loanTermInDays = Integer.valueOf(loanTermInDays.intValue() + daysInPeriod.intValue());
-                }
-
-                final BigDecimal principalDue = JdbcSupport.getBigDecimalDefaultToZeroIfNull(rs, "principalDue");
-                totalPrincipalExpected = totalPrincipalExpected.plus(principalDue);
-                final BigDecimal principalPaid = JdbcSupport.getBigDecimalDefaultToZeroIfNull(rs, "principalPaid");
-                totalPrincipalPaid = totalPrincipalPaid.plus(principalPaid);
-                final BigDecimal principalWrittenOff = JdbcSupport.getBigDecimalDefaultToZeroIfNull(rs, "principalWrittenOff");
-
-                final BigDecimal principalOutstanding = principalDue.subtract(principalPaid).subtract(principalWrittenOff);
-
-                final BigDecimal interestExpectedDue = JdbcSupport.getBigDecimalDefaultToZeroIfNull(rs, "interestDue");
-                totalInterestCharged = totalInterestCharged.plus(interestExpectedDue);
-                final BigDecimal interestPaid = JdbcSupport.getBigDecimalDefaultToZeroIfNull(rs, "interestPaid");
-                final BigDecimal interestWaived = JdbcSupport.getBigDecimalDefaultToZeroIfNull(rs, "interestWaived");
-                final BigDecimal interestWrittenOff = JdbcSupport.getBigDecimalDefaultToZeroIfNull(rs, "interestWrittenOff");
-
-                final BigDecimal interestActualDue = interestExpectedDue.subtract(interestWaived).subtract(interestWrittenOff);
-                final BigDecimal interestOutstanding = interestActualDue.subtract(interestPaid);
-
-                final BigDecimal feeChargesExpectedDue = JdbcSupport.getBigDecimalDefaultToZeroIfNull(rs, "feeChargesDue");
-                totalFeeChargesCharged = totalFeeChargesCharged.plus(feeChargesExpectedDue);
-                final BigDecimal feeChargesPaid = JdbcSupport.getBigDecimalDefaultToZeroIfNull(rs, "feeChargesPaid");
-                final BigDecimal feeChargesWaived = JdbcSupport.getBigDecimalDefaultToZeroIfNull(rs, "feeChargesWaived");
-                final BigDecimal feeChargesWrittenOff = JdbcSupport.getBigDecimalDefaultToZeroIfNull(rs, "feeChargesWrittenOff");
-
-                final BigDecimal feeChargesActualDue = feeChargesExpectedDue.subtract(feeChargesWaived).subtract(feeChargesWrittenOff);
-                final BigDecimal feeChargesOutstanding = feeChargesActualDue.subtract(feeChargesPaid);
-
-                final BigDecimal penaltyChargesExpectedDue = JdbcSupport.getBigDecimalDefaultToZeroIfNull(rs, "penaltyChargesDue");
-                totalPenaltyChargesCharged = totalPenaltyChargesCharged.plus(penaltyChargesExpectedDue);
-                final BigDecimal penaltyChargesPaid = JdbcSupport.getBigDecimalDefaultToZeroIfNull(rs, "penaltyChargesPaid");
-                final BigDecimal penaltyChargesWaived = JdbcSupport.getBigDecimalDefaultToZeroIfNull(rs, "penaltyChargesWaived");
-                final BigDecimal penaltyChargesWrittenOff = JdbcSupport.getBigDecimalDefaultToZeroIfNull(rs, "penaltyChargesWrittenOff");
-
-                final BigDecimal penaltyChargesActualDue = penaltyChargesExpectedDue.subtract(penaltyChargesWaived).subtract(
-                        penaltyChargesWrittenOff);
-                final BigDecimal penaltyChargesOutstanding = penaltyChargesActualDue.subtract(penaltyChargesPaid);
-
-                final BigDecimal totalExpectedCostOfLoanForPeriod = interestExpectedDue.add(feeChargesExpectedDue).add(
-                        penaltyChargesExpectedDue);
-
-                final BigDecimal totalDueForPeriod = principalDue.add(totalExpectedCostOfLoanForPeriod);
-                final BigDecimal totalPaidForPeriod = principalPaid.add(interestPaid).add(feeChargesPaid).add(penaltyChargesPaid);
-                final BigDecimal totalWaivedForPeriod = interestWaived.add(feeChargesWaived).add(penaltyChargesWaived);
-                totalWaived = totalWaived.plus(totalWaivedForPeriod);
-                final BigDecimal totalWrittenOffForPeriod = principalWrittenOff.add(interestWrittenOff).add(feeChargesWrittenOff)
-                        .add(penaltyChargesWrittenOff);
-                totalWrittenOff = totalWrittenOff.plus(totalWrittenOffForPeriod);
-                final BigDecimal totalOutstandingForPeriod = principalOutstanding.add(interestOutstanding).add(feeChargesOutstanding)
-                        .add(penaltyChargesOutstanding);
-
-                final BigDecimal totalActualCostOfLoanForPeriod = interestActualDue.add(feeChargesActualDue).add(penaltyChargesActualDue);
-
-                totalRepaymentExpected = totalRepaymentExpected.plus(totalDueForPeriod);
-                totalRepayment = totalRepayment.plus(totalPaidForPeriod);
-                totalOutstanding = totalOutstanding.plus(totalOutstandingForPeriod);
+            final LoanSchedulePeriodData disbursementPeriod = disbursementPeriod();
+            if (disbursementPeriod != null) {
+                periods.add(disbursementPeriod);
+            }
 
-                if (fromDate == null) {
-                    fromDate = this.lastDueDate;
-                }
-                final BigDecimal outstandingPrincipleBalanceOfLoan = outstandingLoanPrincipalBalance.subtract(principalDue);
+            while (rs.next()) {
+                periods.add(mapPeriod(rs));
+            }
 
-                // update based on current period values
-                this.lastDueDate = dueDate;
-                outstandingLoanPrincipalBalance = outstandingLoanPrincipalBalance.subtract(principalDue);
+            final BigDecimal totalPrincipalDisbursed = Money.of(this.monCurrency, this.disbursement.amount()).getAmount();
+            return new LoanScheduleData(this.currency, periods, this.loanTermInDays, totalPrincipalDisbursed,
+                    this.totalPrincipalExpected.getAmount(), this.totalPrincipalPaid.getAmount(), this.totalInterestCharged.getAmount(),
+                    this.totalFeeChargesCharged.getAmount(), this.totalPenaltyChargesCharged.getAmount(), this.totalWaived.getAmount(),
+                    this.totalWrittenOff.getAmount(), this.totalRepaymentExpected.getAmount(), this.totalRepayment.getAmount(),
+                    this.totalOutstanding.getAmount());
+        }
 
-                final LoanSchedulePeriodData periodData = LoanSchedulePeriodData.repaymentPeriodWithPayments(loanId, period, fromDate,
-                        dueDate, principalDue, principalPaid, principalWrittenOff, principalOutstanding, outstandingPrincipleBalanceOfLoan,
-                        interestExpectedDue, interestPaid, interestWaived, interestWrittenOff, interestOutstanding, feeChargesExpectedDue,
-                        feeChargesPaid, feeChargesWaived, feeChargesWrittenOff, feeChargesOutstanding, penaltyChargesExpectedDue,
-                        penaltyChargesPaid, penaltyChargesWaived, penaltyChargesWrittenOff, penaltyChargesOutstanding, totalDueForPeriod,
-                        totalPaidForPeriod, totalWaivedForPeriod, totalWrittenOffForPeriod, totalOutstandingForPeriod,
-                        totalActualCostOfLoanForPeriod);
+        /**
+         * @return the disbursement period or <code>null</code> when it is
+         *         filtered out.
+         */
+        public LoanSchedulePeriodData disbursementPeriod() {
+            if (!this.includeDisbursementPeriod) { return null; }
+            return LoanSchedulePeriodData.disbursementOnlyPeriod(this.disbursement.disbursementDate(), this.disbursement.amount(),
+                    this.totalFeeChargesDueAtDisbursement, this.disbursement.isDisbursed());
+        }
 
-                periods.add(periodData);
+        /**
+         * Maps the current row to a period, adding it to the totals and
+         * running balance.
+         */
+        public LoanSchedulePeriodData mapPeriod(final ResultSet rs) throws SQLException {
+
+            final Long loanId = rs.getLong("loanId");
+            final Integer period = JdbcSupport.getInteger(rs, "period");
+            LocalDate fromDate = JdbcSupport.getLocalDate(rs, "fromDate");
+            final LocalDate dueDate = JdbcSupport.getLocalDate(rs, "dueDate");
+
+            Integer daysInPeriod = Integer.valueOf(0);
+            if (fromDate != null) {
+                daysInPeriod = Days.daysBetween(fromDate, dueDate).getDays();
+                this.loanTermInDays = Integer.valueOf(this.loanTermInDays.intValue() + daysInPeriod.intValue());
             }
 
-            return new LoanScheduleData(this.currency, periods, loanTermInDays, totalPrincipalDisbursed,
-                    totalPrincipalExpected.getAmount(), totalPrincipalPaid.getAmount(), totalInterestCharged.getAmount(),
-                    totalFeeChargesCharged.getAmount(), totalPenaltyChargesCharged.getAmount(), totalWaived.getAmount(),
-                    totalWrittenOff.getAmount(), totalRepaymentExpected.getAmount(), totalRepayment.getAmount(),
-                    totalOutstanding.getAmount());
+            final BigDecimal principalDue = JdbcSupport.getBigDecimalDefaultToZeroIfNull(rs, "principalDue");
+            this.totalPrincipalExpected = this.totalPrincipalExpected.plus(principalDue);
+            final BigDecimal principalPaid = JdbcSupport.getBigDecimalDefaultToZeroIfNull(rs, "principalPaid");
+            this.totalPrincipalPaid = this.totalPrincipalPaid.plus(principalPaid);
+            final BigDecimal principalWrittenOff = JdbcSupport.getBigDecimalDefaultToZeroIfNull(rs, "principalWrittenOff");
+
+            final BigDecimal principalOutstanding = principalDue.subtract(principalPaid).subtract(principalWrittenOff);
+
+            final BigDecimal interestExpectedDue = JdbcSupport.getBigDecimalDefaultToZeroIfNull(rs, "interestDue");
+            this.totalInterestCharged = this.totalInterestCharged.plus(interestExpectedDue);
+            final BigDecimal interestPaid = JdbcSupport.getBigDecimalDefaultToZeroIfNull(rs, "interestPaid");
+            final BigDecimal interestWaived = JdbcSupport.getBigDecimalDefaultToZeroIfNull(rs, "interestWaived");
+            final BigDecimal interestWrittenOff = JdbcSupport.getBigDecimalDefaultToZeroIfNull(rs, "interestWrittenOff");
+
+            final BigDecimal interestActualDue = interestExpectedDue.subtract(interestWaived).subtract(interestWrittenOff);
+            final BigDecimal interestOutstanding = interestActualDue.subtract(interestPaid);
+
+            final BigDecimal feeChargesExpectedDue = JdbcSupport.getBigDecimalDefaultToZeroIfNull(rs, "feeChargesDue");
+            this.totalFeeChargesCharged = this.totalFeeChargesCharged.plus(feeChargesExpectedDue);
+            final BigDecimal feeChargesPaid = JdbcSupport.getBigDecimalDefaultToZeroIfNull(rs, "feeChargesPaid");
+            final BigDecimal feeChargesWaived = JdbcSupport.getBigDecimalDefaultToZeroIfNull(rs, "feeChargesWaived");
+            final BigDecimal feeChargesWrittenOff = JdbcSupport.getBigDecimalDefaultToZeroIfNull(rs, "feeChargesWrittenOff");
+
+            final BigDecimal feeChargesActualDue = feeChargesExpectedDue.subtract(feeChargesWaived).subtract(feeChargesWrittenOff);
+            final BigDecimal feeChargesOutstanding = feeChargesActualDue.subtract(feeChargesPaid);
+
+            final BigDecimal penaltyChargesExpectedDue = JdbcSupport.getBigDecimalDefaultToZeroIfNull(rs, "penaltyChargesDue");
+            this.totalPenaltyChargesCharged = this.totalPenaltyChargesCharged.plus(penaltyChargesExpectedDue);
+            final BigDecimal penaltyChargesPaid = JdbcSupport.getBigDecimalDefaultToZeroIfNull(rs, "penaltyChargesPaid");
+            final BigDecimal penaltyChargesWaived = JdbcSupport.getBigDecimalDefaultToZeroIfNull(rs, "penaltyChargesWaived");
+            final BigDecimal penaltyChargesWrittenOff = JdbcSupport.getBigDecimalDefaultToZeroIfNull(rs, "penaltyChargesWrittenOff");
+
+            final BigDecimal penaltyChargesActualDue = penaltyChargesExpectedDue.subtract(penaltyChargesWaived).subtract(
+                    penaltyChargesWrittenOff);
+            final BigDecimal penaltyChargesOutstanding = penaltyChargesActualDue.subtract(penaltyChargesPaid);
+
+            final BigDecimal totalExpectedCostOfLoanForPeriod = interestExpectedDue.add(feeChargesExpectedDue).add(
+                    penaltyChargesExpectedDue);
+
+            final BigDecimal totalDueForPeriod = principalDue.add(totalExpectedCostOfLoanForPeriod);
+            final BigDecimal totalPaidForPeriod = principalPaid.add(interestPaid).add(feeChargesPaid).add(penaltyChargesPaid);
+            final BigDecimal totalWaivedForPeriod = interestWaived.add(feeChargesWaived).add(penaltyChargesWaived);
+            this.totalWaived = this.totalWaived.plus(totalWaivedForPeriod);
+            final BigDecimal totalWrittenOffForPeriod = principalWrittenOff.add(interestWrittenOff).add(feeChargesWrittenOff)
+                    .add(penaltyChargesWrittenOff);
+            this.totalWrittenOff = this.totalWrittenOff.plus(totalWrittenOffForPeriod);
+            final BigDecimal totalOutstandingForPeriod = principalOutstanding.add(interestOutstanding).add(feeChargesOutstanding)
+                    .add(penaltyChargesOutstanding);
+
+            final BigDecimal totalActualCostOfLoanForPeriod = interestActualDue.add(feeChargesActualDue).add(penaltyChargesActualDue);
+
+            this.totalRepaymentExpected = this.totalRepaymentExpected.plus(totalDueForPeriod);
+            this.totalRepayment = this.totalRepayment.plus(totalPaidForPeriod);
+            this.totalOutstanding = this.totalOutstanding.plus(totalOutstandingForPeriod);
+
+            if (fromDate == null) {
+                fromDate = this.lastDueDate;
+            }
+            final BigDecimal outstandingPrincipleBalanceOfLoan = this.outstandingLoanPrincipalBalance.subtract(principalDue);
+
+            // update based on current period values
+            this.lastDueDate = dueDate;
+            this.outstandingLoanPrincipalBalance = this.outstandingLoanPrincipalBalance.subtract(principalDue);
+
+            return LoanSchedulePeriodData.repaymentPeriodWithPayments(loanId, period, fromDate,
+                    dueDate, principalDue, principalPaid, principalWrittenOff, principalOutstanding, outstandingPrincipleBalanceOfLoan,
+                    interestExpectedDue, interestPaid, interestWaived, interestWrittenOff, interestOutstanding, feeChargesExpectedDue,
+                    feeChargesPaid, feeChargesWaived, feeChargesWrittenOff, feeChargesOutstanding, penaltyChargesExpectedDue,
+                    penaltyChargesPaid, penaltyChargesWaived, penaltyChargesWrittenOff, penaltyChargesOutstanding, totalDueForPeriod,
+                    totalPaidForPeriod, totalWaivedForPeriod, totalWrittenOffForPeriod, totalOutstandingForPeriod,
+                    totalActualCostOfLoanForPeriod);
         }
     }
 
@@ -16,10 +16,14 @@ public interface LoanWritePlatformService {
 
     CommandProcessingResult makeLoanRepayment(Long loanId, JsonCommand command);
 
+    CommandProcessingResult validateLoanRepayment(Long loanId, JsonCommand command);
+
     CommandProcessingResult adjustLoanTransaction(Long loanId, Long transactionId, JsonCommand command);
 
     CommandProcessingResult waiveInterestOnLoan(Long loanId, JsonCommand command);
 
+    CommandProcessingResult validateInterestWaiverOnLoan(Long loanId, JsonCommand command);
+
     CommandProcessingResult writeOff(Long loanId, JsonCommand command);
 
     CommandProcessingResult closeLoan(Long loanId, JsonCommand command);
@@ -36,7 +40,5 @@ public interface LoanWritePlatformService {
 
     CommandProcessingResult loanReassignment(Long loanId, JsonCommand command);
 
-    CommandProcessingResult bulkLoanReassignment(JsonCommand command);
-
     CommandProcessingResult removeLoanOfficer(Long loanId, JsonCommand command);
 }
\ No newline at end of file
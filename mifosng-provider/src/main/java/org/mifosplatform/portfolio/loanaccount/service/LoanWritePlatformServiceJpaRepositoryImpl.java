@@ -30,6 +30,7 @@ import org.mifosplatform.portfolio.loanaccount.domain.DefaultLoanLifecycleStateM
 import org.mifosplatform.portfolio.loanaccount.domain.Loan;
 import org.mifosplatform.portfolio.loanaccount.domain.LoanCharge;
 import org.mifosplatform.portfolio.loanaccount.domain.LoanChargeRepository;
+import org.mifosplatform.portfolio.loanaccount.domain.LoanFetchPlan;
 import org.mifosplatform.portfolio.loanaccount.domain.LoanLifecycleStateMachine;
 import org.mifosplatform.portfolio.loanaccount.domain.LoanRepaymentScheduleTransactionProcessorFactory;
 import org.mifosplatform.portfolio.loanaccount.domain.LoanRepository;
@@ -105,7 +106,7 @@ public class LoanWritePlatformServiceJpaRepositoryImpl implements LoanWritePlatf
 
         this.loanEventApiJsonValidator.validateDisbursement(command.json());
 
-        final Loan loan = retrieveLoanBy(loanId);
+        final Loan loan = retrieveLoanBy(loanId, LoanFetchPlan.TRANSACTIONS);
 
         final ApplicationCurrency currency = this.applicationCurrencyRepository.findOneByCode(loan.getCurrencyCode());
 
@@ -142,7 +143,7 @@ public class LoanWritePlatformServiceJpaRepositoryImpl implements LoanWritePlatf
 
         context.authenticatedUser();
 
-        final Loan loan = retrieveLoanBy(loanId);
+        final Loan loan = retrieveLoanBy(loanId, LoanFetchPlan.TRANSACTIONS);
         final BigDecimal totalInterestCharged = loan.getSummary().getTotalInterestCharged(); 
 
         final List<Long> existingTransactionIds = new ArrayList<Long>();
@@ -196,7 +197,7 @@ public class LoanWritePlatformServiceJpaRepositoryImpl implements LoanWritePlatf
         changes.put("locale", command.locale());
         changes.put("dateFormat", command.dateFormat());
 
-        final Loan loan = retrieveLoanBy(loanId);
+        final Loan loan = retrieveLoanBy(loanId, LoanFetchPlan.TRANSACTIONS);
 
         final List<Long> existingTransactionIds = new ArrayList<Long>();
         final List<Long> existingReversedTransactionIds = new ArrayList<Long>();
@@ -226,6 +227,23 @@ public class LoanWritePlatformServiceJpaRepositoryImpl implements LoanWritePlatf
                 .build();
     }
 
+    @Transactional(readOnly = true)
+    @Override
+    public CommandProcessingResult validateLoanRepayment(final Long loanId, final JsonCommand command) {
+
+        context.authenticatedUser();
+
+        this.loanEventApiJsonValidator.validateTransaction(command.json());
+
+        final LocalDate transactionDate = command.localDateValueOfParameterNamed("transactionDate");
+        final BigDecimal transactionAmount = command.bigDecimalValueOfParameterNamed("transactionAmount");
+
+        final Loan loan = retrieveLoanBy(loanId, LoanFetchPlan.TRANSACTIONS);
+        loan.validateRepayment(transactionDate, transactionAmount, defaultLoanLifecycleStateMachine());
+
+        return loanTransactionValidationResult(loan, command);
+    }
+
     @Transactional
     @Override
     public CommandProcessingResult adjustLoanTransaction(final Long loanId, final Long transactionId, final JsonCommand command) {
@@ -234,7 +252,7 @@ public class LoanWritePlatformServiceJpaRepositoryImpl implements LoanWritePlatf
 
         this.loanEventApiJsonValidator.validateTransaction(command.json());
 
-        final Loan loan = retrieveLoanBy(loanId);
+        final Loan loan = retrieveLoanBy(loanId, LoanFetchPlan.TRANSACTIONS);
 
         final LoanTransaction transactionToAdjust = this.loanTransactionRepository.findOne(transactionId);
         if (transactionToAdjust == null) { throw new LoanTransactionNotFoundException(transactionId); }
@@ -294,7 +312,7 @@ public class LoanWritePlatformServiceJpaRepositoryImpl implements LoanWritePlatf
         changes.put("locale", command.locale());
         changes.put("dateFormat", command.dateFormat());
 
-        final Loan loan = retrieveLoanBy(loanId);
+        final Loan loan = retrieveLoanBy(loanId, LoanFetchPlan.TRANSACTIONS);
 
         final List<Long> existingTransactionIds = new ArrayList<Long>();
         final List<Long> existingReversedTransactionIds = new ArrayList<Long>();
@@ -324,6 +342,20 @@ public class LoanWritePlatformServiceJpaRepositoryImpl implements LoanWritePlatf
                 .build();
     }
 
+    @Transactional(readOnly = true)
+    @Override
+    public CommandProcessingResult validateInterestWaiverOnLoan(final Long loanId, final JsonCommand command) {
+
+        context.authenticatedUser();
+
+        this.loanEventApiJsonValidator.validateTransaction(command.json());
+
+        final Loan loan = retrieveLoanBy(loanId, LoanFetchPlan.TRANSACTIONS);
+        loan.validateInterestWaiver(command, defaultLoanLifecycleStateMachine());
+
+        return loanTransactionValidationResult(loan, command);
+    }
+
     @Transactional
     @Override
     public CommandProcessingResult writeOff(final Long loanId, final JsonCommand command) {
@@ -336,7 +368,7 @@ public class LoanWritePlatformServiceJpaRepositoryImpl implements LoanWritePlatf
         changes.put("locale", command.locale());
         changes.put("dateFormat", command.dateFormat());
 
-        final Loan loan = retrieveLoanBy(loanId);
+        final Loan loan = retrieveLoanBy(loanId, LoanFetchPlan.TRANSACTIONS);
 
         final List<Long> existingTransactionIds = new ArrayList<Long>();
         final List<Long> existingReversedTransactionIds = new ArrayList<Long>();
@@ -374,7 +406,7 @@ public class LoanWritePlatformServiceJpaRepositoryImpl implements LoanWritePlatf
 
         this.loanEventApiJsonValidator.validateTransactionWithNoAmount(command.json());
 
-        final Loan loan = retrieveLoanBy(loanId);
+        final Loan loan = retrieveLoanBy(loanId, LoanFetchPlan.TRANSACTIONS);
 
         final Map<String, Object> changes = new LinkedHashMap<String, Object>();
         changes.put("transactionDate", command.stringValueOfParameterNamed("transactionDate"));
@@ -436,7 +468,7 @@ public class LoanWritePlatformServiceJpaRepositoryImpl implements LoanWritePlatf
 
         this.loanEventApiJsonValidator.validateTransactionWithNoAmount(command.json());
 
-        final Loan loan = retrieveLoanBy(loanId);
+        final Loan loan = retrieveLoanBy(loanId, LoanFetchPlan.TRANSACTIONS);
 
         final Map<String, Object> changes = new LinkedHashMap<String, Object>();
         changes.put("transactionDate", command.stringValueOfParameterNamed("transactionDate"));
@@ -473,7 +505,7 @@ public class LoanWritePlatformServiceJpaRepositoryImpl implements LoanWritePlatf
 
         this.loanEventApiJsonValidator.validateAddLoanCharge(command.json());
 
-        final Loan loan = retrieveLoanBy(loanId);
+        final Loan loan = retrieveLoanBy(loanId, LoanFetchPlan.TRANSACTIONS);
 
         final Long chargeDefinitionId = command.longValueOfParameterNamed("chargeId");
         final Charge chargeDefinition = this.chargeRepository.findOneWithNotFoundDetection(chargeDefinitionId);
@@ -508,7 +540,7 @@ public class LoanWritePlatformServiceJpaRepositoryImpl implements LoanWritePlatf
 
         this.loanEventApiJsonValidator.validateUpdateOfLoanCharge(command.json());
 
-        final Loan loan = retrieveLoanBy(loanId);
+        final Loan loan = retrieveLoanBy(loanId, LoanFetchPlan.TRANSACTIONS);
         final LoanCharge loanCharge = retrieveLoanChargeBy(loanId, loanChargeId);
 
         final Map<String, Object> changes = loan.updateLoanCharge(loanCharge, command);
@@ -532,7 +564,7 @@ public class LoanWritePlatformServiceJpaRepositoryImpl implements LoanWritePlatf
 
         this.context.authenticatedUser();
 
-        final Loan loan = retrieveLoanBy(loanId);
+        final Loan loan = retrieveLoanBy(loanId, LoanFetchPlan.TRANSACTIONS);
         final LoanCharge loanCharge = retrieveLoanChargeBy(loanId, loanChargeId);
 
         final Map<String, Object> changes = new LinkedHashMap<String, Object>(3);
@@ -565,7 +597,7 @@ public class LoanWritePlatformServiceJpaRepositoryImpl implements LoanWritePlatf
 
         this.context.authenticatedUser();
 
-        final Loan loan = retrieveLoanBy(loanId);
+        final Loan loan = retrieveLoanBy(loanId, LoanFetchPlan.TRANSACTIONS);
         final LoanCharge loanCharge = retrieveLoanChargeBy(loanId, loanChargeId);
 
         loan.removeLoanCharge(loanCharge);
@@ -581,8 +613,35 @@ public class LoanWritePlatformServiceJpaRepositoryImpl implements LoanWritePlatf
                 .build();
     }
 
-    private Loan retrieveLoanBy(final Long loanId) {
-        final Loan loan = this.loanRepository.findOne(loanId);
+    /*
+     * same changes as recorded when the transaction is made so the approved
+     * command is identical to one made directly.
+     */
+    private CommandProcessingResult loanTransactionValidationResult(final Loan loan, final JsonCommand command) {
+
+        final Map<String, Object> changes = new LinkedHashMap<String, Object>();
+        changes.put("transactionDate", command.stringValueOfParameterNamed("transactionDate"));
+        changes.put("transactionAmount", command.stringValueOfParameterNamed("transactionAmount"));
+        changes.put("locale", command.locale());
+        changes.put("dateFormat", command.dateFormat());
+
+        final String noteText = command.stringValueOfParameterNamed("note");
+        if (StringUtils.isNotBlank(noteText)) {
+            changes.put("note", noteText);
+        }
+
+        return new CommandProcessingResultBuilder() //
+                .withCommandId(command.commandId()) //
+                .withOfficeId(loan.getOfficeId()) //
+                .withClientId(loan.getClientId()) //
+                .withGroupId(loan.getGroupId()) //
+                .withLoanId(loan.getId()) //
+                .with(changes) //
+                .build();
+    }
+
+    private Loan retrieveLoanBy(final Long loanId, final LoanFetchPlan fetchPlan) {
+        final Loan loan = this.loanRepository.findOneForUpdateWithFetchPlan(loanId, fetchPlan);
         if (loan == null) { throw new LoanNotFoundException(loanId); }
         loan.setHelpers(defaultLoanLifecycleStateMachine(), this.loanSummaryWrapper, this.loanRepaymentScheduleTransactionProcessorFactory);
         return loan;
@@ -609,7 +668,7 @@ public class LoanWritePlatformServiceJpaRepositoryImpl implements LoanWritePlatf
         final Staff toLoanOfficer = loanAssembler.findLoanOfficerByIdIfProvided(toLoanOfficerId);
         final LocalDate dateOfLoanOfficerAssignment = command.localDateValueOfParameterNamed("assignmentDate");
 
-        final Loan loan = retrieveLoanBy(loanId);
+        final Loan loan = retrieveLoanBy(loanId, LoanFetchPlan.LOAN_OFFICER_ASSIGNMENT);
 
         if (!loan.hasLoanOfficer(fromLoanOfficer)) { throw new LoanOfficerAssignmentException(loanId, fromLoanOfficerId); }
 
@@ -627,38 +686,6 @@ public class LoanWritePlatformServiceJpaRepositoryImpl implements LoanWritePlatf
                 .build();
     }
 
-    @Transactional
-    @Override
-    public CommandProcessingResult bulkLoanReassignment(final JsonCommand command) {
-
-        this.context.authenticatedUser();
-
-        final Long fromLoanOfficerId = command.longValueOfParameterNamed("fromLoanOfficerId");
-        final Long toLoanOfficerId = command.longValueOfParameterNamed("toLoanOfficerId");
-        final String[] loanIds = command.arrayValueOfParameterNamed("loans");
-
-        final LocalDate dateOfLoanOfficerAssignment = command.localDateValueOfParameterNamed("assignmentDate");
-
-        final Staff fromLoanOfficer = loanAssembler.findLoanOfficerByIdIfProvided(fromLoanOfficerId);
-        final Staff toLoanOfficer = loanAssembler.findLoanOfficerByIdIfProvided(toLoanOfficerId);
-
-        for (final String loanIdString : loanIds) {
-            final Long loanId = Long.valueOf(loanIdString);
-            final Loan loan = retrieveLoanBy(loanId);
-
-            if (!loan.hasLoanOfficer(fromLoanOfficer)) { throw new LoanOfficerAssignmentException(loanId, fromLoanOfficerId); }
-
-            loan.reassignLoanOfficer(toLoanOfficer, dateOfLoanOfficerAssignment);
-            this.loanRepository.save(loan);
-        }
-
-        this.loanRepository.flush();
-
-        return new CommandProcessingResultBuilder() //
-                .withCommandId(command.commandId()) //
-                .build();
-    }
-
     @Transactional
     @Override
     public CommandProcessingResult removeLoanOfficer(final Long loanId, final JsonCommand command) {
@@ -671,7 +698,7 @@ public class LoanWritePlatformServiceJpaRepositoryImpl implements LoanWritePlatf
 
         final LocalDate dateOfLoanOfficerunAssigned = command.localDateValueOfParameterNamed("unassignedDate");
 
-        final Loan loan = retrieveLoanBy(loanId);
+        final Loan loan = retrieveLoanBy(loanId, LoanFetchPlan.LOAN_OFFICER_ASSIGNMENT);
 
         if (loan.getLoanOfficer() == null) { throw new LoanOfficerUnassignmentException(loanId); }
 
@@ -1,5 +1,6 @@
 package org.mifosplatform.portfolio.savingsaccount.handler;
 
+import org.mifosplatform.commands.annotation.CommandType;
 import org.mifosplatform.commands.handler.NewCommandSourceHandler;
 import org.mifosplatform.infrastructure.core.api.JsonCommand;
 import org.mifosplatform.infrastructure.core.data.CommandProcessingResult;
@@ -8,6 +9,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 @Service
+@CommandType(entity = "SAVINGSACCOUNT", action = "DELETE")
 public class DeleteSavingAccountCommandHandler implements NewCommandSourceHandler {
 
 	private final SavingAccountWritePlatformService savingAccountWritePlatformService;
@@ -1,5 +1,6 @@
 package org.mifosplatform.portfolio.savingsdepositaccount.handler;
 
+import org.mifosplatform.commands.annotation.CommandType;
 import org.mifosplatform.commands.handler.NewCommandSourceHandler;
 import org.mifosplatform.infrastructure.core.api.JsonCommand;
 import org.mifosplatform.infrastructure.core.data.CommandProcessingResult;
@@ -7,7 +8,8 @@ import org.mifosplatform.portfolio.savingsdepositaccount.service.DepositAccountW
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-@Service 
+@Service
+@CommandType(entity = "DEPOSITACCOUNT", action = "CREATE")
 public class CreateDepositAccountCommandHandler implements NewCommandSourceHandler {
 	
 	private final DepositAccountWritePlatformService depositAccountWritePlatformService;
@@ -1,5 +1,6 @@
 package org.mifosplatform.portfolio.savingsdepositaccount.handler;
 
+import org.mifosplatform.commands.annotation.CommandType;
 import org.mifosplatform.commands.handler.NewCommandSourceHandler;
 import org.mifosplatform.infrastructure.core.api.JsonCommand;
 import org.mifosplatform.infrastructure.core.data.CommandProcessingResult;
@@ -8,6 +9,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 @Service
+@CommandType(entity = "DEPOSITACCOUNT", action = "DELETE")
 public class DeleteDepositAccountCommandHandler implements NewCommandSourceHandler {
 	
 	private final DepositAccountWritePlatformService depositAccountWritePlatformService;
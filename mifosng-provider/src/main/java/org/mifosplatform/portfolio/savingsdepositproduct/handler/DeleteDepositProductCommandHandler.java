@@ -1,5 +1,6 @@
 package org.mifosplatform.portfolio.savingsdepositproduct.handler;
 
+import org.mifosplatform.commands.annotation.CommandType;
 import org.mifosplatform.commands.handler.NewCommandSourceHandler;
 import org.mifosplatform.infrastructure.core.api.JsonCommand;
 import org.mifosplatform.infrastructure.core.data.CommandProcessingResult;
@@ -8,6 +9,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 @Service
+@CommandType(entity = "DEPOSITPRODUCT", action = "DELETE")
 public class DeleteDepositProductCommandHandler implements NewCommandSourceHandler {
 	
 	private final DepositProductWritePlatformService depositProductWritePlatformService;
@@ -7,6 +7,7 @@ package org.mifosplatform.useradministration.domain;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -21,6 +22,7 @@ import javax.persistence.JoinTable;
 import javax.persistence.ManyToMany;
 import javax.persistence.ManyToOne;
 import javax.persistence.Table;
+import javax.persistence.Transient;
 import javax.persistence.UniqueConstraint;
 
 import org.apache.commons.lang.StringUtils;
@@ -42,6 +44,8 @@ public class AppUser extends AbstractPersistable<Long> implements PlatformUser {
 
     private final static Logger logger = LoggerFactory.getLogger(AppUser.class);
 
+    private static final String ALL_FUNCTIONS = "ALL_FUNCTIONS";
+
     @Column(name = "email", nullable = false, length = 100)
     private String email;
 
@@ -84,6 +88,9 @@ public class AppUser extends AbstractPersistable<Long> implements PlatformUser {
     @JoinTable(name = "m_appuser_role", joinColumns = @JoinColumn(name = "appuser_id"), inverseJoinColumns = @JoinColumn(name = "role_id"))
     private Set<Role> roles;
 
+    @Transient
+    private transient volatile Set<String> effectivePermissionCodes;
+
     public static AppUser fromJson(final Office userOffice, final Set<Role> allRoles, final JsonCommand command) {
 
         final String username = command.stringValueOfParameterNamed("username");
@@ -145,6 +152,7 @@ public class AppUser extends AbstractPersistable<Long> implements PlatformUser {
         if (!allRoles.isEmpty()) {
             this.roles.clear();
             this.roles = allRoles;
+            this.effectivePermissionCodes = null;
         }
     }
 
@@ -379,27 +387,29 @@ public class AppUser extends AbstractPersistable<Long> implements PlatformUser {
     }
 
     private boolean hasPermissionTo(final String permissionCode) {
-        boolean hasPermission = hasAllFunctionsPermission();
-        if (!hasPermission) {
-            for (Role role : this.roles) {
-                if (role.hasPermissionTo(permissionCode)) {
-                    hasPermission = true;
-                    break;
-                }
-            }
-        }
-        return hasPermission;
+        final Set<String> effectivePermissions = effectivePermissionCodes();
+        return effectivePermissions.contains(ALL_FUNCTIONS) || effectivePermissions.contains(permissionCode.toUpperCase());
     }
 
-    private boolean hasAllFunctionsPermission() {
-        boolean match = false;
-        for (Role role : this.roles) {
-            if (role.hasPermissionTo("ALL_FUNCTIONS")) {
-                match = true;
-                break;
+    /*
+     * the permission codes of all roles are flattened once into a hash set so
+     * permission checks are constant time instead of a scan over every
+     * permission of every role. Codes are compared case-insensitively so are
+     * stored upper-cased.
+     */
+    private Set<String> effectivePermissionCodes() {
+        Set<String> codes = this.effectivePermissionCodes;
+        if (codes == null) {
+            codes = new HashSet<String>();
+            for (final Role role : this.roles) {
+                for (final Permission permission : role.getPermissions()) {
+                    codes.add(permission.getCode().toUpperCase());
+                }
             }
+            codes = Collections.unmodifiableSet(codes);
+            this.effectivePermissionCodes = codes;
         }
-        return match;
+        return codes;
     }
 
     public boolean hasIdOf(final Long userId) {
@@ -40,6 +40,18 @@ public class Permission extends AbstractPersistable<Long> {
         this.canMakerChecker = false;
     }
 
+    /**
+     * Permissions are only created through m_permission, this is for fixtures
+     * such as the benchmarks in this package.
+     */
+    Permission(final String grouping, final String entityName, final String actionName) {
+        this.grouping = grouping;
+        this.entityName = entityName;
+        this.actionName = actionName;
+        this.code = actionName + "_" + entityName;
+        this.canMakerChecker = false;
+    }
+
     public boolean hasCode(final String checkCode) {
         return this.code.equalsIgnoreCase(checkCode);
     }
@@ -9,10 +9,12 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.mifosplatform.infrastructure.configuration.domain.ConfigurationDomainService;
 import org.mifosplatform.infrastructure.core.api.JsonCommand;
 import org.mifosplatform.infrastructure.core.data.CommandProcessingResult;
 import org.mifosplatform.infrastructure.core.data.CommandProcessingResultBuilder;
 import org.mifosplatform.infrastructure.security.service.PlatformSecurityContext;
+import org.mifosplatform.infrastructure.security.service.PlatformUserCache;
 import org.mifosplatform.useradministration.command.PermissionsCommand;
 import org.mifosplatform.useradministration.domain.Permission;
 import org.mifosplatform.useradministration.domain.PermissionRepository;
@@ -28,14 +30,19 @@ public class PermissionWritePlatformServiceJpaRepositoryImpl implements Permissi
     private final PlatformSecurityContext context;
     private final PermissionRepository permissionRepository;
     private final PermissionsCommandFromApiJsonDeserializer fromApiJsonDeserializer;
+    private final PlatformUserCache platformUserCache;
+    private final ConfigurationDomainService configurationDomainService;
 
     @Autowired
     public PermissionWritePlatformServiceJpaRepositoryImpl(final PlatformSecurityContext context,
             final PermissionRepository permissionRepository,
-            final PermissionsCommandFromApiJsonDeserializer fromApiJsonDeserializer) {
+            final PermissionsCommandFromApiJsonDeserializer fromApiJsonDeserializer, final PlatformUserCache platformUserCache,
+            final ConfigurationDomainService configurationDomainService) {
         this.context = context;
         this.permissionRepository = permissionRepository;
         this.fromApiJsonDeserializer = fromApiJsonDeserializer;
+        this.platformUserCache = platformUserCache;
+        this.configurationDomainService = configurationDomainService;
     }
 
     @Transactional
@@ -67,6 +74,8 @@ public class PermissionWritePlatformServiceJpaRepositoryImpl implements Permissi
         
         if (!changedPermissions.isEmpty()) {
             changes.put("permissions", changedPermissions);
+            this.platformUserCache.invalidateAllUsers();
+            this.configurationDomainService.invalidateConfiguration();
         }
 
         return new CommandProcessingResultBuilder().withCommandId(command.commandId()).with(changes).build();
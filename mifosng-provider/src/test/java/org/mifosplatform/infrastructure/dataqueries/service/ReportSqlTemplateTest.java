@@ -0,0 +1,150 @@
+package org.mifosplatform.infrastructure.dataqueries.service;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mifosplatform.infrastructure.core.exception.PlatformDataIntegrityException;
+import org.mifosplatform.infrastructure.dataqueries.service.ReportSqlTemplate.BoundReportSql;
+
+/**
+ * The shapes of placeholder found in the stretchy reports shipped in
+ * mifosng-db are bound as parameters, and SQL that cannot be bound has values
+ * substituted into its text.
+ */
+public class ReportSqlTemplateTest {
+
+    private final Map<String, String> values = new HashMap<String, String>();
+
+    @Before
+    public void setUp() {
+        this.values.put("${officeId}", "1");
+        this.values.put("${currencyId}", "USD");
+        this.values.put("${parType}", "1");
+        this.values.put("${startDate}", "2013-01-01");
+        this.values.put("${endDate}", "2013-03-31");
+        this.values.put("${currentUserHierarchy}", ".1.");
+    }
+
+    @Test
+    public void quotedPlaceholderShouldBeBoundAsString() {
+        final BoundReportSql bound = bind("select l.id from m_loan l\r\nwhere o.id = ${officeId}\r\n"
+                + "and (l.currency_code = \"${currencyId}\" or \"-1\" = \"${currencyId}\")");
+
+        assertEquals(wrapped("select l.id from m_loan l\r\nwhere o.id = ?\r\nand (l.currency_code = ? or \"-1\" = ?)"), bound.getSql());
+        assertArrayEquals(new Object[] { new BigDecimal("1"), "USD", "USD" }, bound.getParams());
+    }
+
+    @Test
+    public void allCurrenciesShouldBeBoundAsString() {
+        this.values.put("${currencyId}", "-1");
+
+        final BoundReportSql bound = bind("select l.id from m_loan l where (l.currency_code = \"${currencyId}\" or \"-1\" = \"${currencyId}\")");
+
+        assertArrayEquals(new Object[] { "-1", "-1" }, bound.getParams());
+    }
+
+    @Test
+    public void barePlaceholderShouldBeBoundAsNumberWhenNumeric() {
+        final BoundReportSql bound = bind("select (case\r\n\twhen ${parType} = 1 then x.principal_overdue\r\n\telse 0 end) as par from x");
+
+        assertEquals(wrapped("select (case\r\n\twhen ? = 1 then x.principal_overdue\r\n\telse 0 end) as par from x"), bound.getSql());
+        assertArrayEquals(new Object[] { new BigDecimal("1") }, bound.getParams());
+    }
+
+    @Test
+    public void barePlaceholderShouldBeBoundAsStringWhenNotNumeric() {
+        this.values.put("${parType}", "1 or 1 = 1");
+
+        final BoundReportSql bound = bind("select x.id from x where ${parType} = 1");
+
+        assertArrayEquals(new Object[] { "1 or 1 = 1" }, bound.getParams());
+    }
+
+    @Test
+    public void datesBetweenQuotesShouldBeBoundAsStrings() {
+        final BoundReportSql bound = bind("select lt.id from m_loan_transaction lt\r\n"
+                + "where lt.transaction_date between '${startDate}' and '${endDate}'");
+
+        assertEquals(wrapped("select lt.id from m_loan_transaction lt\r\nwhere lt.transaction_date between ? and ?"), bound.getSql());
+        assertArrayEquals(new Object[] { "2013-01-01", "2013-03-31" }, bound.getParams());
+    }
+
+    @Test
+    public void hierarchyConcatenatedWithWildcardShouldBeBoundAsString() {
+        final BoundReportSql bound = bind("select c.id from m_office o\r\n"
+                + "join m_office ounder on ounder.hierarchy like concat(o.hierarchy, '%')\r\n"
+                + "and ounder.hierarchy like concat('${currentUserHierarchy}', '%')\r\njoin m_client c on c.office_id = ounder.id");
+
+        assertEquals(wrapped("select c.id from m_office o\r\njoin m_office ounder on ounder.hierarchy like concat(o.hierarchy, '%')\r\n"
+                + "and ounder.hierarchy like concat(?, '%')\r\njoin m_client c on c.office_id = ounder.id"), bound.getSql());
+        assertArrayEquals(new Object[] { ".1." }, bound.getParams());
+    }
+
+    @Test
+    public void placeholderWithinLongerLiteralShouldBeBoundThroughConcat() {
+        final BoundReportSql bound = bind("select o.id from m_office o where o.hierarchy like '${currentUserHierarchy}%'");
+
+        assertEquals(wrapped("select o.id from m_office o where o.hierarchy like concat(?, '%')"), bound.getSql());
+        assertArrayEquals(new Object[] { ".1." }, bound.getParams());
+    }
+
+    @Test
+    public void placeholderInBacktickIdentifierShouldFallBackToSubstitution() {
+        final BoundReportSql bound = bind("select x.`Office ${officeId}` from x where x.currency = \"${currencyId}\"");
+
+        assertEquals(wrapped("select x.`Office 1` from x where x.currency = \"USD\""), bound.getSql());
+        assertEquals(0, bound.getParams().length);
+    }
+
+    @Test
+    public void placeholdersInCommentsShouldBeLeftAlone() {
+        final BoundReportSql bound = bind("select ml.id from m_loan ml\r\n"
+                + "where ml.loan_status_id = 300 /* active, not ${officeId} */\r\n" //
+                + "-- office is ${officeId}\r\n" //
+                + "# currency is ${currencyId}\r\n" //
+                + "and ml.office_id = ${officeId}");
+
+        assertEquals(wrapped("select ml.id from m_loan ml\r\nwhere ml.loan_status_id = 300 /* active, not ${officeId} */\r\n"
+                + "-- office is ${officeId}\r\n# currency is ${currencyId}\r\nand ml.office_id = ?"), bound.getSql());
+        assertArrayEquals(new Object[] { new BigDecimal("1") }, bound.getParams());
+    }
+
+    @Test
+    public void missingParameterShouldBeReported() {
+        this.values.remove("${endDate}");
+
+        try {
+            bind("select lt.id from m_loan_transaction lt where lt.transaction_date between '${startDate}' and '${endDate}'");
+            fail("missing parameter not reported");
+        } catch (final PlatformDataIntegrityException e) {
+            assertEquals("error.msg.reporting.parameter.missing", e.getGlobalisationMessageCode());
+            assertTrue(e.getDefaultUserMessage().contains("${endDate}"));
+        }
+    }
+
+    @Test
+    public void placeholderShouldOnlyBeReferencedOutsideOfComments() {
+        assertTrue(ReportSqlTemplate.parse("select r.id from stretchy_report r where ur.appuser_id = ${currentUserId}").references(
+                "${currentUserId}"));
+        assertFalse(ReportSqlTemplate.parse("select r.id from stretchy_report r /* not by ${currentUserId} */").references(
+                "${currentUserId}"));
+        assertTrue(ReportSqlTemplate.parse("select x.`${currentUserId}` from x").references("${currentUserId}"));
+    }
+
+    private BoundReportSql bind(final String reportSql) {
+        return ReportSqlTemplate.parse(reportSql).bind(this.values);
+    }
+
+    private static String wrapped(final String sql) {
+        return "select x.* from (" + sql + ") x";
+    }
+}
@@ -0,0 +1,185 @@
+package org.mifosplatform.portfolio.loanaccount;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyList;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import org.joda.time.LocalDate;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mifosplatform.accounting.journalentry.service.JournalEntryWritePlatformService;
+import org.mifosplatform.infrastructure.core.api.JsonCommand;
+import org.mifosplatform.infrastructure.core.data.CommandProcessingResult;
+import org.mifosplatform.infrastructure.core.serialization.FromJsonHelper;
+import org.mifosplatform.infrastructure.core.service.TenantAwareRoutingDataSource;
+import org.mifosplatform.infrastructure.security.service.PlatformSecurityContext;
+import org.mifosplatform.organisation.monetary.domain.ApplicationCurrency;
+import org.mifosplatform.organisation.monetary.domain.ApplicationCurrencyRepository;
+import org.mifosplatform.portfolio.loanaccount.domain.Loan;
+import org.mifosplatform.portfolio.loanaccount.domain.LoanFetchPlan;
+import org.mifosplatform.portfolio.loanaccount.domain.LoanLifecycleStateMachine;
+import org.mifosplatform.portfolio.loanaccount.domain.LoanRepaymentScheduleTransactionProcessorFactory;
+import org.mifosplatform.portfolio.loanaccount.domain.LoanRepository;
+import org.mifosplatform.portfolio.loanaccount.domain.LoanSummaryWrapper;
+import org.mifosplatform.portfolio.loanaccount.domain.LoanTransactionRepository;
+import org.mifosplatform.portfolio.loanaccount.exception.InvalidLoanStateTransitionException;
+import org.mifosplatform.portfolio.loanaccount.serialization.LoanEventApiJsonValidator;
+import org.mifosplatform.portfolio.loanaccount.service.LoanBulkRepaymentWritePlatformServiceImpl;
+import org.mifosplatform.useradministration.domain.AppUser;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+/**
+ * Each repayment of a collection sheet succeeds or fails on its own: invalid
+ * repayments, repayments on loans that do not exist or cannot take a
+ * repayment, and repayments on a loan that fails part way through a chunk are
+ * reported as failed without failing the others.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class LoanBulkRepaymentWritePlatformServiceImplTest {
+
+    private static final String GENERIC_FAILURE = "error.msg.loan.bulk.repayment.failed";
+
+    @Mock
+    private PlatformSecurityContext context;
+    @Mock
+    private LoanRepository loanRepository;
+    @Mock
+    private LoanTransactionRepository loanTransactionRepository;
+    @Mock
+    private ApplicationCurrencyRepository applicationCurrencyRepository;
+    @Mock
+    private JournalEntryWritePlatformService journalEntryWritePlatformService;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @Mock
+    private TenantAwareRoutingDataSource dataSource;
+    @Mock
+    private AppUser currentUser;
+
+    @Mock
+    private Loan activeLoan;
+    @Mock
+    private Loan closedLoan;
+    @Mock
+    private Loan failingLoan;
+
+    private final FromJsonHelper fromJsonHelper = new FromJsonHelper();
+    private final InvalidLoanStateTransitionException notAllowed = new InvalidLoanStateTransitionException("transaction",
+            "not.allowed.in.current.status", "A repayment or waiver cannot be made on a loan with status loanStatusType.closed.");
+
+    private LoanBulkRepaymentWritePlatformServiceImpl service;
+
+    @Before
+    public void setUp() {
+        when(this.context.authenticatedUser()).thenReturn(this.currentUser);
+        when(this.applicationCurrencyRepository.findOneByCode(anyString())).thenReturn(mock(ApplicationCurrency.class));
+
+        when(this.loanRepository.findOneForUpdateWithFetchPlan(1L, LoanFetchPlan.TRANSACTIONS)).thenReturn(this.activeLoan);
+        when(this.loanRepository.findOneForUpdateWithFetchPlan(2L, LoanFetchPlan.TRANSACTIONS)).thenReturn(this.closedLoan);
+        when(this.loanRepository.findOneForUpdateWithFetchPlan(4L, LoanFetchPlan.TRANSACTIONS)).thenReturn(this.failingLoan);
+
+        when(
+                this.activeLoan.makeRepayment(any(LocalDate.class), any(BigDecimal.class), any(LoanLifecycleStateMachine.class),
+                        anyListOf(Long.class), anyListOf(Long.class))).thenReturn(
+                new LoanTransactionBuilder().repayment().with(new LocalDate(2013, 3, 2)).build());
+        doThrow(this.notAllowed).when(this.closedLoan).validateRepayment(any(LocalDate.class), any(BigDecimal.class),
+                any(LoanLifecycleStateMachine.class));
+        when(
+                this.failingLoan.makeRepayment(any(LocalDate.class), any(BigDecimal.class), any(LoanLifecycleStateMachine.class),
+                        anyListOf(Long.class), anyListOf(Long.class))).thenThrow(new IllegalStateException("schedule out of step"));
+
+        this.service = new LoanBulkRepaymentWritePlatformServiceImpl(this.context, new LoanEventApiJsonValidator(this.fromJsonHelper),
+                this.fromJsonHelper, this.loanRepository, this.loanTransactionRepository, this.applicationCurrencyRepository,
+                this.journalEntryWritePlatformService, mock(LoanSummaryWrapper.class),
+                mock(LoanRepaymentScheduleTransactionProcessorFactory.class), this.transactionManager, this.dataSource);
+    }
+
+    @Test
+    public void eachRepaymentShouldSucceedOrFailOnItsOwn() {
+
+        final CommandProcessingResult result = this.service.makeBulkLoanRepayment(command());
+
+        final Map<String, Object> changes = result.getChanges();
+        assertEquals(1, changes.get("successCount"));
+        assertEquals(4, changes.get("failureCount"));
+
+        final List<Map<String, Object>> repayments = repaymentsOf(result);
+        assertSucceeded(repayments.get(0), 1L);
+        assertFailed(repayments.get(1), null, "validation.msg.loan.transaction.transactionAmount.not.greater.than.zero");
+        assertFailed(repayments.get(2), 2L, this.notAllowed.getGlobalisationMessageCode());
+        assertFailed(repayments.get(3), 3L, "error.msg.loan.id.invalid");
+        assertFailed(repayments.get(4), 4L, GENERIC_FAILURE);
+
+        // the loan that cannot take a repayment is left alone. The chunk that
+        // failed on loan 4 is rolled back and retried one loan at a time, so
+        // loan 1 is saved again in a transaction of its own
+        verify(this.closedLoan, never()).makeRepayment(any(LocalDate.class), any(BigDecimal.class),
+                any(LoanLifecycleStateMachine.class), anyListOf(Long.class), anyListOf(Long.class));
+        verify(this.loanRepository, never()).save(this.closedLoan);
+        verify(this.loanRepository, times(2)).save(this.activeLoan);
+        verify(this.loanRepository, never()).save(this.failingLoan);
+        verify(this.transactionManager, times(2)).rollback(any(TransactionStatus.class));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void validatingShouldLeaveTheSheetAsTheCommandAwaitingApproval() {
+
+        final CommandProcessingResult result = this.service.validateBulkLoanRepayment(command());
+
+        // changes would be stored in place of the sheet
+        assertFalse(result.hasChanges());
+
+        verify(this.loanRepository, never()).findOneForUpdateWithFetchPlan(any(Long.class), any(LoanFetchPlan.class));
+        verify(this.loanRepository, never()).save(any(Loan.class));
+        verify(this.journalEntryWritePlatformService, never()).createJournalEntriesForLoans(anyList(), eq(this.currentUser));
+    }
+
+    private JsonCommand command() {
+        final String json = "{\"transactionDate\":\"02 March 2013\",\"dateFormat\":\"dd MMMM yyyy\",\"locale\":\"en\",\"repayments\":["
+                + "{\"loanId\":1,\"transactionAmount\":100}," //
+                + "{\"loanId\":1,\"transactionAmount\":-5}," //
+                + "{\"loanId\":2,\"transactionAmount\":100}," //
+                + "{\"loanId\":3,\"transactionAmount\":100}," //
+                + "{\"loanId\":4,\"transactionAmount\":100,\"transactionDate\":\"01 March 2013\"}]}";
+        return JsonCommand.from(json, this.fromJsonHelper.parse(json), this.fromJsonHelper, "LOAN", null, null, null, null, null, null,
+                null, null, null, null);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Map<String, Object>> repaymentsOf(final CommandProcessingResult result) {
+        return (List<Map<String, Object>>) result.getChanges().get("repayments");
+    }
+
+    private void assertSucceeded(final Map<String, Object> repayment, final Long loanId) {
+        assertEquals(loanId, repayment.get("loanId"));
+        assertTrue(repayment.containsKey("transactionId"));
+        assertFalse(repayment.containsKey("userMessageGlobalisationCode"));
+    }
+
+    private void assertFailed(final Map<String, Object> repayment, final Long loanId, final String globalisationMessageCode) {
+        assertEquals(loanId, repayment.get("loanId"));
+        assertNull(repayment.get("transactionId"));
+        assertEquals(globalisationMessageCode, repayment.get("userMessageGlobalisationCode"));
+    }
+}
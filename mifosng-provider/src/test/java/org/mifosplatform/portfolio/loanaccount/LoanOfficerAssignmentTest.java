@@ -0,0 +1,221 @@
+package org.mifosplatform.portfolio.loanaccount;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.joda.time.LocalDate;
+import org.junit.Test;
+import org.mifosplatform.infrastructure.core.exception.AbstractPlatformDomainRuleException;
+import org.mifosplatform.organisation.staff.domain.Staff;
+import org.mifosplatform.portfolio.loanaccount.domain.Loan;
+import org.mifosplatform.portfolio.loanaccount.domain.LoanOfficerAssignmentHistory;
+import org.mifosplatform.portfolio.loanaccount.domain.LoanStatus;
+import org.mifosplatform.portfolio.loanaccount.service.LoanOfficerAssignment;
+import org.mifosplatform.portfolio.loanaccount.service.LoanOfficerAssignment.HistoryRecord;
+import org.springframework.data.jpa.domain.AbstractPersistable;
+
+/**
+ * Property: reassigning a loan officer with {@link LoanOfficerAssignment}, as
+ * the bulk reassignment does, changes the loan officer and assignment history
+ * exactly as {@link Loan#reassignLoanOfficer(Staff, LocalDate)} changes those
+ * of the entity, and rejects the same assignments with the same error.
+ *
+ * Checked against randomly generated assignment histories and assignment
+ * dates, including dates before submittal, before an earlier assignment and
+ * in the future.
+ */
+public class LoanOfficerAssignmentTest {
+
+    private static final long SEED = 20130401L;
+    private static final int NUMBER_OF_HISTORIES = 2000;
+    private static final int NUMBER_OF_LOAN_OFFICERS = 4;
+
+    private final LocalDate today = new LocalDate();
+
+    @Test
+    public void reassigningShouldMatchReassigningTheLoanEntity() throws Exception {
+
+        final Random random = new Random(SEED);
+        final List<Staff> loanOfficers = new ArrayList<Staff>();
+        for (long id = 1; id <= NUMBER_OF_LOAN_OFFICERS; id++) {
+            loanOfficers.add(staff(id));
+        }
+
+        for (int history = 0; history < NUMBER_OF_HISTORIES; history++) {
+            final Long loanId = Long.valueOf(history + 1);
+            final Integer statusId = random.nextInt(4) == 0 ? LoanStatus.SUBMITED_AND_PENDING_APPROVAL.getValue() : LoanStatus.ACTIVE
+                    .getValue();
+            final LocalDate submittedOnDate = this.today.minusDays(30 + random.nextInt(400));
+
+            final Loan loan = loan(loanId, statusId, submittedOnDate);
+            final Set<LoanOfficerAssignmentHistory> loanOfficerHistory = new LinkedHashSet<LoanOfficerAssignmentHistory>();
+
+            // consecutive assignments, the last one possibly still current
+            Staff loanOfficer = null;
+            LocalDate startDate = submittedOnDate.plusDays(random.nextInt(10));
+            final int numberOfRecords = random.nextInt(5);
+            for (int record = 0; record < numberOfRecords && !startDate.isAfter(this.today); record++) {
+                final Long recordId = Long.valueOf(record + 1);
+                final Staff recordLoanOfficer = loanOfficers.get(random.nextInt(loanOfficers.size()));
+                LocalDate endDate = startDate.plusDays(random.nextInt(60));
+                final boolean isCurrent = record == numberOfRecords - 1 && random.nextBoolean() || endDate.isAfter(this.today);
+                if (isCurrent) {
+                    endDate = null;
+                }
+
+                final LoanOfficerAssignmentHistory historyRecord = LoanOfficerAssignmentHistory.createNew(loan, recordLoanOfficer,
+                        startDate);
+                setId(historyRecord, recordId);
+                if (endDate != null) {
+                    historyRecord.updateEndDate(endDate);
+                }
+                loanOfficerHistory.add(historyRecord);
+
+                if (endDate == null) {
+                    loanOfficer = recordLoanOfficer;
+                    break;
+                }
+                startDate = endDate.plusDays(random.nextInt(3));
+            }
+
+            // a loan with no current assignment may still have a loan officer
+            if (loanOfficer == null && random.nextBoolean()) {
+                loanOfficer = loanOfficers.get(random.nextInt(loanOfficers.size()));
+            }
+            set(loan, "loanOfficer", loanOfficer);
+            set(loan, "loanOfficerHistory", loanOfficerHistory);
+            final LoanOfficerAssignment assignment = assignmentOf(loan, submittedOnDate, statusId);
+
+            final Staff newLoanOfficer = loanOfficers.get(random.nextInt(loanOfficers.size()));
+            final LocalDate assignmentDate = submittedOnDate.plusDays(random.nextInt(500) - 10);
+
+            String entityError = null;
+            try {
+                loan.reassignLoanOfficer(newLoanOfficer, assignmentDate);
+            } catch (final AbstractPlatformDomainRuleException e) {
+                entityError = e.getGlobalisationMessageCode();
+            }
+            String assignmentError = null;
+            try {
+                assignment.reassignLoanOfficer(newLoanOfficer, assignmentDate, this.today);
+            } catch (final AbstractPlatformDomainRuleException e) {
+                assignmentError = e.getGlobalisationMessageCode();
+            }
+
+            final String context = "history " + history + " reassigned to " + newLoanOfficer.getId() + " on " + assignmentDate;
+            assertEquals(context, entityError, assignmentError);
+            if (entityError == null) {
+                assertSameAssignment(context, loan, assignment);
+            }
+        }
+    }
+
+    @Test
+    public void loanLeftWithNewLoanOfficerShouldCountAsReassigned() throws Exception {
+
+        final Staff from = staff(1L);
+        final Staff to = staff(2L);
+        final LocalDate assignmentDate = this.today.minusDays(5);
+
+        final LoanOfficerAssignment active = new LoanOfficerAssignment(1L, from.getId(), this.today.minusDays(100),
+                LoanStatus.ACTIVE.getValue());
+        active.addHistoryRecord(1L, from.getId(), this.today.minusDays(100), null);
+        assertFalse(active.isReassignedTo(to, assignmentDate));
+
+        active.reassignLoanOfficer(to, assignmentDate, this.today);
+        assertTrue(active.isReassignedTo(to, assignmentDate));
+        assertFalse(active.isReassignedTo(to, assignmentDate.minusDays(1)));
+        assertFalse(active.isReassignedTo(from, assignmentDate));
+
+        final LoanOfficerAssignment pending = new LoanOfficerAssignment(2L, from.getId(), this.today.minusDays(10),
+                LoanStatus.SUBMITED_AND_PENDING_APPROVAL.getValue());
+        pending.reassignLoanOfficer(to, assignmentDate, this.today);
+        assertTrue(pending.isReassignedTo(to, assignmentDate));
+    }
+
+    private void assertSameAssignment(final String context, final Loan loan, final LoanOfficerAssignment assignment) throws Exception {
+
+        final Staff loanOfficer = (Staff) get(loan, "loanOfficer");
+        assertEquals(context, loanOfficer == null ? null : loanOfficer.getId(), assignment.getLoanOfficerId());
+
+        @SuppressWarnings("unchecked")
+        final Set<LoanOfficerAssignmentHistory> loanOfficerHistory = (Set<LoanOfficerAssignmentHistory>) get(loan, "loanOfficerHistory");
+        assertEquals(context, loanOfficerHistory.size(), assignment.getHistory().size());
+
+        final Iterator<HistoryRecord> records = assignment.getHistory().iterator();
+        for (final LoanOfficerAssignmentHistory historyRecord : loanOfficerHistory) {
+            final HistoryRecord record = records.next();
+            assertEquals(context, historyRecord.getId(), record.getId());
+            assertEquals(context, ((Staff) get(historyRecord, "loanOfficer")).getId(), record.getLoanOfficerId());
+            assertEquals(context, historyRecord.getStartDate(), record.getStartDate());
+            final Date endDate = (Date) get(historyRecord, "endDate");
+            assertEquals(context, endDate == null ? null : new LocalDate(endDate), record.getEndDate());
+        }
+    }
+
+    /*
+     * as the bulk reassignment reads the loan and its history
+     */
+    private static LoanOfficerAssignment assignmentOf(final Loan loan, final LocalDate submittedOnDate, final Integer statusId)
+            throws Exception {
+        final Staff loanOfficer = (Staff) get(loan, "loanOfficer");
+        final LoanOfficerAssignment assignment = new LoanOfficerAssignment(loan.getId(), loanOfficer == null ? null
+                : loanOfficer.getId(), submittedOnDate, statusId);
+
+        @SuppressWarnings("unchecked")
+        final Set<LoanOfficerAssignmentHistory> loanOfficerHistory = (Set<LoanOfficerAssignmentHistory>) get(loan, "loanOfficerHistory");
+        for (final LoanOfficerAssignmentHistory historyRecord : loanOfficerHistory) {
+            final Date endDate = (Date) get(historyRecord, "endDate");
+            assignment.addHistoryRecord(historyRecord.getId(), ((Staff) get(historyRecord, "loanOfficer")).getId(),
+                    historyRecord.getStartDate(), endDate == null ? null : new LocalDate(endDate));
+        }
+        return assignment;
+    }
+
+    private static Loan loan(final Long id, final Integer statusId, final LocalDate submittedOnDate) throws Exception {
+        final Constructor<Loan> constructor = Loan.class.getDeclaredConstructor();
+        constructor.setAccessible(true);
+        final Loan loan = constructor.newInstance();
+        setId(loan, id);
+        set(loan, "loanStatus", statusId);
+        set(loan, "submittedOnDate", submittedOnDate.toDate());
+        return loan;
+    }
+
+    private static Staff staff(final Long id) throws Exception {
+        final Constructor<Staff> constructor = Staff.class.getDeclaredConstructor();
+        constructor.setAccessible(true);
+        final Staff staff = constructor.newInstance();
+        setId(staff, id);
+        return staff;
+    }
+
+    private static void setId(final AbstractPersistable<Long> entity, final Long id) throws Exception {
+        final Field field = AbstractPersistable.class.getDeclaredField("id");
+        field.setAccessible(true);
+        field.set(entity, id);
+    }
+
+    private static void set(final Object target, final String name, final Object value) throws Exception {
+        final Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+
+    private static Object get(final Object target, final String name) throws Exception {
+        final Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        return field.get(target);
+    }
+}
@@ -0,0 +1,299 @@
+package org.mifosplatform.portfolio.loanaccount;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.anySetOf;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.joda.time.LocalDate;
+import org.junit.Test;
+import org.mifosplatform.organisation.monetary.domain.MonetaryCurrency;
+import org.mifosplatform.organisation.monetary.domain.Money;
+import org.mifosplatform.portfolio.charge.domain.Charge;
+import org.mifosplatform.portfolio.charge.domain.ChargeCalculationType;
+import org.mifosplatform.portfolio.charge.domain.ChargeTimeType;
+import org.mifosplatform.portfolio.loanaccount.domain.CreocoreLoanRepaymentScheduleTransactionProcessor;
+import org.mifosplatform.portfolio.loanaccount.domain.HeavensFamilyLoanRepaymentScheduleTransactionProcessor;
+import org.mifosplatform.portfolio.loanaccount.domain.LoanCharge;
+import org.mifosplatform.portfolio.loanaccount.domain.LoanRepaymentScheduleInstallment;
+import org.mifosplatform.portfolio.loanaccount.domain.LoanRepaymentScheduleTransactionProcessor;
+import org.mifosplatform.portfolio.loanaccount.domain.LoanTransaction;
+import org.mifosplatform.portfolio.loanaccount.domain.LoanTransactionComparator;
+import org.mifosplatform.portfolio.loanaccount.domain.MifosStyleLoanRepaymentScheduleTransactionProcessor;
+import org.mifosplatform.portfolio.loanaccount.domain.RBILoanRepaymentScheduleTransactionProcessor;
+
+/**
+ * Property: reprocessing the transactions of a loan after a backdated
+ * transaction is added, or an existing one is reversed or adjusted, gives the
+ * same schedule and transaction breakdown whether it restarts from the
+ * checkpoints stored by an earlier reprocessing or from disbursement.
+ *
+ * Checked against randomly generated schedules and transaction histories for
+ * each of the transaction processing strategies, with and without fee and
+ * penalty charges. Each reprocessing after a change is also checked to have
+ * restarted from the last checkpoint before the earliest changed transaction.
+ */
+public class LoanTransactionReplayFromCheckpointTest {
+
+    private static final long SEED = 20130301L;
+    private static final int NUMBER_OF_HISTORIES = 150;
+    private static final int CHECKPOINT_INTERVAL = 16;
+
+    private final MonetaryCurrency usDollars = new MonetaryCurrencyBuilder().withCode("USD").withDigitsAfterDecimal(2).build();
+    private final LocalDate disbursementDate = new LocalDate(2012, 1, 2);
+
+    @Test
+    public void reprocessingFromCheckpointShouldMatchReprocessingFromDisbursement() {
+        checkReprocessing(new Random(SEED), false);
+    }
+
+    @Test
+    public void reprocessingWithChargesFromCheckpointShouldMatchReprocessingFromDisbursement() {
+        checkReprocessing(new Random(SEED + 1), true);
+    }
+
+    private void checkReprocessing(final Random random, final boolean withCharges) {
+
+        for (int history = 0; history < NUMBER_OF_HISTORIES; history++) {
+            for (final LoanRepaymentScheduleTransactionProcessor processor : processors()) {
+                final int numberOfInstallments = 5 + random.nextInt(60);
+                final int termInDays = numberOfInstallments * 7;
+                final long scheduleSeed = random.nextLong();
+                final long chargesSeed = random.nextLong();
+
+                // replaying the original history stores the checkpoints
+                final List<LoanRepaymentScheduleInstallment> installments = weeklySchedule(numberOfInstallments, new Random(scheduleSeed));
+                final Set<LoanCharge> charges = charges(withCharges, new Random(chargesSeed), termInDays);
+                final List<LoanTransaction> transactions = randomHistory(random, termInDays);
+                processor.handleTransaction(disbursementDate, transactions, usDollars, installments, charges);
+
+                final List<LoanTransaction> originalTransactions = new ArrayList<LoanTransaction>(transactions);
+                mutate(random, transactions, termInDays);
+
+                final LoanRepaymentScheduleTransactionProcessor replayingProcessor = spy(processor);
+                replayingProcessor.handleTransaction(disbursementDate, transactions, usDollars, installments, charges);
+
+                final List<LoanRepaymentScheduleInstallment> expectedInstallments = weeklySchedule(numberOfInstallments, new Random(
+                        scheduleSeed));
+                final Set<LoanCharge> expectedCharges = charges(withCharges, new Random(chargesSeed), termInDays);
+                final List<LoanTransaction> expectedTransactions = copyOf(transactions);
+                processor.handleTransaction(disbursementDate, expectedTransactions, usDollars, expectedInstallments, expectedCharges);
+
+                final String scenario = processor.getClass().getSimpleName() + " history " + history;
+                assertSameInstallments(scenario, expectedInstallments, installments);
+                assertSameTransactions(scenario, expectedTransactions, transactions);
+                assertSameCharges(scenario, expectedCharges, charges);
+
+                // only the transactions after the restored checkpoint are
+                // processed again
+                final int restoredCheckpoint = lastCheckpointBefore(firstChangedTransaction(originalTransactions, transactions));
+                verify(replayingProcessor, times(transactions.size() - restoredCheckpoint - 1)).handleTransaction(any(LoanTransaction.class),
+                        any(MonetaryCurrency.class), anyListOf(LoanRepaymentScheduleInstallment.class), anySetOf(LoanCharge.class));
+            }
+        }
+    }
+
+    private List<LoanRepaymentScheduleTransactionProcessor> processors() {
+        return Arrays.<LoanRepaymentScheduleTransactionProcessor> asList(new HeavensFamilyLoanRepaymentScheduleTransactionProcessor(),
+                new CreocoreLoanRepaymentScheduleTransactionProcessor(), new RBILoanRepaymentScheduleTransactionProcessor(),
+                new MifosStyleLoanRepaymentScheduleTransactionProcessor());
+    }
+
+    private List<LoanRepaymentScheduleInstallment> weeklySchedule(final int numberOfInstallments, final Random random) {
+        final List<LoanRepaymentScheduleInstallment> installments = new ArrayList<LoanRepaymentScheduleInstallment>();
+        for (int i = 1; i <= numberOfInstallments; i++) {
+            installments.add(new LoanRepaymentScheduleInstallmentBuilder(usDollars).withInstallmentNumber(i)
+                    .withDueDate(disbursementDate.plusWeeks(i)).withPrincipal(randomAmount(random, 50, 500))
+                    .withInterest(randomAmount(random, 0, 50)).build());
+        }
+        return installments;
+    }
+
+    /**
+     * Fee and penalty charges due on distinct days of the term, with ids so
+     * checkpoints can be stored for them.
+     */
+    private Set<LoanCharge> charges(final boolean withCharges, final Random random, final int termInDays) {
+        final Set<LoanCharge> charges = new HashSet<LoanCharge>();
+        if (!withCharges) { return charges; }
+
+        final int numberOfCharges = 1 + random.nextInt(6);
+        final Set<Integer> dueDays = new HashSet<Integer>();
+        for (long id = 1; id <= numberOfCharges; id++) {
+            final int dueDay = 1 + random.nextInt(termInDays);
+            if (!dueDays.add(dueDay)) {
+                continue;
+            }
+            final Charge chargeDefinition = mock(Charge.class);
+            when(chargeDefinition.getId()).thenReturn(id);
+            when(chargeDefinition.isPenalty()).thenReturn(random.nextInt(3) == 0);
+            when(chargeDefinition.getChargeTime()).thenReturn(ChargeTimeType.SPECIFIED_DUE_DATE.getValue());
+            when(chargeDefinition.getChargeCalculation()).thenReturn(ChargeCalculationType.FLAT.getValue());
+
+            charges.add(new SavedLoanCharge(id, chargeDefinition, new BigDecimal(randomAmount(random, 1, 30)), disbursementDate
+                    .plusDays(dueDay)));
+        }
+        return charges;
+    }
+
+    /**
+     * @return the index of the first transaction that was added, reversed or
+     *         adjusted.
+     */
+    private int firstChangedTransaction(final List<LoanTransaction> original, final List<LoanTransaction> changed) {
+        int index = 0;
+        while (index < original.size() && index < changed.size() && original.get(index) == changed.get(index)) {
+            index++;
+        }
+        return index;
+    }
+
+    /**
+     * @return the index of the last transaction before <code>index</code> a
+     *         checkpoint was stored on, or -1 when there is none.
+     */
+    private int lastCheckpointBefore(final int index) {
+        return (index / CHECKPOINT_INTERVAL) * CHECKPOINT_INTERVAL - 1;
+    }
+
+    /**
+     * At least enough transactions for a checkpoint to be stored, mostly
+     * repayments with the odd interest waiver.
+     */
+    private List<LoanTransaction> randomHistory(final Random random, final int termInDays) {
+        final int numberOfTransactions = 17 + random.nextInt(80);
+
+        final List<LoanTransaction> transactions = new ArrayList<LoanTransaction>();
+        for (int i = 0; i < numberOfTransactions; i++) {
+            transactions.add(randomTransaction(random, termInDays));
+        }
+        Collections.sort(transactions, new LoanTransactionComparator());
+        return transactions;
+    }
+
+    /**
+     * Adds a backdated transaction, reverses a transaction or adjusts one.
+     */
+    private void mutate(final Random random, final List<LoanTransaction> transactions, final int termInDays) {
+        switch (random.nextInt(3)) {
+            case 0:
+                transactions.add(randomTransaction(random, termInDays));
+            break;
+            case 1:
+                transactions.remove(random.nextInt(transactions.size()));
+            break;
+            default:
+                transactions.remove(random.nextInt(transactions.size()));
+                transactions.add(randomTransaction(random, termInDays));
+            break;
+        }
+        Collections.sort(transactions, new LoanTransactionComparator());
+    }
+
+    private LoanTransaction randomTransaction(final Random random, final int termInDays) {
+        final LocalDate transactionDate = disbursementDate.plusDays(random.nextInt(termInDays + 30));
+        if (random.nextInt(10) == 0) {
+            final Money waived = new MoneyBuilder().with(usDollars).with(randomAmount(random, 1, 40)).build();
+            return LoanTransaction.waiver(null, waived, transactionDate);
+        }
+        final Money amount = new MoneyBuilder().with(usDollars).with(randomAmount(random, 1, 600)).build();
+        return new LoanTransactionBuilder().repayment().with(amount).with(transactionDate).build();
+    }
+
+    private List<LoanTransaction> copyOf(final List<LoanTransaction> transactions) {
+        final List<LoanTransaction> copies = new ArrayList<LoanTransaction>();
+        for (final LoanTransaction transaction : transactions) {
+            if (transaction.isInterestWaiver()) {
+                copies.add(LoanTransaction.waiver(null, transaction.getAmount(usDollars), transaction.getTransactionDate()));
+            } else {
+                copies.add(LoanTransaction.repayment(transaction.getAmount(usDollars), transaction.getTransactionDate()));
+            }
+        }
+        return copies;
+    }
+
+    private String randomAmount(final Random random, final int min, final int max) {
+        return String.valueOf(min + random.nextInt(max - min + 1)) + "." + String.valueOf(10 + random.nextInt(90));
+    }
+
+    private void assertSameInstallments(final String scenario, final List<LoanRepaymentScheduleInstallment> expected,
+            final List<LoanRepaymentScheduleInstallment> actual) {
+        assertEquals(scenario, expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            final LoanRepaymentScheduleInstallment expectedInstallment = expected.get(i);
+            final LoanRepaymentScheduleInstallment actualInstallment = actual.get(i);
+            final String installment = scenario + " installment " + (i + 1);
+
+            assertSameAmount(installment, expectedInstallment.getPrincipalCompleted(usDollars),
+                    actualInstallment.getPrincipalCompleted(usDollars));
+            assertSameAmount(installment, expectedInstallment.getPrincipalWrittenOff(usDollars),
+                    actualInstallment.getPrincipalWrittenOff(usDollars));
+            assertSameAmount(installment, expectedInstallment.getInterestPaid(usDollars), actualInstallment.getInterestPaid(usDollars));
+            assertSameAmount(installment, expectedInstallment.getInterestWaived(usDollars), actualInstallment.getInterestWaived(usDollars));
+            assertSameAmount(installment, expectedInstallment.getInterestWrittenOff(usDollars),
+                    actualInstallment.getInterestWrittenOff(usDollars));
+            assertSameAmount(installment, expectedInstallment.getFeeChargesPaid(usDollars), actualInstallment.getFeeChargesPaid(usDollars));
+            assertSameAmount(installment, expectedInstallment.getPenaltyChargesPaid(usDollars),
+                    actualInstallment.getPenaltyChargesPaid(usDollars));
+            assertEquals(installment, expectedInstallment.isFullyCompleted(), actualInstallment.isFullyCompleted());
+        }
+    }
+
+    private void assertSameTransactions(final String scenario, final List<LoanTransaction> expected, final List<LoanTransaction> actual) {
+        assertEquals(scenario, expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            final LoanTransaction expectedTransaction = expected.get(i);
+            final LoanTransaction actualTransaction = actual.get(i);
+            final String transaction = scenario + " transaction " + (i + 1);
+
+            assertSameAmount(transaction, expectedTransaction.getPrincipalPortion(usDollars), actualTransaction.getPrincipalPortion(usDollars));
+            assertSameAmount(transaction, expectedTransaction.getInterestPortion(usDollars), actualTransaction.getInterestPortion(usDollars));
+            assertSameAmount(transaction, expectedTransaction.getFeeChargesPortion(usDollars),
+                    actualTransaction.getFeeChargesPortion(usDollars));
+            assertSameAmount(transaction, expectedTransaction.getPenaltyChargesPortion(usDollars),
+                    actualTransaction.getPenaltyChargesPortion(usDollars));
+        }
+    }
+
+    private void assertSameCharges(final String scenario, final Set<LoanCharge> expected, final Set<LoanCharge> actual) {
+        assertEquals(scenario, expected.size(), actual.size());
+        for (final LoanCharge expectedCharge : expected) {
+            for (final LoanCharge actualCharge : actual) {
+                if (expectedCharge.getId().equals(actualCharge.getId())) {
+                    final String charge = scenario + " charge " + expectedCharge.getId();
+                    assertEquals(charge, expectedCharge.isPaid(), actualCharge.isPaid());
+                    assertEquals(charge, expectedCharge.isPaidOrPartiallyPaid(usDollars), actualCharge.isPaidOrPartiallyPaid(usDollars));
+                }
+            }
+        }
+    }
+
+    private void assertSameAmount(final String message, final Money expected, final Money actual) {
+        assertEquals(message, 0, expected.getAmount().compareTo(actual.getAmount()));
+    }
+
+    /**
+     * A loan charge as loaded from the database, with an id.
+     */
+    private static final class SavedLoanCharge extends LoanCharge {
+
+        SavedLoanCharge(final Long id, final Charge chargeDefinition, final BigDecimal amount, final LocalDate dueDate) {
+            super(null, chargeDefinition, null, amount, null, null, dueDate);
+            setId(id);
+        }
+    }
+}
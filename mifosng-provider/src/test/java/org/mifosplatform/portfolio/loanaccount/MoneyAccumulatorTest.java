@@ -0,0 +1,96 @@
+package org.mifosplatform.portfolio.loanaccount;
+
+import static org.junit.Assert.assertEquals;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.junit.Test;
+import org.mifosplatform.organisation.monetary.domain.MonetaryCurrency;
+import org.mifosplatform.organisation.monetary.domain.Money;
+import org.mifosplatform.organisation.monetary.domain.MoneyAccumulator;
+
+/**
+ * Property: any chain of additions and subtractions on a
+ * {@link MoneyAccumulator} gives the same amount as the same chain on
+ * {@link Money}, including amounts with more digits after the decimal point
+ * than the currency and totals that do not fit in a long.
+ */
+public class MoneyAccumulatorTest {
+
+    private static final long SEED = 20130315L;
+    private static final int NUMBER_OF_CHAINS = 2000;
+
+    @Test
+    public void chainOfOperationsShouldMatchMoney() {
+
+        final Random random = new Random(SEED);
+
+        for (int chain = 0; chain < NUMBER_OF_CHAINS; chain++) {
+            final MonetaryCurrency currency = new MonetaryCurrencyBuilder().withCode("XYZ").withDigitsAfterDecimal(random.nextInt(4))
+                    .build();
+
+            Money expected = Money.zero(currency);
+            final MoneyAccumulator actual = new MoneyAccumulator(currency);
+
+            final int numberOfOperations = 1 + random.nextInt(40);
+            for (int operation = 0; operation < numberOfOperations; operation++) {
+                final BigDecimal amount = randomAmount(random);
+                switch (random.nextInt(4)) {
+                    case 0:
+                        expected = expected.plus(amount);
+                        actual.plus(amount);
+                    break;
+                    case 1:
+                        expected = expected.minus(amount);
+                        actual.minus(amount);
+                    break;
+                    case 2:
+                        expected = expected.plus(Money.of(currency, amount));
+                        actual.plus(Money.of(currency, amount));
+                    break;
+                    default:
+                        expected = expected.minus(Money.of(currency, amount));
+                        actual.minus(Money.of(currency, amount));
+                    break;
+                }
+
+                final String scenario = "chain " + chain + " operation " + operation;
+                assertEquals(scenario, expected.getAmount(), actual.toMoney().getAmount());
+                assertEquals(scenario, expected.isZero(), actual.isZero());
+                assertEquals(scenario, expected.isGreaterThanZero(), actual.isGreaterThanZero());
+                assertEquals(scenario, expected.isLessThanZero(), actual.isLessThanZero());
+            }
+        }
+    }
+
+    @Test
+    public void totalBeyondRangeOfLongShouldMatchMoney() {
+        final MonetaryCurrency currency = new MonetaryCurrencyBuilder().withCode("XYZ").withDigitsAfterDecimal(2).build();
+        final BigDecimal large = new BigDecimal(BigInteger.valueOf(Long.MAX_VALUE), 2);
+
+        Money expected = Money.zero(currency);
+        final MoneyAccumulator actual = new MoneyAccumulator(currency);
+        for (int i = 0; i < 3; i++) {
+            expected = expected.plus(large);
+            actual.plus(large);
+        }
+        for (int i = 0; i < 3; i++) {
+            expected = expected.minus(large).minus(new BigDecimal("0.005"));
+            actual.minus(large).minus(new BigDecimal("0.005"));
+        }
+
+        assertEquals(expected.getAmount(), actual.toMoney().getAmount());
+    }
+
+    /**
+     * Mostly amounts at the scale of a currency, some with up to six digits
+     * after the decimal point (as stored) and the odd very large amount.
+     */
+    private BigDecimal randomAmount(final Random random) {
+        final int scale = random.nextInt(7);
+        if (random.nextInt(50) == 0) { return new BigDecimal(new BigInteger(80, random), scale); }
+        return BigDecimal.valueOf(random.nextInt(10000000), scale);
+    }
+}